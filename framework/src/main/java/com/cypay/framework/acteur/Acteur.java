@@ -3,8 +3,15 @@ package com.cypay.framework.acteur;
 import com.cypay.framework.http.HttpResponse;
 import com.cypay.framework.http.HttpMethode;
 import com.cypay.framework.http.HttpReceiver;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.remote.ActeurBatcher;
+import com.cypay.framework.remote.ActeurTransport;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
 
 public abstract class Acteur<T> implements Runnable {
 
@@ -39,6 +46,7 @@ public abstract class Acteur<T> implements Runnable {
     public void demarrer() {
         this.thread = new Thread(this, nom + "-Thread");
         this.thread.start();
+        ActeurRegistry.register(nom, this);
         logger.info("Acteur démarré");
     }
 
@@ -77,6 +85,25 @@ public abstract class Acteur<T> implements Runnable {
         return httpClient.post(url, jsonBody);
     }
 
+    /**
+     * Appels internes : format binaire négocié (voir WireFormat), JSON sinon
+     */
+    protected HttpResponse getEncoded(String url) {
+        return httpClient.getEncoded(url);
+    }
+
+    protected HttpResponse getEncoded(String url, String ifNoneMatch) {
+        return httpClient.getEncoded(url, ifNoneMatch);
+    }
+
+    protected HttpResponse postEncoded(String url, Object dto) {
+        return httpClient.postEncoded(url, dto);
+    }
+
+    protected HttpResponse postEncoded(String url, Object dto, String idempotencyKey) {
+        return httpClient.postEncoded(url, dto, idempotencyKey);
+    }
+
     protected HttpResponse put(String url, String jsonBody) {
         return httpClient.put(url, jsonBody);
     }
@@ -165,6 +192,7 @@ public abstract class Acteur<T> implements Runnable {
      */
     public void arreter() {
         this.running = false;
+        ActeurRegistry.unregister(nom, this);
         if (thread != null) {
             thread.interrupt();
         }
@@ -230,6 +258,15 @@ public abstract class Acteur<T> implements Runnable {
     protected HttpResponse sendToService(String host, int port, String path,
                                          HttpMethode method, String jsonBody) {
 
+        // POST /acteur/{nom}/message vers un acteur de cette JVM : pas de réseau
+        String acteurName = method == HttpMethode.POST ? ActeurRegistry.acteurNameOf(path) : null;
+        if (acteurName != null) {
+            HttpResponse local = deliverLocally(host, port, acteurName, jsonBody);
+            if (local != null) {
+                return local;
+            }
+        }
+
         String url = buildUrl(host, port, path);
 
         log("[OUT] -> " + host + ":" + port + " " + method + " " + path);
@@ -272,7 +309,10 @@ public abstract class Acteur<T> implements Runnable {
     }
 
     /**
-     * Envoie un message JSON vers un autre acteur distant (méthode POST)
+     * Envoie un message JSON vers un autre acteur distant
+     * Un acteur de cette JVM (voir ActeurRegistry) reçoit le message directement.
+     * Sinon premier envoi en POST HTTP ; si le pair annonce le transport natif
+     * (voir ActeurTransport), les envois suivants passent par une connexion persistante.
      *
      * @param host Hostname du microservice distant
      * @param port Port du microservice
@@ -281,17 +321,32 @@ public abstract class Acteur<T> implements Runnable {
      * @return HttpResponse
      *
      * @example
-     * String json = gson.toJson(new PaymentRequest("user123", 1000));
+     * String json = JsonCodec.toJson(new PaymentRequest("user123", 1000));
      * HttpResponse response = sendToActeur("payment-service", 8082, "PaymentActeur", json);
      */
     protected HttpResponse sendToActeur(String host, int port,
                                         String acteurName, String messageJson) {
 
+        HttpResponse local = deliverLocally(host, port, acteurName, messageJson);
+        if (local != null) {
+            return local;
+        }
+        ActeurRegistry.recordDelivery(false);
+
+        // Transport natif si le pair l'a déjà annoncé, HTTP sinon
+        HttpResponse direct = ActeurTransport.trySend(host, port, acteurName, nom, messageJson);
+        if (direct != null) {
+            return direct;
+        }
+
         String path = "/acteur/" + acteurName + "/message";
 
         log("[MSG-OUT] -> Remote Actor: " + acteurName);
+        ActeurMetrics.increment(ActeurMetrics.name("acteur.remote.sent", "transport", "http"));
 
-        return sendToService(host, port, path, HttpMethode.POST, messageJson);
+        HttpResponse response = sendToService(host, port, path, HttpMethode.POST, messageJson);
+        ActeurTransport.learn(host, port, response);
+        return response;
     }
 
     /**
@@ -308,6 +363,7 @@ public abstract class Acteur<T> implements Runnable {
 
     /**
      * Envoie un objet vers un acteur distant (sérialisation automatique en JSON)
+     * Un acteur de cette JVM reçoit l'objet tel quel, sans sérialisation.
      *
      * @param host Hostname
      * @param port Port
@@ -322,6 +378,12 @@ public abstract class Acteur<T> implements Runnable {
     protected HttpResponse sendToActeur(String host, int port,
                                         String acteurName, Object message) {
 
+        if (ActeurRegistry.isLocal(host, port) && ActeurRegistry.deliverObject(acteurName, nom, message)) {
+            log("[MSG-LOCAL] -> " + acteurName);
+            ActeurRegistry.recordDelivery(true);
+            return accepted();
+        }
+
         // Sérialiser l'objet en JSON
         String json = serializeToJson(message);
 
@@ -335,6 +397,23 @@ public abstract class Acteur<T> implements Runnable {
         return sendToActeur("localhost", port, acteurName, message);
     }
 
+    /**
+     * Envoi groupé vers un acteur distant : les messages vers un même acteur sont
+     * regroupés pendant une courte fenêtre et partent en une seule requête (voir ActeurBatcher).
+     * Un acteur de cette JVM reçoit l'objet directement.
+     *
+     * @return Future complétée avec l'acquittement propre à ce message
+     */
+    protected CompletableFuture<HttpResponse> sendToActeurBatched(String host, int port,
+                                                                  String acteurName, Object message) {
+        if (ActeurRegistry.isLocal(host, port) && ActeurRegistry.deliverObject(acteurName, nom, message)) {
+            ActeurRegistry.recordDelivery(true);
+            return CompletableFuture.completedFuture(accepted());
+        }
+        ActeurRegistry.recordDelivery(false);
+        return ActeurBatcher.submit(host, port, acteurName, nom, serializeToJson(message));
+    }
+
     /**
      * GET vers un service distant
      */
@@ -384,6 +463,31 @@ public abstract class Acteur<T> implements Runnable {
         return httpClient.patch(url, jsonBody);
     }
 
+    /**
+     * Remise en mailbox si host:port est cette JVM et que l'acteur y est enregistré avec un type
+     *
+     * @return null si le message doit partir sur le réseau
+     */
+    private HttpResponse deliverLocally(String host, int port, String acteurName, String messageJson) {
+        if (!ActeurRegistry.isLocal(host, port)) {
+            return null;
+        }
+        try {
+            if (!ActeurRegistry.deliverJson(acteurName, nom, messageJson)) {
+                return null;
+            }
+        } catch (RuntimeException e) {
+            return new HttpResponse(400, "{\"error\": \"Message invalide\"}", Map.of());
+        }
+        log("[MSG-LOCAL] -> " + acteurName);
+        ActeurRegistry.recordDelivery(true);
+        return accepted();
+    }
+
+    private static HttpResponse accepted() {
+        return new HttpResponse(202, "{\"status\": \"accepted\"}", Map.of());
+    }
+
     /**
      * Construit l'URL complète
      */
@@ -397,22 +501,10 @@ public abstract class Acteur<T> implements Runnable {
     }
 
     /**
-     * Sérialise un objet en JSON
-     * Utilise Gson si disponible, sinon toString()
+     * Sérialise un objet en JSON via le codec partagé
      */
     private String serializeToJson(Object obj) {
-        try {
-            // Essayer avec Gson
-            Class<?> gsonClass = Class.forName("com.google.gson.Gson");
-            Object gson = gsonClass.getDeclaredConstructor().newInstance();
-            java.lang.reflect.Method toJson = gsonClass.getMethod("toJson", Object.class);
-            return (String) toJson.invoke(gson, obj);
-
-        } catch (Exception e) {
-            // Fallback : toString() ou format simple
-            log("[WARN] Gson not available, using toString()");
-            return String.format("{\"data\": \"%s\"}", obj.toString());
-        }
+        return JsonCodec.toJson(obj);
     }
 
     // ========================================
@@ -434,22 +526,15 @@ public abstract class Acteur<T> implements Runnable {
     }
 
     /**
-     * Extrait un champ JSON simple de la réponse
-     * (implémentation basique, pour production utilisez Jackson/Gson)
+     * Extrait un champ JSON de premier niveau de la réponse (lecture en flux, sans regex)
      */
     protected String extractJsonField(String json, String fieldName) {
         try {
-            String pattern = "\"" + fieldName + "\"\\s*:\\s*\"([^\"]+)\"";
-            java.util.regex.Pattern p = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher m = p.matcher(json);
-
-            if (m.find()) {
-                return m.group(1);
-            }
+            return JsonCodec.readField(json, fieldName);
         } catch (Exception e) {
             log("[WARN] JSON extraction error : " + fieldName);
+            return null;
         }
-        return null;
     }
 
     /**
@@ -473,115 +558,82 @@ public abstract class Acteur<T> implements Runnable {
     }
 
     /**
-     * Retry automatique avec backoff exponentiel
+     * Retry automatique avec backoff à gigue décorrélée
+     * Bloque le thread appelant jusqu'au résultat final : dans un acteur, préférer
+     * {@link #sendToServiceWithRetryAsync} ou la variante qui renvoie la réponse dans la mailbox.
      */
     protected HttpResponse sendToServiceWithRetry(String host, int port, String path,
                                                   HttpMethode method, String jsonBody,
                                                   int maxRetries) {
+        return sendToServiceWithRetryAsync(host, port, path, method, jsonBody, maxRetries).join();
+    }
 
-        HttpResponse response = null;
-
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                response = sendToService(host, port, path, method, jsonBody);
-
-                if (response.isSuccess()) {
-                    return response;
-                }
-
-                log("[WARN] Attempt " + attempt + "/" + maxRetries + " failed");
-
-                if (attempt < maxRetries) {
-                    long delay = (long) Math.pow(2, attempt - 1) * 1000; // Backoff exponentiel
-                    Thread.sleep(delay);
-                }
+    /**
+     * Retry non bloquant : les délais sont planifiés sur le timer partagé
+     * d'ActeurHttpClient et limités par le budget de retries de la destination
+     *
+     * @param maxAttempts Nombre total de tentatives
+     * @return Future complétée avec la dernière réponse obtenue
+     */
+    protected CompletableFuture<HttpResponse> sendToServiceWithRetryAsync(String host, int port, String path,
+                                                                          HttpMethode method, String jsonBody,
+                                                                          int maxAttempts) {
+        String url = buildUrl(host, port, path);
 
-            } catch (Exception e) {
-                logErreur("Erreur tentative " + attempt, e);
+        log("[OUT] -> " + host + ":" + port + " " + method + " " + path + " (retry x" + maxAttempts + ")");
 
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(1000 * attempt);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
+        CustomHttpRequest request = CustomHttpRequest.builder()
+                .url(url)
+                .method(method.name());
+        if (jsonBody != null) {
+            request.header("Content-Type", "application/json").body(jsonBody);
         }
 
-        logErreur("[FAILURE] Max retries exceeded (" + maxRetries + ")",
-                new Exception("Max retries exceeded"));
-
-        return response;
+        return httpClient.executeWithRetry(request, ActeurHttpClient.getRetryPolicy().withMaxAttempts(maxAttempts))
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        logErreur("[FAILURE] " + method + " " + path, new Exception(error));
+                    } else if (response.isSuccess()) {
+                        log("[RESP] [SUCCESS] " + response.getStatusCode());
+                    } else {
+                        log("[RESP] [ERROR] " + response.getStatusCode());
+                    }
+                });
     }
 
     /**
-     * Circuit breaker simple
-     */
-    private static class CircuitBreaker {
-        private int failureCount = 0;
-        private long lastFailureTime = 0;
-        private static final int FAILURE_THRESHOLD = 5;
-        private static final long TIMEOUT_MS = 60000;
-
-        public boolean isOpen() {
-            if (failureCount >= FAILURE_THRESHOLD) {
-                long elapsed = System.currentTimeMillis() - lastFailureTime;
-                if (elapsed < TIMEOUT_MS) {
-                    return true;
-                } else {
-                    reset();
-                }
-            }
-            return false;
-        }
-
-        public void recordFailure() {
-            failureCount++;
-            lastFailureTime = System.currentTimeMillis();
-        }
-
-        public void reset() {
-            failureCount = 0;
-        }
+     * Retry non bloquant dont le résultat revient à l'acteur par sa mailbox :
+     * le message produit par toMessage est traité par traiterMessage comme les autres,
+     * sans que l'acteur reste bloqué pendant les attentes
+     *
+     * Un échec sans réponse est livré comme une réponse 500 : l'acteur est toujours prévenu.
+     *
+     * @param toMessage Conversion de la réponse finale en message pour cet acteur
+     */
+    protected void sendToServiceWithRetry(String host, int port, String path,
+                                          HttpMethode method, String jsonBody, int maxAttempts,
+                                          Function<HttpResponse, ? extends T> toMessage) {
+        sendToServiceWithRetryAsync(host, port, path, method, jsonBody, maxAttempts)
+                .handle((response, error) -> error == null ? response
+                        : new HttpResponse(500, JsonCodec.toJson(Map.of("error", String.valueOf(error.getMessage()))), Map.of()))
+                .thenAccept(response -> envoyer(new Message<>(nom, toMessage.apply(response))))
+                .exceptionally(error -> {
+                    logErreur("[FAILURE] Réponse de " + method + " " + path + " non livrée", new Exception(error));
+                    return null;
+                });
     }
 
-    private final java.util.Map<String, CircuitBreaker> circuitBreakers =
-            new java.util.concurrent.ConcurrentHashMap<>();
-
     /**
-     * Envoie avec circuit breaker automatique
+     * Envoie avec circuit breaker
+     * Tous les appels sortants passent désormais par le circuit breaker par destination
+     * d'ActeurHttpClient : cette méthode est conservée pour compatibilité.
+     *
+     * @deprecated utiliser {@link #sendToService(String, int, String, HttpMethode, String)}
      */
+    @Deprecated
     protected HttpResponse sendToServiceWithCircuitBreaker(String host, int port,
                                                            String path, HttpMethode method,
                                                            String jsonBody) {
-
-        String serviceKey = host + ":" + port;
-        CircuitBreaker breaker = circuitBreakers.computeIfAbsent(serviceKey,
-                k -> new CircuitBreaker());
-
-        if (breaker.isOpen()) {
-            log("[WARN] Circuit breaker OPEN for " + serviceKey);
-            // Retourner une erreur 503
-            return new HttpResponse(503, "{\"error\": \"Service unavailable (circuit open)\"}",
-                    java.util.Map.of());
-        }
-
-        try {
-            HttpResponse response = sendToService(host, port, path, method, jsonBody);
-
-            if (response.isSuccess()) {
-                breaker.reset();
-            } else {
-                breaker.recordFailure();
-            }
-
-            return response;
-
-        } catch (Exception e) {
-            breaker.recordFailure();
-            throw e;
-        }
+        return sendToService(host, port, path, method, jsonBody);
     }
 }
\ No newline at end of file
@@ -1,19 +1,84 @@
 package com.cypay.framework.acteur;
 
 import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.resilience.AdaptiveConcurrencyLimiter;
+import com.cypay.framework.resilience.CircuitBreaker;
+import com.cypay.framework.resilience.RetryBudget;
+import com.cypay.framework.resilience.RetryPolicy;
+import com.cypay.framework.resilience.SingleFlight;
+import com.cypay.framework.wire.WireFormat;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 /**
  * Client HTTP intégré pour les acteurs
  * Utilise java.net.http.HttpClient (Java 11+)
+ *
+ * Chaque appel sortant passe par un circuit breaker puis par un limiteur de
+ * concurrence adaptatif, tous deux partagés par destination (host:port) entre
+ * tous les acteurs de la JVM. Les retries sont asynchrones et bornés par un
+ * budget de retries par destination.
  */
 public class ActeurHttpClient {
 
+    /**
+     * Header de déduplication : une requête rejouée avec la même clé n'est appliquée qu'une fois
+     */
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private static final Map<String, AdaptiveConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+    private static volatile AdaptiveConcurrencyLimiter.Config limiterConfig = AdaptiveConcurrencyLimiter.Config.DEFAULT;
+    private static final Map<String, CircuitBreaker> CIRCUIT_BREAKERS = new ConcurrentHashMap<>();
+    private static volatile CircuitBreaker.Config circuitBreakerConfig = CircuitBreaker.Config.DEFAULT;
+    private static final Map<String, RetryBudget> RETRY_BUDGETS = new ConcurrentHashMap<>();
+    private static volatile RetryBudget.Config retryBudgetConfig = RetryBudget.Config.DEFAULT;
+    private static volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private static final List<SingleFlightRoute> SINGLE_FLIGHT_ROUTES = new CopyOnWriteArrayList<>();
+    private static final SingleFlight<String, HttpResponse> SINGLE_FLIGHT = new SingleFlight<>();
+
+    static {
+        ActeurMetrics.gauge("http.single_flight.in_flight", SINGLE_FLIGHT::getInFlightCount);
+        ActeurMetrics.gauge("http.single_flight.coalesced", SINGLE_FLIGHT::getCoalescedCount);
+    }
+
+    /**
+     * Timer partagé des retries : un délai d'attente n'occupe aucun thread d'acteur
+     */
+    private static final ScheduledExecutorService RETRY_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "acteur-retry-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Exécution des retries planifiés : l'attente du limiteur d'une destination saturée
+     * n'occupe pas le timer, dont dépendent les retries de toutes les destinations
+     */
+    private static final ExecutorService RETRY_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "acteur-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final HttpClient client;
     private final ActeurLogger logger;
 
@@ -22,6 +87,127 @@ public class ActeurHttpClient {
         this.logger = logger;
     }
 
+    /**
+     * Configure les limiteurs de concurrence (s'applique aux destinations créées ensuite)
+     */
+    public static void configureLimiter(AdaptiveConcurrencyLimiter.Config config) {
+        limiterConfig = config;
+        LIMITERS.clear();
+    }
+
+    /**
+     * Limiteur associé à une destination host:port
+     */
+    public static AdaptiveConcurrencyLimiter limiterFor(String destination) {
+        return LIMITERS.computeIfAbsent(destination, d -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(d, limiterConfig);
+            ActeurMetrics.gauge(ActeurMetrics.name("limiter.limit", "destination", d), limiter::getLimit);
+            ActeurMetrics.gauge(ActeurMetrics.name("limiter.in_flight", "destination", d), limiter::getInFlight);
+            ActeurMetrics.gauge(ActeurMetrics.name("limiter.rejected", "destination", d), limiter::getRejectedCount);
+            return limiter;
+        });
+    }
+
+    /**
+     * Configure les circuit breakers (s'applique aux destinations créées ensuite)
+     */
+    public static void configureCircuitBreaker(CircuitBreaker.Config config) {
+        circuitBreakerConfig = config;
+        CIRCUIT_BREAKERS.clear();
+    }
+
+    /**
+     * Circuit breaker associé à une destination host:port
+     */
+    public static CircuitBreaker circuitBreakerFor(String destination) {
+        return CIRCUIT_BREAKERS.computeIfAbsent(destination,
+                d -> new CircuitBreaker(d, circuitBreakerConfig));
+    }
+
+    /**
+     * Configure les budgets de retries (s'applique aux destinations créées ensuite)
+     */
+    public static void configureRetryBudget(RetryBudget.Config config) {
+        retryBudgetConfig = config;
+        RETRY_BUDGETS.clear();
+    }
+
+    /**
+     * Bornes du backoff utilisées par défaut par les acteurs
+     */
+    public static void configureRetryPolicy(RetryPolicy policy) {
+        retryPolicy = policy;
+    }
+
+    public static RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Budget de retries associé à une destination host:port
+     */
+    public static RetryBudget retryBudgetFor(String destination) {
+        return RETRY_BUDGETS.computeIfAbsent(destination, d -> {
+            RetryBudget budget = new RetryBudget(retryBudgetConfig);
+            ActeurMetrics.gauge(ActeurMetrics.name("retry.budget_available", "destination", d),
+                    budget::getAvailableRetries);
+            return budget;
+        });
+    }
+
+    /**
+     * Active le single-flight pour une route : les GET identiques simultanés
+     * partagent un seul appel sortant et sa réponse.
+     * Deux requêtes sont identiques si elles ont même URL et mêmes headers Authorization,
+     * Accept et If-None-Match (un 304 ne sert qu'à l'appelant qui a la version en cache).
+     *
+     * @param routePattern Chemin avec variables, ex: "/api/wallets/{userId}/{currency}"
+     */
+    public static boolean enableSingleFlight(String routePattern) {
+        return enableSingleFlight(routePattern, ActeurHttpClient::defaultSingleFlightKey);
+    }
+
+    /**
+     * Active le single-flight pour une route avec une fonction de clé propre
+     *
+     * Une route déjà activée n'est pas ajoutée une seconde fois (un client par instance
+     * peut donc l'activer dans son constructeur).
+     *
+     * @param routePattern Chemin avec variables, ex: "/users/{id}"
+     * @param keyFunction Clé des requêtes considérées comme identiques (la destination y est ajoutée)
+     * @return false si la route était déjà activée
+     */
+    public static synchronized boolean enableSingleFlight(String routePattern, Function<HttpRequest, String> keyFunction) {
+        for (SingleFlightRoute route : SINGLE_FLIGHT_ROUTES) {
+            if (route.routePattern().equals(routePattern)) {
+                return false;
+            }
+        }
+        return SINGLE_FLIGHT_ROUTES.add(new SingleFlightRoute(routePattern, compileRoute(routePattern), keyFunction));
+    }
+
+    public static synchronized void disableSingleFlight() {
+        SINGLE_FLIGHT_ROUTES.clear();
+    }
+
+    /**
+     * "/users/{id}" -> segments littéraux échappés, variables = un segment quelconque
+     */
+    private static Pattern compileRoute(String routePattern) {
+        StringJoiner regex = new StringJoiner("/");
+        for (String segment : routePattern.split("/", -1)) {
+            boolean variable = segment.startsWith("{") && segment.endsWith("}");
+            regex.add(variable ? "[^/]+" : Pattern.quote(segment));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String defaultSingleFlightKey(HttpRequest request) {
+        return request.uri() + "|" + request.headers().firstValue("Authorization").orElse("")
+                + "|" + request.headers().firstValue("Accept").orElse("")
+                + "|" + request.headers().firstValue("If-None-Match").orElse("");
+    }
+
     /**
      * Requête HTTP GET
      *
@@ -29,21 +215,12 @@ public class ActeurHttpClient {
      * @return HttpResponse avec status, body, headers
      */
     public HttpResponse get(String url) {
-        try {
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .build();
-
-            var response = client.send(request, BodyHandlers.ofString());
-            logger.httpRequest("GET", url, response.statusCode());
-            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .GET()
+                .build();
 
-        } catch (IOException | InterruptedException e) {
-            logger.erreur("Erreur lors du GET " + url, e);
-            Thread.currentThread().interrupt();
-            return new HttpResponse(500, e.getMessage(), Map.of());
-        }
+        return send("GET", url, request);
     }
 
     /**
@@ -54,22 +231,13 @@ public class ActeurHttpClient {
      * @return HttpResponse
      */
     public HttpResponse post(String url, String jsonBody) {
-        try {
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody == null ? "" : jsonBody))
-                    .build();
-
-            var response = client.send(request, BodyHandlers.ofString());
-            logger.httpRequest("POST", url, response.statusCode());
-            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody == null ? "" : jsonBody))
+                .build();
 
-        } catch (IOException | InterruptedException e) {
-            logger.erreur("Erreur lors du POST " + url, e);
-            Thread.currentThread().interrupt();
-            return new HttpResponse(500, e.getMessage(), Map.of());
-        }
+        return send("POST", url, request);
     }
 
     /**
@@ -80,22 +248,13 @@ public class ActeurHttpClient {
      * @return HttpResponse
      */
     public HttpResponse put(String url, String jsonBody) {
-        try {
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .PUT(HttpRequest.BodyPublishers.ofString(jsonBody == null ? "" : jsonBody))
-                    .build();
-
-            var response = client.send(request, BodyHandlers.ofString());
-            logger.httpRequest("PUT", url, response.statusCode());
-            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(jsonBody == null ? "" : jsonBody))
+                .build();
 
-        } catch (IOException | InterruptedException e) {
-            logger.erreur("Erreur lors du PUT " + url, e);
-            Thread.currentThread().interrupt();
-            return new HttpResponse(500, e.getMessage(), Map.of());
-        }
+        return send("PUT", url, request);
     }
 
     /**
@@ -105,21 +264,12 @@ public class ActeurHttpClient {
      * @return HttpResponse
      */
     public HttpResponse delete(String url) {
-        try {
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .DELETE()
-                    .build();
-
-            var response = client.send(request, BodyHandlers.ofString());
-            logger.httpRequest("DELETE", url, response.statusCode());
-            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .DELETE()
+                .build();
 
-        } catch (IOException | InterruptedException e) {
-            logger.erreur("Erreur lors du DELETE " + url, e);
-            Thread.currentThread().interrupt();
-            return new HttpResponse(500, e.getMessage(), Map.of());
-        }
+        return send("DELETE", url, request);
     }
 
     /**
@@ -130,22 +280,88 @@ public class ActeurHttpClient {
      * @return HttpResponse
      */
     public HttpResponse patch(String url, String jsonBody) {
-        try {
-            var request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("Content-Type", "application/json")
-                    .method("PATCH", HttpRequest.BodyPublishers.ofString(jsonBody == null ? "" : jsonBody))
-                    .build();
-
-            var response = client.send(request, BodyHandlers.ofString());
-            logger.httpRequest("PATCH", url, response.statusCode());
-            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(jsonBody == null ? "" : jsonBody))
+                .build();
 
-        } catch (IOException | InterruptedException e) {
-            logger.erreur("Erreur lors du PATCH " + url, e);
-            Thread.currentThread().interrupt();
-            return new HttpResponse(500, e.getMessage(), Map.of());
+        return send("PATCH", url, request);
+    }
+
+    /**
+     * GET d'un appel interne : annonce le format binaire, la réponse reste lisible
+     * via HttpResponse.as(Class) quel que soit le format choisi par le serveur
+     *
+     * @param url URL complète
+     * @return HttpResponse
+     */
+    public HttpResponse getEncoded(String url) {
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", WireFormat.ACCEPT)
+                .GET()
+                .build();
+
+        return send("GET", url, request);
+    }
+
+    /**
+     * GET conditionnel d'un appel interne : 304 sans corps si la ressource a toujours l'ETag donné
+     *
+     * @param url URL complète
+     * @param ifNoneMatch ETag de la version en cache (null = GET normal)
+     * @return HttpResponse
+     */
+    public HttpResponse getEncoded(String url, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return getEncoded(url);
+        }
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", WireFormat.ACCEPT)
+                .header("If-None-Match", ifNoneMatch)
+                .GET()
+                .build();
+
+        return send("GET", url, request);
+    }
+
+    /**
+     * POST d'un DTO pour un appel interne : corps binaire si un codec est enregistré
+     * pour son type (WireFormat), JSON sinon
+     *
+     * @param url URL complète
+     * @param dto Objet à envoyer
+     * @return HttpResponse
+     */
+    public HttpResponse postEncoded(String url, Object dto) {
+        return postEncoded(url, dto, null);
+    }
+
+    /**
+     * POST d'un DTO avec la clé d'idempotence de l'opération : un renvoi de la même
+     * opération (même clé) reçoit la réponse d'origine au lieu d'être réappliqué
+     *
+     * @param idempotencyKey Clé propre à l'opération logique (null = pas de clé)
+     */
+    public HttpResponse postEncoded(String url, Object dto, String idempotencyKey) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept", WireFormat.ACCEPT);
+        if (idempotencyKey != null) {
+            builder.header(IDEMPOTENCY_KEY, idempotencyKey);
         }
+
+        if (WireFormat.supports(dto.getClass())) {
+            builder.header("Content-Type", WireFormat.CONTENT_TYPE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(WireFormat.encode(dto)));
+        } else {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JsonCodec.toBytes(dto)));
+        }
+
+        return send("POST", url, builder.build());
     }
 
     /**
@@ -155,44 +371,270 @@ public class ActeurHttpClient {
      * @return HttpResponse
      */
     public HttpResponse execute(CustomHttpRequest customRequest) {
-        try {
-            // Construction de la requête Java
-            HttpRequest.Builder builder = HttpRequest.newBuilder()
-                    .uri(URI.create(customRequest.getUrl()));
+        return send(customRequest.getMethod(), customRequest.getUrl(), toHttpRequest(customRequest));
+    }
 
-            // Ajout des headers
-            if (customRequest.getHeaders() != null) {
-                customRequest.getHeaders().forEach(builder::header);
+    /**
+     * Exécution asynchrone d'une CustomHttpRequest (une seule tentative)
+     * Le thread appelant n'attend pas la réponse.
+     *
+     * @param customRequest Requête personnalisée
+     * @return Future complétée avec la réponse (jamais en erreur : les échecs réseau donnent un 500)
+     */
+    public CompletableFuture<HttpResponse> executeAsync(CustomHttpRequest customRequest) {
+        return sendAsync(customRequest.getMethod(), customRequest.getUrl(), toHttpRequest(customRequest), true)
+                .thenApply(Outcome::response);
+    }
+
+    /**
+     * Exécution asynchrone avec retries non bloquants
+     *
+     * Les retries concernent les erreurs réseau et les statuts 429/502/503/504.
+     * Chaque retry est planifié sur le timer partagé avec une gigue décorrélée
+     * et doit obtenir un jeton du budget de retries de la destination : pendant
+     * une panne, les retries n'ajoutent donc qu'une fraction bornée de charge.
+     * Un POST ou PATCH sans header Idempotency-Key en reçoit un, identique pour
+     * toutes les tentatives : un serveur qui le gère n'applique la requête qu'une fois.
+     *
+     * @param customRequest Requête personnalisée
+     * @param policy Nombre de tentatives et bornes du backoff
+     * @return Future complétée avec la dernière réponse obtenue
+     */
+    public CompletableFuture<HttpResponse> executeWithRetry(CustomHttpRequest customRequest, RetryPolicy policy) {
+        String method = customRequest.getMethod();
+        String url = customRequest.getUrl();
+        HttpRequest request = withIdempotencyKey(toHttpRequest(customRequest));
+        CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        attempt(method, url, request, policy, 1, 0, result);
+        return result;
+    }
+
+    private void attempt(String method, String url, HttpRequest request, RetryPolicy policy,
+                         int attempt, long previousDelayMs, CompletableFuture<HttpResponse> result) {
+        sendAsync(method, url, request, attempt == 1).whenComplete((outcome, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            HttpResponse response = outcome.response();
+            boolean retryable = outcome.transportFailure() || RetryPolicy.isRetryableStatus(response.getStatusCode());
+            if (!retryable || attempt >= policy.maxAttempts()) {
+                if (retryable) {
+                    logger.info("[FAILURE] " + method + " " + url + " : " + attempt + " tentative(s) sans succès");
+                }
+                result.complete(response);
+                return;
+            }
+
+            String destination = destinationOf(request.uri());
+            if (!retryBudgetFor(destination).tryAcquireRetry()) {
+                ActeurMetrics.increment(ActeurMetrics.name("retry.budget_exhausted", "destination", destination));
+                logger.info("[WARN] Budget de retries épuisé pour " + destination + " : " + method + " " + url
+                        + " abandonné après " + attempt + " tentative(s)");
+                result.complete(response);
+                return;
             }
 
-            String method = customRequest.getMethod();
-            String body = customRequest.getBody();
-
-            // Sélection de la méthode HTTP
-            switch (method) {
-                case "GET" -> builder.GET();
-                case "DELETE" -> builder.DELETE();
-                case "POST" -> builder.POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
-                case "PUT" -> builder.PUT(HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
-                case "PATCH" -> builder.method("PATCH", HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
-                default -> {
-                    if (body == null)
-                        builder.method(method, HttpRequest.BodyPublishers.noBody());
-                    else
-                        builder.method(method, HttpRequest.BodyPublishers.ofString(body));
+            long delayMs = policy.nextDelayMs(previousDelayMs);
+            ActeurMetrics.increment(ActeurMetrics.name("retry.attempts", "destination", destination));
+            logger.info("[WARN] Tentative " + attempt + "/" + policy.maxAttempts() + " échouée ("
+                    + response.getStatusCode() + "), nouvel essai dans " + delayMs + " ms");
+            RETRY_TIMER.schedule(() -> RETRY_EXECUTOR.execute(
+                            () -> attempt(method, url, request, policy, attempt + 1, delayMs, result)),
+                    delayMs, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private static HttpRequest withIdempotencyKey(HttpRequest request) {
+        boolean unsafe = "POST".equals(request.method()) || "PATCH".equals(request.method());
+        if (!unsafe || request.headers().firstValue(IDEMPOTENCY_KEY).isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header(IDEMPOTENCY_KEY, UUID.randomUUID().toString())
+                .build();
+    }
+
+    private static HttpRequest toHttpRequest(CustomHttpRequest customRequest) {
+        // Construction de la requête Java
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(customRequest.getUrl()));
+
+        // Ajout des headers
+        if (customRequest.getHeaders() != null) {
+            customRequest.getHeaders().forEach(builder::header);
+        }
+
+        String method = customRequest.getMethod();
+        String body = customRequest.getBody();
+
+        // Sélection de la méthode HTTP
+        switch (method) {
+            case "GET" -> builder.GET();
+            case "DELETE" -> builder.DELETE();
+            case "POST" -> builder.POST(HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
+            case "PUT" -> builder.PUT(HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
+            case "PATCH" -> builder.method("PATCH", HttpRequest.BodyPublishers.ofString(body == null ? "" : body));
+            default -> {
+                if (body == null)
+                    builder.method(method, HttpRequest.BodyPublishers.noBody());
+                else
+                    builder.method(method, HttpRequest.BodyPublishers.ofString(body));
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Envoi effectif : circuit breaker, puis limiteur de la destination, puis mesure du RTT
+     */
+    private HttpResponse send(String method, String url, HttpRequest request) {
+        if ("GET".equals(method) && !SINGLE_FLIGHT_ROUTES.isEmpty()) {
+            String path = request.uri().getRawPath();
+            for (SingleFlightRoute route : SINGLE_FLIGHT_ROUTES) {
+                if (route.pattern().matcher(path).matches()) {
+                    String key = destinationOf(request.uri()) + " " + route.keyFunction().apply(request);
+                    return SINGLE_FLIGHT.execute(key, () -> sendNow(method, url, request));
                 }
             }
+        }
+        return sendNow(method, url, request);
+    }
 
-            var request = builder.build();
-            var response = client.send(request, BodyHandlers.ofString());
+    private HttpResponse sendNow(String method, String url, HttpRequest request) {
+        Call call = admit(method, url, request, true);
+        if (call.rejection != null) {
+            return call.rejection;
+        }
 
-            logger.httpRequest(method, customRequest.getUrl(), response.statusCode());
-            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        try {
+            return call.completed(client.send(request, BodyHandlers.ofByteArray()));
+
+        } catch (IOException e) {
+            return call.failed(e);
 
-        } catch (IOException | InterruptedException e) {
-            logger.erreur("Erreur lors de l'exécution d'une CustomHttpRequest", e);
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            return new HttpResponse(500, e.getMessage(), Map.of());
+            return call.failed(e);
+        }
+    }
+
+    /**
+     * Envoi asynchrone : mêmes protections que send, sans bloquer le thread appelant
+     * pendant l'échange réseau
+     */
+    private CompletableFuture<Outcome> sendAsync(String method, String url, HttpRequest request, boolean firstAttempt) {
+        Call call = admit(method, url, request, firstAttempt);
+        if (call.rejection != null) {
+            return CompletableFuture.completedFuture(new Outcome(call.rejection, false));
+        }
+
+        return client.sendAsync(request, BodyHandlers.ofByteArray())
+                .handle((response, error) -> error == null
+                        ? new Outcome(call.completed(response), false)
+                        : new Outcome(call.failed(error instanceof CompletionException ? error.getCause() : error), true));
+    }
+
+    /**
+     * @param firstAttempt Seules les requêtes initiales alimentent le budget de retries
+     */
+    private Call admit(String method, String url, HttpRequest request, boolean firstAttempt) {
+        String destination = destinationOf(request.uri());
+        if (firstAttempt) {
+            retryBudgetFor(destination).onRequest();
+        }
+
+        CircuitBreaker breaker = circuitBreakerFor(destination);
+        CircuitBreaker.Permission permission = breaker.tryAcquirePermission();
+
+        if (permission == null) {
+            logger.info("[WARN] Circuit breaker " + breaker.getState() + " pour " + destination
+                    + " : " + method + " " + url + " rejeté");
+            return new Call(new HttpResponse(503, "{\"error\": \"Service unavailable (circuit open)\"}", Map.of()));
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiterFor(destination);
+
+        if (!limiter.acquire()) {
+            breaker.release(permission);
+            logger.info("[WARN] Limite de concurrence atteinte pour " + destination
+                    + " (limite=" + limiter.getLimit() + ") : " + method + " " + url + " rejeté");
+            return new Call(new HttpResponse(503, "{\"error\": \"Service unavailable (concurrency limit)\"}", Map.of()));
+        }
+
+        return new Call(method, url, breaker, permission, limiter);
+    }
+
+    private record SingleFlightRoute(String routePattern, Pattern pattern, Function<HttpRequest, String> keyFunction) {
+    }
+
+    /**
+     * Réponse d'une tentative ; transportFailure distingue une erreur réseau d'un vrai 500
+     */
+    private record Outcome(HttpResponse response, boolean transportFailure) {
+    }
+
+    /**
+     * Appel admis par le circuit breaker et le limiteur : rend les deux à la fin de l'échange
+     */
+    private final class Call {
+        private final HttpResponse rejection;
+        private final String method;
+        private final String url;
+        private final CircuitBreaker breaker;
+        private final CircuitBreaker.Permission permission;
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long start;
+
+        private Call(HttpResponse rejection) {
+            this(rejection, null, null, null, null, null);
+        }
+
+        private Call(String method, String url, CircuitBreaker breaker,
+                     CircuitBreaker.Permission permission, AdaptiveConcurrencyLimiter limiter) {
+            this(null, method, url, breaker, permission, limiter);
+        }
+
+        private Call(HttpResponse rejection, String method, String url, CircuitBreaker breaker,
+                     CircuitBreaker.Permission permission, AdaptiveConcurrencyLimiter limiter) {
+            this.rejection = rejection;
+            this.method = method;
+            this.url = url;
+            this.breaker = breaker;
+            this.permission = permission;
+            this.limiter = limiter;
+            this.start = System.nanoTime();
+        }
+
+        private HttpResponse completed(java.net.http.HttpResponse<byte[]> response) {
+            finish(isOverloadStatus(response.statusCode()), response.statusCode() < 500);
+            logger.httpRequest(method, url, response.statusCode());
+            return new HttpResponse(response.statusCode(), response.body(), response.headers().map());
+        }
+
+        private HttpResponse failed(Throwable error) {
+            finish(!(error instanceof InterruptedException), false);
+            logger.erreur("Erreur lors du " + method + " " + url, error instanceof Exception e ? e : new Exception(error));
+            return new HttpResponse(500, error.getMessage(), Map.of());
+        }
+
+        private void finish(boolean overloaded, boolean success) {
+            long duration = System.nanoTime() - start;
+            limiter.release(duration, overloaded);
+            breaker.onResult(permission, duration, success);
+        }
+    }
+
+    private static boolean isOverloadStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 503 || statusCode == 504;
+    }
+
+    private static String destinationOf(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
         }
+        return uri.getHost() + ":" + port;
     }
-}
\ No newline at end of file
+}
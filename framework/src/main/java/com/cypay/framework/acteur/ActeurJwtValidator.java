@@ -1,9 +1,11 @@
 package com.cypay.framework.acteur;
 
 import com.cypay.framework.security.JwtValidator;
+import io.jsonwebtoken.Claims;
 
 /**
  * Acteur spécialisé dans la validation des tokens JWT
+ * Seuls les échecs sont journalisés : le chemin nominal est appelé à chaque requête.
  */
 public class ActeurJwtValidator {
 
@@ -18,35 +20,36 @@ public class ActeurJwtValidator {
     }
 
     /**
-     * Valide un token JWT
+     * Vérifie le token une seule fois (signature + expiration, avec cache)
+     *
+     * @return les claims, ou null si le token est invalide ou expiré
      */
-    public boolean validerToken(String token) {
+    public Claims verifierToken(String token) {
         try {
-            boolean isValid = jwtValidator.validateToken(token);
-            if (isValid) {
-                logger.info("[SUCCESS] Token validé avec succès");
-            } else {
+            Claims claims = jwtValidator.verify(token);
+            if (claims == null) {
                 logger.erreur("[ERROR] Token invalide ou expiré", new Exception("Token invalide"));
             }
-            return isValid;
+            return claims;
         } catch (Exception e) {
             logger.erreur("[ERROR] Erreur lors de la validation du token", e);
-            return false;
+            return null;
         }
     }
 
+    /**
+     * Valide un token JWT
+     */
+    public boolean validerToken(String token) {
+        return verifierToken(token) != null;
+    }
+
     /**
      * Extrait l'email du token
      */
     public String extraireEmail(String token) {
-        try {
-            String email = jwtValidator.extractEmail(token);
-            logger.info("[INFO] Email extrait du token : " + email);
-            return email;
-        } catch (Exception e) {
-            logger.erreur("[ERROR] Erreur lors de l'extraction de l'email", e);
-            return null;
-        }
+        Claims claims = verifierToken(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     /**
@@ -55,9 +58,7 @@ public class ActeurJwtValidator {
     public boolean validerTokenPourUtilisateur(String token, String email) {
         try {
             boolean isValid = jwtValidator.validateTokenForUser(token, email);
-            if (isValid) {
-                logger.info("[SUCCESS] Token validé pour l'utilisateur : " + email);
-            } else {
+            if (!isValid) {
                 logger.erreur("[ERROR] Token invalide pour l'utilisateur : " + email, new Exception("Token invalide"));
             }
             return isValid;
@@ -72,9 +73,7 @@ public class ActeurJwtValidator {
      */
     public String extraireTokenDepuisHeader(String authorizationHeader) {
         String token = jwtValidator.extractTokenFromHeader(authorizationHeader);
-        if (token != null) {
-            logger.info("[INFO] Token extrait du header");
-        } else {
+        if (token == null) {
             logger.erreur("[ERROR] Aucun token trouvé dans le header", new Exception("Token absent"));
         }
         return token;
@@ -85,9 +84,7 @@ public class ActeurJwtValidator {
      */
     public String genererToken(String email) {
         try {
-            String token = jwtValidator.generateToken(email);
-            logger.info("[SUCCESS] Token généré pour : " + email);
-            return token;
+            return jwtValidator.generateToken(email);
         } catch (Exception e) {
             logger.erreur("[ERROR] Erreur lors de la génération du token", e);
             return null;
@@ -0,0 +1,134 @@
+package com.cypay.framework.acteur;
+
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des acteurs de la JVM, par nom
+ *
+ * Un envoi vers un acteur dont la destination (hôte local + port d'un
+ * HttpReceiver de cette JVM) est locale est remis directement dans sa mailbox,
+ * sans passer par le réseau ni par le JSON.
+ */
+public final class ActeurRegistry {
+
+    public static final String DELIVERED = "acteur.delivered";
+
+    private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "::1");
+
+    private record Entry(Acteur<?> acteur, Class<?> type) {
+    }
+
+    private static final Map<String, Entry> ACTEURS = new ConcurrentHashMap<>();
+    private static final Set<Integer> LOCAL_PORTS = ConcurrentHashMap.newKeySet();
+
+    private ActeurRegistry() {
+    }
+
+    /**
+     * Enregistre un acteur sans type déclaré : visible par lookup, mais rien ne lui est
+     * remis en local (le type de ses messages n'est pas vérifiable) ; le premier acteur
+     * démarré sous un nom le garde jusqu'à son arrêt
+     */
+    public static void register(String name, Acteur<?> acteur) {
+        ACTEURS.putIfAbsent(name, new Entry(acteur, null));
+    }
+
+    /**
+     * Enregistre un acteur avec le type de ses messages (remplace un enregistrement sans type)
+     */
+    public static <T> void register(String name, Acteur<T> acteur, Class<T> type) {
+        ACTEURS.put(name, new Entry(acteur, type));
+    }
+
+    public static void unregister(String name, Acteur<?> acteur) {
+        ACTEURS.computeIfPresent(name, (key, entry) -> entry.acteur() == acteur ? null : entry);
+    }
+
+    public static Acteur<?> lookup(String name) {
+        Entry entry = ACTEURS.get(name);
+        return entry == null ? null : entry.acteur();
+    }
+
+    // ========================================
+    // DESTINATIONS LOCALES
+    // ========================================
+
+    public static void registerLocalPort(int port) {
+        LOCAL_PORTS.add(port);
+    }
+
+    public static void unregisterLocalPort(int port) {
+        LOCAL_PORTS.remove(port);
+    }
+
+    /**
+     * Vrai si host:port désigne un HttpReceiver de cette JVM
+     */
+    public static boolean isLocal(String host, int port) {
+        return LOCAL_PORTS.contains(port) && LOCAL_HOSTS.contains(host);
+    }
+
+    // ========================================
+    // REMISE EN MAILBOX
+    // ========================================
+
+    /**
+     * Remet un objet tel quel (sans sérialisation)
+     *
+     * @return false si l'acteur est inconnu, sans type déclaré ou n'accepte pas ce type de message
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static boolean deliverObject(String name, String emetteur, Object contenu) {
+        Entry entry = ACTEURS.get(name);
+        if (entry == null || entry.type() == null || !entry.type().isInstance(contenu)) {
+            return false;
+        }
+        ((Acteur) entry.acteur()).envoyer(new Message<>(emetteur, contenu));
+        return true;
+    }
+
+    /**
+     * Remet un message JSON converti dans le type déclaré de l'acteur
+     *
+     * @return false si l'acteur est inconnu ou n'a pas de type déclaré
+     * @throws RuntimeException si le JSON est illisible
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static boolean deliverJson(String name, String emetteur, String json) {
+        Entry entry = ACTEURS.get(name);
+        if (entry == null || entry.type() == null) {
+            return false;
+        }
+        Object contenu = JsonCodec.fromJson(json, entry.type());
+        ((Acteur) entry.acteur()).envoyer(new Message<>(emetteur, contenu));
+        return true;
+    }
+
+    static void recordDelivery(boolean local) {
+        ActeurMetrics.increment(ActeurMetrics.name(DELIVERED, "route", local ? "local" : "remote"));
+    }
+
+    /**
+     * Extrait le nom d'acteur d'un chemin /acteur/{nom}/message, null sinon
+     */
+    public static String acteurNameOf(String path) {
+        return acteurNameOf(path, "/message");
+    }
+
+    /**
+     * Extrait le nom d'acteur d'un chemin /acteur/{nom}{suffix}, null sinon
+     */
+    public static String acteurNameOf(String path, String suffix) {
+        String prefix = "/acteur/";
+        if (path == null || !path.startsWith(prefix) || !path.endsWith(suffix)
+                || path.length() <= prefix.length() + suffix.length()) {
+            return null;
+        }
+        return path.substring(prefix.length(), path.length() - suffix.length());
+    }
+}
@@ -0,0 +1,105 @@
+package com.cypay.framework.cache;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache borné dont chaque entrée porte sa propre date d'expiration
+ *
+ * Lecture = une recherche dans une ConcurrentHashMap. Une entrée expirée n'est
+ * jamais renvoyée ; les entrées expirées sont purgées quand le cache est plein,
+ * puis, si besoin, une entrée quelconque est évincée pour rester sous la borne.
+ */
+public class TtlCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtMs) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    public TtlCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Horloge en millisecondes (injectable pour les tests)
+     */
+    public TtlCache(int maxSize, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize doit être > 0");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return la valeur, ou null si absente ou expirée
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs() <= clock.getAsLong()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Ajoute une entrée valable jusqu'à expiresAtMs (ignorée si déjà expirée)
+     */
+    public void put(K key, V value, long expiresAtMs) {
+        long now = clock.getAsLong();
+        if (expiresAtMs <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict(now);
+        }
+        entries.put(key, new Entry<>(value, expiresAtMs));
+    }
+
+    /**
+     * Comme put, mais une entrée valide plus récente que value (selon order) est conservée :
+     * deux écritures concurrentes ne peuvent pas remettre une ancienne version en cache
+     */
+    public void putIfNewer(K key, V value, long expiresAtMs, Comparator<? super V> order) {
+        long now = clock.getAsLong();
+        if (expiresAtMs <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict(now);
+        }
+        entries.compute(key, (k, current) -> current == null || current.expiresAtMs() <= now
+                || order.compare(value, current.value()) >= 0 ? new Entry<>(value, expiresAtMs) : current);
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAtMs() <= now);
+        Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
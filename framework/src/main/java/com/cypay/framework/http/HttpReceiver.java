@@ -1,6 +1,9 @@
 package com.cypay.framework.http;
 
 import com.cypay.framework.acteur.*;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.remote.ActeurTransport;
+import com.cypay.framework.wire.WireFormat;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
 
@@ -8,6 +11,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ✅ HttpReceiver amélioré du framework
@@ -17,8 +24,14 @@ import java.net.InetSocketAddress;
  */
 public class HttpReceiver {
 
+    /**
+     * Attribut de l'échange contenant le corps brut (byte[]) de la requête
+     */
+    public static final String RAW_BODY_ATTRIBUTE = "cypay.rawBody";
+
     private HttpServer server;
     private HttpRequestHandler handler;
+    private final Set<String> streamedPaths = ConcurrentHashMap.newKeySet();
 
     /**
      * Interface pour gérer les requêtes HTTP de manière flexible
@@ -27,6 +40,14 @@ public class HttpReceiver {
         void handle(HttpExchange exchange, String method, String path, String query, String body);
     }
 
+    /**
+     * Le corps des requêtes sur ce chemin n'est pas lu d'avance (mode avancé) :
+     * le handler reçoit body = null et lit exchange.getRequestBody() lui-même
+     */
+    public void streamRequestBody(String path) {
+        streamedPaths.add(path);
+    }
+
     /**
      * ✅ NOUVELLE MÉTHODE : Démarrage avec handler personnalisé
      * Pour applications avancées (Full Acteur)
@@ -39,6 +60,7 @@ public class HttpReceiver {
             server.createContext("/", this::handleRequestAdvanced);
             server.setExecutor(null);
             server.start();
+            ActeurRegistry.registerLocalPort(getPort());
 
             System.out.println("✅ Serveur HTTP démarré sur le port " + port + " (mode avancé)");
 
@@ -57,6 +79,7 @@ public class HttpReceiver {
             server.createContext("/", exchange -> handleRequestSimple(exchange, acteur));
             server.setExecutor(null);
             server.start();
+            ActeurRegistry.registerLocalPort(getPort());
 
             System.out.println("✅ Serveur HTTP démarré sur le port " + port + " (mode simple)");
 
@@ -74,8 +97,16 @@ public class HttpReceiver {
             String path = exchange.getRequestURI().getPath();
             String query = exchange.getRequestURI().getQuery();
 
-            InputStream bodyStream = exchange.getRequestBody();
-            String body = new String(bodyStream.readAllBytes());
+            if (handler != null && streamedPaths.contains(path)) {
+                handler.handle(exchange, method, path, query, null);
+                return;
+            }
+
+            String body = readRequestBody(exchange);
+
+            if (handleActeurMessage(exchange, method, path, body)) {
+                return;
+            }
 
             // ✅ Délègue au handler personnalisé
             if (handler != null) {
@@ -98,8 +129,11 @@ public class HttpReceiver {
         String path = exchange.getRequestURI().getPath();
         String query = exchange.getRequestURI().getQuery();
 
-        InputStream bodyStream = exchange.getRequestBody();
-        String body = new String(bodyStream.readAllBytes());
+        String body = readRequestBody(exchange);
+
+        if (handleActeurMessage(exchange, method, path, body)) {
+            return;
+        }
 
         // ✅ Crée le message et l'envoie à l'acteur
         HttpIncomingMessage msg = new HttpIncomingMessage(method, path, query, body, null);
@@ -113,6 +147,130 @@ public class HttpReceiver {
         os.close();
     }
 
+    /**
+     * POST /acteur/{nom}/message (ou /messages pour un lot) vers un acteur exposé
+     * (ActeurTransport) : remise directe en mailbox et annonce du transport natif dans la réponse
+     *
+     * @return false si la requête ne concerne pas un acteur exposé
+     */
+    private static boolean handleActeurMessage(HttpExchange exchange, String method, String path, String body) throws IOException {
+        if (!"POST".equals(method)) {
+            return false;
+        }
+        String acteurName = ActeurRegistry.acteurNameOf(path);
+        boolean batch = acteurName == null;
+        if (batch) {
+            acteurName = ActeurRegistry.acteurNameOf(path, ActeurTransport.BATCH_SUFFIX);
+        }
+        if (acteurName == null || !ActeurTransport.isExposed(acteurName)) {
+            return false;
+        }
+
+        int status;
+        String responseBody;
+        if (batch) {
+            try {
+                status = 200;
+                responseBody = "{\"statuses\": " + Arrays.toString(ActeurTransport.deliverBatch(acteurName, body)) + "}";
+            } catch (RuntimeException e) {
+                status = 400;
+                responseBody = ActeurTransport.statusBody(status, acteurName);
+            }
+        } else {
+            status = ActeurTransport.deliver(acteurName, "HTTP", body);
+            responseBody = ActeurTransport.statusBody(status, acteurName);
+        }
+
+        String advertisement = ActeurTransport.advertisement();
+        if (advertisement != null) {
+            exchange.getResponseHeaders().set(ActeurTransport.HEADER, advertisement);
+        }
+
+        byte[] response = responseBody.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+        return true;
+    }
+
+    /**
+     * Lit le corps de la requête et le conserve brut dans l'échange.
+     * Un corps binaire (WireFormat) n'est pas converti en texte : le handler reçoit "".
+     */
+    private static String readRequestBody(HttpExchange exchange) throws IOException {
+        byte[] raw;
+        try (InputStream bodyStream = exchange.getRequestBody()) {
+            raw = bodyStream.readAllBytes();
+        }
+        exchange.setAttribute(RAW_BODY_ATTRIBUTE, raw);
+
+        if (WireFormat.isBinary(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            return "";
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Désérialise le corps d'une requête selon son Content-Type (binaire interne ou JSON)
+     *
+     * @param body Corps texte reçu par le handler
+     */
+    public static <T> T readBody(HttpExchange exchange, String body, Class<T> type) {
+        if (WireFormat.isBinary(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            return WireFormat.decode((byte[]) exchange.getAttribute(RAW_BODY_ATTRIBUTE), type);
+        }
+        return JsonCodec.fromJson(body, type);
+    }
+
+    /**
+     * Envoie une réponse au format demandé par le client : binaire si son Accept
+     * l'annonce et qu'un codec existe pour ce type, JSON sinon
+     */
+    public static void sendBody(HttpExchange exchange, int statusCode, Object data) throws IOException {
+        byte[] response;
+        if (data != null && WireFormat.accepts(exchange.getRequestHeaders().getFirst("Accept"))
+                && WireFormat.supports(data.getClass())) {
+            response = WireFormat.encode(data);
+            exchange.getResponseHeaders().set("Content-Type", WireFormat.CONTENT_TYPE);
+        } else {
+            response = JsonCodec.toBytes(data);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+        }
+
+        exchange.sendResponseHeaders(statusCode, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    /**
+     * true si le header If-None-Match de la requête désigne etag (ou "*")
+     */
+    public static boolean matchesIfNoneMatch(HttpExchange exchange, String etag) {
+        String header = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (header == null || etag == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 304 sans corps : la version que le client a en cache est toujours la bonne
+     */
+    public static void sendNotModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+    }
+
     /**
      * Réponse par défaut
      */
@@ -143,11 +301,19 @@ public class HttpReceiver {
         }
     }
 
+    /**
+     * Port effectif (utile quand le serveur a été démarré sur le port 0)
+     */
+    public int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
     /**
      * Arrête le serveur
      */
     public void stop() {
         if (server != null) {
+            ActeurRegistry.unregisterLocalPort(getPort());
             server.stop(0);
             System.out.println("🛑 Serveur HTTP arrêté");
         }
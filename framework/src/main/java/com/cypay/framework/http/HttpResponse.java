@@ -1,24 +1,111 @@
 package com.cypay.framework.http;
 
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.wire.WireFormat;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
 public class HttpResponse {
     private final int statusCode;
-    private final String body;
+    private final byte[] bodyBytes;
     private final Map<String, List<String>> headers;
+    private String body;
 
     public HttpResponse(int statusCode, String body, Map<String, List<String>> headers) {
         this.statusCode = statusCode;
         this.body = body;
+        this.bodyBytes = null;
+        this.headers = headers;
+    }
+
+    /**
+     * Réponse brute : le corps texte n'est décodé (UTF-8) que s'il est demandé
+     */
+    public HttpResponse(int statusCode, byte[] bodyBytes, Map<String, List<String>> headers) {
+        this.statusCode = statusCode;
+        this.bodyBytes = bodyBytes;
         this.headers = headers;
     }
 
     public int getStatusCode() { return statusCode; }
-    public String getBody() { return body; }
     public Map<String, List<String>> getHeaders() { return headers; }
 
+    public String getBody() {
+        if (body == null && bodyBytes != null) {
+            body = new String(bodyBytes, StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+
+    public byte[] getBodyBytes() {
+        if (bodyBytes == null && body != null) {
+            return body.getBytes(StandardCharsets.UTF_8);
+        }
+        return bodyBytes;
+    }
+
+    public String getHeader(String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    public String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    public boolean isBinary() {
+        return WireFormat.isBinary(getContentType());
+    }
+
     public boolean isSuccess() {
         return statusCode >= 200 && statusCode < 300;
     }
-}
\ No newline at end of file
+
+    /**
+     * Désérialise le corps selon son Content-Type : format binaire interne ou JSON
+     */
+    public <T> T as(Class<T> type) {
+        if (isBinary()) {
+            return WireFormat.decode(getBodyBytes(), type);
+        }
+        return JsonCodec.fromJson(getBody(), type);
+    }
+
+    /**
+     * Désérialise vers un type générique (ex: List<Wallet>). Les codecs binaires sont
+     * enregistrés par classe : un corps binaire ne se lit qu'avec un type qui est une classe.
+     *
+     * @throws IllegalStateException corps binaire et type paramétré
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T as(Type type) {
+        if (isBinary()) {
+            if (type instanceof Class<?> clazz) {
+                return (T) WireFormat.decode(getBodyBytes(), clazz);
+            }
+            throw new IllegalStateException("Binary body cannot be decoded as " + type.getTypeName());
+        }
+        return JsonCodec.fromJson(getBody(), type);
+    }
+
+    public Map<String, Object> asMap() {
+        return JsonCodec.toMap(getBody());
+    }
+
+    /**
+     * Lit un champ de premier niveau du corps JSON sans le désérialiser entièrement
+     */
+    public String field(String name) {
+        return JsonCodec.readField(getBody(), name);
+    }
+}
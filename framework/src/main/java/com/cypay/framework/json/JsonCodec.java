@@ -0,0 +1,278 @@
+package com.cypay.framework.json;
+
+import com.cypay.framework.money.Money;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Codec JSON partagé par tous les acteurs et microservices
+ *
+ * Une seule instance Gson (thread-safe) dont les TypeAdapter sont mis en cache
+ * par type : aucune construction de Gson ni compilation de regex par appel.
+ * Sortie compacte par défaut ; les LocalDateTime sont au format "yyyy-MM-dd HH:mm:ss",
+ * les Money en {"amount":"12.30","currency":"EUR"} (montant en texte, exact).
+ */
+public final class JsonCodec {
+
+    public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter().nullSafe())
+            .registerTypeAdapter(Money.class, new MoneyAdapter().nullSafe())
+            .create();
+
+    private static final Gson PRETTY_GSON = GSON.newBuilder()
+            .setPrettyPrinting()
+            .create();
+
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Instance Gson configurée, pour les cas non couverts par ce codec
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    // ========================================
+    // ÉCRITURE
+    // ========================================
+
+    public static String toJson(Object value) {
+        return GSON.toJson(value);
+    }
+
+    /**
+     * Sortie indentée : réservée aux réponses destinées à être lues par un humain
+     */
+    public static String toPrettyJson(Object value) {
+        return PRETTY_GSON.toJson(value);
+    }
+
+    /**
+     * Ecrit directement en UTF-8 dans le flux, sans String intermédiaire
+     */
+    public static void write(Object value, OutputStream out) {
+        try {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            JsonWriter jsonWriter = GSON.newJsonWriter(writer);
+            writeValue(value, jsonWriter);
+            jsonWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encode en UTF-8 dans un ByteBuffer prêt à être lu
+     */
+    public static ByteBuffer toByteBuffer(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        write(value, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    public static byte[] toBytes(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        write(value, out);
+        return out.toByteArray();
+    }
+
+    // ========================================
+    // LECTURE
+    // ========================================
+
+    public static <T> T fromJson(String json, Class<T> type) {
+        if (json == null) {
+            return null;
+        }
+        return read(new StringReader(json), adapter(type));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T fromJson(String json, Type type) {
+        if (json == null) {
+            return null;
+        }
+        return read(new StringReader(json), (TypeAdapter<T>) GSON.getAdapter(TypeToken.get(type)));
+    }
+
+    public static <T> T read(InputStream in, Class<T> type) {
+        return read(new InputStreamReader(in, StandardCharsets.UTF_8), adapter(type));
+    }
+
+    /**
+     * Décode depuis un ByteBuffer (position -> limit) sans le copier quand il est adossé à un tableau
+     */
+    public static <T> T read(ByteBuffer buffer, Class<T> type) {
+        InputStream in;
+        if (buffer.hasArray()) {
+            in = new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            in = new ByteArrayInputStream(bytes);
+        }
+        return read(in, type);
+    }
+
+    public static Map<String, Object> toMap(String json) {
+        return fromJson(json, MAP_TYPE);
+    }
+
+    /**
+     * Lit un champ de premier niveau sans désérialiser tout le document
+     *
+     * @return la valeur en texte (nombre, booléen ou chaîne), ou null si absente
+     */
+    public static String readField(String json, String fieldName) {
+        if (json == null) {
+            return null;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals(fieldName)) {
+                    reader.skipValue();
+                    continue;
+                }
+                return switch (reader.peek()) {
+                    case STRING, NUMBER -> reader.nextString();
+                    case BOOLEAN -> String.valueOf(reader.nextBoolean());
+                    case NULL -> null;
+                    default -> {
+                        reader.skipValue();
+                        yield null;
+                    }
+                };
+            }
+            return null;
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException("JSON invalide pour le champ " + fieldName, e);
+        }
+    }
+
+    /**
+     * Lit un champ numérique de premier niveau
+     *
+     * @return la valeur, ou defaultValue si le champ est absent ou nul
+     */
+    public static double readDouble(String json, String fieldName, double defaultValue) {
+        String value = readField(json, fieldName);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    // ========================================
+    // INTERNE
+    // ========================================
+
+    private static <T> TypeAdapter<T> adapter(Class<T> type) {
+        // Gson met en cache les adapters par type : getAdapter ne reconstruit rien
+        return GSON.getAdapter(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(Object value, JsonWriter writer) throws IOException {
+        if (value == null) {
+            writer.nullValue();
+            return;
+        }
+        TypeAdapter<Object> adapter = (TypeAdapter<Object>) GSON.getAdapter(value.getClass());
+        adapter.write(writer, value);
+    }
+
+    private static <T> T read(Reader reader, TypeAdapter<T> adapter) {
+        try (JsonReader jsonReader = GSON.newJsonReader(reader)) {
+            // Même tolérance que Gson.fromJson : document vide -> null
+            jsonReader.setLenient(true);
+            try {
+                jsonReader.peek();
+            } catch (EOFException e) {
+                return null;
+            }
+            return adapter.read(jsonReader);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException(e);
+        }
+    }
+
+    /**
+     * LocalDateTime <-> "yyyy-MM-dd HH:mm:ss" ; accepte aussi le format ISO en lecture
+     */
+    private static final class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
+        @Override
+        public void write(JsonWriter out, LocalDateTime value) throws IOException {
+            out.value(value.format(DATE_TIME_FORMAT));
+        }
+
+        @Override
+        public LocalDateTime read(JsonReader in) throws IOException {
+            String text = in.nextString();
+            return text.indexOf('T') >= 0 ? LocalDateTime.parse(text) : LocalDateTime.parse(text, DATE_TIME_FORMAT);
+        }
+    }
+
+    private static final class MoneyAdapter extends TypeAdapter<Money> {
+        @Override
+        public void write(JsonWriter out, Money value) throws IOException {
+            out.beginObject()
+                    .name("amount").value(value.toPlainString())
+                    .name("currency").value(value.currency())
+                    .endObject();
+        }
+
+        @Override
+        public Money read(JsonReader in) throws IOException {
+            String amount = null;
+            String currency = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "amount" -> amount = in.nextString(); // texte ou nombre, lu sans passer par double
+                    case "currency" -> currency = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (amount == null || currency == null) {
+                throw new JsonParseException("Money incomplet : amount et currency requis");
+            }
+            try {
+                return Money.parse(currency, amount);
+            } catch (NumberFormatException e) {
+                throw new JsonParseException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.cypay.framework.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Registre de métriques partagé par les acteurs d'une JVM
+ * Compteurs (LongAdder) et jauges (Supplier) identifiés par un nom à étiquettes :
+ * ex: circuitbreaker.state{destination=localhost:8083}
+ */
+public final class ActeurMetrics {
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<? extends Number>> GAUGES = new ConcurrentHashMap<>();
+
+    private ActeurMetrics() {
+    }
+
+    /**
+     * Construit un nom de métrique avec étiquettes (clé, valeur, clé, valeur...)
+     */
+    public static String name(String base, String... tags) {
+        if (tags.length == 0) {
+            return base;
+        }
+        StringBuilder sb = new StringBuilder(base).append('{');
+        for (int i = 0; i + 1 < tags.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(tags[i]).append('=').append(tags[i + 1]);
+        }
+        return sb.append('}').toString();
+    }
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        COUNTERS.computeIfAbsent(name, n -> new LongAdder()).add(delta);
+    }
+
+    public static long count(String name) {
+        LongAdder adder = COUNTERS.get(name);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Enregistre (ou remplace) une jauge évaluée à chaque lecture
+     */
+    public static void gauge(String name, Supplier<? extends Number> supplier) {
+        GAUGES.put(name, supplier);
+    }
+
+    /**
+     * Photographie triée de toutes les métriques
+     */
+    public static Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new TreeMap<>();
+        COUNTERS.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        GAUGES.forEach((name, supplier) -> snapshot.put(name, supplier.get()));
+        return snapshot;
+    }
+}
@@ -0,0 +1,226 @@
+package com.cypay.framework.money;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Montant à virgule fixe : un long d'unités mineures dans une devise
+ *
+ * L'échelle dépend de la devise (satoshi pour BTC, centimes pour EUR/USD).
+ * Additions, soustractions et comparaisons se font sur le long : aucun
+ * BigDecimal, aucune allocation hors du résultat. Un dépassement de capacité
+ * lève ArithmeticException au lieu de boucler.
+ *
+ * @param units Montant en unités mineures (1 EUR = 100 units, 1 BTC = 100 000 000 units)
+ */
+public record Money(String currency, long units) implements Comparable<Money> {
+
+    /**
+     * Échelle des devises absentes de SCALES (celle des colonnes numeric(19,8))
+     */
+    public static final int DEFAULT_SCALE = 8;
+
+    // ETH à 8 décimales et non 18 (wei) : un long de wei plafonne à 9,2 ETH, et les soldes sont en numeric(19,8)
+    private static final Map<String, Integer> SCALES = Map.of(
+            "BTC", 8,
+            "ETH", 8,
+            "EUR", 2,
+            "USD", 2);
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L};
+
+    public Money {
+        if (currency == null || currency.isEmpty()) {
+            throw new IllegalArgumentException("Devise requise");
+        }
+    }
+
+    public static int scaleOf(String currency) {
+        return SCALES.getOrDefault(currency, DEFAULT_SCALE);
+    }
+
+    public static Money zero(String currency) {
+        return new Money(currency, 0);
+    }
+
+    public static Money ofUnits(String currency, long units) {
+        return new Money(currency, units);
+    }
+
+    /**
+     * Conversion exacte
+     *
+     * @throws ArithmeticException plus de décimales que l'échelle de la devise, ou montant hors capacité
+     */
+    public static Money of(String currency, BigDecimal amount) {
+        int scale = scaleOf(currency);
+        try {
+            return new Money(currency, amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Montant " + amount.toPlainString() + " " + currency
+                    + " non représentable (" + scale + " décimales max)");
+        }
+    }
+
+    /**
+     * Conversion arrondie à l'échelle de la devise (données héritées, prix externes)
+     */
+    public static Money of(String currency, BigDecimal amount, RoundingMode rounding) {
+        return new Money(currency, amount.setScale(scaleOf(currency), rounding).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Lecture exacte d'un décimal ("-12.5", "0.00000001") sans passer par BigDecimal
+     *
+     * @throws NumberFormatException texte invalide ou plus de décimales que l'échelle de la devise
+     */
+    public static Money parse(String currency, String text) {
+        int scale = scaleOf(currency);
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i = 1;
+        }
+        long units = 0;
+        int decimals = -1;
+        boolean digits = false;
+        try {
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Montant invalide : " + text);
+                }
+                if (decimals >= 0 && ++decimals > scale) {
+                    if (c != '0') {
+                        throw new NumberFormatException("Montant " + text + " " + currency + " : " + scale + " décimales max");
+                    }
+                    continue;
+                }
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                digits = true;
+            }
+            if (!digits) {
+                throw new NumberFormatException("Montant invalide : " + text);
+            }
+            units = Math.multiplyExact(units, POWERS_OF_TEN[scale - Math.min(Math.max(decimals, 0), scale)]);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Montant hors capacité : " + text);
+        }
+        return new Money(currency, negative ? -units : units);
+    }
+
+    public int scale() {
+        return scaleOf(currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(currency, Math.addExact(units, other.units));
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(currency, Math.subtractExact(units, other.units));
+    }
+
+    public Money negate() {
+        return new Money(currency, Math.negateExact(units));
+    }
+
+    /**
+     * Contre-valeur d'une quantité au prix unitaire donné, dans la devise du prix
+     * (0.5 BTC x 40000.00 EUR = 20000.00 EUR), arrondie au plus proche
+     */
+    public Money times(Money unitPrice) {
+        long a = units;
+        long b = unitPrice.units;
+        long divisor = POWERS_OF_TEN[scale()];
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            // produit sur 64 bits : division arrondie sans allocation
+            long quotient = low / divisor;
+            long remainder = low % divisor;
+            if (Math.abs(remainder) * 2 >= divisor) {
+                quotient += Long.signum(low);
+            }
+            return new Money(unitPrice.currency, quotient);
+        }
+        BigInteger product = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b));
+        return new Money(unitPrice.currency, new BigDecimal(product, scale())
+                .setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    public boolean isNegative() {
+        return units < 0;
+    }
+
+    public boolean isZero() {
+        return units == 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return compareTo(other) < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(units, other.units);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, scale());
+    }
+
+    /**
+     * Texte décimal à l'échelle de la devise ("12.30"), relu à l'identique par parse()
+     */
+    public String toPlainString() {
+        int scale = scale();
+        if (units == Long.MIN_VALUE) {
+            return toBigDecimal().toPlainString();
+        }
+        long abs = Math.abs(units);
+        StringBuilder text = new StringBuilder(24);
+        if (units < 0) {
+            text.append('-');
+        }
+        text.append(abs / POWERS_OF_TEN[scale]);
+        if (scale > 0) {
+            String fraction = Long.toString(abs % POWERS_OF_TEN[scale]);
+            text.append('.');
+            for (int i = fraction.length(); i < scale; i++) {
+                text.append('0');
+            }
+            text.append(fraction);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Devises différentes : " + currency + " / " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cypay.framework.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Lecture / écriture d'un Money dans une colonne numeric (jamais de double entre Java et la base)
+ */
+public final class MoneyJdbc {
+
+    private MoneyJdbc() {
+    }
+
+    public static void set(PreparedStatement statement, int index, Money value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NUMERIC);
+        } else {
+            statement.setBigDecimal(index, value.toBigDecimal());
+        }
+    }
+
+    /**
+     * @return null si la colonne est nulle
+     * @throws ArithmeticException valeur avec plus de décimales que l'échelle de la devise
+     */
+    public static Money get(ResultSet resultSet, String column, String currency) throws SQLException {
+        BigDecimal value = resultSet.getBigDecimal(column);
+        return value != null ? Money.of(currency, value) : null;
+    }
+
+    /**
+     * Variante arrondie, pour des colonnes écrites avant Money (ex: centimes fractionnaires en EUR)
+     */
+    public static Money get(ResultSet resultSet, String column, String currency, RoundingMode rounding) throws SQLException {
+        BigDecimal value = resultSet.getBigDecimal(column);
+        return value != null ? Money.of(currency, value, rounding) : null;
+    }
+}
@@ -0,0 +1,234 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.acteur.ActeurHttpClient;
+import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.acteur.CustomHttpRequest;
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regroupement des messages sortants vers un même acteur distant
+ *
+ * Le premier message d'un lot ouvre une fenêtre d'attente (linger) ; les messages
+ * arrivés pendant la fenêtre partent avec lui en une seule requête (trame BATCH du
+ * transport natif, POST /acteur/{nom}/messages sinon). Le pair dépaquette le lot
+ * dans la mailbox et renvoie un statut par message, remis à la future de chaque émetteur.
+ * Les lots d'une même destination partent dans l'ordre, un à la fois.
+ */
+public final class ActeurBatcher {
+
+    /**
+     * @param lingerMicros Attente maximale avant l'envoi d'un lot incomplet (0 = pas d'attente)
+     * @param maxBatchSize Taille à partir de laquelle un lot part sans attendre
+     */
+    public record Config(long lingerMicros, int maxBatchSize) {
+        public static final Config DEFAULT = new Config(200, 128);
+    }
+
+    private record Pending(String emetteur, String json, JsonElement message, CompletableFuture<HttpResponse> ack) {
+    }
+
+    private static class BatchResult {
+        int[] statuses;
+    }
+
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT = JsonCodec.gson().getAdapter(JsonElement.class);
+    private static final ActeurHttpClient HTTP = new ActeurHttpClient(new ActeurLogger("ActeurBatcher"));
+    private static final ScheduledExecutorService LINGER_TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "acteur-batch-linger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService SENDERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "acteur-batch-send");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, Destination> DESTINATIONS = new ConcurrentHashMap<>();
+    private static volatile Config config = Config.DEFAULT;
+
+    private ActeurBatcher() {
+    }
+
+    public static void configure(Config newConfig) {
+        config = newConfig;
+    }
+
+    public static Config getConfig() {
+        return config;
+    }
+
+    /**
+     * Ajoute un message au lot de sa destination
+     *
+     * Un message qui n'est pas du JSON valide est refusé (400) sans entrer dans le lot :
+     * il ne peut pas rendre illisible la requête des autres.
+     *
+     * @return Future complétée avec l'acquittement propre à ce message (jamais en erreur)
+     */
+    public static CompletableFuture<HttpResponse> submit(String host, int port, String acteurName,
+                                                         String emetteur, String json) {
+        JsonElement message = parse(json);
+        if (message == null) {
+            ActeurMetrics.increment(ActeurMetrics.name("acteur.batch.rejected", "acteur", acteurName));
+            return CompletableFuture.completedFuture(new HttpResponse(400, errorBody("Message JSON invalide"), Map.of()));
+        }
+        Destination destination = DESTINATIONS.computeIfAbsent(host + ":" + port + "/" + acteurName,
+                key -> new Destination(host, port, acteurName));
+        CompletableFuture<HttpResponse> ack = new CompletableFuture<>();
+        destination.add(new Pending(emetteur, json, message, ack));
+        return ack;
+    }
+
+    /**
+     * Lecture stricte d'un document JSON complet ; vide = null JSON, invalide = null
+     */
+    private static JsonElement parse(String json) {
+        if (json == null || json.isBlank()) {
+            return JsonNull.INSTANCE;
+        }
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(false);
+            JsonElement element = JSON_ELEMENT.read(reader);
+            return reader.peek() == JsonToken.END_DOCUMENT ? element : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String errorBody(String message) {
+        return JsonCodec.toJson(Map.of("error", message));
+    }
+
+    private static final class Destination {
+
+        private final String host;
+        private final int port;
+        private final String acteurName;
+        private List<Pending> buffer = new ArrayList<>();
+        private long generation;
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+        Destination(String host, int port, String acteurName) {
+            this.host = host;
+            this.port = port;
+            this.acteurName = acteurName;
+        }
+
+        synchronized void add(Pending pending) {
+            buffer.add(pending);
+            Config current = config;
+            if (buffer.size() >= current.maxBatchSize() || current.lingerMicros() <= 0) {
+                flush();
+            } else if (buffer.size() == 1) {
+                long scheduled = generation;
+                LINGER_TIMER.schedule(() -> flushIfStill(scheduled), current.lingerMicros(), TimeUnit.MICROSECONDS);
+            }
+        }
+
+        private synchronized void flushIfStill(long scheduled) {
+            // Le lot a pu partir plein avant l'échéance : ne pas couper le suivant
+            if (scheduled == generation && !buffer.isEmpty()) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            List<Pending> batch = buffer;
+            buffer = new ArrayList<>();
+            generation++;
+            // Chaque lot part quel que soit le sort du précédent
+            tail = tail.exceptionally(ignored -> null).thenComposeAsync(ignored -> send(batch), SENDERS);
+        }
+
+        private CompletableFuture<Void> send(List<Pending> batch) {
+            ActeurMetrics.increment(ActeurMetrics.name("acteur.batch.sent", "acteur", acteurName));
+            ActeurMetrics.add(ActeurMetrics.name("acteur.batch.messages", "acteur", acteurName), batch.size());
+            try {
+                List<String[]> messages = new ArrayList<>(batch.size());
+                for (Pending pending : batch) {
+                    messages.add(new String[]{pending.emetteur(), pending.json()});
+                }
+                int[] statuses = ActeurTransport.trySendBatch(host, port, acteurName, messages);
+                if (statuses != null) {
+                    complete(batch, statuses);
+                    return CompletableFuture.completedFuture(null);
+                }
+                return sendHttp(batch);
+
+            } catch (RuntimeException e) {
+                failAll(batch, new HttpResponse(500, errorBody(e.getMessage() != null ? e.getMessage()
+                        : e.getClass().getSimpleName()), Map.of()));
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+
+        private CompletableFuture<Void> sendHttp(List<Pending> batch) {
+            JsonArray body = new JsonArray(batch.size());
+            for (Pending pending : batch) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("emetteur", pending.emetteur());
+                entry.add("message", pending.message());
+                body.add(entry);
+            }
+
+            CustomHttpRequest request = CustomHttpRequest.builder()
+                    .url("http://" + host + ":" + port + "/acteur/" + acteurName + ActeurTransport.BATCH_SUFFIX)
+                    .method("POST")
+                    .header("Content-Type", "application/json")
+                    .body(JsonCodec.gson().toJson(body));
+
+            return HTTP.executeAsync(request).thenAccept(response -> {
+                ActeurTransport.learn(host, port, response);
+                BatchResult result = null;
+                try {
+                    result = response.isSuccess() ? response.as(BatchResult.class) : null;
+                } catch (RuntimeException e) {
+                    // réponse illisible : traitée ci-dessous
+                }
+                if (result == null || result.statuses == null || result.statuses.length != batch.size()) {
+                    failAll(batch, response.isSuccess()
+                            ? new HttpResponse(502, errorBody("Réponse de lot illisible"), Map.of())
+                            : response);
+                } else {
+                    complete(batch, result.statuses);
+                }
+            }).exceptionally(e -> {
+                failAll(batch, new HttpResponse(500, errorBody("Lot non remis"), Map.of()));
+                return null;
+            });
+        }
+
+        private void complete(List<Pending> batch, int[] statuses) {
+            for (int i = 0; i < batch.size(); i++) {
+                int status = statuses[i];
+                batch.get(i).ack().complete(new HttpResponse(status, ActeurTransport.statusBody(status, acteurName), Map.of()));
+            }
+        }
+
+        private static void failAll(List<Pending> batch, HttpResponse failure) {
+            batch.forEach(pending -> pending.ack().complete(failure));
+        }
+    }
+}
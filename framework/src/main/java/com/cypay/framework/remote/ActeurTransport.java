@@ -0,0 +1,244 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.acteur.Acteur;
+import com.cypay.framework.acteur.ActeurRegistry;
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transport natif des messages entre acteurs distants
+ *
+ * Côté récepteur : expose() déclare les acteurs joignables et listen() ouvre le
+ * transport ; HttpReceiver annonce alors le transport dans l'en-tête
+ * X-Acteur-Transport de ses réponses à POST /acteur/{nom}/message.
+ *
+ * Côté émetteur : Acteur.sendToActeur passe par HTTP tant que le pair n'a rien
+ * annoncé, puis par une connexion persistante (socket Unix si le pair est sur la
+ * même machine, TCP sinon) partagée par tous les acteurs de la JVM.
+ */
+public final class ActeurTransport {
+
+    public static final String HEADER = "X-Acteur-Transport";
+    public static final String BATCH_SUFFIX = "/messages";
+
+    private static final int WINDOW = 256;
+    private static final long ACK_TIMEOUT_MS = 5000;
+    private static final long RETRY_CONNECT_AFTER_MS = 30_000;
+    private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "::1");
+
+    private record Advertisement(int tcpPort, String unixPath) {
+    }
+
+    private static final Set<String> EXPOSED = ConcurrentHashMap.newKeySet();
+    private static final Map<String, Advertisement> ADVERTISED = new ConcurrentHashMap<>();
+    private static final Map<String, RemotePeer> PEERS = new ConcurrentHashMap<>();
+    private static final Map<String, Long> UNREACHABLE_UNTIL = new ConcurrentHashMap<>();
+    private static volatile RemoteActeurServer server;
+
+    private ActeurTransport() {
+    }
+
+    // ========================================
+    // CÔTÉ RÉCEPTEUR
+    // ========================================
+
+    /**
+     * Rend un acteur joignable par son nom ; les messages JSON reçus sont convertis en type
+     * (l'acteur est aussi enregistré dans ActeurRegistry avec ce type)
+     */
+    public static <T> void expose(String name, Acteur<T> acteur, Class<T> type) {
+        ActeurRegistry.register(name, acteur, type);
+        EXPOSED.add(name);
+    }
+
+    public static boolean isExposed(String name) {
+        return EXPOSED.contains(name);
+    }
+
+    /**
+     * Ouvre le transport natif (0 = port libre choisi par le système)
+     *
+     * @return le port TCP effectif
+     */
+    public static synchronized int listen(int port) throws IOException {
+        if (server == null) {
+            server = new RemoteActeurServer(port);
+        }
+        return server.getPort();
+    }
+
+    public static synchronized void shutdown() {
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+        PEERS.values().forEach(RemotePeer::close);
+        PEERS.clear();
+    }
+
+    /**
+     * Valeur de l'en-tête X-Acteur-Transport, ou null si le transport n'est pas ouvert
+     */
+    public static String advertisement() {
+        RemoteActeurServer current = server;
+        if (current == null) {
+            return null;
+        }
+        String unixPath = current.getUnixPath();
+        return "tcp=" + current.getPort() + (unixPath != null ? "; uds=" + unixPath : "");
+    }
+
+    /**
+     * Remet un message à un acteur exposé
+     *
+     * @return statut façon HTTP : 202 accepté, 404 acteur inconnu, 400 message illisible
+     */
+    public static int deliver(String acteurName, String emetteur, String json) {
+        if (!EXPOSED.contains(acteurName)) {
+            return 404;
+        }
+        try {
+            return ActeurRegistry.deliverJson(acteurName, emetteur, json) ? 202 : 404;
+        } catch (RuntimeException e) {
+            return 400;
+        }
+    }
+
+    /**
+     * Remet un lot reçu en HTTP : [{"emetteur": "...", "message": {...}}, ...]
+     *
+     * @return un statut par message, dans l'ordre du lot
+     * @throws RuntimeException si le lot lui-même est illisible
+     */
+    public static int[] deliverBatch(String acteurName, String json) {
+        JsonArray batch = JsonCodec.gson().fromJson(json, JsonArray.class);
+        int[] statuses = new int[batch.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            try {
+                JsonObject item = batch.get(i).getAsJsonObject();
+                statuses[i] = deliver(acteurName, item.get("emetteur").getAsString(), item.get("message").toString());
+            } catch (RuntimeException e) {
+                statuses[i] = 400;
+            }
+        }
+        return statuses;
+    }
+
+    public static String statusBody(int status, String acteurName) {
+        return switch (status) {
+            case 202 -> "{\"status\": \"accepted\"}";
+            case 404 -> "{\"error\": \"Acteur inconnu : " + acteurName + "\"}";
+            case 400 -> "{\"error\": \"Message invalide\"}";
+            default -> "{\"error\": \"Remise impossible (" + status + ")\"}";
+        };
+    }
+
+    // ========================================
+    // CÔTÉ ÉMETTEUR
+    // ========================================
+
+    /**
+     * Enregistre le transport annoncé par un pair dans une réponse HTTP
+     */
+    public static void learn(String host, int httpPort, HttpResponse response) {
+        String header = response.getHeader(HEADER);
+        if (header == null) {
+            return;
+        }
+        int tcpPort = -1;
+        String unixPath = null;
+        for (String part : header.split(";")) {
+            String[] keyValue = part.trim().split("=", 2);
+            if (keyValue.length != 2) continue;
+            if ("tcp".equals(keyValue[0])) tcpPort = Integer.parseInt(keyValue[1]);
+            if ("uds".equals(keyValue[0])) unixPath = keyValue[1];
+        }
+        if (tcpPort > 0) {
+            ADVERTISED.put(peerKey(host, httpPort), new Advertisement(tcpPort, unixPath));
+        }
+    }
+
+    /**
+     * Envoie par le transport natif si le pair l'a annoncé
+     *
+     * @return la réponse, ou null si le message doit partir en HTTP
+     */
+    public static HttpResponse trySend(String host, int httpPort, String acteurName, String emetteur, String json) {
+        String key = peerKey(host, httpPort);
+        RemotePeer peer = peerFor(key, host);
+        if (peer == null) {
+            return null;
+        }
+        ActeurMetrics.increment(ActeurMetrics.name("acteur.remote.sent", "transport", peer.getTransport()));
+        return peer.send(acteurName, emetteur, json, ACK_TIMEOUT_MS);
+    }
+
+    /**
+     * Envoie un lot par le transport natif si le pair l'a annoncé
+     *
+     * @param messages paires {emetteur, json}
+     * @return un statut par message, ou null si le lot doit partir en HTTP
+     */
+    public static int[] trySendBatch(String host, int httpPort, String acteurName, List<String[]> messages) {
+        String key = peerKey(host, httpPort);
+        RemotePeer peer = peerFor(key, host);
+        if (peer == null) {
+            return null;
+        }
+        ActeurMetrics.add(ActeurMetrics.name("acteur.remote.sent", "transport", peer.getTransport()), messages.size());
+        return peer.sendBatch(acteurName, messages, ACK_TIMEOUT_MS);
+    }
+
+    static void forget(String key, RemotePeer peer) {
+        PEERS.remove(key, peer);
+    }
+
+    private static RemotePeer peerFor(String key, String host) {
+        RemotePeer existing = PEERS.get(key);
+        if (existing != null && existing.isOpen()) {
+            return existing;
+        }
+        Advertisement advertisement = ADVERTISED.get(key);
+        Long unreachableUntil = UNREACHABLE_UNTIL.get(key);
+        if (advertisement == null || (unreachableUntil != null && System.currentTimeMillis() < unreachableUntil)) {
+            return null;
+        }
+
+        synchronized (ActeurTransport.class) {
+            existing = PEERS.get(key);
+            if (existing != null && existing.isOpen()) {
+                return existing;
+            }
+            try {
+                RemotePeer peer;
+                if (advertisement.unixPath() != null && LOCAL_HOSTS.contains(host)
+                        && Files.exists(Path.of(advertisement.unixPath()))) {
+                    peer = RemotePeer.connectUnix(key, advertisement.unixPath(), WINDOW);
+                } else {
+                    peer = RemotePeer.connectTcp(key, host, advertisement.tcpPort(), WINDOW);
+                }
+                PEERS.put(key, peer);
+                UNREACHABLE_UNTIL.remove(key);
+                return peer;
+            } catch (IOException e) {
+                UNREACHABLE_UNTIL.put(key, System.currentTimeMillis() + RETRY_CONNECT_AFTER_MS);
+                return null;
+            }
+        }
+    }
+
+    private static String peerKey(String host, int httpPort) {
+        return host + ":" + httpPort;
+    }
+}
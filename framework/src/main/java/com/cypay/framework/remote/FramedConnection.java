@@ -0,0 +1,165 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.wire.BinaryReader;
+import com.cypay.framework.wire.BinaryWriter;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Connexion longue durée transportant des trames préfixées par leur longueur
+ *
+ * Trame : [longueur int32][type][streamId varint][contenu]
+ * Plusieurs échanges (streams) partagent la connexion. Un thread d'écriture
+ * regroupe les trames en attente en une seule écriture vectorisée ; un thread
+ * de lecture remet chaque trame reçue au handler.
+ */
+final class FramedConnection implements Closeable {
+
+    static final int MESSAGE = 1;
+    static final int ACK = 2;
+    static final int BATCH = 3;
+    static final int BATCH_ACK = 4;
+
+    private static final int MAX_FRAME_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_COALESCED_FRAMES = 64;
+
+    interface FrameHandler {
+        void onFrame(FramedConnection connection, int type, int streamId, BinaryReader payload);
+
+        void onClose(FramedConnection connection);
+    }
+
+    private final SocketChannel channel;
+    private final String name;
+    private final FrameHandler handler;
+    private final BlockingQueue<ByteBuffer> outbound = new LinkedBlockingQueue<>();
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final Thread writer;
+    private final Thread reader;
+
+    FramedConnection(SocketChannel channel, String name, FrameHandler handler) {
+        this.channel = channel;
+        this.name = name;
+        this.handler = handler;
+        this.writer = new Thread(this::writeLoop, "acteur-transport-write-" + name);
+        this.reader = new Thread(this::readLoop, "acteur-transport-read-" + name);
+        writer.setDaemon(true);
+        reader.setDaemon(true);
+        writer.start();
+        reader.start();
+    }
+
+    /**
+     * Met une trame en file d'écriture (n'attend pas l'écriture réseau)
+     */
+    void send(int type, int streamId, Consumer<BinaryWriter> body) throws IOException {
+        if (!open.get()) {
+            throw new IOException("Connexion fermée : " + name);
+        }
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeByte(type);
+        writer.writeVarLong(streamId);
+        body.accept(writer);
+
+        byte[] payload = writer.toByteArray();
+        ByteBuffer frame = ByteBuffer.allocate(4 + payload.length);
+        frame.putInt(payload.length).put(payload).flip();
+        outbound.add(frame);
+    }
+
+    boolean isOpen() {
+        return open.get();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    private void writeLoop() {
+        List<ByteBuffer> batch = new ArrayList<>(MAX_COALESCED_FRAMES);
+        try {
+            while (open.get()) {
+                batch.add(outbound.take());
+                outbound.drainTo(batch, MAX_COALESCED_FRAMES - 1);
+
+                ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+
+                ActeurMetrics.add("acteur.transport.frames_written", batch.size());
+                ActeurMetrics.increment("acteur.transport.writes");
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // connexion perdue : fermée ci-dessous
+        } finally {
+            close();
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        try {
+            while (open.get()) {
+                header.clear();
+                readFully(header);
+                int length = header.flip().getInt();
+                if (length <= 0 || length > MAX_FRAME_SIZE) {
+                    throw new IOException("Taille de trame invalide : " + length);
+                }
+
+                ByteBuffer body = ByteBuffer.allocate(length);
+                readFully(body);
+
+                BinaryReader payload = new BinaryReader(body.array());
+                int type = payload.readByte();
+                int streamId = (int) payload.readVarLong();
+                handler.onFrame(this, type, streamId, payload);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // fin de flux ou trame corrompue : la connexion est abandonnée
+        } finally {
+            close();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!open.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // déjà fermé
+        }
+        writer.interrupt();
+        handler.onClose(this);
+    }
+}
@@ -0,0 +1,135 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.wire.BinaryReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serveur du transport acteur : écoute en TCP et, si la plateforme le permet,
+ * sur un socket Unix pour les pairs de la même machine
+ */
+final class RemoteActeurServer implements FramedConnection.FrameHandler, Closeable {
+
+    private final ActeurLogger logger = new ActeurLogger("ActeurTransport");
+    private final Set<FramedConnection> connections = ConcurrentHashMap.newKeySet();
+    private final ServerSocketChannel tcp;
+    private final ServerSocketChannel unix;
+    private final Path unixPath;
+
+    RemoteActeurServer(int port) throws IOException {
+        this.tcp = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+        int boundPort = getPort();
+
+        Path path = Path.of(System.getProperty("java.io.tmpdir"), "cypay-acteur-" + boundPort + ".sock");
+        ServerSocketChannel unixChannel = null;
+        try {
+            Files.deleteIfExists(path);
+            unixChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(UnixDomainSocketAddress.of(path));
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.info("[WARN] Socket Unix indisponible, transport TCP seul : " + e.getMessage());
+            path = null;
+        }
+        this.unix = unixChannel;
+        this.unixPath = path;
+
+        startAcceptLoop(tcp, "tcp");
+        if (unix != null) {
+            startAcceptLoop(unix, "uds");
+        }
+        logger.info("[TRANSPORT] Ecoute sur tcp=" + boundPort + (unixPath != null ? ", uds=" + unixPath : ""));
+    }
+
+    int getPort() {
+        try {
+            return ((InetSocketAddress) tcp.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    String getUnixPath() {
+        return unixPath == null ? null : unixPath.toString();
+    }
+
+    private void startAcceptLoop(ServerSocketChannel server, String transport) {
+        Thread acceptor = new Thread(() -> {
+            while (server.isOpen()) {
+                try {
+                    SocketChannel channel = server.accept();
+                    if ("tcp".equals(transport)) {
+                        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    }
+                    connections.add(new FramedConnection(channel, "server/" + transport, this));
+                } catch (IOException e) {
+                    if (server.isOpen()) {
+                        logger.erreur("Erreur d'acceptation " + transport, e);
+                    }
+                }
+            }
+        }, "acteur-transport-accept-" + transport);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    public void onFrame(FramedConnection connection, int type, int streamId, BinaryReader payload) {
+        try {
+            if (type == FramedConnection.MESSAGE) {
+                String acteurName = payload.readString();
+                String emetteur = payload.readString();
+                String json = payload.readString();
+
+                int status = ActeurTransport.deliver(acteurName, emetteur, json);
+                String body = ActeurTransport.statusBody(status, acteurName);
+                connection.send(FramedConnection.ACK, streamId, out -> out.writeInt(status).writeString(body));
+
+            } else if (type == FramedConnection.BATCH) {
+                // Dépaquetage : chaque message est remis et acquitté individuellement
+                String acteurName = payload.readString();
+                int[] statuses = new int[(int) payload.readVarLong()];
+                for (int i = 0; i < statuses.length; i++) {
+                    statuses[i] = ActeurTransport.deliver(acteurName, payload.readString(), payload.readString());
+                }
+                connection.send(FramedConnection.BATCH_ACK, streamId, out -> {
+                    out.writeVarLong(statuses.length);
+                    for (int status : statuses) {
+                        out.writeInt(status);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            // pair déconnecté : l'émetteur verra la perte de connexion
+        }
+    }
+
+    @Override
+    public void onClose(FramedConnection connection) {
+        connections.remove(connection);
+    }
+
+    @Override
+    public void close() {
+        try {
+            tcp.close();
+            if (unix != null) {
+                unix.close();
+                Files.deleteIfExists(unixPath);
+            }
+        } catch (IOException e) {
+            logger.erreur("Erreur à l'arrêt du transport", e);
+        }
+        connections.forEach(FramedConnection::close);
+    }
+}
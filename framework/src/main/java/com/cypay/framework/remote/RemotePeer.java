@@ -0,0 +1,163 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.wire.BinaryReader;
+import com.cypay.framework.wire.BinaryWriter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Connexion cliente vers un pair : messages multiplexés par streamId
+ *
+ * Contrôle de flux par fenêtre : au plus window messages non acquittés
+ * en vol sur la connexion ; au-delà l'émetteur attend (borné) puis reçoit un 503.
+ */
+final class RemotePeer implements FramedConnection.FrameHandler {
+
+    private final String key;
+    private final String transport;
+    private final Semaphore window;
+    private static final HttpResponse CONNECTION_LOST =
+            new HttpResponse(503, "{\"error\": \"Connexion perdue\"}", Map.of());
+
+    private final Map<Integer, CompletableFuture<BinaryReader>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextStreamId = new AtomicInteger();
+    private final FramedConnection connection;
+
+    private RemotePeer(String key, String transport, int window, SocketChannel channel) {
+        this.key = key;
+        this.transport = transport;
+        this.window = new Semaphore(window);
+        this.connection = new FramedConnection(channel, key + "/" + transport, this);
+    }
+
+    static RemotePeer connectTcp(String key, String host, int port, int window) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.connect(new InetSocketAddress(host, port));
+        return new RemotePeer(key, "tcp", window, channel);
+    }
+
+    static RemotePeer connectUnix(String key, String path, int window) throws IOException {
+        SocketAddress address = UnixDomainSocketAddress.of(path);
+        SocketChannel channel = SocketChannel.open(address);
+        return new RemotePeer(key, "uds", window, channel);
+    }
+
+    /**
+     * Envoie un message et attend son acquittement (mise en mailbox côté pair)
+     */
+    HttpResponse send(String acteurName, String emetteur, String json, long timeoutMs) {
+        Exchange result = exchange(FramedConnection.MESSAGE,
+                out -> out.writeString(acteurName).writeString(emetteur).writeString(json), timeoutMs);
+        if (result.failure() != null) {
+            return result.failure();
+        }
+        return new HttpResponse(result.ack().readInt(), result.ack().readString(), Map.of());
+    }
+
+    /**
+     * Envoie N messages pour un même acteur dans une seule trame
+     *
+     * @param messages paires {emetteur, json}
+     * @return un statut par message, dans l'ordre ; tous identiques en cas d'échec du transport
+     */
+    int[] sendBatch(String acteurName, List<String[]> messages, long timeoutMs) {
+        Exchange result = exchange(FramedConnection.BATCH, out -> {
+            out.writeString(acteurName).writeVarLong(messages.size());
+            for (String[] message : messages) {
+                out.writeString(message[0]).writeString(message[1]);
+            }
+        }, timeoutMs);
+
+        int[] statuses = new int[messages.size()];
+        if (result.failure() != null) {
+            Arrays.fill(statuses, result.failure().getStatusCode());
+            return statuses;
+        }
+        int count = (int) result.ack().readVarLong();
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = i < count ? result.ack().readInt() : 500;
+        }
+        return statuses;
+    }
+
+    private record Exchange(BinaryReader ack, HttpResponse failure) {
+    }
+
+    private Exchange exchange(int type, Consumer<BinaryWriter> body, long timeoutMs) {
+        try {
+            if (!window.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return new Exchange(null, new HttpResponse(503, "{\"error\": \"Transport saturé (fenêtre pleine)\"}", Map.of()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Exchange(null, new HttpResponse(500, "{\"error\": \"Interrompu\"}", Map.of()));
+        }
+
+        int streamId = nextStreamId.incrementAndGet();
+        CompletableFuture<BinaryReader> ack = new CompletableFuture<>();
+        pending.put(streamId, ack);
+
+        try {
+            connection.send(type, streamId, body);
+            return new Exchange(ack.get(timeoutMs, TimeUnit.MILLISECONDS), null);
+
+        } catch (TimeoutException e) {
+            return new Exchange(null, new HttpResponse(504, "{\"error\": \"Pas d'acquittement du pair\"}", Map.of()));
+        } catch (IOException | ExecutionException e) {
+            return new Exchange(null, CONNECTION_LOST);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Exchange(null, new HttpResponse(500, "{\"error\": \"Interrompu\"}", Map.of()));
+        } finally {
+            pending.remove(streamId);
+            window.release();
+        }
+    }
+
+    @Override
+    public void onFrame(FramedConnection connection, int type, int streamId, BinaryReader payload) {
+        if (type != FramedConnection.ACK && type != FramedConnection.BATCH_ACK) {
+            return;
+        }
+        CompletableFuture<BinaryReader> ack = pending.get(streamId);
+        if (ack != null) {
+            ack.complete(payload);
+        }
+    }
+
+    @Override
+    public void onClose(FramedConnection connection) {
+        ActeurTransport.forget(key, this);
+        pending.values().forEach(ack -> ack.completeExceptionally(new IOException("Connexion perdue")));
+    }
+
+    boolean isOpen() {
+        return connection.isOpen();
+    }
+
+    String getTransport() {
+        return transport;
+    }
+
+    void close() {
+        connection.close();
+    }
+}
@@ -0,0 +1,166 @@
+package com.cypay.framework.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limiteur de concurrence adaptatif pour une destination (host:port)
+ *
+ * Algorithme de type gradient / Vegas : la limite suit le rapport entre le RTT
+ * minimal observé et le RTT courant. Tant que la latence reste proche du minimum,
+ * la limite augmente ; dès qu'une file d'attente se forme chez le service distant,
+ * le RTT monte et la limite redescend. Une surcharge explicite (timeout, 503, 429)
+ * provoque une diminution multiplicative (AIMD).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Configuration du limiteur
+     *
+     * @param initialLimit Limite de départ
+     * @param minLimit Limite plancher
+     * @param maxLimit Limite plafond
+     * @param maxWaitMs Attente maximale d'un appel au-delà de la limite (0 = rejet immédiat)
+     */
+    public record Config(int initialLimit, int minLimit, int maxLimit, long maxWaitMs) {
+        public static final Config DEFAULT = new Config(20, 2, 200, 50);
+    }
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final long RTT_MIN_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String destination;
+    private final Config config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Object waitLock = new Object();
+
+    private volatile double limit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long minRttResetAt = System.nanoTime() + RTT_MIN_WINDOW_NANOS;
+
+    public AdaptiveConcurrencyLimiter(String destination) {
+        this(destination, Config.DEFAULT);
+    }
+
+    public AdaptiveConcurrencyLimiter(String destination, Config config) {
+        this.destination = destination;
+        this.config = config;
+        this.limit = config.initialLimit();
+    }
+
+    /**
+     * Réserve une place pour un appel sortant
+     * Attend au plus maxWaitMs si la limite est atteinte
+     *
+     * @return true si l'appel peut partir, false s'il doit être rejeté
+     */
+    public boolean acquire() {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (config.maxWaitMs() <= 0) {
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.maxWaitMs());
+        waiters.incrementAndGet();
+        try {
+            synchronized (waitLock) {
+                while (!tryAcquire()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        rejected.incrementAndGet();
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(waitLock, remaining);
+                }
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            return false;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Libère la place et ajuste la limite à partir de l'échantillon observé
+     *
+     * @param rttNanos Durée de l'appel
+     * @param overloaded true si la destination a signalé une surcharge (timeout, 503, 429...)
+     */
+    public void release(long rttNanos, boolean overloaded) {
+        int observedInFlight = inFlight.getAndDecrement();
+        adjust(rttNanos, overloaded, observedInFlight);
+
+        if (waiters.get() > 0) {
+            synchronized (waitLock) {
+                waitLock.notifyAll();
+            }
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void adjust(long rttNanos, boolean overloaded, int observedInFlight) {
+        double current = limit;
+
+        if (overloaded) {
+            limit = Math.max(config.minLimit(), current * BACKOFF_RATIO);
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now - minRttResetAt > 0) {
+            // Oublie périodiquement le minimum pour suivre les changements de topologie
+            minRttNanos = rttNanos;
+            minRttResetAt = now + RTT_MIN_WINDOW_NANOS;
+        } else if (rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+
+        // Pas de croissance si la destination n'est pas réellement sollicitée
+        if (observedInFlight < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * minRttNanos / (double) rttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(config.minLimit(), Math.min(config.maxLimit(), smoothed));
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,242 @@
+package com.cypay.framework.resilience;
+
+import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.metrics.ActeurMetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker sans verrou à fenêtre glissante (en nombre d'appels) pour une destination
+ *
+ * CLOSED    : les appels passent, chaque résultat alimente la fenêtre ;
+ *             au-delà du taux d'échec (ou d'appels lents) configuré, le circuit s'ouvre
+ * OPEN      : les appels sont rejetés jusqu'à la fin de waitInOpenMs
+ * HALF_OPEN : un nombre limité d'appels d'essai décide de la fermeture ou de la réouverture
+ *
+ * Chaque état est une génération immuable échangée par CAS ; un résultat arrivé
+ * après un changement d'état est ignoré.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Configuration du circuit breaker
+     *
+     * @param windowSize Nombre d'appels de la fenêtre glissante
+     * @param minimumCalls Nombre minimal d'appels avant d'évaluer les taux
+     * @param failureRateThreshold Taux d'échec (%) déclenchant l'ouverture
+     * @param slowCallDurationMs Durée au-delà de laquelle un appel est considéré lent
+     * @param slowCallRateThreshold Taux d'appels lents (%) déclenchant l'ouverture
+     * @param waitInOpenMs Durée de l'état OPEN avant les appels d'essai
+     * @param halfOpenPermits Nombre d'appels d'essai en HALF_OPEN
+     */
+    public record Config(int windowSize, int minimumCalls, float failureRateThreshold,
+                         long slowCallDurationMs, float slowCallRateThreshold,
+                         long waitInOpenMs, int halfOpenPermits) {
+        public static final Config DEFAULT = new Config(10, 5, 50f, 2000, 100f, 5000, 3);
+    }
+
+    /**
+     * Autorisation d'appel : à rendre via onResult ou release
+     */
+    public static final class Permission {
+        private final Generation generation;
+
+        private Permission(Generation generation) {
+            this.generation = generation;
+        }
+    }
+
+    private final String destination;
+    private final Config config;
+    private final long slowCallNanos;
+    private final AtomicReference<Generation> current;
+    private final ActeurLogger logger;
+
+    public CircuitBreaker(String destination) {
+        this(destination, Config.DEFAULT);
+    }
+
+    public CircuitBreaker(String destination, Config config) {
+        this.destination = destination;
+        this.config = config;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.slowCallDurationMs());
+        this.current = new AtomicReference<>(new Generation(State.CLOSED, 0, config));
+        this.logger = new ActeurLogger("CircuitBreaker[" + destination + "]");
+
+        ActeurMetrics.gauge(ActeurMetrics.name("circuitbreaker.state", "destination", destination),
+                () -> getState().ordinal());
+        ActeurMetrics.gauge(ActeurMetrics.name("circuitbreaker.failure_rate", "destination", destination),
+                () -> current.get().window.failureRate());
+    }
+
+    /**
+     * Demande l'autorisation d'appeler la destination
+     *
+     * @return une Permission, ou null si le circuit refuse l'appel
+     */
+    public Permission tryAcquirePermission() {
+        while (true) {
+            Generation generation = current.get();
+            switch (generation.state) {
+                case CLOSED:
+                    return new Permission(generation);
+
+                case OPEN:
+                    long elapsed = System.nanoTime() - generation.since;
+                    if (elapsed < TimeUnit.MILLISECONDS.toNanos(config.waitInOpenMs())) {
+                        ActeurMetrics.increment(ActeurMetrics.name("circuitbreaker.rejected", "destination", destination));
+                        return null;
+                    }
+                    transition(generation, State.HALF_OPEN);
+                    continue;
+
+                case HALF_OPEN:
+                    int permits = generation.halfOpenPermits.get();
+                    if (permits <= 0) {
+                        ActeurMetrics.increment(ActeurMetrics.name("circuitbreaker.rejected", "destination", destination));
+                        return null;
+                    }
+                    if (generation.halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                        return new Permission(generation);
+                    }
+                    continue;
+
+                default:
+                    throw new IllegalStateException("Etat inconnu : " + generation.state);
+            }
+        }
+    }
+
+    /**
+     * Rend une autorisation sans résultat (appel finalement non émis)
+     */
+    public void release(Permission permission) {
+        Generation generation = permission.generation;
+        if (generation.state == State.HALF_OPEN && current.get() == generation) {
+            generation.halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Enregistre le résultat d'un appel autorisé
+     *
+     * @param permission Autorisation obtenue avant l'appel
+     * @param durationNanos Durée de l'appel
+     * @param success false si l'appel a échoué (exception, 5xx)
+     */
+    public void onResult(Permission permission, long durationNanos, boolean success) {
+        Generation generation = permission.generation;
+        if (current.get() != generation) {
+            return;
+        }
+
+        boolean slow = durationNanos >= slowCallNanos;
+        generation.window.record(!success, slow);
+
+        if (generation.state == State.CLOSED) {
+            Window window = generation.window;
+            if (window.calls() >= config.minimumCalls()
+                    && (window.failureRate() >= config.failureRateThreshold()
+                    || window.slowCallRate() >= config.slowCallRateThreshold())) {
+                transition(generation, State.OPEN);
+            }
+
+        } else if (generation.state == State.HALF_OPEN) {
+            Window window = generation.window;
+            if (window.calls() >= config.halfOpenPermits()) {
+                boolean stillFailing = window.failureRate() >= config.failureRateThreshold()
+                        || window.slowCallRate() >= config.slowCallRateThreshold();
+                transition(generation, stillFailing ? State.OPEN : State.CLOSED);
+            }
+        }
+    }
+
+    private void transition(Generation from, State to) {
+        if (current.compareAndSet(from, new Generation(to, System.nanoTime(), config))) {
+            ActeurMetrics.increment(ActeurMetrics.name("circuitbreaker.transition",
+                    "destination", destination, "from", from.state.name(), "to", to.name()));
+            logger.info("[CIRCUIT] " + destination + " : " + from.state + " -> " + to
+                    + " (échecs " + Math.round(from.window.failureRate()) + "%, lents "
+                    + Math.round(from.window.slowCallRate()) + "%)");
+        }
+    }
+
+    public State getState() {
+        return current.get().state;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * Etat immuable + fenêtre de mesures propre à cet état
+     */
+    private static final class Generation {
+        private final State state;
+        private final long since;
+        private final Window window;
+        private final AtomicInteger halfOpenPermits;
+
+        private Generation(State state, long since, Config config) {
+            this.state = state;
+            this.since = since;
+            this.window = new Window(state == State.HALF_OPEN ? config.halfOpenPermits() : config.windowSize());
+            this.halfOpenPermits = new AtomicInteger(config.halfOpenPermits());
+        }
+    }
+
+    /**
+     * Fenêtre circulaire de résultats : chaque case contient un code d'issue
+     * (bit 1 = appel, bit 2 = échec, bit 4 = lent), les totaux sont maintenus par CAS
+     */
+    private static final class Window {
+        private static final int CALL = 1;
+        private static final int FAILURE = 2;
+        private static final int SLOW = 4;
+
+        private final AtomicIntegerArray slots;
+        private final AtomicLong cursor = new AtomicLong();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        private Window(int size) {
+            this.slots = new AtomicIntegerArray(Math.max(1, size));
+        }
+
+        private void record(boolean failure, boolean slow) {
+            int outcome = CALL | (failure ? FAILURE : 0) | (slow ? SLOW : 0);
+            int index = (int) (cursor.getAndIncrement() % slots.length());
+            int previous = slots.getAndSet(index, outcome);
+            apply(previous, -1);
+            apply(outcome, 1);
+        }
+
+        private void apply(int outcome, int delta) {
+            if ((outcome & CALL) != 0) calls.addAndGet(delta);
+            if ((outcome & FAILURE) != 0) failures.addAndGet(delta);
+            if ((outcome & SLOW) != 0) slowCalls.addAndGet(delta);
+        }
+
+        private int calls() {
+            return calls.get();
+        }
+
+        private float failureRate() {
+            int total = calls.get();
+            return total == 0 ? 0f : failures.get() * 100f / total;
+        }
+
+        private float slowCallRate() {
+            int total = calls.get();
+            return total == 0 ? 0f : slowCalls.get() * 100f / total;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.cypay.framework.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget de retries pour une destination
+ *
+ * Chaque requête initiale crédite ratio jeton, chaque retry en consomme un :
+ * avec ratio = 0.1, les retries ne peuvent pas ajouter plus de ~10% de charge,
+ * même pendant une panne. Un plancher de minRetriesPerSecond garantit que les
+ * destinations peu sollicitées peuvent tout de même réessayer.
+ */
+public class RetryBudget {
+
+    /**
+     * @param ratio Part de charge supplémentaire autorisée (0.1 = 10%)
+     * @param minRetriesPerSecond Retries toujours autorisés par seconde
+     * @param maxBalance Nombre maximal de retries accumulés
+     */
+    public record Config(double ratio, int minRetriesPerSecond, int maxBalance) {
+        public static final Config DEFAULT = new Config(0.1, 10, 100);
+    }
+
+    private static final long SCALE = 1000;
+
+    private final Config config;
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+
+    public RetryBudget() {
+        this(Config.DEFAULT);
+    }
+
+    public RetryBudget(Config config) {
+        this.config = config;
+        this.depositPerRequest = Math.round(config.ratio() * SCALE);
+        this.maxBalance = config.maxBalance() * SCALE;
+        this.balance = new AtomicLong(config.minRetriesPerSecond() * SCALE);
+    }
+
+    /**
+     * A appeler pour chaque requête initiale vers la destination
+     */
+    public void onRequest() {
+        credit(depositPerRequest);
+    }
+
+    /**
+     * Tente de réserver un retry
+     *
+     * @return false si le budget est épuisé (le retry ne doit pas partir)
+     */
+    public boolean tryAcquireRetry() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    public double getAvailableRetries() {
+        return balance.get() / (double) SCALE;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefillNanos.get();
+        long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(now - last);
+        if (elapsedSeconds > 0 && lastRefillNanos.compareAndSet(last, last + TimeUnit.SECONDS.toNanos(elapsedSeconds))) {
+            credit(elapsedSeconds * config.minRetriesPerSecond() * SCALE);
+        }
+    }
+
+    private void credit(long amount) {
+        balance.accumulateAndGet(amount, (current, delta) -> Math.min(maxBalance, current + delta));
+    }
+}
@@ -0,0 +1,42 @@
+package com.cypay.framework.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Politique de retry avec backoff exponentiel à gigue décorrélée
+ * delai(n) = min(maxDelay, aléatoire(baseDelay, delai(n-1) * 3))
+ *
+ * La gigue évite que tous les agents réessaient en même temps après une panne.
+ *
+ * @param maxAttempts Nombre total de tentatives (1 = pas de retry)
+ * @param baseDelayMs Délai minimal entre deux tentatives
+ * @param maxDelayMs Délai maximal entre deux tentatives
+ */
+public record RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 100, 2000);
+
+    public RetryPolicy withMaxAttempts(int attempts) {
+        return new RetryPolicy(attempts, baseDelayMs, maxDelayMs);
+    }
+
+    /**
+     * Calcule le délai avant la prochaine tentative
+     *
+     * @param previousDelayMs Délai précédent (0 pour le premier retry)
+     */
+    public long nextDelayMs(long previousDelayMs) {
+        long upper = Math.max(baseDelayMs, previousDelayMs * 3);
+        long delay = upper > baseDelayMs
+                ? ThreadLocalRandom.current().nextLong(baseDelayMs, upper + 1)
+                : baseDelayMs;
+        return Math.min(maxDelayMs, delay);
+    }
+
+    /**
+     * Statuts pour lesquels une nouvelle tentative a un sens
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+}
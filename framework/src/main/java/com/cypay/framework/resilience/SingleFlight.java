@@ -0,0 +1,71 @@
+package com.cypay.framework.resilience;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement d'appels identiques simultanés (single-flight)
+ *
+ * Le premier appelant pour une clé exécute l'appel ; ceux qui arrivent pendant
+ * qu'il est en cours attendent et reçoivent le même résultat. Rien n'est mis
+ * en cache : la clé est libérée dès que l'appel se termine.
+ * Réservé aux appels idempotents dont le résultat est immuable.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Exécute l'appel, ou rejoint l'appel identique déjà en cours
+     *
+     * @param key Clé identifiant les appels équivalents
+     * @param call Appel à exécuter si aucun n'est en cours pour cette clé
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Indique si un appel est en cours pour cette clé
+     */
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Nombre d'appels servis par un appel déjà en cours
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+}
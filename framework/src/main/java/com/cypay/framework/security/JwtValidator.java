@@ -1,45 +1,99 @@
 package com.cypay.framework.security;
 
+import com.cypay.framework.cache.TtlCache;
+import com.cypay.framework.metrics.ActeurMetrics;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.function.Function;
 
 /**
  * Validateur JWT réutilisable pour tous les microservices
+ *
+ * Une seule vérification (signature + expiration) par token : le parser est
+ * construit une fois et les claims vérifiés sont gardés en cache, par empreinte
+ * SHA-256 du token, jusqu'à leur date d'expiration.
  */
 public class JwtValidator {
 
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private final SecretKey secretKey;
     private final long expirationTime;
+    private final JwtParser parser;
+    private final TtlCache<String, Claims> verified;
 
     /**
      * @param secret Clé secrète pour signer/valider les tokens (min 256 bits)
      * @param expirationTimeMs Durée de validité du token en millisecondes
      */
     public JwtValidator(String secret, long expirationTimeMs) {
+        this(secret, expirationTimeMs, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize Nombre maximal de tokens vérifiés gardés en cache
+     */
+    public JwtValidator(String secret, long expirationTimeMs, int cacheSize) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationTime = expirationTimeMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        this.verified = new TtlCache<>(cacheSize);
     }
 
     /**
-     * Valide un token JWT
+     * Vérifie signature et expiration en une passe
+     *
+     * @return les claims du token, ou null s'il est invalide ou expiré
      */
-    public boolean validateToken(String token) {
+    public Claims verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String key = hash(token);
+        Claims claims = verified.get(key);
+        if (claims != null) {
+            ActeurMetrics.increment("jwt.cache.hit");
+            return claims;
+        }
+        ActeurMetrics.increment("jwt.cache.miss");
+
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            // sans exp, pas de date de fin de cache : vérifié à chaque appel
+            return claims;
         }
+        verified.put(key, claims, expiration.getTime());
+        return claims;
+    }
+
+    /**
+     * Valide un token JWT
+     */
+    public boolean validateToken(String token) {
+        return verify(token) != null;
     }
 
     /**
@@ -58,36 +112,23 @@ public class JwtValidator {
 
     /**
      * Extrait un claim spécifique du token
+     *
+     * @throws JwtException si le token est invalide ou expiré
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verify(token);
+        if (claims == null) {
+            throw new JwtException("Token invalide ou expiré");
+        }
         return claimsResolver.apply(claims);
     }
 
-    /**
-     * Extrait tous les claims du token
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Vérifie si le token est expiré
-     */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     /**
      * Valide un token pour un utilisateur spécifique
      */
     public boolean validateTokenForUser(String token, String email) {
-        final String tokenEmail = extractEmail(token);
-        return (tokenEmail.equals(email) && !isTokenExpired(token));
+        final Claims claims = verify(token);
+        return claims != null && claims.getSubject() != null && claims.getSubject().equals(email);
     }
 
     /**
@@ -111,4 +152,9 @@ public class JwtValidator {
         }
         return null;
     }
-}
\ No newline at end of file
+
+    private static String hash(String token) {
+        MessageDigest digest = SHA_256.get();
+        return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
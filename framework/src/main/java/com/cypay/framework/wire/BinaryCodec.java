@@ -0,0 +1,14 @@
+package com.cypay.framework.wire;
+
+/**
+ * Encodage binaire d'un DTO échangé entre microservices
+ *
+ * L'ordre des champs est le contrat : émetteur et récepteur doivent
+ * enregistrer des codecs qui écrivent et lisent les mêmes champs dans le même ordre.
+ */
+public interface BinaryCodec<T> {
+
+    void write(T value, BinaryWriter out);
+
+    T read(BinaryReader in);
+}
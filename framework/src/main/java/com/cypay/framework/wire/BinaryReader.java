@@ -0,0 +1,104 @@
+package com.cypay.framework.wire;
+
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture du format binaire produit par {@link BinaryWriter}
+ */
+public class BinaryReader {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++];
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Varint invalide");
+    }
+
+    public long readLong() {
+        long raw = readVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public int readInt() {
+        return (int) readLong();
+    }
+
+    public Long readNullableLong() {
+        long raw = readVarLong();
+        if (raw == 0) {
+            return null;
+        }
+        raw -= 1;
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public String readString() {
+        long length = readVarLong();
+        if (length == 0) {
+            return null;
+        }
+        int size = (int) (length - 1);
+        require(size);
+        String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+        position += size;
+        return value;
+    }
+
+    public BigDecimal readDecimal() {
+        int kind = readByte();
+        if (kind == 0) {
+            return null;
+        }
+        int scale = readInt();
+        if (kind == 1) {
+            return BigDecimal.valueOf(readLong(), scale);
+        }
+        int size = (int) readVarLong();
+        require(size);
+        byte[] bytes = new byte[size];
+        System.arraycopy(buffer, position, bytes, 0, size);
+        position += size;
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    private void require(int count) {
+        if (count < 0 || position + count > limit) {
+            throw new IllegalArgumentException("Message binaire tronqué");
+        }
+    }
+}
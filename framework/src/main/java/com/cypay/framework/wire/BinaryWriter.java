@@ -0,0 +1,126 @@
+package com.cypay.framework.wire;
+
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Ecriture du format binaire compact des échanges internes
+ *
+ * Entiers en varint zigzag, chaînes UTF-8 préfixées par leur longueur,
+ * décimaux en (échelle, valeur non mise à l'échelle) : pas de perte de précision
+ * et pas de formatage texte.
+ */
+public class BinaryWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    public BinaryWriter() {
+        this(64);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public BinaryWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public BinaryWriter writeBoolean(boolean value) {
+        return writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Entier non signé en varint (7 bits par octet)
+     */
+    public BinaryWriter writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Entier signé en zigzag : les petites valeurs négatives restent courtes
+     */
+    public BinaryWriter writeLong(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public BinaryWriter writeInt(int value) {
+        return writeLong(value);
+    }
+
+    /**
+     * Long nullable : 0 = null, sinon zigzag(valeur) + 1
+     */
+    public BinaryWriter writeNullableLong(Long value) {
+        if (value == null) {
+            return writeVarLong(0);
+        }
+        return writeVarLong(((value << 1) ^ (value >> 63)) + 1);
+    }
+
+    /**
+     * Chaîne nullable : longueur + 1 (0 = null) puis octets UTF-8
+     */
+    public BinaryWriter writeString(String value) {
+        if (value == null) {
+            return writeVarLong(0);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        return writeBytes(bytes);
+    }
+
+    /**
+     * Décimal nullable : drapeau, échelle, puis valeur non mise à l'échelle
+     * en zigzag (ou en octets bruts si elle dépasse 63 bits)
+     */
+    public BinaryWriter writeDecimal(BigDecimal value) {
+        if (value == null) {
+            return writeByte(0);
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writeByte(1);
+            writeInt(value.scale());
+            return writeLong(unscaled.longValue());
+        }
+        byte[] bytes = unscaled.toByteArray();
+        writeByte(2);
+        writeInt(value.scale());
+        writeVarLong(bytes.length);
+        return writeBytes(bytes);
+    }
+
+    public BinaryWriter writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cypay.framework.wire;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des codecs binaires et négociation du format des échanges internes
+ *
+ * Un appel interne envoie Content-Type: application/x-cypay-binary quand un codec
+ * est enregistré pour le DTO, et annonce Accept: application/x-cypay-binary, application/json.
+ * Les clients externes n'envoient pas ces en-têtes et restent en JSON.
+ */
+public final class WireFormat {
+
+    public static final String CONTENT_TYPE = "application/x-cypay-binary";
+    public static final String ACCEPT = CONTENT_TYPE + ", application/json";
+
+    private static final int VERSION = 1;
+    private static final Map<Class<?>, BinaryCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    private WireFormat() {
+    }
+
+    public static <T> void register(Class<T> type, BinaryCodec<T> codec) {
+        CODECS.put(type, codec);
+    }
+
+    public static boolean supports(Class<?> type) {
+        return type != null && CODECS.containsKey(type);
+    }
+
+    public static boolean isBinary(String contentType) {
+        return contentType != null && contentType.startsWith(CONTENT_TYPE);
+    }
+
+    public static boolean accepts(String acceptHeader) {
+        return acceptHeader != null && acceptHeader.contains(CONTENT_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Object value) {
+        BinaryCodec<Object> codec = (BinaryCodec<Object>) CODECS.get(value.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("Aucun codec binaire pour " + value.getClass().getName());
+        }
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeByte(VERSION);
+        codec.write(value, writer);
+        return writer.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T decode(byte[] bytes, Class<T> type) {
+        BinaryCodec<T> codec = (BinaryCodec<T>) CODECS.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("Aucun codec binaire pour " + type.getName());
+        }
+        BinaryReader reader = new BinaryReader(bytes);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Version de format binaire non supportée : " + version);
+        }
+        return codec.read(reader);
+    }
+}
@@ -0,0 +1,119 @@
+package com.cypay.framework.acteur;
+
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.resilience.RetryPolicy;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActeurHttpClientTest {
+
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    void memeCleIdempotencePourToutesLesTentativesDUnPost() throws Exception {
+        List<String> cles = new CopyOnWriteArrayList<>();
+        AtomicInteger appels = new AtomicInteger();
+        int port = demarrerServeur(cles, appels);
+
+        HttpResponse response = new ActeurHttpClient(new ActeurLogger("Test"))
+                .executeWithRetry(CustomHttpRequest.builder()
+                        .url("http://localhost:" + port + "/api/wallets/1/debit")
+                        .method("POST")
+                        .body("{}"), new RetryPolicy(3, 1, 5))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals(2, cles.size());
+        assertNotNull(cles.get(0));
+        assertEquals(cles.get(0), cles.get(1), "Une seule clé pour la requête et son retry");
+    }
+
+    @Test
+    void cleFournieParLAppelantConservee() throws Exception {
+        List<String> cles = new CopyOnWriteArrayList<>();
+        int port = demarrerServeur(cles, new AtomicInteger());
+
+        new ActeurHttpClient(new ActeurLogger("Test"))
+                .executeWithRetry(CustomHttpRequest.builder()
+                        .url("http://localhost:" + port + "/api/wallets/transfer")
+                        .method("POST")
+                        .header(ActeurHttpClient.IDEMPOTENCY_KEY, "transfert-42")
+                        .body("{}"), new RetryPolicy(3, 1, 5))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("transfert-42", "transfert-42"), cles);
+    }
+
+    @Test
+    void postEncodedPorteLaCleDeLAppelant() throws Exception {
+        List<String> cles = new CopyOnWriteArrayList<>();
+        int port = demarrerServeur(cles, new AtomicInteger(1));
+        ActeurHttpClient client = new ActeurHttpClient(new ActeurLogger("Test"));
+        String url = "http://localhost:" + port + "/api/wallets/legs";
+
+        client.postEncoded(url, Map.of("legs", List.of()));
+        client.postEncoded(url, Map.of("legs", List.of()));
+        client.postEncoded(url, Map.of("legs", List.of()), "capture-h1");
+        client.postEncoded(url, Map.of("legs", List.of()), "capture-h1");
+
+        assertEquals(List.of("absent", "absent"), cles.subList(0, 2), "Sans clé fournie : aucune clé");
+        assertEquals(List.of("capture-h1", "capture-h1"), cles.subList(2, 4), "Même opération, même clé");
+    }
+
+    @Test
+    void seuleLaTentativeInitialeCrediteLeBudget() throws Exception {
+        int port = demarrerServeur(new CopyOnWriteArrayList<>(), new AtomicInteger());
+        double initial = ActeurHttpClient.retryBudgetFor("localhost:" + port).getAvailableRetries();
+
+        new ActeurHttpClient(new ActeurLogger("Test"))
+                .executeWithRetry(CustomHttpRequest.builder()
+                        .url("http://localhost:" + port + "/api/wallets/1/debit")
+                        .method("POST")
+                        .body("{}"), new RetryPolicy(3, 1, 5))
+                .get(5, TimeUnit.SECONDS);
+
+        // +0.1 pour la requête initiale, -1 pour le retry (qui ne crédite rien)
+        assertEquals(initial - 0.9, ActeurHttpClient.retryBudgetFor("localhost:" + port).getAvailableRetries(), 1e-9);
+    }
+
+    @Test
+    void routeSingleFlightActiveeUneSeuleFois() {
+        try {
+            assertTrue(ActeurHttpClient.enableSingleFlight("/users/{id}"));
+            assertFalse(ActeurHttpClient.enableSingleFlight("/users/{id}"), "Second client : route déjà active");
+        } finally {
+            ActeurHttpClient.disableSingleFlight();
+        }
+    }
+
+    /**
+     * Répond 503 au premier appel puis 200 ; note le header Idempotency-Key de chaque appel
+     */
+    private int demarrerServeur(List<String> cles, AtomicInteger appels) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String cle = exchange.getRequestHeaders().getFirst(ActeurHttpClient.IDEMPOTENCY_KEY);
+            cles.add(cle == null ? "absent" : cle);
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(appels.getAndIncrement() == 0 ? 503 : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        return server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,130 @@
+package com.cypay.framework.acteur;
+
+import com.cypay.framework.http.HttpMethode;
+import com.cypay.framework.http.HttpReceiver;
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.metrics.ActeurMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActeurRegistryTest {
+
+    static class Ordre {
+        String id;
+
+        Ordre(String id) {
+            this.id = id;
+        }
+    }
+
+    static class Collecteur extends Acteur<Ordre> {
+        final BlockingQueue<Ordre> recus = new LinkedBlockingQueue<>();
+
+        Collecteur(String nom) {
+            super(nom);
+        }
+
+        @Override
+        protected void traiterMessage(Ordre message) {
+            recus.add(message);
+        }
+    }
+
+    private static final String LOCAL = ActeurMetrics.name(ActeurRegistry.DELIVERED, "route", "local");
+    private static final String REMOTE = ActeurMetrics.name(ActeurRegistry.DELIVERED, "route", "remote");
+
+    private HttpReceiver receiver;
+    private Collecteur cible;
+    private Collecteur emetteur;
+
+    @AfterEach
+    void tearDown() {
+        if (receiver != null) receiver.stop();
+        if (cible != null) cible.arreter();
+        if (emetteur != null) emetteur.arreter();
+    }
+
+    @Test
+    void acteurDeLaJvmRecoitLObjetSansSerialisation() throws Exception {
+        receiver = new HttpReceiver();
+        receiver.start(0, (exchange, method, path, query, body) -> exchange.close());
+        int port = receiver.getPort();
+
+        cible = new Collecteur("CibleLocale");
+        cible.demarrer();
+        ActeurRegistry.register("CibleLocale", cible, Ordre.class);
+        emetteur = new Collecteur("EmetteurLocal");
+
+        long localAvant = ActeurMetrics.count(LOCAL);
+        Ordre ordre = new Ordre("o-1");
+        HttpResponse response = emetteur.sendToActeur(port, "CibleLocale", (Object) ordre);
+
+        assertEquals(202, response.getStatusCode());
+        assertSame(ordre, cible.recus.poll(2, TimeUnit.SECONDS), "Même instance : aucune sérialisation");
+
+        HttpResponse viaService = emetteur.sendToService("localhost", port, "/acteur/CibleLocale/message",
+                HttpMethode.POST, "{\"id\":\"o-2\"}");
+        assertEquals(202, viaService.getStatusCode());
+        assertEquals("o-2", cible.recus.poll(2, TimeUnit.SECONDS).id);
+
+        assertEquals(localAvant + 2, ActeurMetrics.count(LOCAL));
+    }
+
+    @Test
+    void portEtrangerALaJvmPartSurLeReseau() {
+        cible = new Collecteur("CibleDistante");
+        cible.demarrer();
+        ActeurRegistry.register("CibleDistante", cible, Ordre.class);
+        emetteur = new Collecteur("EmetteurDistant");
+
+        assertFalse(ActeurRegistry.isLocal("localhost", 1));
+        long remoteAvant = ActeurMetrics.count(REMOTE);
+        emetteur.sendToActeur(1, "CibleDistante", "{\"id\":\"o-3\"}");
+
+        assertEquals(remoteAvant + 1, ActeurMetrics.count(REMOTE));
+        assertTrue(cible.recus.isEmpty());
+    }
+
+    @Test
+    void acteurSansTypeNeRecoitPasDObjetEnLocal() throws Exception {
+        receiver = new HttpReceiver();
+        receiver.start(0, (exchange, method, path, query, body) -> {
+            try {
+                exchange.sendResponseHeaders(404, -1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                exchange.close();
+            }
+        });
+        int port = receiver.getPort();
+
+        cible = new Collecteur("CibleSansType"); // enregistrée sans type au démarrage
+        cible.demarrer();
+        emetteur = new Collecteur("EmetteurSansType");
+
+        assertFalse(ActeurRegistry.deliverObject("CibleSansType", "Test", new Ordre("o-4")));
+        HttpResponse response = emetteur.sendToActeur(port, "CibleSansType", (Object) "pas un ordre");
+
+        assertEquals(404, response.getStatusCode(), "Chemin sérialisé, comme depuis une autre JVM");
+        assertNull(cible.recus.poll(200, TimeUnit.MILLISECONDS), "Rien dans la mailbox");
+    }
+
+    @Test
+    void arretRetireLActeurDuRegistre() {
+        cible = new Collecteur("Ephemere");
+        cible.demarrer();
+        assertSame(cible, ActeurRegistry.lookup("Ephemere"));
+
+        cible.arreter();
+        assertNull(ActeurRegistry.lookup("Ephemere"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.cypay.framework.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TtlCacheTest {
+
+    @Test
+    void entreeExpireASaDate() {
+        AtomicLong now = new AtomicLong(1_000);
+        TtlCache<String, String> cache = new TtlCache<>(10, now::get);
+
+        cache.put("a", "A", 2_000);
+        cache.put("deja-expire", "X", 1_000);
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("deja-expire"));
+
+        now.set(2_000);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void tailleBornee() {
+        AtomicLong now = new AtomicLong(0);
+        TtlCache<Integer, Integer> cache = new TtlCache<>(100, now::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i, 10_000);
+        }
+        assertTrue(cache.size() <= 100);
+        assertEquals(999, cache.get(999));
+    }
+
+    @Test
+    void putIfNewerGardeLaVersionLaPlusRecente() {
+        AtomicLong now = new AtomicLong(0);
+        TtlCache<String, Long> cache = new TtlCache<>(10, now::get);
+
+        cache.putIfNewer("w", 5L, 1_000, Comparator.naturalOrder());
+        cache.putIfNewer("w", 3L, 1_000, Comparator.naturalOrder());
+        assertEquals(5L, cache.get("w"));
+
+        cache.putIfNewer("w", 6L, 1_000, Comparator.naturalOrder());
+        assertEquals(6L, cache.get("w"));
+
+        // une entrée expirée ne bloque pas une version plus ancienne
+        now.set(1_000);
+        cache.putIfNewer("w", 1L, 2_000, Comparator.naturalOrder());
+        assertEquals(1L, cache.get("w"));
+    }
+}
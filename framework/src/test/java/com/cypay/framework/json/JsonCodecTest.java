@@ -0,0 +1,63 @@
+package com.cypay.framework.json;
+
+import com.cypay.framework.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCodecTest {
+
+    static class Wallet {
+        Long userId;
+        double balance;
+        String currency;
+        LocalDateTime updatedAt;
+    }
+
+    @Test
+    void sortieCompacteEtDatesAuFormatDuProjet() {
+        Wallet wallet = new Wallet();
+        wallet.userId = 1L;
+        wallet.balance = 1000.5;
+        wallet.currency = "EUR";
+        wallet.updatedAt = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+
+        String json = JsonCodec.toJson(wallet);
+
+        assertEquals("{\"userId\":1,\"balance\":1000.5,\"currency\":\"EUR\",\"updatedAt\":\"2025-01-02 03:04:05\"}", json);
+        assertEquals(wallet.updatedAt, JsonCodec.fromJson(json, Wallet.class).updatedAt);
+    }
+
+    @Test
+    void allerRetourParByteBuffer() {
+        byte[] json = JsonCodec.toBytes(Map.of("currency", "BTC"));
+        byte[] trame = new byte[json.length + 6];
+        Arrays.fill(trame, (byte) '#');
+        System.arraycopy(json, 0, trame, 3, json.length);
+
+        // arrayOffset, position et limit non nuls : seul position -> limit est lu
+        ByteBuffer tableau = ByteBuffer.wrap(trame, 1, trame.length - 1).slice();
+        tableau.position(2).limit(2 + json.length);
+        assertEquals("BTC", JsonCodec.read(tableau, Wallet.class).currency);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(trame.length).put(trame);
+        direct.position(3).limit(3 + json.length);
+        assertEquals("BTC", JsonCodec.read(direct, Wallet.class).currency);
+    }
+
+    @Test
+    void lectureDeChampSansDeserialisationComplete() {
+        String body = "{\"id\":1,\"meta\":{\"balance\":-1},\"balance\":1000.0,\"currency\":\"EUR\"}";
+
+        assertEquals(1000.0, JsonCodec.readDouble(body, "balance", 0.0));
+        assertEquals("EUR", JsonCodec.readField(body, "currency"));
+        assertNull(JsonCodec.readField(body, "absent"));
+        assertEquals("EUR", new HttpResponse(200, body, Map.of()).field("currency"));
+        assertEquals(1000.0, new HttpResponse(200, body, Map.of()).as(Wallet.class).balance);
+    }
+}
@@ -0,0 +1,118 @@
+package com.cypay.framework.money;
+
+import com.cypay.framework.json.JsonCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void echelleParDevise() {
+        assertEquals(1, Money.parse("BTC", "0.00000001").units());
+        assertEquals(1234, Money.parse("EUR", "12.34").units());
+        assertEquals(1200, Money.parse("EUR", "12").units());
+        assertEquals(-50, Money.parse("USD", "-0.5").units());
+        assertEquals("12.30", Money.parse("EUR", "12.3").toPlainString());
+        assertEquals("-0.00000001", Money.ofUnits("BTC", -1).toPlainString());
+        assertEquals(new BigDecimal("0.10000000"), Money.parse("ETH", "0.1").toBigDecimal());
+    }
+
+    @Test
+    void aucunePerteDePrecisionSilencieuse() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("EUR", "0.001"));
+        assertThrows(ArithmeticException.class, () -> Money.of("EUR", new BigDecimal("0.001")));
+        assertEquals(0, Money.of("EUR", new BigDecimal("0.001"), RoundingMode.HALF_EVEN).units());
+        assertEquals(100, Money.parse("EUR", "1.0000").units(), "Zéros au-delà de l'échelle acceptés");
+        assertThrows(NumberFormatException.class, () -> Money.parse("BTC", "99999999999999"));
+        assertThrows(ArithmeticException.class, () -> Money.ofUnits("EUR", Long.MAX_VALUE).plus(Money.ofUnits("EUR", 1)));
+        assertThrows(IllegalArgumentException.class, () -> Money.zero("EUR").plus(Money.zero("USD")));
+    }
+
+    @Test
+    void contreValeurArrondieDansLaDeviseDuPrix() {
+        Money prix = Money.parse("EUR", "40000.01");
+
+        assertEquals(Money.parse("EUR", "20000.01"), Money.parse("BTC", "0.5").times(prix)); // 20000.005 -> 20000.01
+        assertEquals(Money.parse("EUR", "0.00"), Money.parse("BTC", "0.00000001").times(prix));
+        // produit au-delà de 64 bits : même résultat par BigInteger
+        assertEquals(Money.parse("USD", "10000000000.00"),
+                Money.parse("BTC", "1000000").times(Money.parse("USD", "10000")));
+    }
+
+    @Test
+    void codecJson() {
+        Money montant = Money.parse("BTC", "1.23456789");
+
+        String json = JsonCodec.toJson(montant);
+        assertEquals("{\"amount\":\"1.23456789\",\"currency\":\"BTC\"}", json);
+        assertEquals(montant, JsonCodec.fromJson(json, Money.class));
+        assertEquals(montant, JsonCodec.fromJson("{\"currency\":\"BTC\",\"amount\":1.23456789}", Money.class));
+    }
+
+    /**
+     * Crédit + comparaison au solde, comme un mouvement de solde (résultats affichés, non vérifiés)
+     * mvn test -Dtest=MoneyTest -Dcypay.bench=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "cypay.bench", matches = "true")
+    void benchmarkContreBigDecimal() {
+        int iterations = 2_000_000;
+        Money montantMoney = Money.parse("EUR", "12.34");
+        BigDecimal montantDecimal = new BigDecimal("12.34");
+
+        long moneyNanos = measure(iterations, () -> {
+            Money solde = Money.zero("EUR");
+            for (int i = 0; i < 100; i++) {
+                solde = solde.plus(montantMoney);
+                if (solde.isLessThan(montantMoney)) {
+                    throw new IllegalStateException();
+                }
+            }
+            return solde.units();
+        });
+        long decimalNanos = measure(iterations, () -> {
+            BigDecimal solde = BigDecimal.ZERO.setScale(2);
+            for (int i = 0; i < 100; i++) {
+                solde = solde.add(montantDecimal);
+                if (solde.compareTo(montantDecimal) < 0) {
+                    throw new IllegalStateException();
+                }
+            }
+            return solde.unscaledValue().longValue();
+        });
+        long unitsNanos = measure(iterations, () -> {
+            long solde = 0;
+            for (int i = 0; i < 100; i++) {
+                solde = Math.addExact(solde, montantMoney.units());
+                if (solde < montantMoney.units()) {
+                    throw new IllegalStateException();
+                }
+            }
+            return solde;
+        });
+
+        System.out.println("[BENCH] 100 crédits + comparaisons : Money " + moneyNanos * 100 / iterations
+                + " ns, BigDecimal " + decimalNanos * 100 / iterations
+                + " ns, long (units) " + unitsNanos * 100 / iterations + " ns");
+    }
+
+    private static long measure(int iterations, java.util.function.LongSupplier task) {
+        long sink = 0;
+        int batches = iterations / 100;
+        for (int i = 0; i < batches / 10; i++) {
+            sink += task.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < batches; i++) {
+            sink += task.getAsLong();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertNotEquals(42, sink); // résultat consommé : la boucle n'est pas éliminée
+        return elapsed;
+    }
+}
@@ -0,0 +1,129 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.acteur.Acteur;
+import com.cypay.framework.http.HttpReceiver;
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.metrics.ActeurMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActeurBatcherTest {
+
+    static class Ordre {
+        String id;
+    }
+
+    static class Collecteur extends Acteur<Ordre> {
+        final List<String> recus = new CopyOnWriteArrayList<>();
+
+        Collecteur() {
+            super("Lots");
+        }
+
+        @Override
+        protected void traiterMessage(Ordre message) {
+            recus.add(message.id);
+        }
+    }
+
+    private static final String BATCHES = ActeurMetrics.name("acteur.batch.sent", "acteur", "Lots");
+
+    private HttpReceiver receiver;
+    private Collecteur acteur;
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        acteur = new Collecteur();
+        acteur.demarrer();
+        ActeurTransport.expose("Lots", acteur, Ordre.class);
+        receiver = new HttpReceiver();
+        receiver.start(0, (exchange, method, path, query, body) -> exchange.close());
+        port = receiver.getPort();
+        ActeurBatcher.configure(new ActeurBatcher.Config(5_000, 128));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ActeurBatcher.configure(ActeurBatcher.Config.DEFAULT);
+        receiver.stop();
+        acteur.arreter();
+        ActeurTransport.shutdown();
+    }
+
+    @Test
+    void rafaleRegroupeeAvecAcquittementParMessage() throws Exception {
+        long lotsAvant = ActeurMetrics.count(BATCHES);
+
+        List<CompletableFuture<HttpResponse>> acks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            acks.add(ActeurBatcher.submit("localhost", port, "Lots", "Test", "{\"id\":\"m" + i + "\"}"));
+        }
+        CompletableFuture<HttpResponse> invalide = ActeurBatcher.submit("localhost", port, "Lots", "Test", "\"pas un ordre\"");
+
+        for (CompletableFuture<HttpResponse> ack : acks) {
+            assertEquals(202, ack.get(5, TimeUnit.SECONDS).getStatusCode());
+        }
+        assertEquals(400, invalide.get(5, TimeUnit.SECONDS).getStatusCode(), "L'échec reste propre au message");
+
+        long lots = ActeurMetrics.count(BATCHES) - lotsAvant;
+        assertTrue(lots >= 1 && lots < 10, "51 messages regroupés en " + lots + " requête(s)");
+        assertEquals(50, waitFor(acteur.recus, 50).size());
+        assertEquals("m0", acteur.recus.get(0));
+    }
+
+    @Test
+    void messageNonJsonRefuseSansCasserLeLot() throws Exception {
+        CompletableFuture<HttpResponse> avant = ActeurBatcher.submit("localhost", port, "Lots", "Test", "{\"id\":\"a\"}");
+        CompletableFuture<HttpResponse> casse = ActeurBatcher.submit("localhost", port, "Lots", "Test", "{\"id\": \"b\"\\");
+        CompletableFuture<HttpResponse> texte = ActeurBatcher.submit("localhost", port, "Lots", "Test", "pas du json");
+        CompletableFuture<HttpResponse> apres = ActeurBatcher.submit("localhost", port, "Lots", "Test", "{\"id\":\"c\"}");
+
+        assertEquals(400, casse.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(400, texte.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertNotNull(texte.get().field("error"), "Erreur en JSON valide");
+        assertEquals(202, avant.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(202, apres.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(List.of("a", "c"), waitFor(acteur.recus, 2));
+    }
+
+    @Test
+    void lotsParTransportNatifUneFoisAnnonce() throws Exception {
+        ActeurTransport.listen(0);
+        assertEquals(202, ActeurBatcher.submit("localhost", port, "Lots", "Test", "{\"id\":\"http\"}")
+                .get(5, TimeUnit.SECONDS).getStatusCode());
+        long natifsAvant = nativeSent();
+
+        List<CompletableFuture<HttpResponse>> acks = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            acks.add(ActeurBatcher.submit("localhost", port, "Lots", "Test", "{\"id\":\"n" + i + "\"}"));
+        }
+        for (CompletableFuture<HttpResponse> ack : acks) {
+            assertEquals(202, ack.get(5, TimeUnit.SECONDS).getStatusCode());
+        }
+        assertEquals(301, waitFor(acteur.recus, 301).size());
+        assertEquals(300, nativeSent() - natifsAvant);
+    }
+
+    private static long nativeSent() {
+        return ActeurMetrics.count(ActeurMetrics.name("acteur.remote.sent", "transport", "tcp"))
+                + ActeurMetrics.count(ActeurMetrics.name("acteur.remote.sent", "transport", "uds"));
+    }
+
+    private static List<String> waitFor(List<String> recus, int attendus) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (recus.size() < attendus && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return recus;
+    }
+}
@@ -0,0 +1,119 @@
+package com.cypay.framework.remote;
+
+import com.cypay.framework.acteur.Acteur;
+import com.cypay.framework.acteur.ActeurHttpClient;
+import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.http.HttpReceiver;
+import com.cypay.framework.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActeurTransportTest {
+
+    static class Ordre {
+        String id;
+        double montant;
+
+        Ordre() {
+        }
+
+        Ordre(String id, double montant) {
+            this.id = id;
+            this.montant = montant;
+        }
+    }
+
+    static class OrdreActeur extends Acteur<Ordre> {
+        final List<String> recus = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch;
+
+        OrdreActeur(int attendus) {
+            super("OrdreActeur");
+            this.latch = new CountDownLatch(attendus);
+        }
+
+        @Override
+        protected void traiterMessage(Ordre message) {
+            recus.add(message.id);
+            latch.countDown();
+        }
+    }
+
+    private HttpReceiver receiver;
+    private OrdreActeur acteur;
+
+    @AfterEach
+    void tearDown() {
+        if (receiver != null) receiver.stop();
+        if (acteur != null) acteur.arreter();
+        ActeurTransport.shutdown();
+    }
+
+    @Test
+    void premierEnvoiEnHttpPuisTransportNatifMultiplexe() throws Exception {
+        int messages = 500;
+        acteur = new OrdreActeur(messages + 1);
+        acteur.demarrer();
+        ActeurTransport.expose("OrdreActeur", acteur, Ordre.class);
+        ActeurTransport.listen(0);
+
+        receiver = new HttpReceiver();
+        receiver.start(0, (exchange, method, path, query, body) -> exchange.close());
+        int httpPort = receiver.getPort();
+
+        ActeurHttpClient client = new ActeurHttpClient(new ActeurLogger("TransportTest"));
+        HttpResponse viaHttp = client.post("http://localhost:" + httpPort + "/acteur/OrdreActeur/message",
+                "{\"id\":\"http\",\"montant\":1}");
+        assertEquals(202, viaHttp.getStatusCode());
+        assertNotNull(viaHttp.getHeader(ActeurTransport.HEADER), "Le pair annonce son transport");
+
+        ActeurTransport.learn("localhost", httpPort, viaHttp);
+
+        // Envois concurrents ; les statuts reviennent au thread du test pour y être vérifiés
+        ExecutorService senders = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<List<Integer>>> statuts = new ArrayList<>();
+            for (int t = 0; t < 5; t++) {
+                int offset = t * (messages / 5);
+                statuts.add(senders.submit(() -> {
+                    List<Integer> codes = new ArrayList<>();
+                    for (int i = 0; i < messages / 5; i++) {
+                        HttpResponse response = ActeurTransport.trySend("localhost", httpPort, "OrdreActeur",
+                                "Test", "{\"id\":\"m" + (offset + i) + "\",\"montant\":2}");
+                        codes.add(response == null ? -1 : response.getStatusCode());
+                    }
+                    return codes;
+                }));
+            }
+            for (Future<List<Integer>> codes : statuts) {
+                List<Integer> recus = codes.get(10, TimeUnit.SECONDS);
+                assertEquals(messages / 5, recus.size());
+                recus.forEach(code -> assertEquals(202, code, "Envoi par le transport natif"));
+            }
+        } finally {
+            senders.shutdownNow();
+        }
+
+        assertTrue(acteur.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(messages + 1, acteur.recus.size());
+
+        HttpResponse inconnu = ActeurTransport.trySend("localhost", httpPort, "Absent", "Test", "{}");
+        assertEquals(404, inconnu.getStatusCode());
+    }
+
+    @Test
+    void sansAnnonceLeMessagePartEnHttp() {
+        assertNull(ActeurTransport.trySend("localhost", 1, "OrdreActeur", "Test", "{}"));
+    }
+}
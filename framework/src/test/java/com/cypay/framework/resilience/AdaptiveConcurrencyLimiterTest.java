@@ -0,0 +1,74 @@
+package com.cypay.framework.resilience;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void rejetteAuDelaDeLaLimite() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("wallet:8083",
+                new AdaptiveConcurrencyLimiter.Config(2, 1, 10, 0));
+
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire(), "La troisième requête doit être rejetée");
+        assertEquals(1, limiter.getRejectedCount());
+
+        limiter.release(1_000_000, false);
+        assertTrue(limiter.acquire(), "Une place libérée doit être réutilisable");
+    }
+
+    @Test
+    void diminueEnCasDeSurcharge() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("wallet:8083",
+                new AdaptiveConcurrencyLimiter.Config(20, 2, 100, 0));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.release(1_000_000, true);
+        }
+
+        assertTrue(limiter.getLimit() < 20, "La limite doit baisser après des surcharges");
+        assertTrue(limiter.getLimit() >= 2, "La limite ne descend pas sous le plancher");
+    }
+
+    @Test
+    void augmenteQuandLaLatenceResteStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("wallet:8083",
+                new AdaptiveConcurrencyLimiter.Config(4, 1, 50, 0));
+
+        for (int round = 0; round < 20; round++) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(1_000_000, false);
+            }
+        }
+
+        assertTrue(limiter.getLimit() > 4, "La limite doit croître sous charge à latence stable");
+    }
+
+    @Test
+    void reduitQuandLaLatenceMonte() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("wallet:8083",
+                new AdaptiveConcurrencyLimiter.Config(40, 1, 100, 0));
+
+        limiter.acquire();
+        limiter.release(1_000_000, false);
+
+        for (int round = 0; round < 20; round++) {
+            int limit = limiter.getLimit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(20_000_000, false);
+            }
+        }
+
+        assertTrue(limiter.getLimit() < 40, "Une latence 20x plus élevée doit réduire la limite");
+    }
+}
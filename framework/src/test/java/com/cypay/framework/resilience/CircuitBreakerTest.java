@@ -0,0 +1,95 @@
+package com.cypay.framework.resilience;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = 1_000_000;
+
+    private static CircuitBreaker.Config config() {
+        return new CircuitBreaker.Config(10, 4, 50f, 1000, 100f, 50, 2);
+    }
+
+    private static void call(CircuitBreaker breaker, boolean success) {
+        CircuitBreaker.Permission permission = breaker.tryAcquirePermission();
+        assertNotNull(permission);
+        breaker.onResult(permission, FAST, success);
+    }
+
+    @Test
+    void ouvreAuDelaDuTauxDEchec() {
+        CircuitBreaker breaker = new CircuitBreaker("test-open:1", config());
+
+        call(breaker, true);
+        call(breaker, true);
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "Pas d'évaluation avant minimumCalls");
+
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquirePermission(), "Le circuit ouvert rejette les appels");
+        assertEquals(1, ActeurMetrics.count(ActeurMetrics.name("circuitbreaker.transition",
+                "destination", "test-open:1", "from", "CLOSED", "to", "OPEN")));
+    }
+
+    @Test
+    void referemeApresAppelsDEssaiReussis() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test-close:1", config());
+        for (int i = 0; i < 4; i++) call(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(80);
+
+        CircuitBreaker.Permission first = breaker.tryAcquirePermission();
+        CircuitBreaker.Permission second = breaker.tryAcquirePermission();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquirePermission(), "Seuls halfOpenPermits appels d'essai passent");
+
+        breaker.onResult(first, FAST, true);
+        breaker.onResult(second, FAST, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void rouvreSiLEssaiEchoue() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test-reopen:1", config());
+        for (int i = 0; i < 4; i++) call(breaker, false);
+
+        Thread.sleep(80);
+
+        call(breaker, false);
+        call(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void ouvreSurAppelsLents() {
+        CircuitBreaker breaker = new CircuitBreaker("test-slow:1", config());
+        for (int i = 0; i < 4; i++) {
+            CircuitBreaker.Permission permission = breaker.tryAcquirePermission();
+            breaker.onResult(permission, 2_000_000_000L, true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void ignoreLesResultatsDUneGenerationPerimee() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test-stale:1", config());
+        CircuitBreaker.Permission stale = breaker.tryAcquirePermission();
+        for (int i = 0; i < 4; i++) call(breaker, false);
+
+        Thread.sleep(80);
+        CircuitBreaker.Permission probe = breaker.tryAcquirePermission();
+
+        breaker.onResult(stale, FAST, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.release(probe);
+        assertNotNull(breaker.tryAcquirePermission());
+        assertNotNull(breaker.tryAcquirePermission(), "Une permission rendue redevient disponible");
+    }
+}
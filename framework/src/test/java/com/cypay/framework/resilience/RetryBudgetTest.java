@@ -0,0 +1,67 @@
+package com.cypay.framework.resilience;
+
+import com.cypay.framework.acteur.ActeurHttpClient;
+import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.acteur.CustomHttpRequest;
+import com.cypay.framework.http.HttpResponse;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    @Test
+    void limiteLesRetriesAuRatioDesRequetes() {
+        RetryBudget budget = new RetryBudget(new RetryBudget.Config(0.1, 0, 100));
+
+        for (int i = 0; i < 50; i++) {
+            budget.onRequest();
+        }
+
+        int retries = 0;
+        while (budget.tryAcquireRetry()) {
+            retries++;
+        }
+        assertEquals(5, retries, "10% de 50 requêtes");
+    }
+
+    @Test
+    void delaisAGigueDecorreleeRestentDansLesBornes() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1000);
+        long delay = 0;
+        for (int i = 0; i < 100; i++) {
+            delay = policy.nextDelayMs(delay);
+            assertTrue(delay >= 100 && delay <= 1000, "délai hors bornes : " + delay);
+        }
+    }
+
+    @Test
+    void retryNonBloquantJusquASucces() throws Exception {
+        AtomicInteger hits = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/flaky", exchange -> {
+            int status = hits.incrementAndGet() < 3 ? 503 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/flaky";
+            ActeurHttpClient client = new ActeurHttpClient(new ActeurLogger("RetryTest"));
+            HttpResponse response = client
+                    .executeWithRetry(CustomHttpRequest.builder().url(url).method("GET"), new RetryPolicy(3, 10, 20))
+                    .get(5, TimeUnit.SECONDS);
+
+            assertEquals(200, response.getStatusCode());
+            assertEquals(3, hits.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.cypay.framework.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void appelsSimultanesIdentiquesPartagentUnSeulAppel() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> singleFlight.execute("GET /users/1", () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "user-1";
+                })));
+            }
+
+            while (singleFlight.getCoalescedCount() < 7) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("user-1", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+            assertFalse(singleFlight.isInFlight("GET /users/1"), "La clé est libérée après l'appel");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void erreurTransmiseAuxAppelsRegroupesPuisNouvelAppelPossible() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class,
+                () -> singleFlight.execute("k", () -> { throw new IllegalStateException("down"); }));
+        assertEquals("ok", singleFlight.execute("k", () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
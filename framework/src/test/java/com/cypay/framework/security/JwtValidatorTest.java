@@ -0,0 +1,51 @@
+package com.cypay.framework.security;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtValidatorTest {
+
+    private static final String SECRET = "cle-de-test-cypay-suffisamment-longue-pour-hs256";
+
+    @Test
+    void verificationUniqueMiseEnCache() {
+        JwtValidator validator = new JwtValidator(SECRET, 60_000);
+        String token = validator.generateToken("alice@cypay.fr");
+
+        long missAvant = ActeurMetrics.count("jwt.cache.miss");
+        long hitAvant = ActeurMetrics.count("jwt.cache.hit");
+
+        Claims claims = validator.verify(token);
+        assertNotNull(claims);
+        assertEquals("alice@cypay.fr", claims.getSubject());
+
+        assertSame(claims, validator.verify(token), "Appel suivant servi par le cache");
+        assertTrue(validator.validateToken(token));
+        assertEquals("alice@cypay.fr", validator.extractEmail(token));
+        assertTrue(validator.validateTokenForUser(token, "alice@cypay.fr"));
+        assertFalse(validator.validateTokenForUser(token, "bob@cypay.fr"));
+
+        assertEquals(missAvant + 1, ActeurMetrics.count("jwt.cache.miss"));
+        assertEquals(hitAvant + 5, ActeurMetrics.count("jwt.cache.hit"));
+    }
+
+    @Test
+    void tokenAltereOuExpireRejete() {
+        JwtValidator validator = new JwtValidator(SECRET, 60_000);
+        String token = validator.generateToken("alice@cypay.fr");
+        String altere = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertNull(validator.verify(altere));
+        assertNull(validator.verify(null));
+
+        JwtValidator expire = new JwtValidator(SECRET, -1_000);
+        String ancien = expire.generateToken("alice@cypay.fr");
+        assertNull(expire.verify(ancien));
+        assertFalse(expire.validateTokenForUser(ancien, "alice@cypay.fr"));
+
+        JwtValidator autreCle = new JwtValidator(SECRET + "-autre", 60_000);
+        assertNull(autreCle.verify(token));
+    }
+}
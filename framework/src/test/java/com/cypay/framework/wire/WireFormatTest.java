@@ -0,0 +1,109 @@
+package com.cypay.framework.wire;
+
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.json.JsonCodec;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WireFormatTest {
+
+    record Operation(String currency, BigDecimal amount) {
+    }
+
+    record Wallet(Long id, Long userId, BigDecimal balance, String currency) {
+    }
+
+    private static final Wallet WALLET = new Wallet(1234L, 42L, new BigDecimal("1999.12345678"), "EUR");
+    private static final Operation OPERATION = new Operation("BTC", new BigDecimal("0.01250000"));
+
+    @BeforeAll
+    static void registerCodecs() {
+        WireFormat.register(Operation.class, new BinaryCodec<>() {
+            public void write(Operation value, BinaryWriter out) {
+                out.writeString(value.currency()).writeDecimal(value.amount());
+            }
+
+            public Operation read(BinaryReader in) {
+                return new Operation(in.readString(), in.readDecimal());
+            }
+        });
+        WireFormat.register(Wallet.class, new BinaryCodec<>() {
+            public void write(Wallet value, BinaryWriter out) {
+                out.writeNullableLong(value.id()).writeNullableLong(value.userId())
+                        .writeDecimal(value.balance()).writeString(value.currency());
+            }
+
+            public Wallet read(BinaryReader in) {
+                return new Wallet(in.readNullableLong(), in.readNullableLong(), in.readDecimal(), in.readString());
+            }
+        });
+    }
+
+    @Test
+    void allerRetourSansPerteDePrecision() {
+        Wallet wallet = new Wallet(null, -42L, new BigDecimal("123456789012345678901234.12345678"), "BTC");
+        assertEquals(wallet, WireFormat.decode(WireFormat.encode(wallet), Wallet.class));
+
+        Operation operation = new Operation("EUR", new BigDecimal("0.00000001"));
+        assertEquals(operation, WireFormat.decode(WireFormat.encode(operation), Operation.class));
+    }
+
+    @Test
+    void messageTronqueRejete() {
+        byte[] bytes = WireFormat.encode(new Operation("EUR", new BigDecimal("10.5")));
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> WireFormat.decode(truncated, Operation.class));
+    }
+
+    @Test
+    void binaireAuMoinsDeuxFoisPlusCompactQueJson() {
+        assertTrue(WireFormat.encode(WALLET).length * 2 < JsonCodec.toBytes(WALLET).length, "Wallet");
+        assertTrue(WireFormat.encode(OPERATION).length * 2 < JsonCodec.toBytes(OPERATION).length, "Operation");
+    }
+
+    @Test
+    void reponseBinaireLueParTypeSiCestUneClasse() {
+        HttpResponse response = new HttpResponse(200, WireFormat.encode(WALLET),
+                Map.of("Content-Type", List.of(WireFormat.CONTENT_TYPE)));
+
+        assertEquals(WALLET, response.as((Type) Wallet.class));
+        Type walletList = new TypeToken<List<Wallet>>() {}.getType();
+        assertThrows(IllegalStateException.class, () -> response.as(walletList));
+    }
+
+    /**
+     * Coût encode+decode comparé au JSON, affiché seulement : mvn test -Dtest=WireFormatTest -Dcypay.bench=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "cypay.bench", matches = "true")
+    void benchmarkBinaireContreJson() {
+        int iterations = 200_000;
+        long binaryNanos = measure(iterations, () -> WireFormat.decode(WireFormat.encode(WALLET), Wallet.class));
+        long jsonNanos = measure(iterations, () -> JsonCodec.fromJson(JsonCodec.toJson(WALLET), Wallet.class));
+
+        System.out.println("[BENCH] Wallet    : binaire " + WireFormat.encode(WALLET).length + " o, JSON "
+                + JsonCodec.toBytes(WALLET).length + " o");
+        System.out.println("[BENCH] Encode+decode Wallet : binaire " + binaryNanos / iterations
+                + " ns, JSON " + jsonNanos / iterations + " ns");
+    }
+
+    private static long measure(int iterations, Runnable task) {
+        for (int i = 0; i < iterations / 10; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -4,15 +4,10 @@ import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.acteur.ActeurLogger;
 import com.cypay.framework.http.HttpIncomingMessage;
 import com.sun.net.httpserver.HttpExchange;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSerializer;
-import com.google.gson.JsonDeserializer;
+import com.cypay.framework.json.JsonCodec;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -25,9 +20,6 @@ public class LogHttpActeur extends Acteur<Object> {
 
     private final DatabaseActeur databaseActeur;
     private final StatsActeur statsActeur;
-    private final Gson gson;
-    private static final DateTimeFormatter FORMATTER =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public LogHttpActeur(DatabaseActeur databaseActeur, StatsActeur statsActeur) {
         super("LogHttpActeur");
@@ -41,16 +33,6 @@ public class LogHttpActeur extends Acteur<Object> {
         this.databaseActeur = databaseActeur;
         this.statsActeur = statsActeur;
 
-        // ✅ Configuration Gson avec support LocalDateTime
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(LocalDateTime.class,
-                        (JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) ->
-                                context.serialize(src.format(FORMATTER)))
-                .registerTypeAdapter(LocalDateTime.class,
-                        (JsonDeserializer<LocalDateTime>) (json, typeOfT, context) ->
-                                LocalDateTime.parse(json.getAsString(), FORMATTER))
-                .create();
     }
 
     @Override
@@ -234,8 +216,7 @@ public class LogHttpActeur extends Acteur<Object> {
      */
     private void sendJsonResponse(HttpExchange exchange, Object data, int statusCode) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes("UTF-8");
+            byte[] response = JsonCodec.toBytes(data);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
             exchange.sendResponseHeaders(statusCode, response.length);
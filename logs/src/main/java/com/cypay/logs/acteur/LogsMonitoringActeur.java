@@ -2,7 +2,7 @@ package com.cypay.logs.acteur;
 
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.http.HttpReceiver;
-import com.google.gson.Gson;
+import com.cypay.framework.json.JsonCodec;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
@@ -15,13 +15,11 @@ import java.io.OutputStream;
 public class LogsMonitoringActeur extends Acteur<Object> {
 
     private final SupervisorActeur Supervisor;
-    private final Gson gson;
     private HttpReceiver httpReceiver;
 
     public LogsMonitoringActeur(SupervisorActeur Supervisor) {
         super("MonitoringActeur");
         this.Supervisor = Supervisor;
-        this.gson = new Gson();
     }
 
     /**
@@ -107,8 +105,7 @@ public class LogsMonitoringActeur extends Acteur<Object> {
      */
     private void sendJson(HttpExchange exchange, int statusCode, Object data) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes();
+            byte[] response = JsonCodec.toBytes(data);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(statusCode, response.length);
@@ -2,7 +2,7 @@ package com.cypay.supervisor;
 
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.http.HttpReceiver;
-import com.google.gson.Gson;
+import com.cypay.framework.json.JsonCodec;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
@@ -14,13 +14,11 @@ import java.io.OutputStream;
 public class SupervisorHttpActeur extends Acteur<Object> {
 
     private final GlobalSuperviseur superviseur;
-    private final Gson gson;
     private HttpReceiver httpReceiver;
 
     public SupervisorHttpActeur(GlobalSuperviseur superviseur) {
         super("SupervisorHttpActeur");
         this.superviseur = superviseur;
-        this.gson = new Gson();
     }
 
     /**
@@ -118,8 +116,7 @@ public class SupervisorHttpActeur extends Acteur<Object> {
      */
     private void sendJson(HttpExchange exchange, int statusCode, Object data) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes();
+            byte[] response = JsonCodec.toBytes(data);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(statusCode, response.length);
@@ -1,6 +1,13 @@
 package com.example.transactions;
 
+import com.cypay.framework.acteur.ActeurHttpClient;
+import com.cypay.framework.resilience.AdaptiveConcurrencyLimiter;
+import com.cypay.framework.resilience.CircuitBreaker;
+import com.cypay.framework.resilience.RetryBudget;
+import com.cypay.framework.resilience.RetryPolicy;
+import com.cypay.framework.wire.WireFormat;
 import com.example.transactions.agent.TransactionHttpActeur;
+import com.example.transactions.client.WalletWire;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -17,7 +24,25 @@ public class TransactionApplication {
     @Bean
     public CommandLineRunner startActorSystem(
             TransactionHttpActeur transactionHttpActeur,
-            @Value("${actor.port:8081}") int port
+            @Value("${actor.port:8081}") int port,
+            @Value("${acteur.limiter.initial-limit:20}") int limiterInitial,
+            @Value("${acteur.limiter.min-limit:2}") int limiterMin,
+            @Value("${acteur.limiter.max-limit:200}") int limiterMax,
+            @Value("${acteur.limiter.max-wait-ms:50}") long limiterMaxWaitMs,
+            @Value("${acteur.circuit-breaker.window-size:10}") int cbWindowSize,
+            @Value("${acteur.circuit-breaker.minimum-calls:5}") int cbMinimumCalls,
+            @Value("${acteur.circuit-breaker.failure-rate-threshold:50}") float cbFailureRate,
+            @Value("${acteur.circuit-breaker.slow-call-duration-ms:2000}") long cbSlowCallMs,
+            @Value("${acteur.circuit-breaker.slow-call-rate-threshold:100}") float cbSlowCallRate,
+            @Value("${acteur.circuit-breaker.wait-in-open-ms:5000}") long cbWaitInOpenMs,
+            @Value("${acteur.circuit-breaker.half-open-permits:3}") int cbHalfOpenPermits,
+            @Value("${acteur.retry.max-attempts:3}") int retryMaxAttempts,
+            @Value("${acteur.retry.base-delay-ms:100}") long retryBaseDelayMs,
+            @Value("${acteur.retry.max-delay-ms:2000}") long retryMaxDelayMs,
+            @Value("${acteur.retry.budget-ratio:0.1}") double retryBudgetRatio,
+            @Value("${acteur.retry.budget-min-per-second:10}") int retryBudgetMinPerSecond,
+            @Value("${acteur.retry.budget-max:100}") int retryBudgetMax,
+            @Value("${acteur.single-flight.routes:}") String[] singleFlightRoutes
     ) {
         return args -> {
             System.out.println("╔════════════════════════════════════════════════╗");
@@ -25,6 +50,33 @@ public class TransactionApplication {
             System.out.println("╚════════════════════════════════════════════════╝");
             System.out.println();
 
+            ActeurHttpClient.configureLimiter(new AdaptiveConcurrencyLimiter.Config(
+                    limiterInitial, limiterMin, limiterMax, limiterMaxWaitMs));
+            System.out.println("📋 Limiteur de concurrence adaptatif : limite initiale " + limiterInitial
+                    + " [" + limiterMin + ", " + limiterMax + "], attente max " + limiterMaxWaitMs + " ms");
+
+            ActeurHttpClient.configureCircuitBreaker(new CircuitBreaker.Config(
+                    cbWindowSize, cbMinimumCalls, cbFailureRate, cbSlowCallMs,
+                    cbSlowCallRate, cbWaitInOpenMs, cbHalfOpenPermits));
+            System.out.println("📋 Circuit breaker : fenêtre " + cbWindowSize + " appels, seuil d'échec "
+                    + cbFailureRate + "%, ouverture " + cbWaitInOpenMs + " ms");
+
+            ActeurHttpClient.configureRetryPolicy(new RetryPolicy(retryMaxAttempts, retryBaseDelayMs, retryMaxDelayMs));
+            ActeurHttpClient.configureRetryBudget(new RetryBudget.Config(
+                    retryBudgetRatio, retryBudgetMinPerSecond, retryBudgetMax));
+            System.out.println("📋 Retries : " + retryMaxAttempts + " tentatives, backoff ["
+                    + retryBaseDelayMs + ", " + retryMaxDelayMs + "] ms, budget " + Math.round(retryBudgetRatio * 100) + "%");
+
+            for (String route : singleFlightRoutes) {
+                if (!route.isBlank()) {
+                    ActeurHttpClient.enableSingleFlight(route.trim());
+                    System.out.println("📋 Single-flight activé pour GET " + route.trim());
+                }
+            }
+
+            WalletWire.register();
+            System.out.println("📋 Format binaire interne activé pour les appels Wallet (" + WireFormat.CONTENT_TYPE + ")");
+
             System.out.println("📋 Démarrage de l'acteur HTTP Transactions sur le port " + port);
             transactionHttpActeur.demarrer();
             transactionHttpActeur.startHttpServer(port);
@@ -2,6 +2,8 @@ package com.example.transactions.agent;
 
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.money.Money;
+import com.example.transactions.client.WalletWire;
 import com.example.transactions.message.BuyMessage;
 import com.example.transactions.message.CreateBlockchainMessage;
 import com.example.transactions.model.TransactionType;
@@ -12,7 +14,6 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 
 import com.example.transactions.service.CryptoPriceService;
-import java.util.Locale;
 
 
 public class BuyAgent extends Acteur<BuyMessage> {
@@ -54,40 +55,38 @@ public class BuyAgent extends Acteur<BuyMessage> {
     protected void traiterMessage(BuyMessage message) {
         logger.info("[PROCESS] Achat de crypto: " + message.getCryptoUnit() + " pour l'utilisateur " + message.getUserId());
         try {
-            double prixUnitaire = cryptoPriceService.getPrice(message.getCryptoUnit().name(), message.getPaymentUnit().name());
-            double montantAPayer = message.getAmount() * prixUnitaire;
-            logger.info("[CHECK] Prix unitaire " + message.getCryptoUnit() + ": " + prixUnitaire + " " + message.getPaymentUnit());
-            logger.info("[CHECK] Total à payer: " + montantAPayer + " " + message.getPaymentUnit());
-            String balanceUrl = String.format("%s/api/wallets/%d/%s", walletServiceUrl, message.getUserId(), message.getPaymentUnit().name());
-            HttpResponse balanceResponse = get(balanceUrl);
-            if (balanceResponse.getStatusCode() != 200) {
-                logger.erreur("[ERROR] Portefeuille " + message.getPaymentUnit() + " introuvable pour l'utilisateur " + message.getUserId(), null);
-                return;
+            Money prixUnitaire = cryptoPriceService.getPrice(message.getCryptoUnit().name(), message.getPaymentUnit().name());
+            Money montantAPayer = message.getAmount().times(prixUnitaire);
+            logger.info("[CHECK] Prix unitaire " + message.getCryptoUnit() + ": " + prixUnitaire);
+            logger.info("[CHECK] Total à payer: " + montantAPayer);
+            WalletWire.Leg credit = WalletWire.Leg.credit(message.getUserId(), message.getAmount());
+            HttpResponse legsResponse = null;
+            if (message.getHoldId() != null) {
+                // Paiement réservé à l'admission : capturé (au prix réservé) avec le crédit de la crypto
+                legsResponse = postEncoded(walletServiceUrl + "/api/wallets/holds/" + message.getHoldId() + "/capture",
+                        WalletWire.Legs.of(credit), "hold-capture-" + message.getHoldId());
+                // 410 : hold pris ou expiré, réservation déjà rendue ; un 404 (wallet ou utilisateur absent) est un échec
+                if (legsResponse.getStatusCode() == 410) {
+                    logger.info("[HOLD] Hold " + message.getHoldId() + " expiré, débit direct du paiement");
+                    legsResponse = null;
+                } else if (legsResponse.getStatusCode() != 200) {
+                    release(message.getHoldId());
+                }
             }
-            String balanceBody = balanceResponse.getBody();
-            double balanceActuelle = parseBalance(balanceBody);
-            logger.info("[CHECK] Solde actuel " + message.getPaymentUnit() + ": " + balanceActuelle);
-            if (balanceActuelle < montantAPayer) {
-                logger.erreur("[ERROR] Fonds insuffisants. Requis: " + montantAPayer + ", Disponible: " + balanceActuelle, null);
-                return;
+            if (legsResponse == null) {
+                // Débit du paiement et crédit de la crypto en une requête : appliqués tous les deux ou aucun
+                legsResponse = postEncoded(walletServiceUrl + "/api/wallets/legs", WalletWire.Legs.of(
+                        WalletWire.Leg.debit(message.getUserId(), montantAPayer), credit), "legs-" + message.getTransactionId());
             }
-            String debitUrl = String.format("%s/api/wallets/%d/debit", walletServiceUrl, message.getUserId());
-            String debitBody = String.format(Locale.US, "{\"currency\":\"%s\",\"amount\":%.8f}", message.getPaymentUnit().name(), montantAPayer);
-            HttpResponse debitResponse = post(debitUrl, debitBody);
-            if (debitResponse.getStatusCode() != 200) {
-                logger.erreur("[ERROR] Echec du débit pour " + message.getPaymentUnit() + ": " + debitResponse.getBody(), null);
+            if (legsResponse.getStatusCode() == 409) {
+                logger.erreur("[ERROR] Fonds insuffisants. Requis: " + montantAPayer, null);
                 return;
             }
-            logger.info("[SUCCESS] Débit de " + montantAPayer + " " + message.getPaymentUnit() + " effectué");
-            String creditUrl = String.format("%s/api/wallets/%d/credit", walletServiceUrl, message.getUserId());
-            String creditBody = String.format(Locale.US, "{\"currency\":\"%s\",\"amount\":%.8f}", message.getCryptoUnit().name(), message.getAmount());
-            HttpResponse creditResponse = post(creditUrl, creditBody);
-            if (creditResponse.getStatusCode() != 200) {
-                logger.erreur("[CRITICAL] Crédit crypto échoué après débit! " + creditResponse.getBody(), null);
-                logger.info("[TODO] Implémenter rollback - re-créditer " + montantAPayer + " " + message.getPaymentUnit());
+            if (legsResponse.getStatusCode() != 200) {
+                logger.erreur("[ERROR] Echec de l'achat (" + legsResponse.getStatusCode() + "): " + legsResponse.getBody(), null);
                 return;
             }
-            logger.info("[SUCCESS] Crédit de " + message.getAmount() + " " + message.getCryptoUnit() + " effectué");
+            logger.info("[SUCCESS] Débit de " + montantAPayer + " et crédit de " + message.getAmount() + " effectués");
             logger.info("[BLOCKCHAIN] Enregistrement de l'achat dans la blockchain (appel CreateBlockchainAgent)");
             CreateBlockchainMessage blockchainMessage = new CreateBlockchainMessage(
                     TransactionType.BUY,
@@ -104,16 +103,13 @@ public class BuyAgent extends Acteur<BuyMessage> {
     }
 
     /**
-     * Parse la balance depuis la réponse JSON
-     * Format attendu: {"id":1,"userId":1,"balance":1000.0,"currency":"EUR"}
+     * Rend le paiement réservé au disponible (sinon libéré à l'expiration du hold)
      */
-    private double parseBalance(String jsonBody) {
+    private void release(String holdId) {
         try {
-            String balanceStr = jsonBody.split("\"balance\":")[1].split(",")[0];
-            return Double.parseDouble(balanceStr);
+            post(walletServiceUrl + "/api/wallets/holds/" + holdId + "/release", "");
         } catch (Exception e) {
-            logger.erreur("[ERROR] Erreur lors du parsing du solde", e);
-            return 0.0;
+            logger.erreur("[ERROR] Libération du hold " + holdId + " impossible", e);
         }
     }
 }
@@ -47,7 +47,7 @@ public class CreateBlockchainAgent extends Acteur<CreateBlockchainMessage> {
             transaction.setType(message.getType());
             transaction.setActor1(message.getActor1());
             transaction.setActor2(message.getActor2());
-            transaction.setAmount(message.getAmount());
+            transaction.setAmount(message.getAmount().toBigDecimal());
             transaction.setUnit(message.getUnit());
             transaction.setStatus(TransactionStatus.SUCCESS);
             transaction.setMessage("Transaction enregistrée dans la blockchain");
@@ -2,6 +2,8 @@ package com.example.transactions.agent;
 
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.money.Money;
+import com.example.transactions.client.WalletWire;
 import com.example.transactions.message.SellMessage;
 import com.example.transactions.message.CreateBlockchainMessage;
 import com.example.transactions.model.TransactionType;
@@ -12,7 +14,6 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 
 import com.example.transactions.service.CryptoPriceService;
-import java.util.Locale;
 
 
 public class SellAgent extends Acteur<SellMessage> {
@@ -54,40 +55,38 @@ public class SellAgent extends Acteur<SellMessage> {
     protected void traiterMessage(SellMessage message) {
         logger.info("[PROCESS] Vente de crypto: " + message.getCryptoUnit() + " pour l'utilisateur " + message.getUserId());
         try {
-            double prixUnitaire = cryptoPriceService.getPrice(message.getCryptoUnit().name(), message.getTargetUnit().name());
-            double montantARecevoir = message.getAmount() * prixUnitaire;
-            logger.info("[CHECK] Prix unitaire " + message.getCryptoUnit() + ": " + prixUnitaire + " " + message.getTargetUnit());
-            logger.info("[CHECK] Total à recevoir: " + montantARecevoir + " " + message.getTargetUnit());
-            String balanceUrl = String.format("%s/api/wallets/%d/%s", walletServiceUrl, message.getUserId(), message.getCryptoUnit().name());
-            HttpResponse balanceResponse = get(balanceUrl);
-            if (balanceResponse.getStatusCode() != 200) {
-                logger.erreur("[ERROR] Portefeuille " + message.getCryptoUnit() + " introuvable pour l'utilisateur " + message.getUserId(), null);
-                return;
+            Money prixUnitaire = cryptoPriceService.getPrice(message.getCryptoUnit().name(), message.getTargetUnit().name());
+            Money montantARecevoir = message.getAmount().times(prixUnitaire);
+            logger.info("[CHECK] Prix unitaire " + message.getCryptoUnit() + ": " + prixUnitaire);
+            logger.info("[CHECK] Total à recevoir: " + montantARecevoir);
+            WalletWire.Leg credit = WalletWire.Leg.credit(message.getUserId(), montantARecevoir);
+            HttpResponse legsResponse = null;
+            if (message.getHoldId() != null) {
+                // Crypto réservée à l'admission : capturée avec le crédit du produit
+                legsResponse = postEncoded(walletServiceUrl + "/api/wallets/holds/" + message.getHoldId() + "/capture",
+                        WalletWire.Legs.of(credit), "hold-capture-" + message.getHoldId());
+                // 410 : hold pris ou expiré, réservation déjà rendue ; un 404 (wallet ou utilisateur absent) est un échec
+                if (legsResponse.getStatusCode() == 410) {
+                    logger.info("[HOLD] Hold " + message.getHoldId() + " expiré, débit direct de la crypto");
+                    legsResponse = null;
+                } else if (legsResponse.getStatusCode() != 200) {
+                    release(message.getHoldId());
+                }
             }
-            String balanceBody = balanceResponse.getBody();
-            double balanceActuelle = parseBalance(balanceBody);
-            logger.info("[CHECK] Solde actuel " + message.getCryptoUnit() + ": " + balanceActuelle);
-            if (balanceActuelle < message.getAmount()) {
-                logger.erreur("[ERROR] Fonds crypto insuffisants. Requis: " + message.getAmount() + ", Disponible: " + balanceActuelle, null);
-                return;
+            if (legsResponse == null) {
+                // Débit de la crypto et crédit du produit en une requête : appliqués tous les deux ou aucun
+                legsResponse = postEncoded(walletServiceUrl + "/api/wallets/legs", WalletWire.Legs.of(
+                        WalletWire.Leg.debit(message.getUserId(), message.getAmount()), credit), "legs-" + message.getTransactionId());
             }
-            String debitUrl = String.format("%s/api/wallets/%d/debit", walletServiceUrl, message.getUserId());
-            String debitBody = String.format(Locale.US, "{\"currency\":\"%s\",\"amount\":%.8f}", message.getCryptoUnit().name(), message.getAmount());
-            HttpResponse debitResponse = post(debitUrl, debitBody);
-            if (debitResponse.getStatusCode() != 200) {
-                logger.erreur("[ERROR] Echec du débit pour " + message.getCryptoUnit() + ": " + debitResponse.getBody(), null);
+            if (legsResponse.getStatusCode() == 409) {
+                logger.erreur("[ERROR] Fonds crypto insuffisants. Requis: " + message.getAmount(), null);
                 return;
             }
-            logger.info("[SUCCESS] Débit de " + message.getAmount() + " " + message.getCryptoUnit() + " effectué");
-            String creditUrl = String.format("%s/api/wallets/%d/credit", walletServiceUrl, message.getUserId());
-            String creditBody = String.format(Locale.US, "{\"currency\":\"%s\",\"amount\":%.8f}", message.getTargetUnit().name(), montantARecevoir);
-            HttpResponse creditResponse = post(creditUrl, creditBody);
-            if (creditResponse.getStatusCode() != 200) {
-                logger.erreur("[CRITICAL] Crédit fiat échoué après débit crypto! " + creditResponse.getBody(), null);
-                logger.info("[TODO] Implémenter rollback - re-créditer " + message.getAmount() + " " + message.getCryptoUnit());
+            if (legsResponse.getStatusCode() != 200) {
+                logger.erreur("[ERROR] Echec de la vente (" + legsResponse.getStatusCode() + "): " + legsResponse.getBody(), null);
                 return;
             }
-            logger.info("[SUCCESS] Crédit de " + montantARecevoir + " " + message.getTargetUnit() + " effectué");
+            logger.info("[SUCCESS] Débit de " + message.getAmount() + " et crédit de " + montantARecevoir + " effectués");
             logger.info("[BLOCKCHAIN] Enregistrement de la vente dans la blockchain (appel CreateBlockchainAgent)");
             CreateBlockchainMessage blockchainMessage = new CreateBlockchainMessage(
                     TransactionType.SELL,
@@ -104,15 +103,13 @@ public class SellAgent extends Acteur<SellMessage> {
     }
 
     /**
-     * Parse la balance depuis la réponse JSON
+     * Rend la crypto réservée au disponible (sinon libérée à l'expiration du hold)
      */
-    private double parseBalance(String jsonBody) {
+    private void release(String holdId) {
         try {
-            String balanceStr = jsonBody.split("\"balance\":")[1].split(",")[0];
-            return Double.parseDouble(balanceStr);
+            post(walletServiceUrl + "/api/wallets/holds/" + holdId + "/release", "");
         } catch (Exception e) {
-            logger.erreur("[ERROR] Erreur lors du parsing du solde", e);
-            return 0.0;
+            logger.erreur("[ERROR] Libération du hold " + holdId + " impossible", e);
         }
     }
 }
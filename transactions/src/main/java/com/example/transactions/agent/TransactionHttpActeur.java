@@ -1,12 +1,16 @@
 package com.example.transactions.agent;
 
 import com.cypay.framework.acteur.Acteur;
+import com.cypay.framework.cache.TtlCache;
 import com.cypay.framework.http.HttpReceiver;
 import com.cypay.framework.http.HttpResponse; // Added Import
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.transactions.client.WalletWire;
 import com.example.transactions.message.BuyMessage;
 import com.example.transactions.message.SellMessage;
 import com.example.transactions.model.CryptoUnit;
-import com.google.gson.Gson;
+import com.cypay.framework.json.JsonCodec;
 import com.sun.net.httpserver.HttpExchange;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,18 +18,15 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.math.BigDecimal;
 
 import com.example.transactions.service.DatabaseService;
 import com.example.transactions.service.CryptoPriceService;
 import com.example.transactions.model.Transaction;
 import java.util.List;
+import java.util.UUID;
 import java.util.Map;
 
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonSerializer;
-import com.google.gson.JsonDeserializer;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 @Component
 public class TransactionHttpActeur extends Acteur<Object> {
@@ -33,10 +34,28 @@ public class TransactionHttpActeur extends Acteur<Object> {
     private final SupervisorAgent supervisorAgent;
     private final DatabaseService databaseService;
     private final CryptoPriceService cryptoPriceService;
-    private final Gson gson;
     private HttpReceiver httpReceiver;
     private final String walletServiceUrl; // Added field
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final int BALANCE_CACHE_SIZE = 10_000;
+    private static final long BALANCE_CACHE_TTL_MS = 10 * 60 * 1000;
+
+    /**
+     * Derniers soldes lus (userId:currency) avec leur ETag : revalidés à chaque
+     * vérification par un GET conditionnel, le Wallet répond 304 s'ils sont à jour
+     */
+    private final TtlCache<String, CachedBalance> balanceCache = new TtlCache<>(BALANCE_CACHE_SIZE);
+
+    private record CachedBalance(String etag, WalletWire.Balance balance) {
+    }
+
+    /**
+     * Résultat d'une réservation : holdId si réservé, error si refusé, les deux null si le Wallet ne gère pas les holds
+     */
+    private record Reservation(String holdId, String error) {
+    }
+
+    private final long holdTtlSeconds;
 
     @Autowired
     public TransactionHttpActeur(
@@ -46,22 +65,15 @@ public class TransactionHttpActeur extends Acteur<Object> {
             @Value("${spring.datasource.url}") String jdbcUrl,
             @Value("${spring.datasource.username}") String dbUser,
             @Value("${spring.datasource.password}") String dbPassword,
-            @Value("${wallet.service.url}") String walletServiceUrl // Added parameter
+            @Value("${wallet.service.url}") String walletServiceUrl, // Added parameter
+            @Value("${wallet.hold-ttl-seconds:60}") long holdTtlSeconds
     ) {
         super("TransactionHttpActeur", true, jdbcUrl, dbUser, dbPassword);
         this.supervisorAgent = supervisorAgent;
         this.databaseService = databaseService;
         this.cryptoPriceService = cryptoPriceService;
         this.walletServiceUrl = walletServiceUrl; // Initialize field
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(LocalDateTime.class,
-                        (JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) ->
-                                context.serialize(src.format(FORMATTER)))
-                .registerTypeAdapter(LocalDateTime.class,
-                        (JsonDeserializer<LocalDateTime>) (json, typeOfT, context) ->
-                                LocalDateTime.parse(json.getAsString(), FORMATTER))
-                .create();
+        this.holdTtlSeconds = holdTtlSeconds;
     }
 
     public void startHttpServer(int port) {
@@ -103,6 +115,9 @@ public class TransactionHttpActeur extends Acteur<Object> {
                 } else if ("/transactions/prices".equals(path)) {
                     handleGetPrices(exchange);
                     return;
+                } else if ("/transactions/metrics".equals(path)) {
+                    sendJson(exchange, 200, ActeurMetrics.snapshot());
+                    return;
                 }
             }
 
@@ -116,7 +131,7 @@ public class TransactionHttpActeur extends Acteur<Object> {
 
     private void handleGetPrices(HttpExchange exchange) {
         try {
-            Map<String, Double> prices = cryptoPriceService.getAllPrices();
+            Map<String, BigDecimal> prices = cryptoPriceService.getAllPrices();
             logger.info("[PROCESS] Récupération des prix de toutes les cryptos");
             sendJson(exchange, 200, prices);
         } catch (Exception e) {
@@ -139,7 +154,7 @@ public class TransactionHttpActeur extends Acteur<Object> {
     private void handleBuy(HttpExchange exchange, String body) {
         try {
             logger.info("[IN] Requête d'achat reçue: " + body);
-            BuyRequest request = gson.fromJson(body, BuyRequest.class);
+            BuyRequest request = JsonCodec.fromJson(body, BuyRequest.class);
             
             if (request.userId == null) {
                 logger.erreur("[ERROR] userId manquant dans la requête", null);
@@ -147,11 +162,18 @@ public class TransactionHttpActeur extends Acteur<Object> {
                 return;
             }
 
-            // --- Validation Préliminaire du Solde ---
-            double prixUnitaire = cryptoPriceService.getPrice(request.cryptoUnit.name(), request.paymentUnit.name());
-            double montantAPayer = request.amount * prixUnitaire;
-            
-            String error = checkBalance(request.userId, request.paymentUnit.name(), montantAPayer);
+            // --- Réservation du paiement (remplace la vérification du solde) ---
+            Money quantite = Money.of(request.cryptoUnit.name(), request.amount);
+            Money prixUnitaire = cryptoPriceService.getPrice(request.cryptoUnit.name(), request.paymentUnit.name());
+            Money montantAPayer = quantite.times(prixUnitaire);
+
+            String transactionId = UUID.randomUUID().toString();
+            Reservation reservation = reserve(transactionId, request.userId, montantAPayer);
+            String error = reservation.error();
+            if (reservation.holdId() == null && error == null) {
+                // Wallet sans holds (moteur en mémoire) : vérification du solde comme avant
+                error = checkBalance(request.userId, montantAPayer);
+            }
             if (error != null) {
                 logger.erreur("[ERROR] Validation solde échouée: " + error, null);
                 sendError(exchange, 400, "Transaction refusée: " + error);
@@ -159,7 +181,8 @@ public class TransactionHttpActeur extends Acteur<Object> {
             }
             // ----------------------------------------
 
-            BuyMessage message = new BuyMessage(request.userId, request.cryptoUnit, request.amount, request.paymentUnit);
+            BuyMessage message = new BuyMessage(request.userId, request.cryptoUnit, quantite, request.paymentUnit,
+                    reservation.holdId(), transactionId);
             logger.info("[ROUTING] HTTP -> SupervisorAgent (BuyMessage)");
             supervisorAgent.dispatch(message);
             sendJson(exchange, 200, new MessageResponse("Achat de " + request.amount + " " + request.cryptoUnit + " pour l'utilisateur " + request.userId + " initié avec succès."));
@@ -172,8 +195,19 @@ public class TransactionHttpActeur extends Acteur<Object> {
     private void handleSell(HttpExchange exchange, String body) {
         try {
             logger.info("[IN] Requête de vente reçue: " + body);
-            SellRequest request = gson.fromJson(body, SellRequest.class);
-            SellMessage message = new SellMessage(request.userId, request.cryptoUnit, request.amount, request.targetUnit);
+            SellRequest request = JsonCodec.fromJson(body, SellRequest.class);
+
+            // Crypto réservée à l'admission : une vente refusée ne part pas à l'agent
+            Money quantite = Money.of(request.cryptoUnit.name(), request.amount);
+            String transactionId = UUID.randomUUID().toString();
+            Reservation reservation = reserve(transactionId, request.userId, quantite);
+            if (reservation.error() != null) {
+                logger.erreur("[ERROR] Réservation refusée: " + reservation.error(), null);
+                sendError(exchange, 400, "Transaction refusée: " + reservation.error());
+                return;
+            }
+            SellMessage message = new SellMessage(request.userId, request.cryptoUnit, quantite, request.targetUnit,
+                    reservation.holdId(), transactionId);
             logger.info("[ROUTING] HTTP -> SupervisorAgent (SellMessage)");
             supervisorAgent.dispatch(message);
             sendJson(exchange, 200, new MessageResponse("Vente de " + request.amount + " " + request.cryptoUnit + " pour l'utilisateur " + request.userId + " initiée avec succès."));
@@ -186,12 +220,12 @@ public class TransactionHttpActeur extends Acteur<Object> {
     private void handleTransfer(HttpExchange exchange, String body) {
         try {
             logger.info("[IN] Requête de virement reçue: " + body);
-            TransferRequest request = gson.fromJson(body, TransferRequest.class);
+            TransferRequest request = JsonCodec.fromJson(body, TransferRequest.class);
             com.example.transactions.message.TransferMessage message = new com.example.transactions.message.TransferMessage(
                     request.fromUserId,
                     request.toUserId,
                     request.cryptoUnit,
-                    request.amount
+                    Money.of(request.cryptoUnit.name(), request.amount)
             );
             logger.info("[ROUTING] HTTP -> SupervisorAgent (TransferMessage)");
             supervisorAgent.dispatch(message);
@@ -202,28 +236,64 @@ public class TransactionHttpActeur extends Acteur<Object> {
         }
     }
 
+    /**
+     * Réserve amount sur le disponible du wallet (hold capturé ensuite par BuyAgent/SellAgent)
+     */
+    private Reservation reserve(String transactionId, Long userId, Money amount) {
+        String currency = amount.currency();
+        try {
+            HttpResponse response = postEncoded(walletServiceUrl + "/api/wallets/holds",
+                    WalletWire.Hold.of(userId, amount, holdTtlSeconds), "hold-" + transactionId);
+            switch (response.getStatusCode()) {
+                case 200:
+                    ActeurMetrics.increment("transactions.holds.reserved");
+                    return new Reservation(response.as(WalletWire.HoldCreated.class).holdId(), null);
+                case 409:
+                    return new Reservation(null, "Solde insuffisant. Requis: " + amount);
+                case 404:
+                    return new Reservation(null, "Portefeuille " + currency + " introuvable.");
+                case 501:
+                    return new Reservation(null, null);
+                default:
+                    return new Reservation(null, "Réservation impossible (" + response.getStatusCode() + ")");
+            }
+        } catch (Exception e) {
+            logger.erreur("[ERROR] Erreur reserve", e);
+            return new Reservation(null, "Erreur réservation solde: " + e.getMessage());
+        }
+    }
+
     /**
      * Vérifie si l'utilisateur a assez de fonds.
      * @return null si OK, message d'erreur sinon.
      */
-    private String checkBalance(Long userId, String currency, double amountRequired) {
+    private String checkBalance(Long userId, Money amountRequired) {
+        String currency = amountRequired.currency();
         try {
             String balanceUrl = String.format("%s/api/wallets/%d/%s", walletServiceUrl, userId, currency);
-            HttpResponse response = get(balanceUrl);
-
-            if (response.getStatusCode() != 200) {
+            String cacheKey = userId + ":" + currency;
+            CachedBalance cached = balanceCache.get(cacheKey);
+            HttpResponse response = getEncoded(balanceUrl, cached != null ? cached.etag() : null);
+
+            WalletWire.Balance wallet;
+            if (response.getStatusCode() == 304 && cached != null) {
+                ActeurMetrics.increment("transactions.balance_cache.not_modified");
+                wallet = cached.balance();
+            } else if (response.getStatusCode() != 200) {
+                balanceCache.invalidate(cacheKey);
                 return "Portefeuille " + currency + " introuvable.";
+            } else {
+                wallet = response.as(WalletWire.Balance.class);
+                String etag = response.getHeader("ETag");
+                if (wallet != null && etag != null) {
+                    balanceCache.put(cacheKey, new CachedBalance(etag, wallet), System.currentTimeMillis() + BALANCE_CACHE_TTL_MS);
+                }
             }
 
-            // Parsing simple: {"id":1, ... "balance":1000.0, ...}
-            String json = response.getBody();
-            @SuppressWarnings("unchecked")
-            Map<String, Object> walletData = gson.fromJson(json, Map.class);
-            
-            if (walletData.containsKey("balance")) {
-                double balance = ((Number) walletData.get("balance")).doubleValue();
-                if (balance < amountRequired) {
-                    return "Solde insuffisant. Requis: " + String.format("%.2f", amountRequired) + " " + currency + ", Dispo: " + String.format("%.2f", balance);
+            if (wallet != null && wallet.balance() != null) {
+                BigDecimal balance = wallet.available();
+                if (balance.compareTo(amountRequired.toBigDecimal()) < 0) {
+                    return "Solde insuffisant. Requis: " + amountRequired + ", Dispo: " + balance.toPlainString() + " " + currency;
                 }
                 return null; // OK
             }
@@ -237,8 +307,7 @@ public class TransactionHttpActeur extends Acteur<Object> {
 
     private void sendJson(HttpExchange exchange, int statusCode, Object data) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes();
+            byte[] response = JsonCodec.toBytes(data);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(statusCode, response.length);
@@ -265,14 +334,14 @@ public class TransactionHttpActeur extends Acteur<Object> {
     private static class BuyRequest {
         public Long userId;
         public CryptoUnit cryptoUnit;
-        public Double amount;
+        public BigDecimal amount; // lu tel quel depuis le JSON, sans passer par double
         public CryptoUnit paymentUnit;
     }
 
     private static class SellRequest {
         public Long userId;
         public CryptoUnit cryptoUnit;
-        public Double amount;
+        public BigDecimal amount; // lu tel quel depuis le JSON, sans passer par double
         public CryptoUnit targetUnit;
     }
 
@@ -280,7 +349,7 @@ public class TransactionHttpActeur extends Acteur<Object> {
         public Long fromUserId;
         public Long toUserId;
         public CryptoUnit cryptoUnit;
-        public Double amount;
+        public BigDecimal amount; // lu tel quel depuis le JSON, sans passer par double
     }
 
     private static class MessageResponse {
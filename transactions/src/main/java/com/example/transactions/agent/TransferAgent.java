@@ -2,6 +2,7 @@ package com.example.transactions.agent;
 
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.http.HttpResponse;
+import com.example.transactions.client.WalletWire;
 import com.example.transactions.message.TransferMessage;
 import com.example.transactions.message.CreateBlockchainMessage;
 import com.example.transactions.model.TransactionType;
@@ -12,7 +13,6 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 
 
-import java.util.Locale;
 
 public class TransferAgent extends Acteur<TransferMessage> {
 
@@ -47,21 +47,19 @@ public class TransferAgent extends Acteur<TransferMessage> {
 
     @Override
     protected void traiterMessage(TransferMessage message) {
-        logger.info("[PROCESS] Transfert de " + message.getAmount() + " " + message.getCryptoUnit() + " de " + message.getFromUserId() + " vers " + message.getToUserId());
+        logger.info("[PROCESS] Transfert de " + message.getAmount() + " de " + message.getFromUserId() + " vers " + message.getToUserId());
         try {
             if (message.getFromUserId().equals(message.getToUserId())) {
                 logger.erreur("[ERROR] Auto-transfert interdit", null);
                 return;
             }
             String transferUrl = walletServiceUrl + "/api/wallets/transfer";
-            String transferBody = String.format(Locale.US,
-                    "{\"fromUserId\":%d,\"toUserId\":%d,\"currency\":\"%s\",\"amount\":%.8f}",
+            WalletWire.Transfer transfer = WalletWire.Transfer.of(
                     message.getFromUserId(),
                     message.getToUserId(),
-                    message.getCryptoUnit().name(),
                     message.getAmount()
             );
-            HttpResponse response = post(transferUrl, transferBody);
+            HttpResponse response = postEncoded(transferUrl, transfer, "transfer-" + message.getTransactionId());
             if (response.getStatusCode() != 200) {
                 logger.erreur("[ERROR] Echec du transfert: " + response.getBody(), null);
                 return;
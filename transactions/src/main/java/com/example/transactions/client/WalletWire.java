@@ -0,0 +1,218 @@
+package com.example.transactions.client;
+
+import com.cypay.framework.money.Money;
+import com.cypay.framework.wire.BinaryCodec;
+import com.cypay.framework.wire.BinaryReader;
+import com.cypay.framework.wire.BinaryWriter;
+import com.cypay.framework.wire.WireFormat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO des appels vers le microservice Wallet et leurs codecs binaires
+ *
+ * Ordre des champs (contrat partagé avec wallet/web/dto/WalletWireCodecs) :
+ * Operation : currency, amount
+ * Transfer  : fromUserId, toUserId, currency, amount
+ * Balance   : id, userId, balance, currency, version, held
+ * Legs      : nombre, puis par jambe userId, currency, type, amount
+ * Applied   : nombre, puis un Balance par jambe
+ * Hold      : userId, currency, amount, ttlSeconds
+ * HoldCreated : holdId, expiresAt, Balance
+ *
+ * Les montants sont construits depuis des Money (échelle de la devise) et
+ * voyagent en décimal exact : aucun double entre Transactions et Wallet.
+ */
+public final class WalletWire {
+
+    private WalletWire() {
+    }
+
+    public record Operation(String currency, BigDecimal amount) {
+        public static Operation of(Money amount) {
+            return new Operation(amount.currency(), amount.toBigDecimal());
+        }
+    }
+
+    public record Transfer(Long fromUserId, Long toUserId, String currency, BigDecimal amount) {
+        public static Transfer of(Long fromUserId, Long toUserId, Money amount) {
+            return new Transfer(fromUserId, toUserId, amount.currency(), amount.toBigDecimal());
+        }
+    }
+
+    /**
+     * @param version Incrémentée à chaque mouvement du wallet
+     * @param held    Part du solde réservée par des holds
+     */
+    public record Balance(Long id, Long userId, BigDecimal balance, String currency, long version, BigDecimal held) {
+        public BigDecimal available() {
+            return held != null ? balance.subtract(held) : balance;
+        }
+    }
+
+    /**
+     * Débit ou crédit d'un wallet dans POST /api/wallets/legs (type "DEBIT" ou "CREDIT")
+     */
+    public record Leg(Long userId, String currency, String type, BigDecimal amount) {
+        public static Leg debit(Long userId, Money amount) {
+            return new Leg(userId, amount.currency(), "DEBIT", amount.toBigDecimal());
+        }
+
+        public static Leg credit(Long userId, Money amount) {
+            return new Leg(userId, amount.currency(), "CREDIT", amount.toBigDecimal());
+        }
+    }
+
+    /**
+     * Jambes appliquées toutes ou aucune par le Wallet
+     */
+    public record Legs(List<Leg> legs) {
+        public static Legs of(Leg... legs) {
+            return new Legs(List.of(legs));
+        }
+    }
+
+    public record Applied(List<Balance> wallets) {
+    }
+
+    /**
+     * Réservation sur le disponible (POST /api/wallets/holds), ttlSeconds 0 = durée par défaut du Wallet
+     */
+    public record Hold(Long userId, String currency, BigDecimal amount, long ttlSeconds) {
+        public static Hold of(Long userId, Money amount, long ttlSeconds) {
+            return new Hold(userId, amount.currency(), amount.toBigDecimal(), ttlSeconds);
+        }
+    }
+
+    /**
+     * @param expiresAt Epoch ms après lequel le hold n'est plus capturable
+     */
+    public record HoldCreated(String holdId, long expiresAt, Balance wallet) {
+    }
+
+    public static void register() {
+        WireFormat.register(Operation.class, new BinaryCodec<>() {
+            @Override
+            public void write(Operation value, BinaryWriter out) {
+                out.writeString(value.currency()).writeDecimal(value.amount());
+            }
+
+            @Override
+            public Operation read(BinaryReader in) {
+                return new Operation(in.readString(), in.readDecimal());
+            }
+        });
+
+        WireFormat.register(Transfer.class, new BinaryCodec<>() {
+            @Override
+            public void write(Transfer value, BinaryWriter out) {
+                out.writeNullableLong(value.fromUserId())
+                        .writeNullableLong(value.toUserId())
+                        .writeString(value.currency())
+                        .writeDecimal(value.amount());
+            }
+
+            @Override
+            public Transfer read(BinaryReader in) {
+                return new Transfer(in.readNullableLong(), in.readNullableLong(), in.readString(), in.readDecimal());
+            }
+        });
+
+        WireFormat.register(Balance.class, new BinaryCodec<>() {
+            @Override
+            public void write(Balance value, BinaryWriter out) {
+                writeBalance(value, out);
+            }
+
+            @Override
+            public Balance read(BinaryReader in) {
+                return readBalance(in);
+            }
+        });
+
+        WireFormat.register(Legs.class, new BinaryCodec<>() {
+            @Override
+            public void write(Legs value, BinaryWriter out) {
+                out.writeInt(value.legs().size());
+                for (Leg leg : value.legs()) {
+                    out.writeNullableLong(leg.userId())
+                            .writeString(leg.currency())
+                            .writeString(leg.type())
+                            .writeDecimal(leg.amount());
+                }
+            }
+
+            @Override
+            public Legs read(BinaryReader in) {
+                int count = in.readInt();
+                List<Leg> legs = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    legs.add(new Leg(in.readNullableLong(), in.readString(), in.readString(), in.readDecimal()));
+                }
+                return new Legs(legs);
+            }
+        });
+
+        WireFormat.register(Applied.class, new BinaryCodec<>() {
+            @Override
+            public void write(Applied value, BinaryWriter out) {
+                out.writeInt(value.wallets().size());
+                value.wallets().forEach(balance -> writeBalance(balance, out));
+            }
+
+            @Override
+            public Applied read(BinaryReader in) {
+                int count = in.readInt();
+                List<Balance> wallets = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    wallets.add(readBalance(in));
+                }
+                return new Applied(wallets);
+            }
+        });
+
+        WireFormat.register(Hold.class, new BinaryCodec<>() {
+            @Override
+            public void write(Hold value, BinaryWriter out) {
+                out.writeNullableLong(value.userId())
+                        .writeString(value.currency())
+                        .writeDecimal(value.amount())
+                        .writeVarLong(value.ttlSeconds());
+            }
+
+            @Override
+            public Hold read(BinaryReader in) {
+                return new Hold(in.readNullableLong(), in.readString(), in.readDecimal(), in.readVarLong());
+            }
+        });
+
+        WireFormat.register(HoldCreated.class, new BinaryCodec<>() {
+            @Override
+            public void write(HoldCreated value, BinaryWriter out) {
+                out.writeString(value.holdId()).writeVarLong(value.expiresAt());
+                writeBalance(value.wallet(), out);
+            }
+
+            @Override
+            public HoldCreated read(BinaryReader in) {
+                return new HoldCreated(in.readString(), in.readVarLong(), readBalance(in));
+            }
+        });
+    }
+
+    private static void writeBalance(Balance value, BinaryWriter out) {
+        out.writeNullableLong(value.id())
+                .writeNullableLong(value.userId())
+                .writeDecimal(value.balance())
+                .writeString(value.currency())
+                .writeVarLong(value.version())
+                .writeDecimal(value.held());
+    }
+
+    private static Balance readBalance(BinaryReader in) {
+        return new Balance(in.readNullableLong(), in.readNullableLong(), in.readDecimal(), in.readString(), in.readVarLong(),
+                in.readDecimal());
+    }
+}
@@ -1,16 +1,25 @@
 package com.example.transactions.message;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.model.CryptoUnit;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class BuyMessage {
     private Long userId;
     private CryptoUnit cryptoUnit;
-    private Double amount;
+    private Money amount; // quantité dans la devise de cryptoUnit
     private CryptoUnit paymentUnit; // EUR ou USD
+    private String holdId; // hold Wallet sur le paiement, null si non réservé
+    private String transactionId = UUID.randomUUID().toString(); // clé d'idempotence des écritures Wallet
+
+    public BuyMessage(Long userId, CryptoUnit cryptoUnit, Money amount, CryptoUnit paymentUnit) {
+        this(userId, cryptoUnit, amount, paymentUnit, null, UUID.randomUUID().toString());
+    }
 }
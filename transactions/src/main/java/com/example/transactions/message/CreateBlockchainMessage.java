@@ -1,5 +1,6 @@
 package com.example.transactions.message;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.model.CryptoUnit;
 import com.example.transactions.model.TransactionType;
 import lombok.AllArgsConstructor;
@@ -13,6 +14,6 @@ public class CreateBlockchainMessage {
     private TransactionType type;
     private Long actor1;
     private Long actor2;
-    private Double amount;
+    private Money amount; // dans la devise de unit
     private CryptoUnit unit;
 }
@@ -1,5 +1,6 @@
 package com.example.transactions.message;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.model.CryptoUnit;
 import com.example.transactions.model.TransactionType;
 import lombok.AllArgsConstructor;
@@ -13,6 +14,6 @@ public class OrderMessage {
     private Long userId;
     private TransactionType orderType; // BUY ou SELL
     private CryptoUnit cryptoUnit;
-    private Double amount;
-    private Double targetPrice; // Prix cible pour déclencher l'ordre
+    private Money amount; // quantité dans la devise de cryptoUnit
+    private Money targetPrice; // Prix cible pour déclencher l'ordre
 }
@@ -1,16 +1,25 @@
 package com.example.transactions.message;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.model.CryptoUnit;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class SellMessage {
     private Long userId;
     private CryptoUnit cryptoUnit;
-    private Double amount;
+    private Money amount; // quantité dans la devise de cryptoUnit
     private CryptoUnit targetUnit; // EUR ou USD
+    private String holdId; // hold Wallet sur la crypto vendue, null si non réservée
+    private String transactionId = UUID.randomUUID().toString(); // clé d'idempotence des écritures Wallet
+
+    public SellMessage(Long userId, CryptoUnit cryptoUnit, Money amount, CryptoUnit targetUnit) {
+        this(userId, cryptoUnit, amount, targetUnit, null, UUID.randomUUID().toString());
+    }
 }
@@ -1,10 +1,13 @@
 package com.example.transactions.message;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.model.CryptoUnit;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.UUID;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,5 +15,10 @@ public class TransferMessage {
     private Long fromUserId;
     private Long toUserId;
     private CryptoUnit cryptoUnit;
-    private Double amount;
+    private Money amount; // quantité dans la devise de cryptoUnit
+    private String transactionId = UUID.randomUUID().toString(); // clé d'idempotence du virement Wallet
+
+    public TransferMessage(Long fromUserId, Long toUserId, CryptoUnit cryptoUnit, Money amount) {
+        this(fromUserId, toUserId, cryptoUnit, amount, UUID.randomUUID().toString());
+    }
 }
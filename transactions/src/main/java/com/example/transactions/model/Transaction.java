@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -31,8 +32,9 @@ public class Transaction {
     @Column
     private Long actor2; // User ID de l'acteur secondaire (pour virement)
 
-    @Column(nullable = false)
-    private Double amount;
+    // Montant exact (Money.toBigDecimal()), plus de double entre l'agent et la base
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal amount;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
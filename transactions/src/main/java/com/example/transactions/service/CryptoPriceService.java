@@ -1,10 +1,14 @@
 package com.example.transactions.service;
 
+import com.cypay.framework.money.Money;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Map;
 import java.util.HashMap;
-import com.google.gson.Gson;
+import com.cypay.framework.json.JsonCodec;
 import com.google.gson.reflect.TypeToken;
 import java.time.LocalDateTime;
 
@@ -12,22 +16,27 @@ import java.time.LocalDateTime;
 public class CryptoPriceService {
 
     private final RestTemplate restTemplate = new RestTemplate();
-    private final Gson gson = new Gson();
     
-    // Cache
-    private final Map<String, Double> priceCache = new HashMap<>();
+    // Cache (prix d'une unité de crypto, dans la devise fiat)
+    private final Map<String, Money> priceCache = new HashMap<>();
     private LocalDateTime lastUpdate = LocalDateTime.MIN;
     private static final long CACHE_DURATION_SECONDS = 60;
 
-    public double getPrice(String cryptoSymbol, String fiatSymbol) {
+    /**
+     * @return le prix d'une unité de cryptoSymbol, en fiatSymbol
+     */
+    public Money getPrice(String cryptoSymbol, String fiatSymbol) {
         updatePricesIfNeeded();
         String key = cryptoSymbol.toUpperCase() + "_" + fiatSymbol.toUpperCase();
-        return priceCache.getOrDefault(key, getDefaultPrice(cryptoSymbol));
+        Money price = priceCache.get(key);
+        return price != null ? price : getDefaultPrice(cryptoSymbol, fiatSymbol.toUpperCase());
     }
     
-    public Map<String, Double> getAllPrices() {
+    public Map<String, BigDecimal> getAllPrices() {
         updatePricesIfNeeded();
-        return new HashMap<>(priceCache);
+        Map<String, BigDecimal> prices = new HashMap<>();
+        priceCache.forEach((key, price) -> prices.put(key, price.toBigDecimal()));
+        return prices;
     }
 
     private synchronized void updatePricesIfNeeded() {
@@ -41,7 +50,8 @@ public class CryptoPriceService {
             String json = restTemplate.getForObject(url, String.class);
             
             // Response format: {"bitcoin":{"usd":96000,"eur":90000},"ethereum":{...}}
-            Map<String, Map<String, Double>> response = gson.fromJson(json, new TypeToken<Map<String, Map<String, Double>>>(){}.getType());
+            // Lu en BigDecimal : le prix publié est gardé tel quel, sans passer par double
+            Map<String, Map<String, BigDecimal>> response = JsonCodec.fromJson(json, new TypeToken<Map<String, Map<String, BigDecimal>>>(){}.getType());
             
             if (response != null) {
                 // Parse and update cache
@@ -56,23 +66,23 @@ public class CryptoPriceService {
         }
     }
     
-    private void updateCache(String symbol, String id, Map<String, Map<String, Double>> response) {
+    private void updateCache(String symbol, String id, Map<String, Map<String, BigDecimal>> response) {
         if (response.containsKey(id)) {
-            Map<String, Double> prices = response.get(id);
+            Map<String, BigDecimal> prices = response.get(id);
             if (prices.containsKey("eur")) {
-                priceCache.put(symbol + "_EUR", prices.get("eur"));
+                priceCache.put(symbol + "_EUR", Money.of("EUR", prices.get("eur"), RoundingMode.HALF_UP));
             }
             if (prices.containsKey("usd")) {
-                priceCache.put(symbol + "_USD", prices.get("usd"));
+                priceCache.put(symbol + "_USD", Money.of("USD", prices.get("usd"), RoundingMode.HALF_UP));
             }
         }
     }
 
-    private double getDefaultPrice(String symbol) {
-         return switch (symbol) {
-            case "BTC" -> 40000.0;
-            case "ETH" -> 2500.0;
-            default -> 1.0;
-        };
+    private Money getDefaultPrice(String symbol, String fiatSymbol) {
+         return Money.parse(fiatSymbol, switch (symbol) {
+            case "BTC" -> "40000";
+            case "ETH" -> "2500";
+            default -> "1";
+        });
     }
 }
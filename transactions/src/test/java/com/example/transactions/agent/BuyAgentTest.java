@@ -1,5 +1,6 @@
 package com.example.transactions.agent;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.message.BuyMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,8 +23,8 @@ class BuyAgentTest {
 
     @Test
     void traiteAchatAvecFondsSuffisants() {
-        BuyMessage msg = new BuyMessage(1L, com.example.transactions.model.CryptoUnit.BTC, 2.0, com.example.transactions.model.CryptoUnit.EUR);
-        when(priceService.getPrice(anyString(), anyString())).thenReturn(10000.0);
+        BuyMessage msg = new BuyMessage(1L, com.example.transactions.model.CryptoUnit.BTC, Money.parse("BTC", "2"), com.example.transactions.model.CryptoUnit.EUR);
+        when(priceService.getPrice(anyString(), anyString())).thenReturn(Money.parse("EUR", "10000"));
         // Simuler un solde suffisant
         // ...
         // Appeler la méthode à tester
@@ -34,8 +35,8 @@ class BuyAgentTest {
 
     @Test
     void traiteAchatAvecFondsInsuffisants() {
-        BuyMessage msg = new BuyMessage(1L, com.example.transactions.model.CryptoUnit.BTC, 2.0, com.example.transactions.model.CryptoUnit.EUR);
-        when(priceService.getPrice(anyString(), anyString())).thenReturn(10000.0);
+        BuyMessage msg = new BuyMessage(1L, com.example.transactions.model.CryptoUnit.BTC, Money.parse("BTC", "2"), com.example.transactions.model.CryptoUnit.EUR);
+        when(priceService.getPrice(anyString(), anyString())).thenReturn(Money.parse("EUR", "10000"));
         // Simuler un solde insuffisant
         // ...
         // Appeler la méthode à tester
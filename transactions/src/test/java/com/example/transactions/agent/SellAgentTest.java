@@ -1,5 +1,6 @@
 package com.example.transactions.agent;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.message.SellMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,7 +24,7 @@ class SellAgentTest {
     @Test
     void traiteVenteAvecFondsSuffisants() {
         SellMessage msg = mock(SellMessage.class);
-        when(priceService.getPrice(anyString(), anyString())).thenReturn(10000.0);
+        when(priceService.getPrice(anyString(), anyString())).thenReturn(Money.parse("EUR", "10000"));
         // Simuler un solde suffisant
         // ...
         agent.traiterMessage(msg);
@@ -33,7 +34,7 @@ class SellAgentTest {
     @Test
     void traiteVenteAvecFondsInsuffisants() {
         SellMessage msg = mock(SellMessage.class);
-        when(priceService.getPrice(anyString(), anyString())).thenReturn(10000.0);
+        when(priceService.getPrice(anyString(), anyString())).thenReturn(Money.parse("EUR", "10000"));
         // Simuler un solde insuffisant
         // ...
         agent.traiterMessage(msg);
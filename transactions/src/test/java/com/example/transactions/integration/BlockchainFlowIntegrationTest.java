@@ -1,5 +1,6 @@
 package com.example.transactions.integration;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.agent.CreateBlockchainAgentPool;
 import com.example.transactions.agent.SupervisorAgent;
 import com.example.transactions.message.CreateBlockchainMessage;
@@ -19,7 +20,7 @@ class BlockchainFlowIntegrationTest {
 
     @Test
     void ajoutBlockchain_flow() {
-        CreateBlockchainMessage msg = new CreateBlockchainMessage(TransactionType.BUY, 1L, null, 0.1, CryptoUnit.BTC);
+        CreateBlockchainMessage msg = new CreateBlockchainMessage(TransactionType.BUY, 1L, null, Money.parse("BTC", "0.1"), CryptoUnit.BTC);
         assertDoesNotThrow(() -> supervisorAgent.dispatch(msg));
         // Vérifier que la transaction est bien enregistrée dans la blockchain (mock ou base de test)
     }
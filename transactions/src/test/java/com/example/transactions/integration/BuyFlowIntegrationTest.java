@@ -1,5 +1,6 @@
 package com.example.transactions.integration;
 
+import com.cypay.framework.money.Money;
 import com.example.transactions.agent.BuyAgentPool;
 import com.example.transactions.agent.SupervisorAgent;
 import com.example.transactions.message.BuyMessage;
@@ -19,7 +20,7 @@ class BuyFlowIntegrationTest {
 
     @Test
     void achatComplet_flow() {
-        BuyMessage msg = new BuyMessage(1L, CryptoUnit.BTC, 0.1, CryptoUnit.EUR);
+        BuyMessage msg = new BuyMessage(1L, CryptoUnit.BTC, Money.parse("BTC", "0.1"), CryptoUnit.EUR);
         // Envoi via le superviseur (simulation d'un flux réel)
         assertDoesNotThrow(() -> supervisorAgent.dispatch(msg));
         // Ici, on pourrait vérifier l'état du wallet, la création blockchain, etc.
@@ -3,7 +3,12 @@ package com.example.user;
 import com.example.user.acteur.UserHttpActeur;
 import com.example.user.acteur.SuperviseurActeur;
 import com.example.user.acteur.MonitoringActeur;
+import com.example.user.repository.UserImportRepository;
+import com.example.user.repository.UserListingRepository;
 import com.example.user.repository.UserRepository;
+import com.example.user.service.PasswordHasher;
+import com.example.user.service.UserCache;
+import com.example.user.service.UserImportService;
 import com.example.user.service.UserService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
@@ -30,7 +35,12 @@ public class UserApplication {
     @Bean
     public CommandLineRunner startActorSystem(
             UserRepository userRepository,
+            UserListingRepository userListingRepository,
+            UserImportRepository userImportRepository,
             PasswordEncoder passwordEncoder,
+            PasswordHasher passwordHasher,
+            UserCache userCache,
+            @Value("${user-import.max-in-flight-hashes:0}") int importInFlightHashes,
             @Value("${actor.port:8082}") int port,
             @Value("${monitoring.port:9090}") int monitoringPort,
             @Value("${jwt.secret}") String jwtSecret,
@@ -54,13 +64,14 @@ public class UserApplication {
 
             // ✅ 2. Créer le service métier
             System.out.println("📋 Étape 2/5 : Initialisation des services métier");
-            UserService userService = new UserService(userRepository, passwordEncoder);
+            UserService userService = new UserService(userRepository, passwordEncoder, passwordHasher, userCache, userListingRepository);
+            UserImportService importService = new UserImportService(userImportRepository, passwordHasher, importInFlightHashes);
             System.out.println("✅ Services métier initialisés");
             System.out.println();
 
             // ✅ 3. Créer et enregistrer l'acteur HTTP
             System.out.println("📋 Étape 3/5 : Création de l'acteur HTTP principal");
-            UserHttpActeur httpActeur = new UserHttpActeur(userService, jwtSecret, jwtExpiration, jdbcUrl, dbUser, dbPassword);
+            UserHttpActeur httpActeur = new UserHttpActeur(userService, importService, jwtSecret, jwtExpiration, jdbcUrl, dbUser, dbPassword);
             superviseur.enregistrerActeur("UserHttpActeur", httpActeur);
             System.out.println();
 
@@ -94,8 +105,12 @@ public class UserApplication {
             System.out.println("   GET    /users/me           - Mon profil");
             System.out.println("   PUT    /users/me           - Modifier profil");
             System.out.println("   DELETE /users/me           - Supprimer compte");
-            System.out.println("   GET    /users              - Liste utilisateurs");
+            System.out.println("   GET    /users              - Liste utilisateurs (?after=&limit=, ?stream=true)");
             System.out.println("   GET    /users/{id}         - Profil par ID");
+            System.out.println("   HEAD   /users/{id}         - Existence (interne)");
+            System.out.println("   POST   /users/exists       - Existence par lot (interne)");
+            System.out.println("   POST   /users/import       - Import en masse (NDJSON / CSV)");
+            System.out.println("   GET    /users/metrics      - Métriques");
             System.out.println();
             System.out.println("🔍 API Monitoring : http://localhost:" + monitoringPort);
             System.out.println("   GET    /health             - Vérification santé");
@@ -2,7 +2,7 @@ package com.example.user.acteur;
 
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.http.HttpReceiver;
-import com.google.gson.Gson;
+import com.cypay.framework.json.JsonCodec;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
@@ -15,13 +15,11 @@ import java.io.OutputStream;
 public class MonitoringActeur extends Acteur<Object> {
 
     private final SuperviseurActeur superviseur;
-    private final Gson gson;
     private HttpReceiver httpReceiver;
 
     public MonitoringActeur(SuperviseurActeur superviseur) {
         super("MonitoringActeur");
         this.superviseur = superviseur;
-        this.gson = new Gson();
     }
 
     /**
@@ -107,8 +105,7 @@ public class MonitoringActeur extends Acteur<Object> {
      */
     private void sendJson(HttpExchange exchange, int statusCode, Object data) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes();
+            byte[] response = JsonCodec.toBytes(data);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(statusCode, response.length);
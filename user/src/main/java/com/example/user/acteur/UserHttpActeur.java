@@ -3,17 +3,35 @@ package com.example.user.acteur;
 import com.cypay.framework.acteur.Acteur;
 import com.cypay.framework.acteur.ActeurJwtValidator;
 import com.cypay.framework.http.HttpReceiver;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.user.repository.UserListingRepository.UserSummaryRow;
+import com.example.user.service.UserImportService;
 import com.example.user.service.UserService;
 import com.example.user.model.User;
 import com.example.user.exception.*;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
-import com.google.gson.Gson;
+import com.cypay.framework.json.JsonCodec;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ✅ Acteur HTTP qui gère toutes les routes du microservice User
@@ -21,16 +39,35 @@ import java.util.stream.Collectors;
  */
 public class UserHttpActeur extends Acteur<Object> {
 
+    private static final int MAX_EXISTS_BATCH = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_STREAMS = 2;
+
     private final UserService userService;
+    private final UserImportService importService;
     private final ActeurJwtValidator jwtValidator;
-    private final Gson gson;
+    private final AtomicBoolean importRunning = new AtomicBoolean();
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Flux GET /users?stream=true hors du thread HTTP ; au-delà de MAX_STREAMS simultanés : 503
+    private final ThreadPoolExecutor streamExecutor = new ThreadPoolExecutor(MAX_STREAMS, MAX_STREAMS,
+            0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), r -> {
+        Thread thread = new Thread(r, "user-stream");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.AbortPolicy());
     private HttpReceiver httpReceiver;
 
-    public UserHttpActeur(UserService userService, String jwtSecret, long jwtExpiration, String jdbcUrl, String dbUser, String dbPassword) {
+    public UserHttpActeur(UserService userService, UserImportService importService, String jwtSecret, long jwtExpiration,
+                          String jdbcUrl, String dbUser, String dbPassword) {
         super("UserHttpActeur", true, jdbcUrl, dbUser, dbPassword);
         this.userService = userService;
+        this.importService = importService;
         this.jwtValidator = new ActeurJwtValidator("JwtValidator", jwtSecret, jwtExpiration);
-        this.gson = new Gson();
     }
 
     /**
@@ -38,6 +75,7 @@ public class UserHttpActeur extends Acteur<Object> {
      */
     public void startHttpServer(int port) {
         httpReceiver = new HttpReceiver();
+        httpReceiver.streamRequestBody("/users/import");
         httpReceiver.start(port, this::handleHttpRequest);
         log("🌐 Serveur HTTP démarré sur le port " + port);
     }
@@ -59,8 +97,20 @@ public class UserHttpActeur extends Acteur<Object> {
                     else if ("DELETE".equals(method)) handleDeleteProfile(exchange);
                     else sendError(exchange, 405, "Method not allowed");
                 }
+                case "/users/exists" -> {
+                    if ("POST".equals(method)) handleExists(exchange, body);
+                    else sendError(exchange, 405, "Method not allowed");
+                }
+                case "/users/import" -> {
+                    if ("POST".equals(method)) handleImport(exchange);
+                    else sendError(exchange, 405, "Method not allowed");
+                }
+                case "/users/metrics" -> {
+                    if ("GET".equals(method)) sendJson(exchange, 200, ActeurMetrics.snapshot());
+                    else sendError(exchange, 405, "Method not allowed");
+                }
                 case "/users" -> {
-                    if ("GET".equals(method)) handleGetAllUsers(exchange);
+                    if ("GET".equals(method)) handleGetAllUsers(exchange, query);
                     else sendError(exchange, 405, "Method not allowed");
                 }
                 default -> {
@@ -69,7 +119,8 @@ public class UserHttpActeur extends Acteur<Object> {
                         if (parts.length == 3) {
                             try {
                                 Long userId = Long.parseLong(parts[2]);
-                                handleGetUserById(exchange, userId);
+                                if ("HEAD".equals(method)) handleHeadUser(exchange, userId);
+                                else handleGetUserById(exchange, userId);
                             } catch (NumberFormatException e) {
                                 sendError(exchange, 400, "Invalid user ID");
                             }
@@ -92,7 +143,7 @@ public class UserHttpActeur extends Acteur<Object> {
 
     private void handleRegister(HttpExchange exchange, String body) {
         try {
-            RegisterRequest request = gson.fromJson(body, RegisterRequest.class);
+            RegisterRequest request = JsonCodec.fromJson(body, RegisterRequest.class);
 
             // Validation
             if (request.pseudo == null || request.pseudo.length() < 3 || request.pseudo.length() > 50) {
@@ -108,21 +159,32 @@ public class UserHttpActeur extends Acteur<Object> {
                 return;
             }
 
-            User user = userService.createUser(request.pseudo, request.email, request.password);
-
-            UserResponse response = new UserResponse(
-                    user.getId(),
-                    user.getPseudo(),
-                    user.getEmail(),
-                    "User created successfully"
-            );
-
-            log("✅ Utilisateur créé : " + user.getEmail());
-            sendJson(exchange, 201, response);
+            // La réponse part du pool de hachage : le thread HTTP est déjà libre
+            userService.createUser(request.pseudo, request.email, request.password)
+                    .whenComplete((user, error) -> {
+                        if (error == null) {
+                            UserResponse response = new UserResponse(
+                                    user.getId(),
+                                    user.getPseudo(),
+                                    user.getEmail(),
+                                    "User created successfully"
+                            );
+                            log("✅ Utilisateur créé : " + user.getEmail());
+                            sendJson(exchange, 201, response);
+                            return;
+                        }
+                        Throwable cause = unwrap(error);
+                        if (cause instanceof EmailAlreadyExistsException) {
+                            logErreur("❌ Email déjà existant", (Exception) cause);
+                            sendError(exchange, 409, "Email already exists");
+                        } else if (cause instanceof ServiceSaturatedException) {
+                            sendUnavailable(exchange);
+                        } else {
+                            logErreur("❌ Erreur inscription", new Exception(cause));
+                            sendError(exchange, 500, "Error creating user: " + cause.getMessage());
+                        }
+                    });
 
-        } catch (EmailAlreadyExistsException e) {
-            logErreur("❌ Email déjà existant", e);
-            sendError(exchange, 409, "Email already exists");
         } catch (Exception e) {
             logErreur("❌ Erreur inscription", e);
             sendError(exchange, 500, "Error creating user: " + e.getMessage());
@@ -133,30 +195,41 @@ public class UserHttpActeur extends Acteur<Object> {
 
     private void handleLogin(HttpExchange exchange, String body) {
         try {
-            LoginRequest request = gson.fromJson(body, LoginRequest.class);
+            LoginRequest request = JsonCodec.fromJson(body, LoginRequest.class);
 
             if (request.email == null || request.password == null) {
                 sendError(exchange, 400, "Email and password are required");
                 return;
             }
 
-            User user = userService.authenticate(request.email, request.password);
-            String token = jwtValidator.genererToken(user.getEmail());
-
-            LoginResponse response = new LoginResponse(
-                    token,
-                    user.getId(),
-                    user.getPseudo(),
-                    user.getEmail(),
-                    3600
-            );
-
-            log("✅ Connexion réussie : " + user.getEmail());
-            sendJson(exchange, 200, response);
+            // La réponse part du pool de hachage : le thread HTTP est déjà libre
+            userService.authenticate(request.email, request.password)
+                    .whenComplete((user, error) -> {
+                        if (error == null) {
+                            String token = jwtValidator.genererToken(user.getEmail());
+                            LoginResponse response = new LoginResponse(
+                                    token,
+                                    user.getId(),
+                                    user.getPseudo(),
+                                    user.getEmail(),
+                                    3600
+                            );
+                            log("✅ Connexion réussie : " + user.getEmail());
+                            sendJson(exchange, 200, response);
+                            return;
+                        }
+                        Throwable cause = unwrap(error);
+                        if (cause instanceof InvalidCredentialsException) {
+                            logErreur("❌ Identifiants invalides", (Exception) cause);
+                            sendError(exchange, 401, "Invalid email or password");
+                        } else if (cause instanceof ServiceSaturatedException) {
+                            sendUnavailable(exchange);
+                        } else {
+                            logErreur("❌ Erreur login", new Exception(cause));
+                            sendError(exchange, 500, "Login error: " + cause.getMessage());
+                        }
+                    });
 
-        } catch (InvalidCredentialsException e) {
-            logErreur("❌ Identifiants invalides", e);
-            sendError(exchange, 401, "Invalid email or password");
         } catch (Exception e) {
             logErreur("❌ Erreur login", e);
             sendError(exchange, 500, "Login error: " + e.getMessage());
@@ -203,7 +276,7 @@ public class UserHttpActeur extends Acteur<Object> {
                 return;
             }
 
-            UpdateUserRequest request = gson.fromJson(body, UpdateUserRequest.class);
+            UpdateUserRequest request = JsonCodec.fromJson(body, UpdateUserRequest.class);
             User currentUser = userService.findByEmail(email);
 
             User updatedUser = userService.updateUser(
@@ -264,7 +337,11 @@ public class UserHttpActeur extends Acteur<Object> {
 
     // ========== GET ALL USERS ==========
 
-    private void handleGetAllUsers(HttpExchange exchange) {
+    /**
+     * GET /users?after={id}&limit={n} : page triée par id, curseur suivant dans X-Next-Cursor
+     * GET /users?stream=true[&after={id}] : tous les utilisateurs, JSON écrit au fil de la lecture
+     */
+    private void handleGetAllUsers(HttpExchange exchange, String query) {
         try {
             String email = extractEmailFromToken(exchange);
             if (email == null) {
@@ -272,13 +349,36 @@ public class UserHttpActeur extends Acteur<Object> {
                 return;
             }
 
-            List<User> users = userService.findAll();
-            List<UserSummary> summaries = users.stream()
-                    .map(u -> new UserSummary(u.getId(), u.getPseudo()))
-                    .collect(Collectors.toList());
+            Map<String, String> params = parseQueryParams(query);
+            long after;
+            int limit;
+            try {
+                after = Long.parseLong(params.getOrDefault("after", "0"));
+                limit = Math.min(Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE))), MAX_PAGE_SIZE);
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "after and limit must be numbers");
+                return;
+            }
+            if (limit <= 0) {
+                sendError(exchange, 400, "limit must be positive");
+                return;
+            }
 
-            log("✅ Liste utilisateurs : " + summaries.size() + " résultats");
-            sendJson(exchange, 200, summaries);
+            if ("true".equals(params.get("stream"))) {
+                try {
+                    streamExecutor.execute(() -> streamAllUsers(exchange, after));
+                } catch (RejectedExecutionException e) {
+                    ActeurMetrics.increment("users.stream.rejected");
+                    sendError(exchange, 503, "Too many streams in progress, retry later");
+                }
+                return;
+            }
+
+            List<UserSummaryRow> page = userService.listUsers(after, limit);
+            if (page.size() == limit) {
+                exchange.getResponseHeaders().set("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).id()));
+            }
+            sendJson(exchange, 200, page);
 
         } catch (Exception e) {
             logErreur("❌ Erreur récupération utilisateurs", e);
@@ -286,6 +386,151 @@ public class UserHttpActeur extends Acteur<Object> {
         }
     }
 
+    /**
+     * Réponse en chunked, sur le pool des flux : chaque ligne lue est écrite aussitôt
+     * (mémoire constante) sans bloquer les autres requêtes pendant la lecture ni
+     * pendant l'écriture vers un client lent
+     */
+    private void streamAllUsers(HttpExchange exchange, long after) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+        } catch (IOException e) {
+            logErreur("❌ Flux utilisateurs : envoi des en-têtes impossible", e);
+            exchange.close();
+            return;
+        }
+
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024))) {
+            json.beginArray();
+            long count = userService.streamUsers(after, (id, pseudo) ->
+                    json.beginObject().name("id").value(id).name("pseudo").value(pseudo).endObject());
+            json.endArray();
+            log("✅ Liste utilisateurs (flux) : " + count + " résultats");
+        } catch (IOException | RuntimeException e) {
+            // Statut déjà envoyé : le client reçoit un JSON tronqué
+            logErreur("❌ Flux utilisateurs interrompu", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> parseQueryParams(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            String[] keyValue = pair.split("=", 2);
+            if (keyValue.length == 2) {
+                params.put(keyValue[0], keyValue[1]);
+            }
+        }
+        return params;
+    }
+
+    // ========== IMPORT EN MASSE ==========
+
+    /**
+     * POST /users/import (NDJSON, ou CSV si Content-Type: text/csv)
+     * Le corps est lu au fil de l'eau sur le thread d'import ; le rapport
+     * {"rows": [...], "summary": {...}} est écrit pendant l'import.
+     */
+    private void handleImport(HttpExchange exchange) {
+        String email = extractEmailFromToken(exchange);
+        if (email == null) {
+            sendError(exchange, 401, "Unauthorized");
+            return;
+        }
+        if (!importRunning.compareAndSet(false, true)) {
+            sendError(exchange, 429, "An import is already running");
+            return;
+        }
+
+        UserImportService.Format format = UserImportService.Format.fromContentType(
+                exchange.getRequestHeaders().getFirst("Content-Type"));
+        log("📥 Import utilisateurs démarré par " + email + " (" + format + ")");
+        importExecutor.execute(() -> {
+            try {
+                runImport(exchange, format);
+            } finally {
+                importRunning.set(false);
+            }
+        });
+    }
+
+    private void runImport(HttpExchange exchange, UserImportService.Format format) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+        } catch (IOException e) {
+            logErreur("❌ Import utilisateurs : envoi des en-têtes impossible", e);
+            exchange.close();
+            return;
+        }
+
+        try (InputStreamReader input = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+             JsonWriter json = new JsonWriter(new BufferedWriter(
+                     new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024))) {
+            json.beginObject().name("rows").beginArray();
+            UserImportService.Summary summary = importService.importUsers(input, format,
+                    row -> JsonCodec.gson().toJson(row, UserImportService.RowResult.class, json));
+            json.endArray();
+            json.name("summary");
+            JsonCodec.gson().toJson(summary, UserImportService.Summary.class, json);
+            json.endObject();
+            log("✅ Import utilisateurs terminé : " + summary);
+        } catch (IOException | JsonIOException e) {
+            // Statut déjà envoyé : le client reçoit un rapport tronqué
+            logErreur("❌ Import utilisateurs interrompu", e);
+        } catch (RuntimeException e) {
+            logErreur("💥 Erreur import utilisateurs", e);
+        }
+    }
+
+    // ========== EXISTENCE (appels internes) ==========
+
+    /**
+     * HEAD /users/{id} : 200, 404 ou 401, sans corps ; JWT exigé comme pour GET
+     */
+    private void handleHeadUser(HttpExchange exchange, Long userId) {
+        try {
+            int status = extractEmailFromToken(exchange) == null ? 401 : userService.exists(userId) ? 200 : 404;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        } catch (Exception e) {
+            logErreur("❌ Erreur vérification existence : ID=" + userId, e);
+            sendError(exchange, 500, "Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * POST /users/exists {"ids": [1, 2, 3]} -> {"existing": [1, 3]} (JWT exigé : utilisateur ou service)
+     */
+    private void handleExists(HttpExchange exchange, String body) {
+        try {
+            if (extractEmailFromToken(exchange) == null) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            ExistsRequest request = JsonCodec.fromJson(body, ExistsRequest.class);
+            if (request == null || request.ids == null) {
+                sendError(exchange, 400, "ids is required");
+                return;
+            }
+            if (request.ids.size() > MAX_EXISTS_BATCH) {
+                sendError(exchange, 400, "At most " + MAX_EXISTS_BATCH + " ids per request");
+                return;
+            }
+            sendJson(exchange, 200, new ExistsResponse(userService.existingIds(request.ids)));
+
+        } catch (Exception e) {
+            logErreur("❌ Erreur vérification existence", e);
+            sendError(exchange, 500, "Error: " + e.getMessage());
+        }
+    }
+
     // ========== GET USER BY ID ==========
 
     private void handleGetUserById(HttpExchange exchange, Long userId) {
@@ -324,18 +569,13 @@ public class UserHttpActeur extends Acteur<Object> {
             return null;
         }
 
-        String token = authHeader.substring(7);
-        if (!jwtValidator.validerToken(token)) {
-            return null;
-        }
-
-        return jwtValidator.extraireEmail(token);
+        // Une seule vérification : null si le token est invalide ou expiré
+        return jwtValidator.extraireEmail(authHeader.substring(7));
     }
 
     private void sendJson(HttpExchange exchange, int statusCode, Object data) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes();
+            byte[] response = JsonCodec.toBytes(data);
 
             exchange.getResponseHeaders().set("Content-Type", "application/json");
             exchange.sendResponseHeaders(statusCode, response.length);
@@ -354,6 +594,19 @@ public class UserHttpActeur extends Acteur<Object> {
         sendJson(exchange, statusCode, error);
     }
 
+    /**
+     * Pool de hachage saturé : refus immédiat, le client peut réessayer
+     */
+    private void sendUnavailable(HttpExchange exchange) {
+        log("[WARN] Pool de hachage saturé, requête refusée");
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Service busy, retry later");
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
     @Override
     protected void traiterMessage(Object message) {
         // Pas utilisé en mode HTTP synchrone
@@ -361,6 +614,8 @@ public class UserHttpActeur extends Acteur<Object> {
     }
 
     public void stopHttpServer() {
+        importExecutor.shutdownNow();
+        streamExecutor.shutdownNow();
         if (httpReceiver != null) {
             httpReceiver.stop();
             log("🛑 Serveur HTTP arrêté");
@@ -416,6 +671,18 @@ public class UserHttpActeur extends Acteur<Object> {
         }
     }
 
+    private static class ExistsRequest {
+        List<Long> ids;
+    }
+
+    private static class ExistsResponse {
+        Set<Long> existing;
+
+        ExistsResponse(Set<Long> existing) {
+            this.existing = existing;
+        }
+    }
+
     private static class MessageResponse {
         String message;
 
@@ -431,14 +698,4 @@ public class UserHttpActeur extends Acteur<Object> {
             this.error = error;
         }
     }
-
-    private static class UserSummary {
-        Long id;
-        String pseudo;
-
-        UserSummary(Long id, String pseudo) {
-            this.id = id;
-            this.pseudo = pseudo;
-        }
-    }
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.example.user.config;
 
+import com.example.user.service.PasswordHasher;
+import com.example.user.service.UserCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -18,4 +21,23 @@ public class AppConfig {
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
+
+    /**
+     * Pool dédié au BCrypt (login / inscription), hors du thread HTTP
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHasher passwordHasher(PasswordEncoder passwordEncoder,
+                                         @Value("${password-hasher.threads:0}") int threads,
+                                         @Value("${password-hasher.queue-capacity:64}") int queueCapacity) {
+        return new PasswordHasher(passwordEncoder, threads, queueCapacity);
+    }
+
+    /**
+     * Cache des utilisateurs par id / email, invalidé par updateUser / deleteUser
+     */
+    @Bean
+    public UserCache userCache(@Value("${user-cache.max-size:10000}") int maxSize,
+                               @Value("${user-cache.ttl-seconds:300}") long ttlSeconds) {
+        return new UserCache(maxSize, ttlSeconds * 1000);
+    }
 }
\ No newline at end of file
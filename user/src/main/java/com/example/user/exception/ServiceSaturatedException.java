@@ -0,0 +1,7 @@
+package com.example.user.exception;
+
+public class ServiceSaturatedException extends RuntimeException {
+    public ServiceSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.user.repository;
+
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Écritures en masse pour l'import d'utilisateurs (JDBC, sans entité JPA)
+ *
+ * Hibernate désactive le batching des INSERT avec une clé IDENTITY : ici les
+ * lignes d'un lot partent en un seul executeBatch, dans une seule transaction.
+ */
+@Repository
+public class UserImportRepository {
+
+    public record NewUser(String pseudo, String email, String passwordHash) {
+    }
+
+    private static final String INSERT_SQL = "INSERT INTO users (pseudo, email, password) VALUES (?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    public UserImportRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Emails déjà présents parmi ceux donnés, en une seule requête
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (emails.isEmpty()) {
+            return existing;
+        }
+        String sql = "SELECT email FROM users WHERE email IN (" + "?,".repeat(emails.size() - 1) + "?)";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (String email : emails) {
+                statement.setString(index++, email);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Insère le lot en une transaction (tout ou rien)
+     *
+     * @return les ids générés, dans l'ordre du lot
+     */
+    public long[] insertBatch(List<NewUser> users) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[]{"id"})) {
+                for (NewUser user : users) {
+                    bind(statement, user);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                long[] ids = readIds(statement, users.size());
+                connection.commit();
+                return ids;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Insertion unitaire (repli quand un lot échoue, pour isoler la ligne fautive)
+     */
+    public long insertOne(NewUser user) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[]{"id"})) {
+            bind(statement, user);
+            statement.executeUpdate();
+            return readIds(statement, 1)[0];
+        }
+    }
+
+    private static void bind(PreparedStatement statement, NewUser user) throws SQLException {
+        statement.setString(1, user.pseudo());
+        statement.setString(2, user.email());
+        statement.setString(3, user.passwordHash());
+    }
+
+    private static long[] readIds(PreparedStatement statement, int expected) throws SQLException {
+        long[] ids = new long[expected];
+        int count = 0;
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next() && count < expected) {
+                ids[count++] = keys.getLong(1);
+            }
+        }
+        if (count != expected) {
+            throw new SQLException("Clés générées manquantes : " + count + "/" + expected);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.user.repository;
+
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listing des utilisateurs en JDBC (id + pseudo uniquement, sans entité JPA)
+ *
+ * Pagination par clé (id > curseur) : coût constant quelle que soit la page.
+ * Le mode flux lit avec un curseur serveur (fetch size) : mémoire constante.
+ */
+@Repository
+public class UserListingRepository {
+
+    public record UserSummaryRow(Long id, String pseudo) {
+    }
+
+    /**
+     * Reçoit les lignes une à une pendant la lecture en flux
+     */
+    public interface RowWriter {
+        void write(long id, String pseudo) throws IOException;
+    }
+
+    private static final String PAGE_SQL = "SELECT id, pseudo FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String STREAM_SQL = "SELECT id, pseudo FROM users WHERE id > ? ORDER BY id";
+
+    private final DataSource dataSource;
+
+    public UserListingRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public List<UserSummaryRow> findPage(long afterId, int limit) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PAGE_SQL)) {
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
+            List<UserSummaryRow> rows = new ArrayList<>(limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new UserSummaryRow(rs.getLong(1), rs.getString(2)));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Lecture de la page d'utilisateurs impossible", e);
+        }
+    }
+
+    /**
+     * Parcourt les utilisateurs d'id > afterId, dans l'ordre, sans les charger tous
+     * (PostgreSQL n'applique le fetch size qu'hors autocommit)
+     *
+     * @return nombre de lignes écrites
+     */
+    public long stream(long afterId, int fetchSize, RowWriter writer) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(STREAM_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, afterId);
+                long count = 0;
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        writer.write(rs.getLong(1), rs.getString(2));
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Lecture en flux des utilisateurs impossible", e);
+        }
+    }
+}
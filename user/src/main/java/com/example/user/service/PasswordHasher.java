@@ -0,0 +1,82 @@
+package com.example.user.service;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.user.exception.ServiceSaturatedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool dédié au hachage / à la vérification BCrypt
+ *
+ * Le thread HTTP ne fait que soumettre : le calcul BCrypt tourne sur un pool
+ * dimensionné aux cœurs, avec une file bornée. Pool saturé = échec immédiat
+ * (ServiceSaturatedException, renvoyée en 503) plutôt qu'une attente.
+ */
+public class PasswordHasher {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * @param threads Nombre de threads (0 = nombre de cœurs)
+     * @param queueCapacity Nombre maximal de hachages en attente
+     */
+    public PasswordHasher(PasswordEncoder encoder, int threads, int queueCapacity) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.encoder = encoder;
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        ActeurMetrics.gauge("password.hash.queue_depth", () -> pool.getQueue().size());
+        ActeurMetrics.gauge("password.hash.active", pool::getActiveCount);
+        ActeurMetrics.gauge("password.hash.threads", () -> size);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit("encode", () -> encoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit("matches", () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    result.complete(task.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    long end = System.nanoTime();
+                    ActeurMetrics.increment(ActeurMetrics.name("password.hash.count", "op", operation));
+                    ActeurMetrics.add(ActeurMetrics.name("password.hash.time_us", "op", operation), (end - start) / 1_000);
+                    ActeurMetrics.add(ActeurMetrics.name("password.hash.wait_us", "op", operation), (start - queuedAt) / 1_000);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ActeurMetrics.increment(ActeurMetrics.name("password.hash.rejected", "op", operation));
+            result.completeExceptionally(new ServiceSaturatedException("Password hashing pool saturated"));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.user.service;
+
+import com.cypay.framework.cache.TtlCache;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.user.model.User;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des utilisateurs par id et par email (taille bornée + TTL)
+ *
+ * Les écritures (updateUser / deleteUser) invalident tout de suite, puis de
+ * nouveau au commit, avant de mettre en cache la nouvelle version. Un chargement
+ * depuis la base commencé avant une invalidation n'est pas mis en cache : il
+ * pourrait ramener la version d'avant l'écriture, encore validée jusqu'au commit.
+ */
+public class UserCache {
+
+    private final TtlCache<Long, User> byId;
+    private final TtlCache<String, User> byEmail;
+    private final long ttlMs;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserCache(int maxSize, long ttlMs) {
+        this.byId = new TtlCache<>(maxSize);
+        this.byEmail = new TtlCache<>(maxSize);
+        this.ttlMs = ttlMs;
+    }
+
+    public Optional<User> findById(Long id, Supplier<Optional<User>> loader) {
+        User cached = byId.get(id);
+        return cached != null ? hit(cached) : load(loader);
+    }
+
+    public Optional<User> findByEmail(String email, Supplier<Optional<User>> loader) {
+        User cached = byEmail.get(email);
+        return cached != null ? hit(cached) : load(loader);
+    }
+
+    /**
+     * Lecture du cache seul (null si absent), sans compter de hit / miss
+     */
+    public User findCached(Long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Mise en cache après une écriture réussie (copie : l'entité sauvegardée reste à l'appelant)
+     */
+    public void put(User user) {
+        User copy = copy(user);
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        byId.put(copy.getId(), copy, expiresAt);
+        byEmail.put(copy.getEmail(), copy, expiresAt);
+    }
+
+    /**
+     * Écriture de before en after (null = suppression) : invalidation immédiate ; si une
+     * transaction est en cours, seconde invalidation à sa fin et after mis en cache au commit
+     * seulement (rien n'est mis en cache si elle est annulée)
+     */
+    public void write(User before, User after) {
+        invalidate(before);
+        User snapshot = after == null ? null : copy(after);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(before);
+                    if (snapshot != null && status == STATUS_COMMITTED) {
+                        put(snapshot);
+                    }
+                }
+            });
+        } else if (snapshot != null) {
+            put(snapshot);
+        }
+    }
+
+    public void invalidate(User user) {
+        invalidations.incrementAndGet();
+        byId.invalidate(user.getId());
+        byEmail.invalidate(user.getEmail());
+    }
+
+    private Optional<User> hit(User user) {
+        ActeurMetrics.increment("user.cache.hit");
+        return Optional.of(user);
+    }
+
+    private Optional<User> load(Supplier<Optional<User>> loader) {
+        ActeurMetrics.increment("user.cache.miss");
+        long before = invalidations.get();
+        Optional<User> loaded = loader.get();
+        if (loaded.isPresent() && invalidations.get() == before) {
+            put(loaded.get());
+        }
+        return loaded;
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getPseudo(), user.getEmail(), user.getPassword());
+    }
+}
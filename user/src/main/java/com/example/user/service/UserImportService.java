@@ -0,0 +1,292 @@
+package com.example.user.service;
+
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.user.exception.ServiceSaturatedException;
+import com.example.user.repository.UserImportRepository;
+import com.example.user.repository.UserImportRepository.NewUser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Import d'utilisateurs en masse (NDJSON ou CSV pseudo,email,password)
+ *
+ * Lecture ligne à ligne par lots de 500 : une requête pour les emails déjà pris,
+ * hachages BCrypt en parallèle sur le PasswordHasher (nombre en vol borné pour
+ * laisser de la place aux logins), puis un seul INSERT batché par lot.
+ * Chaque ligne reçoit un résultat : created, duplicate, invalid ou failed.
+ */
+public class UserImportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.toLowerCase().startsWith("text/csv") ? CSV : NDJSON;
+        }
+    }
+
+    public record RowResult(int line, String email, String status, Long id, String error) {
+    }
+
+    public record Summary(int created, int duplicates, int invalid, int failed) {
+    }
+
+    private static final int CHUNK_SIZE = 500;
+    private static final long SATURATION_BACKOFF_MS = 20;
+    private static final String CSV_HEADER = "pseudo,email,password";
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final UserImportRepository repository;
+    private final PasswordHasher passwordHasher;
+    private final Semaphore inFlight;
+
+    /**
+     * @param maxInFlightHashes Hachages soumis en même temps par l'import (0 = nombre de cœurs)
+     */
+    public UserImportService(UserImportRepository repository, PasswordHasher passwordHasher, int maxInFlightHashes) {
+        this.repository = repository;
+        this.passwordHasher = passwordHasher;
+        this.inFlight = new Semaphore(maxInFlightHashes > 0 ? maxInFlightHashes : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Importe toutes les lignes de l'entrée ; report reçoit les résultats dans l'ordre des lignes
+     */
+    public Summary importUsers(Reader input, Format format, Consumer<RowResult> report) throws IOException {
+        System.out.println("[UserImportService] Import started (" + format + ")");
+        int[] counts = new int[4];
+        Consumer<RowResult> counting = result -> {
+            counts[statusIndex(result.status())]++;
+            ActeurMetrics.increment(ActeurMetrics.name("user.import.rows", "status", result.status()));
+            report.accept(result);
+        };
+
+        Set<String> seenEmails = new HashSet<>();
+        List<PendingRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        BufferedReader reader = new BufferedReader(input);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && line.trim().equalsIgnoreCase(CSV_HEADER))) {
+                continue;
+            }
+            chunk.add(format == Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line));
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, seenEmails, counting);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, seenEmails, counting);
+        }
+
+        Summary summary = new Summary(counts[0], counts[1], counts[2], counts[3]);
+        System.out.println("[UserImportService] Import finished: " + summary);
+        return summary;
+    }
+
+    private void processChunk(List<PendingRow> chunk, Set<String> seenEmails, Consumer<RowResult> report) {
+        ActeurMetrics.increment("user.import.chunks");
+
+        Set<String> candidates = new LinkedHashSet<>();
+        for (PendingRow row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+            String invalid = validate(row);
+            if (invalid != null) {
+                row.reject("invalid", invalid);
+            } else if (!seenEmails.add(row.email)) {
+                row.reject("duplicate", "Email appears earlier in the file");
+            } else {
+                candidates.add(row.email);
+            }
+        }
+
+        // Un seul aller-retour pour tous les emails du lot
+        try {
+            Set<String> existing = repository.findExistingEmails(candidates);
+            for (PendingRow row : chunk) {
+                if (row.result == null && existing.contains(row.email)) {
+                    row.reject("duplicate", "Email already exists");
+                }
+            }
+        } catch (SQLException e) {
+            chunk.stream().filter(row -> row.result == null)
+                    .forEach(row -> row.reject("failed", "Database error: " + e.getMessage()));
+        }
+
+        List<PendingRow> toInsert = hashAll(chunk);
+        if (!toInsert.isEmpty()) {
+            insert(toInsert);
+        }
+        chunk.forEach(row -> report.accept(row.result));
+    }
+
+    private List<PendingRow> hashAll(List<PendingRow> chunk) {
+        for (PendingRow row : chunk) {
+            if (row.result == null) {
+                row.hash = encode(row.password);
+            }
+        }
+        List<PendingRow> hashed = new ArrayList<>();
+        for (PendingRow row : chunk) {
+            if (row.result != null) {
+                continue;
+            }
+            try {
+                row.passwordHash = row.hash.join();
+                hashed.add(row);
+            } catch (CompletionException e) {
+                row.reject("failed", "Hashing error: " + e.getCause().getMessage());
+            }
+        }
+        return hashed;
+    }
+
+    /**
+     * Au plus maxInFlightHashes hachages en vol ; pool saturé (logins) = courte attente puis nouvel essai
+     */
+    private CompletableFuture<String> encode(String password) {
+        while (true) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<String> hash = passwordHasher.encode(password);
+            hash.whenComplete((value, error) -> inFlight.release());
+            if (!(hash.handle((value, error) -> error).getNow(null) instanceof ServiceSaturatedException)) {
+                return hash;
+            }
+            ActeurMetrics.increment("user.import.hash_retry");
+            try {
+                Thread.sleep(SATURATION_BACKOFF_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return hash;
+            }
+        }
+    }
+
+    private void insert(List<PendingRow> rows) {
+        List<NewUser> users = rows.stream().map(row -> new NewUser(row.pseudo, row.email, row.passwordHash)).toList();
+        try {
+            long[] ids = repository.insertBatch(users);
+            for (int i = 0; i < rows.size(); i++) {
+                rows.get(i).accept(ids[i]);
+            }
+            ActeurMetrics.increment("user.import.batches");
+        } catch (SQLException batchError) {
+            // Lot annulé (ex. inscription concurrente du même email) : ligne par ligne pour isoler la fautive
+            System.out.println("[UserImportService] Batch insert failed, retrying row by row: " + batchError.getMessage());
+            for (int i = 0; i < rows.size(); i++) {
+                PendingRow row = rows.get(i);
+                try {
+                    row.accept(repository.insertOne(users.get(i)));
+                } catch (SQLException e) {
+                    if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                        row.reject("duplicate", "Email already exists");
+                    } else {
+                        row.reject("failed", "Database error: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Mêmes règles que /users/register
+     */
+    private static String validate(PendingRow row) {
+        if (row.pseudo == null || row.pseudo.length() < 3 || row.pseudo.length() > 50) {
+            return "Pseudo must be between 3 and 50 characters";
+        }
+        if (row.email == null || !row.email.contains("@") || row.email.length() > 100) {
+            return "Invalid email";
+        }
+        if (row.password == null || row.password.length() < 6) {
+            return "Password must be at least 6 characters";
+        }
+        return null;
+    }
+
+    private static PendingRow parseJson(int line, String json) {
+        try {
+            ImportRow row = JsonCodec.fromJson(json, ImportRow.class);
+            if (row == null) {
+                return PendingRow.rejected(line, null, "Empty JSON line");
+            }
+            return new PendingRow(line, row.pseudo, row.email, row.password);
+        } catch (RuntimeException e) {
+            return PendingRow.rejected(line, null, "Malformed JSON");
+        }
+    }
+
+    /**
+     * pseudo,email,password : le mot de passe est le dernier champ et peut contenir des virgules
+     */
+    private static PendingRow parseCsv(int line, String csv) {
+        String[] fields = csv.split(",", 3);
+        if (fields.length < 3) {
+            return PendingRow.rejected(line, null, "Expected pseudo,email,password");
+        }
+        return new PendingRow(line, fields[0].trim(), fields[1].trim(), fields[2]);
+    }
+
+    private static int statusIndex(String status) {
+        return switch (status) {
+            case "created" -> 0;
+            case "duplicate" -> 1;
+            case "invalid" -> 2;
+            default -> 3;
+        };
+    }
+
+    private static class ImportRow {
+        String pseudo;
+        String email;
+        String password;
+    }
+
+    private static class PendingRow {
+        final int line;
+        final String pseudo;
+        final String email;
+        final String password;
+        CompletableFuture<String> hash;
+        String passwordHash;
+        RowResult result;
+
+        PendingRow(int line, String pseudo, String email, String password) {
+            this.line = line;
+            this.pseudo = pseudo;
+            this.email = email;
+            this.password = password;
+        }
+
+        static PendingRow rejected(int line, String email, String error) {
+            PendingRow row = new PendingRow(line, null, email, null);
+            row.reject("invalid", error);
+            return row;
+        }
+
+        void accept(long id) {
+            result = new RowResult(line, email, "created", id, null);
+        }
+
+        void reject(String status, String error) {
+            result = new RowResult(line, email, status, null, error);
+        }
+    }
+}
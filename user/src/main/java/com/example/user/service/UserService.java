@@ -4,58 +4,88 @@ import com.example.user.exception.EmailAlreadyExistsException;
 import com.example.user.exception.InvalidCredentialsException;
 import com.example.user.exception.UserNotFoundException;
 import com.example.user.model.User;
+import com.example.user.repository.UserListingRepository;
+import com.example.user.repository.UserListingRepository.UserSummaryRow;
 import com.example.user.repository.UserRepository;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final UserCache userCache;
+    private final UserListingRepository listingRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       PasswordHasher passwordHasher, UserCache userCache,
+                       UserListingRepository listingRepository) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.userCache = userCache;
+        this.listingRepository = listingRepository;
     }
 
-    @Transactional
-    public User createUser(String pseudo, String email, String password) {
+    /**
+     * Inscription : le hachage BCrypt tourne sur le pool dédié, l'enregistrement
+     * se fait à la fin du hachage (le thread appelant n'attend pas)
+     */
+    public CompletableFuture<User> createUser(String pseudo, String email, String password) {
         System.out.println("[UserService] Creating user: " + email);
 
         if (userRepository.existsByEmail(email)) {
-            throw new EmailAlreadyExistsException("Email already exists: " + email);
+            return CompletableFuture.failedFuture(new EmailAlreadyExistsException("Email already exists: " + email));
         }
 
-        User user = new User();
-        user.setPseudo(pseudo);
-        user.setEmail(email);
-        user.setPassword(passwordEncoder.encode(password)); // Hash le mot de passe avec BCrypt
-
-        User savedUser = userRepository.save(user);
-        System.out.println("[UserService] User created with ID: " + savedUser.getId());
+        return passwordHasher.encode(password).thenApply(hash -> {
+            User user = new User();
+            user.setPseudo(pseudo);
+            user.setEmail(email);
+            user.setPassword(hash);
 
-        return savedUser;
+            User savedUser = userRepository.save(user);
+            userCache.put(savedUser);
+            System.out.println("[UserService] User created with ID: " + savedUser.getId());
+            return savedUser;
+        });
     }
 
-    public User authenticate(String email, String password) {
+    /**
+     * Connexion : la vérification BCrypt tourne sur le pool dédié
+     */
+    public CompletableFuture<User> authenticate(String email, String password) {
         System.out.println("[UserService] Authenticating user: " + email);
 
         // Trouver l'utilisateur par email
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new InvalidCredentialsException("Invalid email or password"));
-
-        // Vérifier le mot de passe
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            throw new InvalidCredentialsException("Invalid email or password");
+        Optional<User> found = userCache.findByEmail(email, () -> userRepository.findByEmail(email));
+        if (found.isEmpty()) {
+            return CompletableFuture.failedFuture(new InvalidCredentialsException("Invalid email or password"));
         }
+        User user = found.get();
 
-        System.out.println("[UserService] Authentication successful for: " + email);
-        return user;
+        // Vérifier le mot de passe
+        return passwordHasher.matches(password, user.getPassword()).thenApply(matches -> {
+            if (!matches) {
+                throw new InvalidCredentialsException("Invalid email or password");
+            }
+            System.out.println("[UserService] Authentication successful for: " + email);
+            return user;
+        });
     }
 
     @Transactional
@@ -65,6 +95,7 @@ public class UserService {
         // Trouver l'utilisateur
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
+        User before = new User(user.getId(), user.getPseudo(), user.getEmail(), user.getPassword());
 
         // Mettre à jour les champs non-null
         if (pseudo != null && !pseudo.isBlank()) {
@@ -84,7 +115,9 @@ public class UserService {
             user.setPassword(passwordEncoder.encode(password));
         }
 
+        // Invalidation tout de suite et au commit, nouvelle version en cache une fois validée
         User updatedUser = userRepository.save(user);
+        userCache.write(before, updatedUser);
         System.out.println("[UserService] User updated: " + updatedUser.getId());
 
         return updatedUser;
@@ -92,7 +125,7 @@ public class UserService {
 
 
     public User findByEmail(String email) {
-        return userRepository.findByEmail(email)
+        return userCache.findByEmail(email, () -> userRepository.findByEmail(email))
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
     }
 
@@ -100,11 +133,11 @@ public class UserService {
     public void deleteUser(Long id) {
         System.out.println("[UserService] Deleting user ID: " + id);
 
-        if (!userRepository.existsById(id)) {
-            throw new UserNotFoundException("User not found with ID: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
 
         userRepository.deleteById(id);
+        userCache.write(user, null);
         System.out.println("[UserService] User deleted: " + id);
     }
 
@@ -112,8 +145,48 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Page d'utilisateurs d'id > afterId (pagination par clé)
+     */
+    public List<UserSummaryRow> listUsers(long afterId, int limit) {
+        return listingRepository.findPage(afterId, limit);
+    }
+
+    /**
+     * Tous les utilisateurs d'id > afterId, écrits au fil de la lecture
+     */
+    public long streamUsers(long afterId, UserListingRepository.RowWriter writer) throws IOException {
+        return listingRepository.stream(afterId, STREAM_FETCH_SIZE, writer);
+    }
+
+    /**
+     * Existence d'un utilisateur (cache puis base)
+     */
+    public boolean exists(Long id) {
+        return userCache.findById(id, () -> userRepository.findById(id)).isPresent();
+    }
+
+    /**
+     * Parmi ids, ceux qui existent : cache d'abord, une seule requête pour le reste
+     */
+    public Set<Long> existingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (id == null) continue;
+            if (userCache.findCached(id) != null) existing.add(id);
+            else missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (User user : userRepository.findAllById(missing)) {
+                existing.add(user.getId());
+            }
+        }
+        return existing;
+    }
+
     public User findById(Long id) {
-        return userRepository.findById(id)
+        return userCache.findById(id, () -> userRepository.findById(id))
                 .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
     }
 }
\ No newline at end of file
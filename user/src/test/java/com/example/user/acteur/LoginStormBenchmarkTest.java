@@ -0,0 +1,94 @@
+package com.example.user.acteur;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Logins en rafale : BCrypt hors du thread HTTP, sur un pool borné
+ * Sans base : voir UserActeurFixture.
+ */
+class LoginStormBenchmarkTest {
+
+    private UserActeurFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        if (fixture != null) fixture.close();
+    }
+
+    /**
+     * Latence mesurée, dépendante de la machine : mvn test -Dtest=LoginStormBenchmarkTest -Dcypay.bench=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "cypay.bench", matches = "true")
+    void lectureParIdNonBloqueeParLesLogins() throws Exception {
+        fixture = new UserActeurFixture(List.of(UserActeurFixture.user(1L, "alice", "secret123")), 1, 256);
+        String token = fixture.token("alice@cypay.fr");
+
+        long hashStart = System.nanoTime();
+        UserActeurFixture.BCRYPT.matches("secret123", UserActeurFixture.BCRYPT.encode("secret123"));
+        long bcryptMs = (System.nanoTime() - hashStart) / 2_000_000;
+
+        long[] repos = measureGetById(token, 20);
+
+        List<CompletableFuture<HttpResponse<String>>> storm = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            storm.add(fixture.login("alice@cypay.fr", "secret123"));
+        }
+        Thread.sleep(50);
+        long[] pendantRafale = measureGetById(token, 20);
+
+        for (CompletableFuture<HttpResponse<String>> login : storm) {
+            assertEquals(200, login.join().statusCode());
+        }
+
+        long medianRepos = median(repos);
+        long medianRafale = median(pendantRafale);
+        System.out.println("[BENCH] BCrypt : ~" + bcryptMs + " ms par opération, 30 logins en rafale");
+        System.out.println("[BENCH] GET /users/{id} médiane : au repos " + medianRepos
+                + " ms, pendant la rafale " + medianRafale + " ms");
+
+        // Avant : chaque GET attendait derrière les logins en file sur le thread HTTP (~30 x BCrypt)
+        assertTrue(medianRafale < medianRepos + bcryptMs, "Le GET ne doit pas attendre les BCrypt en file");
+    }
+
+    @Test
+    void poolSatureRefuseEn503() throws Exception {
+        fixture = new UserActeurFixture(List.of(UserActeurFixture.user(1L, "alice", "secret123")), 1, 1);
+        List<CompletableFuture<HttpResponse<String>>> storm = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            storm.add(fixture.login("alice@cypay.fr", "secret123"));
+        }
+        long refusees = storm.stream().map(CompletableFuture::join).filter(r -> r.statusCode() == 503).count();
+        long acceptees = storm.stream().map(CompletableFuture::join).filter(r -> r.statusCode() == 200).count();
+
+        assertTrue(refusees > 0, "Des logins doivent être refusés quand la file est pleine");
+        assertEquals(20, refusees + acceptees);
+    }
+
+    private long[] measureGetById(String token, int count) throws Exception {
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = fixture.get("/users/1", token);
+            latencies[i] = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(200, response.statusCode());
+        }
+        return latencies;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.user.acteur;
+
+import com.cypay.framework.security.JwtValidator;
+import com.example.user.model.User;
+import com.example.user.repository.UserListingRepository;
+import com.example.user.repository.UserRepository;
+import com.example.user.service.PasswordHasher;
+import com.example.user.service.UserCache;
+import com.example.user.service.UserService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Acteur HTTP User démarré sur un port libre, sans base : les dépôts sont des stubs
+ * sur une liste d'utilisateurs en mémoire. Seul endroit des tests à suivre les
+ * constructeurs de UserService et UserHttpActeur.
+ */
+final class UserActeurFixture implements AutoCloseable {
+
+    static final String SECRET = "cle-de-test-cypay-suffisamment-longue-pour-hs256";
+    static final BCryptPasswordEncoder BCRYPT = new BCryptPasswordEncoder(10);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final PasswordHasher hasher;
+    private final UserHttpActeur acteur;
+    private final int port;
+
+    /**
+     * @param users Utilisateurs connus, triés par id pour le listing
+     */
+    UserActeurFixture(List<User> users, int hasherThreads, int hasherQueue) throws IOException {
+        this(users, null, hasherThreads, hasherQueue);
+    }
+
+    /**
+     * @param listing Listing propre au test (null = listing sur users)
+     */
+    UserActeurFixture(List<User> users, UserListingRepository listing, int hasherThreads, int hasherQueue)
+            throws IOException {
+        List<User> sorted = users.stream().sorted(Comparator.comparing(User::getId)).toList();
+        hasher = new PasswordHasher(BCRYPT, hasherThreads, hasherQueue);
+        UserService service = new UserService(repository(sorted), BCRYPT, hasher, new UserCache(100, 60_000),
+                listing != null ? listing : listingRepository(sorted));
+
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        acteur = new UserHttpActeur(service, null, SECRET, 60_000, null, null, null);
+        acteur.startHttpServer(port);
+    }
+
+    static User user(long id, String pseudo, String password) {
+        return new User(id, pseudo, pseudo + "@cypay.fr", BCRYPT.encode(password));
+    }
+
+    /**
+     * Utilisateur sans mot de passe utilisable (listing seulement : pas de coût BCrypt)
+     */
+    static User user(long id, String pseudo) {
+        return new User(id, pseudo, pseudo + "@cypay.fr", "-");
+    }
+
+    String token(String email) {
+        return new JwtValidator(SECRET, 60_000).generateToken(email);
+    }
+
+    HttpResponse<String> get(String pathAndQuery, String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + pathAndQuery))
+                .header("Authorization", "Bearer " + token)
+                .GET().build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    CompletableFuture<HttpResponse<String>> getAsync(String pathAndQuery, String token) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + pathAndQuery))
+                .header("Authorization", "Bearer " + token)
+                .GET().build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    HttpResponse<String> send(String method, String pathAndQuery, String body, String token)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + pathAndQuery))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    CompletableFuture<HttpResponse<String>> login(String email, String password) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Override
+    public void close() {
+        acteur.stopHttpServer();
+        hasher.shutdown();
+    }
+
+    private static UserRepository repository(List<User> users) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByEmail" -> users.stream().filter(u -> u.getEmail().equals(args[0])).findFirst();
+                    case "findById" -> users.stream().filter(u -> u.getId().equals(args[0])).findFirst();
+                    case "existsByEmail" -> users.stream().anyMatch(u -> u.getEmail().equals(args[0]));
+                    case "findAllById" -> users.stream()
+                            .filter(u -> ((Collection<?>) args[0]).contains(u.getId())).toList();
+                    case "save" -> args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static UserListingRepository listingRepository(List<User> users) {
+        return new UserListingRepository(null) {
+            @Override
+            public List<UserSummaryRow> findPage(long afterId, int limit) {
+                return users.stream().filter(u -> u.getId() > afterId).limit(limit)
+                        .map(u -> new UserSummaryRow(u.getId(), u.getPseudo())).toList();
+            }
+
+            @Override
+            public long stream(long afterId, int fetchSize, RowWriter writer) throws IOException {
+                long count = 0;
+                for (User user : users) {
+                    if (user.getId() > afterId) {
+                        writer.write(user.getId(), user.getPseudo());
+                        count++;
+                    }
+                }
+                return count;
+            }
+        };
+    }
+}
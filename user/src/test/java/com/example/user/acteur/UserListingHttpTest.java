@@ -0,0 +1,149 @@
+package com.example.user.acteur;
+
+import com.cypay.framework.json.JsonCodec;
+import com.example.user.model.User;
+import com.example.user.repository.UserListingRepository;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GET /users : pages par clé (after / limit / X-Next-Cursor) et mode flux ;
+ * existence (HEAD /users/{id}, POST /users/exists) sous JWT
+ */
+class UserListingHttpTest {
+
+    private static final List<User> USERS = LongStream.rangeClosed(1, 1001)
+            .mapToObj(id -> UserActeurFixture.user(id, "user" + id)).toList();
+
+    private UserActeurFixture fixture;
+
+    @AfterEach
+    void tearDown() {
+        if (fixture != null) fixture.close();
+    }
+
+    @Test
+    void pagesParCleAvecCurseurSuivant() throws Exception {
+        fixture = new UserActeurFixture(USERS, 1, 1);
+        String token = fixture.token("user1@cypay.fr");
+
+        HttpResponse<String> premiere = fixture.get("/users?limit=2", token);
+        assertEquals(200, premiere.statusCode());
+        assertEquals(List.of(1L, 2L), ids(premiere.body()));
+        assertEquals("2", premiere.headers().firstValue("X-Next-Cursor").orElse(null));
+
+        HttpResponse<String> suivante = fixture.get("/users?after=2&limit=2", token);
+        assertEquals(List.of(3L, 4L), ids(suivante.body()));
+
+        HttpResponse<String> derniere = fixture.get("/users?after=999&limit=5", token);
+        assertEquals(List.of(1000L, 1001L), ids(derniere.body()));
+        assertTrue(derniere.headers().firstValue("X-Next-Cursor").isEmpty(), "Dernière page : pas de curseur");
+    }
+
+    @Test
+    void limiteBorneeEtParametresInvalides() throws Exception {
+        fixture = new UserActeurFixture(USERS, 1, 1);
+        String token = fixture.token("user1@cypay.fr");
+
+        HttpResponse<String> plafonnee = fixture.get("/users?limit=5000", token);
+        assertEquals(1000, ids(plafonnee.body()).size(), "limit plafonné à 1000");
+        assertEquals("1000", plafonnee.headers().firstValue("X-Next-Cursor").orElse(null));
+
+        assertEquals(100, ids(fixture.get("/users", token).body()).size(), "Taille de page par défaut");
+        assertEquals(400, fixture.get("/users?limit=0", token).statusCode());
+        assertEquals(400, fixture.get("/users?after=abc", token).statusCode());
+        assertEquals(401, fixture.get("/users?limit=2", "jeton-invalide").statusCode());
+    }
+
+    @Test
+    void existenceReserveeAuxAppelsAuthentifies() throws Exception {
+        fixture = new UserActeurFixture(USERS, 1, 1);
+        String token = fixture.token("wallet-service@cypay.internal");
+
+        assertEquals(401, fixture.send("HEAD", "/users/1", null, null).statusCode());
+        assertEquals(401, fixture.send("POST", "/users/exists", "{\"ids\":[1,5000]}", null).statusCode());
+        assertEquals(401, fixture.send("POST", "/users/exists", "{\"ids\":[1]}", "jeton-invalide").statusCode());
+
+        assertEquals(200, fixture.send("HEAD", "/users/1", null, token).statusCode());
+        assertEquals(404, fixture.send("HEAD", "/users/5000", null, token).statusCode());
+        HttpResponse<String> existing = fixture.send("POST", "/users/exists", "{\"ids\":[1,5000]}", token);
+        assertEquals(200, existing.statusCode());
+        assertEquals("[1]", JsonCodec.gson().fromJson(existing.body(), JsonObject.class)
+                .get("existing").toString());
+    }
+
+    @Test
+    void fluxCompletEtReprisApresUnId() throws Exception {
+        fixture = new UserActeurFixture(USERS, 1, 1);
+        String token = fixture.token("user1@cypay.fr");
+
+        HttpResponse<String> complet = fixture.get("/users?stream=true", token);
+        assertEquals(200, complet.statusCode());
+        List<Long> ids = ids(complet.body());
+        assertEquals(1001, ids.size(), "Pas de limite en mode flux");
+        assertEquals(1L, ids.get(0));
+        assertEquals(1001L, ids.get(1000));
+
+        assertEquals(List.of(1000L, 1001L), ids(fixture.get("/users?stream=true&after=999", token).body()));
+    }
+
+    @Test
+    void fluxLentNeBloquePasLesAutresRequetes() throws Exception {
+        CountDownLatch lectureEnCours = new CountDownLatch(1);
+        CountDownLatch finLecture = new CountDownLatch(1);
+        UserListingRepository lent = new UserListingRepository(null) {
+            @Override
+            public long stream(long afterId, int fetchSize, RowWriter writer) throws IOException {
+                writer.write(1, "user1");
+                lectureEnCours.countDown();
+                try {
+                    finLecture.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }
+        };
+        fixture = new UserActeurFixture(USERS.subList(0, 1), lent, 1, 1);
+        String token = fixture.token("user1@cypay.fr");
+
+        List<CompletableFuture<HttpResponse<String>>> flux = new ArrayList<>();
+        flux.add(fixture.getAsync("/users?stream=true", token));
+        assertTrue(lectureEnCours.await(5, TimeUnit.SECONDS));
+        flux.add(fixture.getAsync("/users?stream=true", token));
+
+        try {
+            // Le thread HTTP reste libre pendant la lecture en flux
+            assertEquals(200, fixture.getAsync("/users/1", token).get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(503, fixture.getAsync("/users?stream=true", token).get(5, TimeUnit.SECONDS).statusCode(),
+                    "Au-delà de deux flux simultanés");
+        } finally {
+            finLecture.countDown();
+        }
+        for (CompletableFuture<HttpResponse<String>> response : flux) {
+            assertEquals(List.of(1L), ids(response.get(5, TimeUnit.SECONDS).body()));
+        }
+    }
+
+    private static List<Long> ids(String body) {
+        List<Long> ids = new ArrayList<>();
+        for (JsonElement row : JsonCodec.gson().fromJson(body, JsonArray.class)) {
+            ids.add(row.getAsJsonObject().get("id").getAsLong());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.user.service;
+
+import com.example.user.exception.UserNotFoundException;
+import com.example.user.model.User;
+import com.example.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+
+    private final Map<Long, User> table = new ConcurrentHashMap<>();
+    private final AtomicInteger lectures = new AtomicInteger();
+    private UserCache cache;
+    private UserService service;
+
+    @BeforeEach
+    void setUp() {
+        table.put(1L, new User(1L, "alice", "alice@cypay.fr", "hash"));
+        cache = new UserCache(100, 60_000);
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        service = new UserService(repository(), encoder, new PasswordHasher(encoder, 1, 8), cache, null);
+    }
+
+    @Test
+    void lecturesServiesDepuisLaMemoire() {
+        assertEquals("alice", service.findById(1L).getPseudo());
+        assertEquals("alice", service.findById(1L).getPseudo());
+        assertEquals("alice", service.findByEmail("alice@cypay.fr").getPseudo());
+        assertEquals(1, lectures.get(), "Une seule lecture en base pour id et email");
+    }
+
+    @Test
+    void ecrituresInvalidentImmediatement() {
+        service.findById(1L);
+        service.findByEmail("alice@cypay.fr");
+
+        service.updateUser(1L, "alice2", "alice2@cypay.fr", null);
+        assertEquals("alice2", service.findById(1L).getPseudo());
+        assertEquals("alice2", service.findByEmail("alice2@cypay.fr").getPseudo());
+        assertThrows(UserNotFoundException.class, () -> service.findByEmail("alice@cypay.fr"));
+
+        service.deleteUser(1L);
+        assertThrows(UserNotFoundException.class, () -> service.findById(1L));
+        assertThrows(UserNotFoundException.class, () -> service.findByEmail("alice2@cypay.fr"));
+    }
+
+    @Test
+    void existenceParLotEnUneRequete() {
+        table.put(2L, new User(2L, "bob", "bob@cypay.fr", "hash"));
+        service.findById(1L);
+        lectures.set(0);
+
+        assertEquals(Set.of(1L, 2L), service.existingIds(List.of(1L, 2L, 3L)));
+        assertEquals(1, lectures.get(), "Id 1 depuis le cache, 2 et 3 en une seule requête");
+        assertTrue(service.exists(1L));
+    }
+
+    @Test
+    void chargementConcurrentDUneEcritureNonMisEnCache() {
+        User ancien = new User(1L, "alice", "alice@cypay.fr", "hash");
+        cache.findById(1L, () -> {
+            cache.invalidate(ancien); // écriture pendant la lecture en base
+            return Optional.of(ancien);
+        });
+        AtomicInteger rechargements = new AtomicInteger();
+        cache.findById(1L, () -> {
+            rechargements.incrementAndGet();
+            return Optional.of(ancien);
+        });
+        assertEquals(1, rechargements.get());
+    }
+
+    @Test
+    void lectureAvantLeCommitRemplaceeAuCommit() {
+        User ancien = new User(1L, "alice", "alice@cypay.fr", "hash");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.updateUser(1L, "alice2", "alice2@cypay.fr", null);
+            // ligne encore validée en base jusqu'au commit
+            cache.findByEmail("alice@cypay.fr", () -> Optional.of(ancien));
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("alice2", cache.findCached(1L).getPseudo());
+        assertThrows(UserNotFoundException.class, () -> service.findByEmail("alice@cypay.fr"));
+    }
+
+    @Test
+    void lectureConcurrenteDuCommitNonMiseEnCache() {
+        User ancien = new User(1L, "alice", "alice@cypay.fr", "hash");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.updateUser(1L, "alice2", "alice2@cypay.fr", null);
+            // lecture commencée avant le commit, terminée après
+            cache.findById(1L, () -> {
+                complete(TransactionSynchronization.STATUS_COMMITTED);
+                return Optional.of(ancien);
+            });
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("alice2", cache.findCached(1L).getPseudo());
+        assertEquals("alice2", service.findById(1L).getPseudo());
+    }
+
+    @Test
+    void ecritureAnnuleeJamaisEnCache() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.updateUser(1L, "alice2", "alice2@cypay.fr", null);
+            table.put(1L, new User(1L, "alice", "alice@cypay.fr", "hash")); // écriture annulée
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertNull(cache.findCached(1L));
+        assertEquals("alice", service.findById(1L).getPseudo());
+    }
+
+    /**
+     * Ce que fait le gestionnaire de transactions à la fin de la transaction
+     */
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(status));
+    }
+
+    private UserRepository repository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> {
+                        lectures.incrementAndGet();
+                        yield Optional.ofNullable(copy(table.get((Long) args[0])));
+                    }
+                    case "findByEmail" -> {
+                        lectures.incrementAndGet();
+                        yield table.values().stream().filter(u -> u.getEmail().equals(args[0])).findFirst().map(UserCacheTest::copy);
+                    }
+                    case "findAllById" -> {
+                        lectures.incrementAndGet();
+                        List<User> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            if (table.containsKey((Long) id)) found.add(copy(table.get((Long) id)));
+                        }
+                        yield found;
+                    }
+                    case "save" -> {
+                        User user = (User) args[0];
+                        table.put(user.getId(), copy(user));
+                        yield user;
+                    }
+                    case "deleteById" -> table.remove((Long) args[0]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static User copy(User user) {
+        return user == null ? null : new User(user.getId(), user.getPseudo(), user.getEmail(), user.getPassword());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.user.service;
+
+import com.example.user.repository.UserImportRepository;
+import com.example.user.repository.UserImportRepository.NewUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportServiceTest {
+
+    private static final BCryptPasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+
+    private final Set<String> table = new HashSet<>(Set.of("alice@cypay.fr"));
+    private final AtomicInteger requetesEmails = new AtomicInteger();
+    private final AtomicInteger lots = new AtomicInteger();
+    private final List<NewUser> inseres = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong(100);
+    private boolean lotEnEchec;
+    private String emailConcurrent;
+
+    private PasswordHasher hasher;
+    private UserImportService service;
+
+    @BeforeEach
+    void setUp() {
+        hasher = new PasswordHasher(ENCODER, 2, 8);
+        service = new UserImportService(repository(), hasher, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Test
+    void importNdjsonAvecRapportParLigne() throws Exception {
+        String ndjson = """
+                {"pseudo": "bob", "email": "bob@cypay.fr", "password": "secret1"}
+                {"pseudo": "alice", "email": "alice@cypay.fr", "password": "secret1"}
+
+                {"pseudo": "bo", "email": "court@cypay.fr", "password": "secret1"}
+                {"pseudo": "bob2", "email": "bob@cypay.fr", "password": "secret1"}
+                pas du json
+                {"pseudo": "carol", "email": "carol@cypay.fr", "password": "secret1"}
+                """;
+        List<UserImportService.RowResult> rapport = new ArrayList<>();
+
+        UserImportService.Summary resume = service.importUsers(new StringReader(ndjson), UserImportService.Format.NDJSON, rapport::add);
+
+        assertEquals(List.of("created", "duplicate", "invalid", "duplicate", "invalid", "created"),
+                rapport.stream().map(UserImportService.RowResult::status).toList());
+        assertEquals(List.of(1, 2, 4, 5, 6, 7), rapport.stream().map(UserImportService.RowResult::line).toList());
+        assertEquals(new UserImportService.Summary(2, 2, 2, 0), resume);
+        assertNotNull(rapport.get(0).id());
+        assertEquals(1, requetesEmails.get(), "Une seule requête d'existence pour le lot");
+        assertEquals(1, lots.get(), "Un seul INSERT batché pour le lot");
+        assertTrue(ENCODER.matches("secret1", inseres.get(0).passwordHash()));
+    }
+
+    @Test
+    void importCsvAvecEnTete() throws Exception {
+        String csv = "pseudo,email,password\nbob,bob@cypay.fr,mot,de,passe\nincomplet,x@cypay.fr\n";
+        List<UserImportService.RowResult> rapport = new ArrayList<>();
+
+        UserImportService.Summary resume = service.importUsers(new StringReader(csv), UserImportService.Format.CSV, rapport::add);
+
+        assertEquals(new UserImportService.Summary(1, 0, 1, 0), resume);
+        assertEquals(2, rapport.get(0).line());
+        assertTrue(ENCODER.matches("mot,de,passe", inseres.get(0).passwordHash()));
+    }
+
+    @Test
+    void lotDecoupeParTranchesDe500() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 501; i++) {
+            ndjson.append("{\"pseudo\": \"user").append(i).append("\", \"email\": \"u").append(i)
+                    .append("@cypay.fr\", \"password\": \"secret1\"}\n");
+        }
+
+        UserImportService.Summary resume = service.importUsers(new StringReader(ndjson.toString()),
+                UserImportService.Format.NDJSON, row -> { });
+
+        assertEquals(501, resume.created());
+        assertEquals(2, requetesEmails.get());
+        assertEquals(2, lots.get());
+    }
+
+    @Test
+    void lotRejeteRejoueLigneParLigne() throws Exception {
+        lotEnEchec = true;
+        emailConcurrent = "carol@cypay.fr"; // inscrite entre la vérification et l'INSERT
+        String ndjson = """
+                {"pseudo": "bob", "email": "bob@cypay.fr", "password": "secret1"}
+                {"pseudo": "carol", "email": "carol@cypay.fr", "password": "secret1"}
+                """;
+        List<UserImportService.RowResult> rapport = new ArrayList<>();
+
+        service.importUsers(new StringReader(ndjson), UserImportService.Format.NDJSON, rapport::add);
+
+        assertEquals("created", rapport.get(0).status());
+        assertEquals("duplicate", rapport.get(1).status());
+        assertEquals(1, inseres.size());
+    }
+
+    private UserImportRepository repository() {
+        return new UserImportRepository(null) {
+            @Override
+            public Set<String> findExistingEmails(Collection<String> emails) {
+                requetesEmails.incrementAndGet();
+                Set<String> existing = new HashSet<>(emails);
+                existing.retainAll(table);
+                return existing;
+            }
+
+            @Override
+            public long[] insertBatch(List<NewUser> users) throws SQLException {
+                if (lotEnEchec) {
+                    throw new SQLException("duplicate key", "23505");
+                }
+                lots.incrementAndGet();
+                long[] ids = new long[users.size()];
+                for (int i = 0; i < users.size(); i++) {
+                    ids[i] = insertOne(users.get(i));
+                }
+                return ids;
+            }
+
+            @Override
+            public long insertOne(NewUser user) throws SQLException {
+                if (user.email().equals(emailConcurrent)) {
+                    throw new SQLException("duplicate key", "23505");
+                }
+                inseres.add(user);
+                return sequence.incrementAndGet();
+            }
+        };
+    }
+}
@@ -1,7 +1,16 @@
 package com.example.wallet;
 
 import com.example.wallet.acteur.WalletHttpActeur;
+import com.example.wallet.engine.WalletEngine;
+import com.example.wallet.service.IdempotencyStore;
+import com.example.wallet.service.PortfolioService;
+import com.example.wallet.service.PostingJournal;
+import com.example.wallet.service.WalletHoldService;
+import com.example.wallet.service.WalletOperations;
 import com.example.wallet.service.WalletService;
+import com.example.wallet.web.dto.WalletWireCodecs;
+import com.cypay.framework.wire.WireFormat;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -18,6 +27,11 @@ public class WalletServiceApplication {
     @Bean
     public CommandLineRunner startActorSystem(
             WalletService walletService,
+            IdempotencyStore idempotencyStore,
+            WalletHoldService holdService,
+            PostingJournal postingJournal,
+            PortfolioService portfolioService,
+            ObjectProvider<WalletEngine> walletEngine,
             @Value("${actor.port:8083}") int port,
             @Value("${jwt.secret}") String jwtSecret,
             @Value("${jwt.expiration}") long jwtExpiration,
@@ -31,8 +45,20 @@ public class WalletServiceApplication {
             System.out.println("╚════════════════════════════════════════════════╝");
             System.out.println();
 
+            WalletWireCodecs.register();
+            System.out.println("📋 Format binaire interne activé (" + WireFormat.CONTENT_TYPE + ")");
+
+            // Moteur en mémoire si wallet.engine.enabled=true, sinon chaque opération en base
+            WalletEngine engine = walletEngine.getIfAvailable();
+            WalletOperations operations = engine != null ? engine : walletService;
+            System.out.println("📋 Soldes : " + (engine != null ? "moteur en mémoire (journal + écriture différée)" : "base de données"));
+
+            // Holds et journal des écritures en base uniquement : le moteur en mémoire ne les gère pas (501)
+            WalletHoldService holds = engine != null ? null : holdService;
+            PostingJournal journal = engine != null ? null : postingJournal;
+
             System.out.println("📋 Démarrage de l'acteur HTTP Wallet sur le port " + port);
-            WalletHttpActeur walletHttpActeur = new WalletHttpActeur(walletService, jwtSecret, jwtExpiration, jdbcUrl, dbUser, dbPassword);
+            WalletHttpActeur walletHttpActeur = new WalletHttpActeur(operations, holds, journal, portfolioService, idempotencyStore, jwtSecret, jwtExpiration, jdbcUrl, dbUser, dbPassword);
             walletHttpActeur.demarrer();
             walletHttpActeur.startHttpServer(port);
             System.out.println("✅ Acteur HTTP Wallet démarré et prêt à recevoir des requêtes");
@@ -1,31 +1,88 @@
 package com.example.wallet.acteur;
 
 import com.cypay.framework.acteur.Acteur;
+import com.cypay.framework.acteur.ActeurHttpClient;
 import com.cypay.framework.acteur.ActeurJwtValidator;
 import com.cypay.framework.http.HttpReceiver;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
 import com.example.wallet.entity.Wallet;
-import com.example.wallet.service.WalletService;
+import com.example.wallet.exception.HoldExpiredException;
+import com.example.wallet.exception.IdempotencyKeyException;
+import com.example.wallet.exception.UserNotFoundException;
+import com.example.wallet.exception.WalletTimeoutException;
+import com.example.wallet.service.IdempotencyStore;
+import com.example.wallet.service.IdempotencyStore.Reply;
+import com.example.wallet.service.PortfolioService;
+import com.example.wallet.client.PriceServiceClient;
+import com.example.wallet.service.PostingJournal;
+import com.example.wallet.service.WalletHoldService;
+import com.example.wallet.service.WalletLeg;
+import com.example.wallet.service.WalletOperations;
 import com.example.wallet.web.dto.CreateWalletRequest;
+import com.example.wallet.web.dto.HoldRequest;
+import com.example.wallet.web.dto.HoldResponse;
+import com.example.wallet.web.dto.LegsRequest;
+import com.example.wallet.web.dto.LegsResponse;
 import com.example.wallet.web.dto.OperationRequest;
-import com.google.gson.Gson;
+import com.example.wallet.web.dto.TransferRequest;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import jakarta.persistence.EntityNotFoundException;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class WalletHttpActeur extends Acteur<Object> {
 
-    private final WalletService walletService;
+    private static final int MAX_LEGS = 50;
+    private static final int DEFAULT_HISTORY = 50;
+    private static final int MAX_HISTORY = 500;
+    private static final String DEFAULT_VALUATION_CURRENCY = "EUR";
+    private static final int MAX_VALUATION_STREAMS = 2;
+
+    private final WalletOperations walletService;
+    private final WalletHoldService holdService;
+    private final PostingJournal journal;
+    private final PortfolioService portfolioService;
+    private final IdempotencyStore idempotencyStore;
     private final ActeurJwtValidator jwtValidator;
-    private final Gson gson;
+    // Flux GET /api/wallets/valuations hors du thread HTTP ; au-delà de MAX_VALUATION_STREAMS simultanés : 503
+    private final ThreadPoolExecutor valuationExecutor = new ThreadPoolExecutor(MAX_VALUATION_STREAMS,
+            MAX_VALUATION_STREAMS, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), r -> {
+        Thread thread = new Thread(r, "wallet-valuations");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.AbortPolicy());
     private HttpReceiver httpReceiver;
 
-    public WalletHttpActeur(WalletService walletService, String jwtSecret, long jwtExpiration, String jdbcUrl, String dbUser, String dbPassword) {
+    /**
+     * @param holdService null si les soldes sont tenus par le moteur en mémoire (routes /holds en 501)
+     * @param journal null si les soldes sont tenus par le moteur en mémoire (route /history en 501)
+     */
+    public WalletHttpActeur(WalletOperations walletService, WalletHoldService holdService, PostingJournal journal,
+                            PortfolioService portfolioService, IdempotencyStore idempotencyStore, String jwtSecret, long jwtExpiration,
+                            String jdbcUrl, String dbUser, String dbPassword) {
         super("WalletHttpActeur", true, jdbcUrl, dbUser, dbPassword);
         this.walletService = walletService;
+        this.holdService = holdService;
+        this.journal = journal;
+        this.portfolioService = portfolioService;
+        this.idempotencyStore = idempotencyStore;
         this.jwtValidator = new ActeurJwtValidator("JwtValidator", jwtSecret, jwtExpiration);
-        this.gson = new Gson();
     }
 
     public void startHttpServer(int port) {
@@ -35,6 +92,7 @@ public class WalletHttpActeur extends Acteur<Object> {
     }
 
     public void stopHttpServer() {
+        valuationExecutor.shutdownNow();
         if (httpReceiver != null) {
             httpReceiver.stop();
             log("🛑 Serveur HTTP Wallet arrêté");
@@ -51,7 +109,23 @@ public class WalletHttpActeur extends Acteur<Object> {
             }
 
             if (path.equals("/api/wallets/transfer") && "POST".equals(method)) {
-                handleTransfer(exchange, body);
+                handleTransfer(exchange, path, body);
+                return;
+            }
+
+            if (path.equals("/api/wallets/legs") && "POST".equals(method)) {
+                handleLegs(exchange, path, body);
+                return;
+            }
+
+            if (path.startsWith("/api/wallets/holds") && "POST".equals(method)) {
+                handleHolds(exchange, path, body);
+                return;
+            }
+
+            // /api/wallets/valuations?currency=EUR&after=N -> valorisation de tous les utilisateurs en flux
+            if (path.equals("/api/wallets/valuations") && "GET".equals(method)) {
+                handleValuations(exchange, query);
                 return;
             }
 
@@ -80,13 +154,31 @@ public class WalletHttpActeur extends Acteur<Object> {
                         }
                     }
 
+                    // /api/wallets/{userId}/valuation?currency=EUR -> portefeuille valorisé dans une devise
+                    if (parts.length == 5 && "valuation".equals(parts[4]) && "GET".equals(method)) {
+                        handleValuation(exchange, userId, query);
+                        return;
+                    }
+
+                    // /api/wallets/{userId}/{currency}/consolidate -> sous-soldes d'un wallet chaud reversés
+                    if (parts.length == 6 && "consolidate".equals(parts[5]) && "POST".equals(method)) {
+                        handleConsolidate(exchange, userId, parts[4]);
+                        return;
+                    }
+
+                    // /api/wallets/{userId}/{currency}/history?limit=N -> dernières écritures du journal
+                    if (parts.length == 6 && "history".equals(parts[5]) && "GET".equals(method)) {
+                        handleHistory(exchange, userId, parts[4], query);
+                        return;
+                    }
+
                     if (parts.length == 5) {
                         String lastPart = parts[4];
                         if ("credit".equals(lastPart) && "POST".equals(method)) {
-                            handleCredit(exchange, userId, body);
+                            handleCredit(exchange, path, userId, body);
                             return;
                         } else if ("debit".equals(lastPart) && "POST".equals(method)) {
-                            handleDebit(exchange, userId, body);
+                            handleDebit(exchange, path, userId, body);
                             return;
                         } else if ("GET".equals(method)) {
                             // Assume lastPart is currency
@@ -107,7 +199,7 @@ public class WalletHttpActeur extends Acteur<Object> {
 
     private void handleCreateWallet(HttpExchange exchange, String body) {
         try {
-            CreateWalletRequest request = gson.fromJson(body, CreateWalletRequest.class);
+            CreateWalletRequest request = HttpReceiver.readBody(exchange, body, CreateWalletRequest.class);
             Wallet wallet = walletService.createWallet(request.getUserId(), request.getCurrency());
             sendJson(exchange, 200, wallet);
         } catch (Exception e) {
@@ -124,48 +216,430 @@ public class WalletHttpActeur extends Acteur<Object> {
         }
     }
 
+    /**
+     * Réponse avec ETag (id + version du wallet) ; If-None-Match à jour -> 304 sans corps
+     */
     private void handleGetWallet(HttpExchange exchange, Long userId, String currency) {
         try {
             Wallet wallet = walletService.getWallet(userId, currency);
+            String etag = "\"" + wallet.getId() + "-" + wallet.getVersion() + "\"";
+            if (HttpReceiver.matchesIfNoneMatch(exchange, etag)) {
+                HttpReceiver.sendNotModified(exchange, etag);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", etag);
             sendJson(exchange, 200, wallet);
         } catch (Exception e) {
             sendError(exchange, 500, e.getMessage());
         }
     }
 
-    private void handleCredit(HttpExchange exchange, Long userId, String body) {
+    private void handleCredit(HttpExchange exchange, String path, Long userId, String body) {
+        OperationRequest request;
         try {
-            OperationRequest request = gson.fromJson(body, OperationRequest.class);
-            Wallet wallet = walletService.credit(userId, request.getCurrency(), request.getAmount());
-            sendJson(exchange, 200, wallet);
+            request = HttpReceiver.readBody(exchange, body, OperationRequest.class);
         } catch (Exception e) {
             sendError(exchange, 500, e.getMessage());
+            return;
+        }
+        Money amount = amountOrError(exchange, request.getCurrency(), request.getAmount());
+        if (amount == null) {
+            return;
         }
+        respond(exchange, path, request, () -> {
+            try {
+                return new Reply(200, walletService.credit(userId, amount));
+            } catch (WalletTimeoutException e) {
+                return timeout(e);
+            } catch (Exception e) {
+                return error(500, e.getMessage());
+            }
+        });
     }
 
-    private void handleDebit(HttpExchange exchange, Long userId, String body) {
+    private void handleDebit(HttpExchange exchange, String path, Long userId, String body) {
+        OperationRequest request;
         try {
-            log("📥 Debit request body: " + body);
-            OperationRequest request = gson.fromJson(body, OperationRequest.class);
-            log("💰 Debit: userId=" + userId + ", currency=" + request.getCurrency() + ", amount=" + request.getAmount());
-            Wallet wallet = walletService.debit(userId, request.getCurrency(), request.getAmount());
-            log("✅ Debit successful: " + wallet);
-            sendJson(exchange, 200, wallet);
+            request = HttpReceiver.readBody(exchange, body, OperationRequest.class);
         } catch (Exception e) {
             logErreur("❌ Erreur lors du débit", e);
             sendError(exchange, 500, e.getMessage());
+            return;
         }
+        Money amount = amountOrError(exchange, request.getCurrency(), request.getAmount());
+        if (amount == null) {
+            return;
+        }
+        respond(exchange, path, request, () -> {
+            try {
+                log("💰 Debit: userId=" + userId + ", amount=" + amount);
+                Wallet wallet = walletService.debit(userId, amount);
+                log("✅ Debit successful: " + wallet);
+                return new Reply(200, wallet);
+            } catch (WalletTimeoutException e) {
+                return timeout(e);
+            } catch (Exception e) {
+                logErreur("❌ Erreur lors du débit", e);
+                return error(500, e.getMessage());
+            }
+        });
     }
 
-    private void handleTransfer(HttpExchange exchange, String body) {
+    private void handleTransfer(HttpExchange exchange, String path, String body) {
+        TransferRequest request;
         try {
-            TransferRequest request = gson.fromJson(body, TransferRequest.class);
-            walletService.transfer(request.fromUserId, request.toUserId, request.currency, request.amount);
-            sendJson(exchange, 200, new MessageResponse("Transfer successful"));
+            request = HttpReceiver.readBody(exchange, body, TransferRequest.class);
         } catch (Exception e) {
             logErreur("❌ Erreur handleTransfer", e);
             sendError(exchange, 400, "Transfer failed: " + e.getMessage());
+            return;
+        }
+        Money amount = amountOrError(exchange, request.getCurrency(), request.getAmount());
+        if (amount == null) {
+            return;
+        }
+        respond(exchange, path, request, () -> {
+            try {
+                walletService.transfer(request.getFromUserId(), request.getToUserId(), amount);
+                return new Reply(200, new MessageResponse("Transfer successful"));
+            } catch (WalletTimeoutException e) {
+                return timeout(e);
+            } catch (Exception e) {
+                logErreur("❌ Erreur handleTransfer", e);
+                return error(400, "Transfer failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Débits et crédits appliqués tous ou aucun (achat/vente : une seule requête)
+     */
+    private void handleLegs(HttpExchange exchange, String path, String body) {
+        List<WalletLeg> legs = new ArrayList<>();
+        try {
+            LegsRequest request = HttpReceiver.readBody(exchange, body, LegsRequest.class);
+            if (request == null || request.getLegs() == null || request.getLegs().isEmpty()) {
+                sendError(exchange, 400, "legs is required");
+                return;
+            }
+            if (request.getLegs().size() > MAX_LEGS) {
+                sendError(exchange, 400, "Too many legs (max " + MAX_LEGS + ")");
+                return;
+            }
+            for (LegsRequest.Leg leg : request.getLegs()) {
+                if (leg == null || leg.getUserId() == null || leg.getCurrency() == null || leg.getType() == null
+                        || leg.getAmount() == null || leg.getAmount().signum() <= 0) {
+                    sendError(exchange, 400, "Each leg needs userId, currency, type and a positive amount");
+                    return;
+                }
+                WalletLeg.Type type;
+                try {
+                    type = WalletLeg.Type.valueOf(leg.getType().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    sendError(exchange, 400, "Invalid leg type: " + leg.getType());
+                    return;
+                }
+                Money amount = amountOrError(exchange, leg.getCurrency(), leg.getAmount());
+                if (amount == null) {
+                    return;
+                }
+                legs.add(new WalletLeg(leg.getUserId(), type, amount));
+            }
+        } catch (Exception e) {
+            sendError(exchange, 400, "Invalid request: " + e.getMessage());
+            return;
+        }
+
+        respond(exchange, path, legs, () -> {
+            try {
+                return new Reply(200, new LegsResponse(walletService.applyLegs(legs)));
+            } catch (WalletTimeoutException e) {
+                return timeout(e);
+            } catch (IllegalStateException e) {
+                return error(409, e.getMessage());
+            } catch (EntityNotFoundException | UserNotFoundException e) {
+                return error(404, e.getMessage());
+            } catch (Exception e) {
+                logErreur("❌ Erreur handleLegs", e);
+                return error(500, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * /api/wallets/holds (réservation), /api/wallets/holds/{id}/capture (débit du montant
+     * réservé + crédits éventuels, corps LegsRequest) et /api/wallets/holds/{id}/release ;
+     * 410 pour un hold inconnu, déjà pris ou expiré
+     */
+    private void handleHolds(HttpExchange exchange, String path, String body) {
+        if (holdService == null) {
+            sendError(exchange, 501, "Holds not supported by the in-memory engine");
+            return;
+        }
+        String[] parts = path.split("/");
+        // ["", "api", "wallets", "holds"] ou ["", "api", "wallets", "holds", "{id}", "capture|release"]
+        if (parts.length == 4) {
+            handleReserve(exchange, path, body);
+        } else if (parts.length == 6 && "capture".equals(parts[5])) {
+            handleCapture(exchange, path, parts[4], body);
+        } else if (parts.length == 6 && "release".equals(parts[5])) {
+            respond(exchange, path, parts[4], () -> holdReply(() -> new LegsResponse(List.of(holdService.release(parts[4])))));
+        } else {
+            sendError(exchange, 404, "Not found");
+        }
+    }
+
+    private void handleReserve(HttpExchange exchange, String path, String body) {
+        HoldRequest request;
+        try {
+            request = HttpReceiver.readBody(exchange, body, HoldRequest.class);
+        } catch (Exception e) {
+            sendError(exchange, 400, "Invalid request: " + e.getMessage());
+            return;
         }
+        if (request == null || request.getUserId() == null || request.getCurrency() == null
+                || request.getAmount() == null || request.getAmount().signum() <= 0 || request.getTtlSeconds() < 0) {
+            sendError(exchange, 400, "Hold needs userId, currency and a positive amount");
+            return;
+        }
+        Money amount = amountOrError(exchange, request.getCurrency(), request.getAmount());
+        if (amount == null) {
+            return;
+        }
+        respond(exchange, path, request, () -> holdReply(() -> {
+            WalletHoldService.Hold hold = holdService.reserve(request.getUserId(), amount, request.getTtlSeconds());
+            return new HoldResponse(hold.holdId(), hold.expiresAt().toEpochMilli(), hold.wallet());
+        }));
+    }
+
+    private void handleCapture(HttpExchange exchange, String path, String holdId, String body) {
+        List<WalletLeg> credits = new ArrayList<>();
+        try {
+            LegsRequest request = body == null || body.isBlank() ? null : HttpReceiver.readBody(exchange, body, LegsRequest.class);
+            List<LegsRequest.Leg> legs = request != null && request.getLegs() != null ? request.getLegs() : List.of();
+            if (legs.size() > MAX_LEGS) {
+                sendError(exchange, 400, "Too many legs (max " + MAX_LEGS + ")");
+                return;
+            }
+            for (LegsRequest.Leg leg : legs) {
+                if (leg == null || leg.getUserId() == null || leg.getCurrency() == null
+                        || !"CREDIT".equalsIgnoreCase(leg.getType()) || leg.getAmount() == null || leg.getAmount().signum() <= 0) {
+                    sendError(exchange, 400, "Capture legs must be CREDIT legs with userId, currency and a positive amount");
+                    return;
+                }
+                Money amount = amountOrError(exchange, leg.getCurrency(), leg.getAmount());
+                if (amount == null) {
+                    return;
+                }
+                credits.add(WalletLeg.credit(leg.getUserId(), amount));
+            }
+        } catch (Exception e) {
+            sendError(exchange, 400, "Invalid request: " + e.getMessage());
+            return;
+        }
+        respond(exchange, path, credits, () -> holdReply(() -> new LegsResponse(holdService.capture(holdId, credits))));
+    }
+
+    private Reply holdReply(Supplier<Object> operation) {
+        try {
+            return new Reply(200, operation.get());
+        } catch (WalletTimeoutException e) {
+            return timeout(e);
+        } catch (IllegalStateException e) {
+            return error(409, e.getMessage());
+        } catch (HoldExpiredException e) {
+            return error(410, e.getMessage());
+        } catch (EntityNotFoundException | UserNotFoundException e) {
+            return error(404, e.getMessage());
+        } catch (Exception e) {
+            logErreur("❌ Erreur hold", e);
+            return error(500, e.getMessage());
+        }
+    }
+
+    /**
+     * Exécute une opération de solde ; avec un header Idempotency-Key, une requête
+     * rejouée reçoit la réponse d'origine au lieu d'être appliquée une seconde fois
+     */
+    private void respond(HttpExchange exchange, String path, Object request, Supplier<Reply> operation) {
+        String key = exchange.getRequestHeaders().getFirst(ActeurHttpClient.IDEMPOTENCY_KEY);
+        Reply reply;
+        if (key == null) {
+            reply = operation.get();
+        } else {
+            try {
+                reply = idempotencyStore.execute(key, path + " " + JsonCodec.toJson(request), operation);
+            } catch (IdempotencyKeyException e) {
+                sendError(exchange, e.getStatus(), e.getMessage());
+                return;
+            }
+        }
+        sendJson(exchange, reply.status(), reply.body());
+    }
+
+    /**
+     * Montant à l'échelle de sa devise ; sinon 400 envoyé et null renvoyé
+     */
+    private Money amountOrError(HttpExchange exchange, String currency, BigDecimal amount) {
+        if (currency == null || amount == null) {
+            sendError(exchange, 400, "currency and amount are required");
+            return null;
+        }
+        try {
+            return Money.of(currency, amount);
+        } catch (ArithmeticException e) {
+            sendError(exchange, 400, "Invalid amount " + amount.toPlainString() + " " + currency
+                    + " (max " + Money.scaleOf(currency) + " decimals)");
+            return null;
+        }
+    }
+
+    private static Reply error(int status, String message) {
+        return new Reply(status, new ErrorResponse(message));
+    }
+
+    /**
+     * Issue inconnue : 504, et une Idempotency-Key reste réservée (un rejeu ne réapplique pas l'opération)
+     */
+    private Reply timeout(WalletTimeoutException e) {
+        logErreur("⏱️ Opération sans réponse du moteur", e);
+        return error(IdempotencyStore.OUTCOME_UNKNOWN, e.getMessage());
+    }
+
+    private void handleConsolidate(HttpExchange exchange, Long userId, String currency) {
+        try {
+            sendJson(exchange, 200, walletService.consolidate(userId, currency));
+        } catch (Exception e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    /**
+     * Écritures du wallet, de la plus récente à la plus ancienne, avec le solde après chacune
+     */
+    private void handleHistory(HttpExchange exchange, Long userId, String currency, String query) {
+        if (journal == null) {
+            sendError(exchange, 501, "Posting journal not available with the in-memory engine");
+            return;
+        }
+        int limit = DEFAULT_HISTORY;
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("limit=")) {
+                    try {
+                        limit = Math.min(Integer.parseInt(pair.substring(6)), MAX_HISTORY);
+                    } catch (NumberFormatException e) {
+                        sendError(exchange, 400, "Invalid limit");
+                        return;
+                    }
+                }
+            }
+        }
+        try {
+            Wallet wallet = walletService.getWallet(userId, currency);
+            sendJson(exchange, 200, journal.history(wallet.getId(), Math.max(limit, 1)));
+        } catch (EntityNotFoundException e) {
+            sendError(exchange, 404, e.getMessage());
+        } catch (Exception e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleValuation(HttpExchange exchange, Long userId, String query) {
+        String target = valuationCurrency(parseQueryParams(query));
+        if (target == null) {
+            sendError(exchange, 400, "Invalid currency");
+            return;
+        }
+        try {
+            sendJson(exchange, 200, portfolioService.value(userId, walletService.getWalletsByUser(userId), target));
+        } catch (IllegalStateException e) {
+            sendError(exchange, 503, e.getMessage());
+        } catch (Exception e) {
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleValuations(HttpExchange exchange, String query) {
+        Map<String, String> params = parseQueryParams(query);
+        String target = valuationCurrency(params);
+        if (target == null) {
+            sendError(exchange, 400, "Invalid currency");
+            return;
+        }
+        long after;
+        try {
+            after = Long.parseLong(params.getOrDefault("after", "0"));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid after");
+            return;
+        }
+        try {
+            valuationExecutor.execute(() -> streamValuations(exchange, target, after));
+        } catch (RejectedExecutionException e) {
+            ActeurMetrics.increment("wallet.valuations.rejected");
+            sendError(exchange, 503, "Too many valuation streams in progress, retry later");
+        }
+    }
+
+    /**
+     * Réponse en chunked sur le pool des valorisations, un tableau écrit au fil d'un seul
+     * parcours de wallets (mémoire constante) ; la lecture des prix (appel HTTP au
+     * rafraîchissement) et un client lent ne bloquent pas les autres requêtes
+     */
+    private void streamValuations(HttpExchange exchange, String target, long after) {
+        PriceServiceClient.Snapshot prices;
+        try {
+            prices = portfolioService.prices(); // avant le statut : 503 encore possible
+        } catch (IllegalStateException e) {
+            sendError(exchange, 503, e.getMessage());
+            return;
+        }
+
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+        } catch (IOException e) {
+            logErreur("❌ Flux de valorisations : envoi des en-têtes impossible", e);
+            exchange.close();
+            return;
+        }
+
+        try (JsonWriter json = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024))) {
+            json.beginArray();
+            long count = portfolioService.valueAll(prices, target, after,
+                    valuation -> JsonCodec.gson().toJson(valuation, PortfolioService.Valuation.class, json));
+            json.endArray();
+            log("✅ Valorisations " + target + " (flux) : " + count + " utilisateurs");
+        } catch (IOException | RuntimeException e) {
+            // Statut déjà envoyé : le client reçoit un JSON tronqué
+            logErreur("❌ Flux de valorisations interrompu", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return la devise cible en majuscules (EUR par défaut), ou null si invalide
+     */
+    private static String valuationCurrency(Map<String, String> params) {
+        String currency = params.getOrDefault("currency", DEFAULT_VALUATION_CURRENCY).toUpperCase();
+        return currency.matches("[A-Z]{3,5}") ? currency : null;
+    }
+
+    private static Map<String, String> parseQueryParams(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            String[] keyValue = pair.split("=", 2);
+            if (keyValue.length == 2) {
+                params.put(keyValue[0], keyValue[1]);
+            }
+        }
+        return params;
     }
 
     private void handleDeleteWallet(HttpExchange exchange, Long walletId) {
@@ -179,15 +653,8 @@ public class WalletHttpActeur extends Acteur<Object> {
 
     private void sendJson(HttpExchange exchange, int statusCode, Object data) {
         try {
-            String json = gson.toJson(data);
-            byte[] response = json.getBytes();
-
-            exchange.getResponseHeaders().set("Content-Type", "application/json");
-            exchange.sendResponseHeaders(statusCode, response.length);
-
-            OutputStream os = exchange.getResponseBody();
-            os.write(response);
-            os.close();
+            // Binaire pour les appels internes qui l'acceptent, JSON pour les autres clients
+            HttpReceiver.sendBody(exchange, statusCode, data);
 
         } catch (IOException e) {
             logErreur("❌ Erreur envoi réponse JSON", e);
@@ -213,11 +680,4 @@ public class WalletHttpActeur extends Acteur<Object> {
         String message;
         MessageResponse(String message) { this.message = message; }
     }
-
-    private static class TransferRequest {
-        public Long fromUserId;
-        public Long toUserId;
-        public String currency;
-        public java.math.BigDecimal amount;
-    }
 }
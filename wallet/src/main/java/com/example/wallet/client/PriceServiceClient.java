@@ -0,0 +1,78 @@
+package com.example.wallet.client;
+
+import com.cypay.framework.acteur.ActeurHttpClient;
+import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.google.gson.reflect.TypeToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Client HTTP des prix publiés par le microservice Transactions (GET /transactions/prices)
+ *
+ * Un instantané ("BTC_EUR" -> prix) est partagé par toutes les valorisations
+ * pendant le TTL ; si l'appel échoue, le dernier instantané reste utilisé.
+ */
+@Component
+public class PriceServiceClient {
+
+    private static final Type PRICES = new TypeToken<Map<String, BigDecimal>>() {}.getType();
+
+    /**
+     * Prix lus en un seul appel, et leur date (epoch ms)
+     */
+    public record Snapshot(Map<String, BigDecimal> prices, long fetchedAt) {
+    }
+
+    private final ActeurHttpClient httpClient;
+    private final String transactionsUrl;
+    private final long ttlMs;
+    private volatile Snapshot snapshot;
+
+    public PriceServiceClient(
+            @Value("${transactions.service.url:http://localhost:8081}") String transactionsUrl,
+            @Value("${transactions.service.prices-ttl-seconds:30}") long ttlSeconds) {
+        this.transactionsUrl = transactionsUrl;
+        this.ttlMs = ttlSeconds * 1000;
+        this.httpClient = new ActeurHttpClient(new ActeurLogger("PriceServiceClient"));
+    }
+
+    /**
+     * @throws IllegalStateException aucun prix disponible (service injoignable et aucun instantané)
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.fetchedAt() < ttlMs) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot != current) {
+                return snapshot; // rafraîchi par un autre thread pendant l'attente
+            }
+            try {
+                HttpResponse response = httpClient.get(transactionsUrl + "/transactions/prices");
+                Map<String, BigDecimal> prices = response.getStatusCode() == 200 ? response.as(PRICES) : null;
+                if (prices != null && !prices.isEmpty()) {
+                    // Clés triées : les taux croisés passent toujours par le même actif
+                    snapshot = new Snapshot(Collections.unmodifiableMap(new TreeMap<>(prices)), System.currentTimeMillis());
+                    ActeurMetrics.increment("wallet.prices.fetches");
+                    return snapshot;
+                }
+                System.err.println("Erreur lors de la lecture des prix : Status " + response.getStatusCode());
+            } catch (RuntimeException e) {
+                System.err.println("Erreur lors de la lecture des prix : " + e.getMessage());
+            }
+        }
+        if (current == null) {
+            throw new IllegalStateException("Prices unavailable");
+        }
+        return current; // Mode dégradé : derniers prix connus
+    }
+}
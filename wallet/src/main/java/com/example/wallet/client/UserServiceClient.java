@@ -2,23 +2,70 @@ package com.example.wallet.client;
 
 import com.cypay.framework.acteur.ActeurHttpClient;
 import com.cypay.framework.acteur.ActeurLogger;
+import com.cypay.framework.acteur.CustomHttpRequest;
+import com.cypay.framework.cache.TtlCache;
 import com.cypay.framework.http.HttpResponse;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.security.JwtValidator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Client HTTP pour communiquer avec le microservice User
+ *
+ * Les existences confirmées sont gardées en cache (TTL) : créditer un utilisateur
+ * connu ne coûte aucun appel réseau. Les vérifications qui arrivent pendant un
+ * appel en cours sont regroupées dans le suivant (POST /users/exists).
+ * Les appels portent un JWT de service signé avec le secret partagé (jwt.secret).
  */
 @Component
 public class UserServiceClient {
 
+    private static final int MAX_BATCH = 500;
+    private static final long TIMEOUT_MS = 5000;
+    static final String SERVICE_SUBJECT = "wallet-service@cypay.internal";
+
     private final ActeurHttpClient httpClient;
     private final String userServiceUrl;
+    private final TtlCache<Long, Boolean> knownUsers;
+    private final long cacheTtlMs;
+    private final JwtValidator serviceTokens;
+    private final long tokenRenewMs;
+    private volatile String serviceToken;
+    private volatile long serviceTokenIssuedAt;
+    private final ExecutorService batchSender = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-exists-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Map<Long, CompletableFuture<Boolean>> pending = new HashMap<>();
+    private boolean sending;
 
     public UserServiceClient(
-            @Value("${user.service.url:http://localhost:8080}") String userServiceUrl) {
+            @Value("${user.service.url:http://localhost:8080}") String userServiceUrl,
+            @Value("${user.service.exists-cache-size:100000}") int cacheSize,
+            @Value("${user.service.exists-cache-ttl-seconds:600}") long cacheTtlSeconds,
+            @Value("${jwt.secret}") String jwtSecret,
+            @Value("${jwt.expiration}") long jwtExpiration) {
         this.userServiceUrl = userServiceUrl;
         this.httpClient = new ActeurHttpClient(new ActeurLogger("UserServiceClient"));
+        this.knownUsers = new TtlCache<>(cacheSize);
+        this.cacheTtlMs = cacheTtlSeconds * 1000;
+        this.serviceTokens = new JwtValidator(jwtSecret, jwtExpiration);
+        this.tokenRenewMs = jwtExpiration / 2;
     }
 
     /**
@@ -27,22 +74,102 @@ public class UserServiceClient {
      * @return true si l'utilisateur existe, false sinon
      */
     public boolean userExists(Long userId) {
+        if (knownUsers.get(userId) != null) {
+            ActeurMetrics.increment("user.exists.cache_hit");
+            return true;
+        }
         try {
-            String url = userServiceUrl + "/users/" + userId;
-            HttpResponse response = httpClient.get(url);
-            
-            if (response.getStatusCode() == 200) {
-                return true;
-            } else if (response.getStatusCode() == 404) {
-                return false;
-            } else {
-                // En cas d'erreur autre que 404, on log
-                System.err.println("Erreur lors de la vérification de l'utilisateur " + userId + ": Status " + response.getStatusCode());
-                return true; // Mode dégradé
-            }
+            return enqueue(userId).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
         } catch (Exception e) {
             System.err.println("Erreur lors de la vérification de l'utilisateur " + userId + ": " + e.getMessage());
             return true; // Mode dégradé
         }
     }
+
+    /**
+     * Ajoute l'id au prochain lot ; lance l'envoi si aucun n'est en cours
+     */
+    private synchronized CompletableFuture<Boolean> enqueue(Long userId) {
+        CompletableFuture<Boolean> result = pending.computeIfAbsent(userId, id -> new CompletableFuture<>());
+        if (!sending) {
+            sending = true;
+            batchSender.execute(this::drain);
+        }
+        return result;
+    }
+
+    private void drain() {
+        while (true) {
+            Map<Long, CompletableFuture<Boolean>> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    sending = false;
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            }
+            List<Long> ids = new ArrayList<>(batch.keySet());
+            for (int from = 0; from < ids.size(); from += MAX_BATCH) {
+                List<Long> chunk = ids.subList(from, Math.min(from + MAX_BATCH, ids.size()));
+                resolve(chunk, batch);
+            }
+        }
+    }
+
+    private void resolve(List<Long> ids, Map<Long, CompletableFuture<Boolean>> futures) {
+        ActeurMetrics.increment("user.exists.batches");
+        ActeurMetrics.add("user.exists.batched_ids", ids.size());
+        try {
+            HttpResponse response = httpClient.execute(CustomHttpRequest.builder()
+                    .url(userServiceUrl + "/users/exists")
+                    .method("POST")
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", "Bearer " + serviceToken())
+                    .body(JsonCodec.toJson(new ExistsRequest(ids))));
+            ExistsResponse result = response.getStatusCode() == 200 ? response.as(ExistsResponse.class) : null;
+            if (result == null || result.existing == null) {
+                // En cas d'erreur, on log et on reste en mode dégradé (sans mise en cache)
+                System.err.println("Erreur lors de la vérification des utilisateurs " + ids + ": Status " + response.getStatusCode());
+                ids.forEach(id -> futures.get(id).complete(true));
+                return;
+            }
+
+            Set<Long> existing = new HashSet<>(result.existing);
+            long expiresAt = System.currentTimeMillis() + cacheTtlMs;
+            for (Long id : ids) {
+                boolean exists = existing.contains(id);
+                if (exists) {
+                    knownUsers.put(id, Boolean.TRUE, expiresAt);
+                }
+                futures.get(id).complete(exists);
+            }
+        } catch (RuntimeException e) {
+            ids.forEach(id -> futures.get(id).completeExceptionally(e));
+        }
+    }
+
+    /**
+     * JWT de service, renouvelé à mi-durée de validité
+     */
+    private String serviceToken() {
+        long now = System.currentTimeMillis();
+        if (serviceToken == null || now - serviceTokenIssuedAt >= tokenRenewMs) {
+            serviceToken = serviceTokens.generateToken(SERVICE_SUBJECT);
+            serviceTokenIssuedAt = now;
+        }
+        return serviceToken;
+    }
+
+    private static class ExistsRequest {
+        final List<Long> ids;
+
+        ExistsRequest(List<Long> ids) {
+            this.ids = ids;
+        }
+    }
+
+    private static class ExistsResponse {
+        List<Long> existing;
+    }
 }
@@ -0,0 +1,417 @@
+package com.example.wallet.engine;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.exception.WalletTimeoutException;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.service.WalletLeg;
+import com.example.wallet.service.WalletOperations;
+import com.example.wallet.service.WalletService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Moteur de soldes en mémoire (wallet.engine.enabled=true)
+ *
+ * Les wallets sont répartis par userId entre des acteurs WalletShard, seuls à
+ * les modifier. Une opération est acquittée une fois écrite dans le journal
+ * local du shard ; un flusher reporte les soldes modifiés dans la table
+ * wallets par lots (write-behind). Au démarrage : table + journaux rejoués.
+ *
+ * Création et suppression de wallet restent en base via WalletService
+ * (vérification de l'utilisateur, bonus du premier wallet). Les holds
+ * (WalletHoldService) ne sont pas gérés : routes /holds en 501. Les
+ * wallets chauds (HotWalletService) n'ont pas de sous-soldes ici.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.engine.enabled", havingValue = "true")
+public class WalletEngine implements WalletOperations {
+
+    private static final String FLUSH_SQL = "UPDATE wallets SET balance = ?, version = ? WHERE id = ?";
+    private static final int FLUSH_BATCH = 500;
+    private static final long TIMEOUT_MS = 5000;
+
+    private final WalletService walletService;
+    private final WalletRepository walletRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int shardCount;
+    private final Path journalDir;
+    private final long flushIntervalMs;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wallet-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WalletShard[] shards;
+
+    /**
+     * @param shards Nombre d'acteurs (0 = nombre de cœurs)
+     * @param flushIntervalMs Délai entre deux écritures en base des soldes modifiés
+     */
+    public WalletEngine(WalletService walletService, WalletRepository walletRepository, JdbcTemplate jdbcTemplate,
+                        @Value("${wallet.engine.shards:0}") int shards,
+                        @Value("${wallet.engine.journal-dir:wallet-journal}") String journalDir,
+                        @Value("${wallet.engine.flush-interval-ms:50}") long flushIntervalMs) {
+        this.walletService = walletService;
+        this.walletRepository = walletRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        this.journalDir = Paths.get(journalDir);
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Reconstruit l'état (table + journaux), l'écrit en base, puis démarre shards et flusher
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(journalDir);
+
+        Map<Long, Wallet> wallets = new HashMap<>();
+        walletRepository.findAll().forEach(wallet -> wallets.put(wallet.getId(), wallet));
+
+        // Soldes acquittés mais pas encore en base au dernier arrêt
+        Map<Long, WalletJournal.Entry> recovered = new HashMap<>();
+        List<Path> journals = listJournals();
+        for (Path file : journals) {
+            WalletJournal.replay(file).forEach((id, entry) -> {
+                Wallet wallet = wallets.get(id);
+                if (wallet != null) { // wallet supprimé depuis : ignoré
+                    long version = entry.version() >= 0 ? entry.version() : wallet.getVersion() + 1;
+                    wallet.setBalance(entry.balance());
+                    wallet.setVersion(version);
+                    recovered.put(id, new WalletJournal.Entry(entry.balance(), version));
+                }
+            });
+        }
+        if (!recovered.isEmpty()) {
+            write(recovered);
+            System.out.println("[WalletEngine] " + recovered.size() + " soldes rejoués depuis le journal");
+        }
+        for (Path file : journals) {
+            Files.delete(file);
+        }
+        migrateOverPreciseBalances(wallets.values());
+
+        shards = new WalletShard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new WalletShard("WalletShard-" + i, new WalletJournal(journalDir.resolve("shard-" + i + WalletJournal.EXTENSION)));
+        }
+        wallets.values().forEach(wallet -> shardFor(wallet.getUserId()).preload(wallet));
+        for (WalletShard shard : shards) {
+            shard.demarrer();
+        }
+
+        ActeurMetrics.gauge("wallet.engine.dirty", () -> Stream.of(shards).mapToInt(shard -> shard.dirty().size()).sum());
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("[WalletEngine] " + wallets.size() + " wallets chargés sur " + shardCount + " shards");
+    }
+
+    /**
+     * Soldes écrits avant Money (ex: fractions de centime en EUR) : arrondis à l'échelle de
+     * la devise, version + 1, chacun tracé et écrit en base avant que les shards ne les chargent
+     */
+    private void migrateOverPreciseBalances(Collection<Wallet> wallets) {
+        Map<Long, WalletJournal.Entry> migrated = new HashMap<>();
+        for (Wallet wallet : wallets) {
+            BigDecimal rounded = Money.of(wallet.getCurrency(), wallet.getBalance(), RoundingMode.HALF_EVEN).toBigDecimal();
+            if (rounded.compareTo(wallet.getBalance()) != 0) {
+                System.out.println("[WalletEngine] Migration du wallet " + wallet.getId() + " (user " + wallet.getUserId()
+                        + ", " + wallet.getCurrency() + ") : solde " + wallet.getBalance().toPlainString()
+                        + " arrondi à " + rounded.toPlainString());
+                wallet.setBalance(rounded);
+                wallet.setVersion(wallet.getVersion() + 1);
+                migrated.put(wallet.getId(), new WalletJournal.Entry(rounded, wallet.getVersion()));
+            }
+        }
+        if (!migrated.isEmpty()) {
+            write(migrated);
+            ActeurMetrics.add("wallet.engine.balances_migrated", migrated.size());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        for (WalletShard shard : shards) {
+            // le journal n'est fermé qu'après le dernier checkpoint
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            shard.envoyerObjet(new WalletShard.Checkpoint(done));
+            try {
+                await(done);
+            } catch (IllegalStateException | WalletTimeoutException e) {
+                System.err.println("[WalletEngine] Arrêt de " + shard.getNom() + " sans checkpoint : " + e.getMessage());
+            }
+            shard.arreter();
+        }
+    }
+
+    @Override
+    public Wallet createWallet(Long userId, String currency) {
+        Wallet existing = await(get(userId, currency));
+        if (existing != null) {
+            return existing;
+        }
+        Wallet created = walletService.createWallet(userId, currency);
+        CompletableFuture<Wallet> reply = new CompletableFuture<>();
+        shardFor(userId).envoyerObjet(new WalletShard.Load(created, reply));
+        return await(reply);
+    }
+
+    @Override
+    public Wallet getWallet(Long userId, String currency) {
+        Wallet wallet = await(get(userId, currency));
+        if (wallet == null) {
+            throw WalletShard.notFound(userId, currency);
+        }
+        return wallet;
+    }
+
+    @Override
+    public List<Wallet> getWalletsByUser(Long userId) {
+        CompletableFuture<List<Wallet>> reply = new CompletableFuture<>();
+        shardFor(userId).envoyerObjet(new WalletShard.GetAll(userId, reply));
+        return await(reply);
+    }
+
+    /**
+     * Le wallet est créé s'il n'existe pas (ex: réception de crypto)
+     */
+    @Override
+    public Wallet credit(Long userId, Money amount) {
+        Wallet wallet = await(sendCredit(userId, amount));
+        if (wallet != null) {
+            return wallet;
+        }
+        createWallet(userId, amount.currency());
+        wallet = await(sendCredit(userId, amount));
+        if (wallet == null) {
+            throw WalletShard.notFound(userId, amount.currency());
+        }
+        return wallet;
+    }
+
+    @Override
+    public Wallet debit(Long userId, Money amount) {
+        CompletableFuture<Wallet> reply = new CompletableFuture<>();
+        shardFor(userId).envoyerObjet(new WalletShard.Debit(userId, amount, reply));
+        return await(reply);
+    }
+
+    @Override
+    public void transfer(Long fromUserId, Long toUserId, Money amount) {
+        applyLegs(List.of(WalletLeg.debit(fromUserId, amount), WalletLeg.credit(toUserId, amount)));
+    }
+
+    /**
+     * Un seul shard concerné et wallets crédités existants (cas d'un achat / d'une vente) :
+     * une étape atomique. Sinon les débits passent d'abord, un Apply par shard, compensés
+     * si l'un d'eux est refusé ; les wallets crédités ne sont créés qu'une fois tous les
+     * débits acquittés, puis les crédits suivent.
+     */
+    @Override
+    public List<Wallet> applyLegs(List<WalletLeg> legs) {
+        Set<WalletShard> shardsTouched = new HashSet<>();
+        legs.forEach(leg -> shardsTouched.add(shardFor(leg.userId())));
+        if (shardsTouched.size() == 1 && creditedWalletsExist(legs)) {
+            return applyOn(shardsTouched.iterator().next(), legs);
+        }
+
+        Wallet[] results = new Wallet[legs.size()];
+        List<WalletLeg> applied = new ArrayList<>();
+        try {
+            applyPhase(legs, WalletLeg.Type.DEBIT, results, applied);
+            // comme credit() : les wallets crédités sont créés au besoin, débits validés
+            legs.stream().filter(leg -> leg.type() == WalletLeg.Type.CREDIT)
+                    .forEach(leg -> createWallet(leg.userId(), leg.currency()));
+            applyPhase(legs, WalletLeg.Type.CREDIT, results, applied);
+        } catch (RuntimeException e) {
+            compensate(applied);
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    private boolean creditedWalletsExist(List<WalletLeg> legs) {
+        return legs.stream().filter(leg -> leg.type() == WalletLeg.Type.CREDIT)
+                .allMatch(leg -> await(get(leg.userId(), leg.currency())) != null);
+    }
+
+    /**
+     * Jambes d'un type, un Apply par shard ; un Apply sans réponse dans le délai est
+     * compensé dès que le shard l'acquitte
+     */
+    private void applyPhase(List<WalletLeg> legs, WalletLeg.Type phase, Wallet[] results, List<WalletLeg> applied) {
+        Map<WalletShard, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < legs.size(); i++) {
+            if (legs.get(i).type() == phase) {
+                byShard.computeIfAbsent(shardFor(legs.get(i).userId()), shard -> new ArrayList<>()).add(i);
+            }
+        }
+        for (Map.Entry<WalletShard, List<Integer>> entry : byShard.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            List<WalletLeg> group = indexes.stream().map(legs::get).toList();
+            CompletableFuture<List<Wallet>> reply = new CompletableFuture<>();
+            entry.getKey().envoyerObjet(new WalletShard.Apply(group, reply));
+            List<Wallet> wallets;
+            try {
+                wallets = await(reply);
+            } catch (WalletTimeoutException e) {
+                // hors du thread du shard : compensate() attend ses réponses
+                reply.thenRunAsync(() -> compensate(group));
+                throw e;
+            }
+            applied.addAll(group);
+            for (int k = 0; k < indexes.size(); k++) {
+                results[indexes.get(k)] = wallets.get(k);
+            }
+        }
+    }
+
+    private List<Wallet> applyOn(WalletShard shard, List<WalletLeg> legs) {
+        CompletableFuture<List<Wallet>> reply = new CompletableFuture<>();
+        shard.envoyerObjet(new WalletShard.Apply(legs, reply));
+        return await(reply);
+    }
+
+    /**
+     * Jambes inverses des jambes déjà appliquées (un crédit annule un débit)
+     */
+    private void compensate(List<WalletLeg> applied) {
+        for (WalletLeg leg : applied) {
+            WalletLeg inverse = new WalletLeg(leg.userId(),
+                    leg.type() == WalletLeg.Type.DEBIT ? WalletLeg.Type.CREDIT : WalletLeg.Type.DEBIT, leg.amount());
+            try {
+                applyOn(shardFor(leg.userId()), List.of(inverse));
+            } catch (RuntimeException e) {
+                System.err.println("[WalletEngine] [CRITICAL] Compensation impossible : " + inverse + " : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Pas de sous-soldes dans le moteur : un shard écrit seul ses wallets, sans verrou de ligne
+     */
+    @Override
+    public Wallet consolidate(Long userId, String currency) {
+        return getWallet(userId, currency);
+    }
+
+    @Override
+    public void deleteWallet(Long walletId) {
+        Wallet wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with ID: " + walletId));
+        walletService.deleteWallet(walletId);
+        CompletableFuture<Void> reply = new CompletableFuture<>();
+        shardFor(wallet.getUserId()).envoyerObjet(
+                new WalletShard.Remove(walletId, wallet.getUserId(), wallet.getCurrency(), reply));
+        await(reply);
+    }
+
+    /**
+     * Écrit en base les soldes modifiés depuis le dernier passage, puis laisse chaque shard vider son journal
+     */
+    void flush() {
+        for (WalletShard shard : shards) {
+            Map<Long, WalletJournal.Entry> batch = new HashMap<>(shard.dirty());
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                write(batch);
+            } catch (DataAccessException e) {
+                // Les soldes restent marqués : nouvel essai au prochain passage, le journal les garde
+                ActeurMetrics.increment("wallet.engine.flush_errors");
+                System.err.println("[WalletEngine] Écriture des soldes impossible : " + e.getMessage());
+                continue;
+            }
+            // Un solde modifié pendant l'écriture reste marqué pour le passage suivant
+            batch.forEach(shard.dirty()::remove);
+            shard.envoyerObjet(new WalletShard.Checkpoint(new CompletableFuture<>()));
+        }
+    }
+
+    private void write(Map<Long, WalletJournal.Entry> balances) {
+        List<Object[]> rows = new ArrayList<>(balances.size());
+        balances.forEach((id, entry) -> rows.add(new Object[]{entry.balance(), entry.version(), id}));
+        for (int from = 0; from < rows.size(); from += FLUSH_BATCH) {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, rows.subList(from, Math.min(from + FLUSH_BATCH, rows.size())));
+        }
+        ActeurMetrics.add("wallet.engine.flushed", rows.size());
+    }
+
+    private CompletableFuture<Wallet> get(Long userId, String currency) {
+        CompletableFuture<Wallet> reply = new CompletableFuture<>();
+        shardFor(userId).envoyerObjet(new WalletShard.Get(userId, currency, reply));
+        return reply;
+    }
+
+    private CompletableFuture<Wallet> sendCredit(Long userId, Money amount) {
+        CompletableFuture<Wallet> reply = new CompletableFuture<>();
+        shardFor(userId).envoyerObjet(new WalletShard.Credit(userId, amount, reply));
+        return reply;
+    }
+
+    private WalletShard shardFor(Long userId) {
+        return shards[Math.floorMod(userId.hashCode(), shards.length)];
+    }
+
+    private List<Path> listJournals() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(WalletJournal.EXTENSION)).toList();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> reply) {
+        try {
+            return reply.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new WalletTimeoutException("Wallet engine timeout, outcome unknown", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+}
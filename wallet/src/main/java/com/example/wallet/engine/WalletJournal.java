@@ -0,0 +1,133 @@
+package com.example.wallet.engine;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Journal local (write-ahead) d'un shard : une ligne "walletId;solde;version[ walletId;solde;version...]" par mutation
+ *
+ * Le solde écrit est le solde obtenu, pas le delta : rejouer le journal est
+ * idempotent, la dernière ligne d'un wallet donne son dernier solde acquitté.
+ * Une mutation multi-wallets tient sur une ligne : rejouée entière ou pas du tout.
+ */
+class WalletJournal implements AutoCloseable {
+
+    static final String EXTENSION = ".journal";
+
+    /**
+     * Solde et version d'un wallet après une mutation (version -1 : ligne écrite avant les versions)
+     */
+    record Entry(BigDecimal balance, long version) {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private long syncedSize;
+
+    WalletJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.syncedSize = channel.size();
+    }
+
+    /**
+     * Ajout en mémoire tampon ; rien n'est durable avant sync()
+     */
+    void append(Map<Long, Entry> balances) throws IOException {
+        StringBuilder text = new StringBuilder();
+        balances.forEach((walletId, entry) -> {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            text.append(walletId).append(';').append(entry.balance().toPlainString()).append(';').append(entry.version());
+        });
+        byte[] line = text.append('\n').toString().getBytes(StandardCharsets.US_ASCII);
+        if (buffer.remaining() < line.length) {
+            write();
+        }
+        buffer.put(line);
+    }
+
+    /**
+     * Écrit le tampon et force l'écriture sur disque (une fois par groupe de mutations)
+     */
+    void sync() throws IOException {
+        write();
+        channel.force(false);
+        syncedSize = channel.size();
+    }
+
+    /**
+     * Vide le journal : tout ce qu'il contient est déjà en base
+     */
+    void truncate() throws IOException {
+        buffer.clear();
+        channel.truncate(0);
+        channel.force(false);
+        syncedSize = 0;
+    }
+
+    /**
+     * Abandonne les lignes non synchronisées, y compris celles déjà écrites dans le fichier
+     */
+    void discard() throws IOException {
+        buffer.clear();
+        channel.truncate(syncedSize);
+    }
+
+    boolean isEmpty() throws IOException {
+        return buffer.position() == 0 && channel.size() == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    Path file() {
+        return file;
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Dernier solde journalisé par wallet (une ligne sans fin de ligne, écrite pendant un arrêt brutal, est ignorée)
+     */
+    static Map<Long, Entry> replay(Path file) throws IOException {
+        Map<Long, Entry> balances = new LinkedHashMap<>();
+        String content = Files.readString(file, StandardCharsets.US_ASCII);
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) >= 0) {
+            String line = content.substring(start, end);
+            start = end + 1;
+            Map<Long, Entry> entries = new LinkedHashMap<>();
+            try {
+                for (String entry : line.split(" ")) {
+                    String[] fields = entry.split(";");
+                    long version = fields.length > 2 ? Long.parseLong(fields[2]) : -1;
+                    entries.put(Long.parseLong(fields[0]), new Entry(new BigDecimal(fields[1]), version));
+                }
+            } catch (RuntimeException e) {
+                continue; // ligne corrompue : ignorée en entier
+            }
+            balances.putAll(entries);
+        }
+        return balances;
+    }
+}
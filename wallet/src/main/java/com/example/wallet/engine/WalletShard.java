@@ -0,0 +1,363 @@
+package com.example.wallet.engine;
+
+import com.cypay.framework.acteur.Acteur;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.service.WalletLeg;
+import jakarta.persistence.EntityNotFoundException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acteur propriétaire des soldes d'une partie des utilisateurs (userId modulo le nombre de shards)
+ *
+ * Seul le thread de l'acteur lit et modifie ses wallets : aucun verrou.
+ * Les soldes sont tenus en unités mineures (long, échelle de la devise) :
+ * un mouvement est une addition et une comparaison de long, sans BigDecimal.
+ * Chaque mutation est journalisée ; les réponses d'un groupe de messages
+ * partent après un seul sync() du journal, quand la mailbox est vide ou que le
+ * groupe atteint MAX_GROUP réponses ou MAX_GROUP_NANOS d'ancienneté.
+ */
+class WalletShard extends Acteur<WalletShard.Command> {
+
+    sealed interface Command permits Credit, Debit, Apply, Get, GetAll, Load, Remove, Checkpoint {
+    }
+
+    /**
+     * Complète avec null si le wallet n'existe pas encore
+     */
+    record Credit(Long userId, Money amount, CompletableFuture<Wallet> reply) implements Command {
+    }
+
+    record Debit(Long userId, Money amount, CompletableFuture<Wallet> reply) implements Command {
+    }
+
+    /**
+     * Toutes les jambes (wallets de ce shard) ou aucune ; une seule ligne de journal
+     */
+    record Apply(List<WalletLeg> legs, CompletableFuture<List<Wallet>> reply) implements Command {
+    }
+
+    /**
+     * Complète avec null si le wallet n'existe pas
+     */
+    record Get(Long userId, String currency, CompletableFuture<Wallet> reply) implements Command {
+    }
+
+    record GetAll(Long userId, CompletableFuture<List<Wallet>> reply) implements Command {
+    }
+
+    /**
+     * Wallet créé en base : ajouté s'il n'est pas déjà connu, renvoie la version du shard
+     */
+    record Load(Wallet wallet, CompletableFuture<Wallet> reply) implements Command {
+    }
+
+    record Remove(Long walletId, Long userId, String currency, CompletableFuture<Void> reply) implements Command {
+    }
+
+    /**
+     * Envoyé par le flusher après une écriture en base : journal vidé si plus rien n'est en attente
+     */
+    record Checkpoint(CompletableFuture<Void> done) implements Command {
+    }
+
+    private static final class State {
+        final long id;
+        final Long userId;
+        final String currency;
+        final int scale;
+        long balance; // unités mineures
+        long version;
+
+        State(Wallet wallet) {
+            this.id = wallet.getId();
+            this.userId = wallet.getUserId();
+            this.currency = wallet.getCurrency();
+            this.scale = Money.scaleOf(currency);
+            // échelle exacte : les soldes trop précis sont migrés par WalletEngine.start(), jamais arrondis ici
+            this.balance = Money.of(currency, wallet.getBalance()).units();
+            this.version = wallet.getVersion();
+        }
+
+        Wallet snapshot() {
+            Wallet wallet = new Wallet(userId, currency);
+            wallet.setId(id);
+            wallet.setBalance(BigDecimal.valueOf(balance, scale));
+            wallet.setVersion(version);
+            return wallet;
+        }
+
+        WalletJournal.Entry entry() {
+            return entry(balance, version);
+        }
+
+        WalletJournal.Entry entry(long balance, long version) {
+            return new WalletJournal.Entry(BigDecimal.valueOf(balance, scale), version);
+        }
+    }
+
+    private record Pending(CompletableFuture<Object> reply, Object value) {
+    }
+
+    private record Undo(State state, long balance, long version) {
+    }
+
+    /**
+     * Sous charge la mailbox n'est jamais vide : le groupe est aussi fermé par taille et par âge
+     */
+    static final int MAX_GROUP = 256;
+    static final long MAX_GROUP_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final Map<Long, Map<String, State>> wallets = new HashMap<>();
+    private final Map<Long, WalletJournal.Entry> dirty = new ConcurrentHashMap<>();
+    private final List<Pending> pending = new ArrayList<>();
+    private final List<Undo> undo = new ArrayList<>();
+    private final WalletJournal journal;
+    private long groupStart; // System.nanoTime() de la première réponse en attente
+
+    WalletShard(String nom, WalletJournal journal) {
+        super(nom);
+        this.journal = journal;
+    }
+
+    /**
+     * Chargement initial, avant demarrer()
+     */
+    void preload(Wallet wallet) {
+        wallets.computeIfAbsent(wallet.getUserId(), id -> new HashMap<>())
+                .put(wallet.getCurrency(), new State(wallet));
+    }
+
+    /**
+     * Soldes modifiés en mémoire et pas encore écrits en base (walletId -> solde et version), lus par le flusher
+     */
+    Map<Long, WalletJournal.Entry> dirty() {
+        return dirty;
+    }
+
+    @Override
+    protected void traiterMessage(Command command) {
+        boolean grouping = !pending.isEmpty();
+        try {
+            handle(command);
+        } finally {
+            if (!pending.isEmpty()) {
+                if (!grouping) {
+                    groupStart = System.nanoTime();
+                }
+                if (getMailboxSize() == 0 || pending.size() >= MAX_GROUP
+                        || System.nanoTime() - groupStart >= MAX_GROUP_NANOS) {
+                    commit();
+                }
+            }
+        }
+    }
+
+    private void handle(Command command) {
+        if (command instanceof Credit credit) {
+            State state = find(credit.userId(), credit.amount().currency());
+            if (state == null) {
+                reply(credit.reply(), null);
+            } else {
+                mutate(state, Math.addExact(state.balance, credit.amount().units()), credit.reply());
+            }
+        } else if (command instanceof Debit debit) {
+            State state = find(debit.userId(), debit.amount().currency());
+            if (state == null) {
+                debit.reply().completeExceptionally(notFound(debit.userId(), debit.amount().currency()));
+            } else if (state.balance < debit.amount().units()) {
+                debit.reply().completeExceptionally(new IllegalStateException("Solde insuffisant"));
+            } else {
+                mutate(state, state.balance - debit.amount().units(), debit.reply());
+            }
+        } else if (command instanceof Apply apply) {
+            applyLegs(apply);
+        } else if (command instanceof Get get) {
+            State state = find(get.userId(), get.currency());
+            reply(get.reply(), state != null ? state.snapshot() : null);
+        } else if (command instanceof GetAll getAll) {
+            List<Wallet> result = new ArrayList<>();
+            wallets.getOrDefault(getAll.userId(), Map.of()).values().forEach(state -> result.add(state.snapshot()));
+            reply(getAll.reply(), result);
+        } else if (command instanceof Load load) {
+            Wallet wallet = load.wallet();
+            State state = wallets.computeIfAbsent(wallet.getUserId(), id -> new HashMap<>())
+                    .computeIfAbsent(wallet.getCurrency(), currency -> new State(wallet));
+            reply(load.reply(), state.snapshot());
+        } else if (command instanceof Remove remove) {
+            Map<String, State> byCurrency = wallets.get(remove.userId());
+            if (byCurrency != null && byCurrency.get(remove.currency()) != null
+                    && byCurrency.get(remove.currency()).id == remove.walletId()) {
+                byCurrency.remove(remove.currency());
+                if (byCurrency.isEmpty()) {
+                    wallets.remove(remove.userId());
+                }
+            }
+            dirty.remove(remove.walletId());
+            reply(remove.reply(), null);
+        } else if (command instanceof Checkpoint checkpoint) {
+            checkpoint();
+            checkpoint.done().complete(null);
+        }
+    }
+
+    /**
+     * Nouveau solde appliqué et journalisé ; la réponse attend le sync() du groupe
+     */
+    private void mutate(State state, long balance, CompletableFuture<Wallet> reply) {
+        if (journalAndApply(Map.of(state, balance))) {
+            pending.add(new Pending(cast(reply), state.snapshot()));
+        } else {
+            reply.completeExceptionally(new UncheckedIOException(new IOException("Journal indisponible")));
+        }
+    }
+
+    /**
+     * Soldes calculés sur une copie : au premier wallet absent ou à découvert, rien n'est appliqué
+     */
+    private void applyLegs(Apply apply) {
+        Map<State, Long> next = new LinkedHashMap<>();
+        List<State> touched = new ArrayList<>();
+        for (WalletLeg leg : apply.legs()) {
+            State state = find(leg.userId(), leg.currency());
+            if (state == null) {
+                apply.reply().completeExceptionally(notFound(leg.userId(), leg.currency()));
+                return;
+            }
+            long current = next.getOrDefault(state, state.balance);
+            long units = leg.amount().units();
+            long balance = leg.type() == WalletLeg.Type.DEBIT ? current - units : Math.addExact(current, units);
+            if (balance < 0) {
+                apply.reply().completeExceptionally(new IllegalStateException(
+                        "Solde insuffisant (user " + leg.userId() + ", " + leg.currency() + ")"));
+                return;
+            }
+            next.put(state, balance);
+            touched.add(state);
+        }
+        if (journalAndApply(next)) {
+            pending.add(new Pending(cast(apply.reply()), touched.stream().map(State::snapshot).toList()));
+        } else {
+            apply.reply().completeExceptionally(new UncheckedIOException(new IOException("Journal indisponible")));
+        }
+    }
+
+    /**
+     * Une ligne de journal pour tous les soldes, puis application en mémoire (version + 1 par wallet)
+     *
+     * @return false si le journal est inutilisable (le groupe en cours est alors annulé)
+     */
+    private boolean journalAndApply(Map<State, Long> balances) {
+        Map<Long, WalletJournal.Entry> line = new LinkedHashMap<>();
+        balances.forEach((state, balance) -> line.put(state.id, state.entry(balance, state.version + 1)));
+        try {
+            journal.append(line);
+        } catch (IOException e) {
+            rollback(e);
+            return false;
+        }
+        balances.forEach((state, balance) -> {
+            undo.add(new Undo(state, state.balance, state.version));
+            state.balance = balance;
+            state.version++;
+            dirty.put(state.id, state.entry());
+        });
+        return true;
+    }
+
+    private <T> void reply(CompletableFuture<T> reply, T value) {
+        if (pending.isEmpty()) {
+            reply.complete(value);
+        } else {
+            // une lecture ne voit pas une mutation avant qu'elle soit durable
+            pending.add(new Pending(cast(reply), value));
+        }
+    }
+
+    /**
+     * Un seul sync() pour tout le groupe ; en cas d'échec les mutations du groupe sont annulées
+     */
+    private void commit() {
+        try {
+            journal.sync();
+        } catch (IOException e) {
+            rollback(e);
+            return;
+        }
+        ActeurMetrics.increment("wallet.engine.journal_syncs");
+        pending.forEach(p -> p.reply().complete(p.value()));
+        pending.clear();
+        undo.clear();
+    }
+
+    private void rollback(IOException e) {
+        logErreur("❌ Écriture du journal impossible, " + pending.size() + " opérations annulées", e);
+        discardJournal();
+        for (int i = undo.size() - 1; i >= 0; i--) {
+            Undo u = undo.get(i);
+            u.state().balance = u.balance();
+            u.state().version = u.version();
+            dirty.put(u.state().id, u.state().entry());
+        }
+        pending.forEach(p -> p.reply().completeExceptionally(new UncheckedIOException("Journal indisponible", e)));
+        pending.clear();
+        undo.clear();
+    }
+
+    private void discardJournal() {
+        try {
+            journal.discard();
+        } catch (IOException e) {
+            logErreur("❌ Retour du journal au dernier sync impossible", e);
+        }
+    }
+
+    private void checkpoint() {
+        if (!dirty.isEmpty() || !pending.isEmpty()) {
+            return;
+        }
+        try {
+            if (!journal.isEmpty()) {
+                journal.truncate();
+            }
+        } catch (IOException e) {
+            logErreur("❌ Troncature du journal impossible", e);
+        }
+    }
+
+    private State find(Long userId, String currency) {
+        Map<String, State> byCurrency = wallets.get(userId);
+        return byCurrency != null ? byCurrency.get(currency) : null;
+    }
+
+    static EntityNotFoundException notFound(Long userId, String currency) {
+        return new EntityNotFoundException("Wallet not found for user " + userId + " and currency " + currency);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Object> cast(CompletableFuture<?> future) {
+        return (CompletableFuture<Object>) future;
+    }
+
+    @Override
+    public void arreter() {
+        super.arreter();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logErreur("❌ Fermeture du journal impossible", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.wallet.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Réponse mémorisée d'une requête portant un header Idempotency-Key
+ *
+ * Table créée par Hibernate (ddl-auto) ; lue et écrite par IdempotencyRepository.
+ * status_code null = requête en cours de traitement, depuis claimed_at.
+ */
+@Entity
+@Table(name = "wallet_idempotency_keys",
+        indexes = @Index(name = "idx_wallet_idempotency_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    // SHA-256 de la requête : une clé réutilisée pour une autre requête est refusée
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_type", length = 150)
+    private String responseType;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    public IdempotencyRecord() {}
+
+    public String getKey() { return key; }
+    public String getRequestHash() { return requestHash; }
+    public Integer getStatusCode() { return statusCode; }
+    public String getResponseType() { return responseType; }
+    public String getResponseBody() { return responseBody; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public Instant getClaimedAt() { return claimedAt; }
+}
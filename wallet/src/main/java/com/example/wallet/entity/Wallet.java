@@ -19,20 +19,30 @@ public class Wallet {
     @Column(nullable = false, precision = 19, scale = 8)
     private BigDecimal balance;
 
+    // Part du solde réservée par des holds (voir WalletHoldService) : disponible = balance - held
+    @Column(nullable = false, precision = 19, scale = 8, columnDefinition = "numeric(19,8) default 0")
+    private BigDecimal held;
+
     @Column(nullable = false, length = 10)
     private String currency; // "USDT", "EUR", etc.
 
+    // Incrémentée à chaque mouvement de solde : sert d'ETag (voir WalletHttpActeur)
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     public Wallet() {}
 
     public Wallet(Long userId, String currency) {
         this.userId = userId;
         this.currency = currency;
         this.balance = BigDecimal.ZERO;
+        this.held = BigDecimal.ZERO;
     }
 
     // getters / setters
 
     public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
@@ -40,6 +50,12 @@ public class Wallet {
     public BigDecimal getBalance() { return balance; }
     public void setBalance(BigDecimal balance) { this.balance = balance; }
 
+    public BigDecimal getHeld() { return held; }
+    public void setHeld(BigDecimal held) { this.held = held; }
+
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) { this.currency = currency; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
@@ -0,0 +1,41 @@
+package com.example.wallet.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Somme des écritures d'un wallet de txid inférieur à txid, avancée périodiquement par PostingJournal
+ *
+ * Solde selon le journal = balance + écritures de txid supérieur ou égal.
+ * posting_id (plus grand id couvert) n'est qu'indicatif ; txid null = checkpoint
+ * antérieur à l'horizon par txid, recalculé au démarrage.
+ */
+@Entity
+@Table(name = "wallet_checkpoints")
+public class WalletCheckpoint {
+
+    @Id
+    @Column(name = "wallet_id")
+    private Long walletId;
+
+    @Column(name = "posting_id", nullable = false)
+    private long postingId;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal balance;
+
+    @Column(name = "txid")
+    private Long txid;
+
+    @Column(name = "checked_at", nullable = false)
+    private Instant checkedAt;
+
+    public WalletCheckpoint() {}
+
+    public Long getWalletId() { return walletId; }
+    public long getPostingId() { return postingId; }
+    public BigDecimal getBalance() { return balance; }
+    public Long getTxid() { return txid; }
+    public Instant getCheckedAt() { return checkedAt; }
+}
@@ -0,0 +1,37 @@
+package com.example.wallet.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Réservation d'un montant sur un wallet, en attente de capture ou de libération
+ *
+ * Table créée par Hibernate (ddl-auto) ; lue et écrite par WalletHoldRepository.
+ * Une ligne n'existe que tant que le hold est actif.
+ */
+@Entity
+@Table(name = "wallet_holds",
+        indexes = @Index(name = "idx_wallet_holds_expires_at", columnList = "expires_at"))
+public class WalletHold {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal amount;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public WalletHold() {}
+
+    public String getId() { return id; }
+    public Long getWalletId() { return walletId; }
+    public BigDecimal getAmount() { return amount; }
+    public Instant getExpiresAt() { return expiresAt; }
+}
@@ -0,0 +1,60 @@
+package com.example.wallet.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Écriture du journal des mouvements (partie double) : jamais modifiée ni supprimée
+ *
+ * Table créée par Hibernate (ddl-auto) ; écrite par lots par PostingJournal.
+ * Les écritures d'une même opération partagent entry_id et s'annulent par devise ;
+ * wallet_id null = contrepartie externe (dépôt, retrait, change).
+ * txid = transaction d'insertion, posé par la base (frontière des checkpoints).
+ */
+@Entity
+@Table(name = "wallet_postings", indexes = {
+        @Index(name = "idx_wallet_postings_wallet", columnList = "wallet_id, id"),
+        @Index(name = "idx_wallet_postings_wallet_txid", columnList = "wallet_id, txid"),
+        @Index(name = "idx_wallet_postings_txid", columnList = "txid"),
+        @Index(name = "idx_wallet_postings_created_at", columnList = "created_at")})
+public class WalletPosting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entry_id", nullable = false, length = 36)
+    private String entryId;
+
+    @Column(name = "wallet_id")
+    private Long walletId;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    // Signé : positif = crédit du wallet
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal amount;
+
+    @Column(nullable = false, length = 20)
+    private String type; // CREDIT, DEBIT, TRANSFER, LEGS, CAPTURE, BONUS, OPENING
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "txid", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint DEFAULT CAST(CAST(pg_current_xact_id() AS text) AS bigint)")
+    private long txid;
+
+    public WalletPosting() {}
+
+    public Long getId() { return id; }
+    public String getEntryId() { return entryId; }
+    public Long getWalletId() { return walletId; }
+    public String getCurrency() { return currency; }
+    public BigDecimal getAmount() { return amount; }
+    public String getType() { return type; }
+    public Instant getCreatedAt() { return createdAt; }
+    public long getTxid() { return txid; }
+}
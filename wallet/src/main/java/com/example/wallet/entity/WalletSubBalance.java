@@ -0,0 +1,41 @@
+package com.example.wallet.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Sous-solde d'un wallet chaud : une ligne par shard, crédits répartis entre elles
+ *
+ * Table créée par Hibernate (ddl-auto) ; lue et écrite par WalletSubBalanceRepository.
+ * Solde du wallet = wallets.balance + somme des sous-soldes, jusqu'à consolidation.
+ */
+@Entity
+@Table(name = "wallet_sub_balances",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"wallet_id", "shard"}))
+public class WalletSubBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false)
+    private int shard;
+
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal balance;
+
+    // Ajoutée à celle du wallet pour l'ETag : le total reste croissant
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    public WalletSubBalance() {}
+
+    public Long getId() { return id; }
+    public Long getWalletId() { return walletId; }
+    public int getShard() { return shard; }
+    public BigDecimal getBalance() { return balance; }
+    public long getVersion() { return version; }
+}
@@ -0,0 +1,12 @@
+package com.example.wallet.exception;
+
+/**
+ * Hold inconnu, déjà pris ou expiré : sa réservation ne tient plus (HTTP 410,
+ * distinct du 404 d'un wallet ou d'un utilisateur absent)
+ */
+public class HoldExpiredException extends RuntimeException {
+
+    public HoldExpiredException(String holdId) {
+        super("Hold not found or expired: " + holdId);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.wallet.exception;
+
+/**
+ * Requête refusée à cause de son header Idempotency-Key (clé invalide, réutilisée ou en cours)
+ */
+public class IdempotencyKeyException extends RuntimeException {
+
+    private final int status;
+
+    public IdempotencyKeyException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.wallet.exception;
+
+/**
+ * Opération sans réponse dans le délai : elle a pu être appliquée ou non, l'issue est inconnue
+ */
+public class WalletTimeoutException extends RuntimeException {
+
+    public WalletTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
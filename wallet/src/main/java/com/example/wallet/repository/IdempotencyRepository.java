@@ -0,0 +1,98 @@
+package com.example.wallet.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Table wallet_idempotency_keys (voir IdempotencyRecord)
+ *
+ * claim() est un seul INSERT ... ON CONFLICT : entre deux requêtes simultanées
+ * portant la même clé, y compris sur deux instances, une seule l'obtient.
+ * Une clé en cours dont le bail (claimed_at) est dépassé peut être reprise :
+ * l'instance qui la tenait s'est arrêtée entre la réservation et la réponse.
+ */
+@Repository
+public class IdempotencyRepository {
+
+    private static final String CLAIM_SQL = "INSERT INTO wallet_idempotency_keys "
+            + "(idempotency_key, request_hash, expires_at, claimed_at) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, "
+            + "status_code = NULL, response_type = NULL, response_body = NULL, expires_at = EXCLUDED.expires_at, "
+            + "claimed_at = EXCLUDED.claimed_at "
+            + "WHERE wallet_idempotency_keys.expires_at <= ? OR (wallet_idempotency_keys.status_code IS NULL "
+            + "AND wallet_idempotency_keys.claimed_at <= ?)";
+
+    private static final String FIND_SQL = "SELECT request_hash, status_code, response_type, response_body, expires_at, claimed_at "
+            + "FROM wallet_idempotency_keys WHERE idempotency_key = ? AND expires_at > ?";
+
+    private static final String COMPLETE_SQL = "UPDATE wallet_idempotency_keys "
+            + "SET status_code = ?, response_type = ?, response_body = ? WHERE idempotency_key = ? AND claimed_at = ?";
+
+    private static final String RELEASE_SQL = "DELETE FROM wallet_idempotency_keys "
+            + "WHERE idempotency_key = ? AND status_code IS NULL AND claimed_at = ?";
+
+    private static final String PURGE_SQL = "DELETE FROM wallet_idempotency_keys WHERE expires_at <= ?";
+
+    /**
+     * @param statusCode null tant que la requête est en cours
+     * @param claimedAt Réservation par la requête qui tient la clé (null pour une clé antérieure au bail)
+     */
+    public record Row(String requestHash, Integer statusCode, String responseType, String responseBody, Instant expiresAt,
+                      Instant claimedAt) {
+    }
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(
+            rs.getString("request_hash"),
+            (Integer) rs.getObject("status_code"),
+            rs.getString("response_type"),
+            rs.getString("response_body"),
+            rs.getTimestamp("expires_at").toInstant(),
+            rs.getTimestamp("claimed_at") != null ? rs.getTimestamp("claimed_at").toInstant() : null);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Réserve la clé (nouvelle, expirée, ou en cours depuis avant leaseCutoff)
+     *
+     * @param now Horodatage de la réservation, à redonner à complete() et release()
+     * @return false si la clé est déjà prise par une autre requête
+     */
+    public boolean claim(String key, String requestHash, Instant expiresAt, Instant now, Instant leaseCutoff) {
+        return jdbcTemplate.update(CLAIM_SQL, key, requestHash, Timestamp.from(expiresAt), Timestamp.from(now),
+                Timestamp.from(now), Timestamp.from(leaseCutoff)) == 1;
+    }
+
+    public Optional<Row> find(String key, Instant now) {
+        return jdbcTemplate.query(FIND_SQL, ROW_MAPPER, key, Timestamp.from(now)).stream().findFirst();
+    }
+
+    /**
+     * Sans effet si la clé a été reprise après l'expiration du bail
+     */
+    public void complete(String key, Instant claimedAt, int statusCode, String responseType, String responseBody) {
+        jdbcTemplate.update(COMPLETE_SQL, statusCode, responseType, responseBody, key, Timestamp.from(claimedAt));
+    }
+
+    /**
+     * Libère une clé réservée dont la requête a échoué : un nouvel essai sera exécuté
+     */
+    public void release(String key, Instant claimedAt) {
+        jdbcTemplate.update(RELEASE_SQL, key, Timestamp.from(claimedAt));
+    }
+
+    /**
+     * @return nombre de clés expirées supprimées
+     */
+    public int deleteExpired(Instant now) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.from(now));
+    }
+}
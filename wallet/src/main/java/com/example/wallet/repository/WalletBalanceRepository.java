@@ -0,0 +1,110 @@
+package com.example.wallet.repository;
+
+import com.cypay.framework.money.Money;
+import com.cypay.framework.money.MoneyJdbc;
+import com.example.wallet.entity.Wallet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Mouvements de solde en une seule instruction SQL (UPDATE ... RETURNING)
+ *
+ * La condition et l'écriture sont atomiques côté base : pas de lecture puis
+ * écriture en Java, donc ni découvert ni mise à jour perdue entre deux
+ * opérations concurrentes sur le même wallet. Chaque mouvement incrémente
+ * la version du wallet. Un débit ou un hold ne consomme que le disponible
+ * (balance - held).
+ */
+@Repository
+public class WalletBalanceRepository {
+
+    static final String RETURNING = " RETURNING id, user_id, currency, balance, held, version";
+
+    private static final String CREDIT_SQL = "UPDATE wallets SET balance = balance + ?, version = version + 1 "
+            + "WHERE user_id = ? AND currency = ?" + RETURNING;
+
+    private static final String DEBIT_SQL = "UPDATE wallets SET balance = balance - ?, version = version + 1 "
+            + "WHERE user_id = ? AND currency = ? AND balance - held >= ?" + RETURNING;
+
+    private static final String HOLD_SQL = "UPDATE wallets SET held = held + ?, version = version + 1 "
+            + "WHERE user_id = ? AND currency = ? AND balance - held >= ?" + RETURNING;
+
+    private static final String CAPTURE_SQL = "UPDATE wallets SET balance = balance - ?, held = held - ?, version = version + 1 "
+            + "WHERE id = ?" + RETURNING;
+
+    private static final String RELEASE_SQL = "UPDATE wallets SET held = held - ?, version = version + 1 "
+            + "WHERE id = ?" + RETURNING;
+
+    static final RowMapper<Wallet> WALLET_MAPPER = (rs, rowNum) -> {
+        Wallet wallet = new Wallet(rs.getLong("user_id"), rs.getString("currency"));
+        wallet.setId(rs.getLong("id"));
+        wallet.setBalance(rs.getBigDecimal("balance"));
+        wallet.setHeld(rs.getBigDecimal("held"));
+        wallet.setVersion(rs.getLong("version"));
+        return wallet;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletBalanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return le wallet avec son nouveau solde, vide si le wallet n'existe pas
+     */
+    public Optional<Wallet> credit(Long userId, Money amount) {
+        return jdbcTemplate.query(CREDIT_SQL, ps -> {
+            MoneyJdbc.set(ps, 1, amount);
+            ps.setLong(2, userId);
+            ps.setString(3, amount.currency());
+        }, WALLET_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * @return le wallet avec son nouveau solde, vide si le wallet n'existe pas ou si le solde est insuffisant
+     */
+    public Optional<Wallet> debit(Long userId, Money amount) {
+        return jdbcTemplate.query(DEBIT_SQL, availableCheck(userId, amount), WALLET_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Réserve amount sur le disponible
+     *
+     * @return le wallet après réservation, vide si le wallet n'existe pas ou si le disponible est insuffisant
+     */
+    public Optional<Wallet> hold(Long userId, Money amount) {
+        return jdbcTemplate.query(HOLD_SQL, availableCheck(userId, amount), WALLET_MAPPER).stream().findFirst();
+    }
+
+    /**
+     * Débite un montant réservé : solde et réservation diminuent ensemble
+     */
+    public Optional<Wallet> capture(Long walletId, BigDecimal amount) {
+        return jdbcTemplate.query(CAPTURE_SQL, WALLET_MAPPER, amount, amount, walletId).stream().findFirst();
+    }
+
+    /**
+     * Rend un montant réservé au disponible
+     */
+    public Optional<Wallet> release(Long walletId, BigDecimal amount) {
+        return jdbcTemplate.query(RELEASE_SQL, WALLET_MAPPER, amount, walletId).stream().findFirst();
+    }
+
+    /**
+     * Paramètres (montant, userId, devise, montant) des mouvements conditionnés au disponible
+     */
+    private static PreparedStatementSetter availableCheck(Long userId, Money amount) {
+        return ps -> {
+            MoneyJdbc.set(ps, 1, amount);
+            ps.setLong(2, userId);
+            ps.setString(3, amount.currency());
+            MoneyJdbc.set(ps, 4, amount);
+        };
+    }
+}
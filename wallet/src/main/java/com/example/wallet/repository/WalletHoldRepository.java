@@ -0,0 +1,68 @@
+package com.example.wallet.repository;
+
+import com.example.wallet.entity.Wallet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Table wallet_holds (voir WalletHold)
+ *
+ * take() supprime la ligne et renvoie son montant en une instruction : un hold
+ * n'est capturé ou libéré qu'une fois, même par deux requêtes simultanées. Un hold
+ * expiré pas encore balayé est pris aussi, pour que l'appelant rende sa réservation.
+ */
+@Repository
+public class WalletHoldRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO wallet_holds (id, wallet_id, amount, expires_at) VALUES (?, ?, ?, ?)";
+
+    private static final String TAKE_SQL = "DELETE FROM wallet_holds WHERE id = ? "
+            + "RETURNING wallet_id, amount, expires_at <= ? AS expired";
+
+    // Tous les holds expirés en une instruction : lignes supprimées, réservations rendues par wallet
+    private static final String SWEEP_SQL = "WITH expired AS ("
+            + "DELETE FROM wallet_holds WHERE expires_at <= ? RETURNING wallet_id, amount), "
+            + "totals AS (SELECT wallet_id, SUM(amount) AS amount FROM expired GROUP BY wallet_id) "
+            + "UPDATE wallets SET held = wallets.held - totals.amount, version = wallets.version + 1 "
+            + "FROM totals WHERE wallets.id = totals.wallet_id"
+            + " RETURNING wallets.id, wallets.user_id, wallets.currency, wallets.balance, wallets.held, wallets.version";
+
+    /**
+     * Hold retiré de la table, à appliquer au wallet
+     *
+     * @param expired expiré avant d'être pris : seule sa réservation est à rendre
+     */
+    public record Taken(Long walletId, BigDecimal amount, boolean expired) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletHoldRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(String holdId, Long walletId, BigDecimal amount, Instant expiresAt) {
+        jdbcTemplate.update(INSERT_SQL, holdId, walletId, amount, Timestamp.from(expiresAt));
+    }
+
+    /**
+     * @return le hold supprimé (marqué expiré si expires_at <= now), vide s'il n'existe pas ou a déjà été pris
+     */
+    public Optional<Taken> take(String holdId, Instant now) {
+        return jdbcTemplate.query(TAKE_SQL, (rs, rowNum) -> new Taken(rs.getLong("wallet_id"), rs.getBigDecimal("amount"),
+                rs.getBoolean("expired")), holdId, Timestamp.from(now)).stream().findFirst();
+    }
+
+    /**
+     * @return les wallets dont des holds expirés ont été libérés
+     */
+    public List<Wallet> sweepExpired(Instant now) {
+        return jdbcTemplate.query(SWEEP_SQL, WalletBalanceRepository.WALLET_MAPPER, Timestamp.from(now));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.wallet.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tables wallet_postings et wallet_checkpoints (voir WalletPosting, WalletCheckpoint)
+ *
+ * Les écritures ne sont qu'insérées. Les checkpoints avancent par delta (somme
+ * des écritures depuis le précédent) ; le contrôle compare, en une instruction
+ * donc sur un même instantané, les soldes tenus dans wallets au journal.
+ *
+ * Un checkpoint couvre les écritures de txid inférieur à son horizon, le xmin
+ * de l'instantané qui l'a calculé : toute transaction plus ancienne est
+ * terminée, une écriture validée plus tard a forcément un txid au-delà. L'ordre
+ * des id (attribués avant le commit) ne sert pas de frontière.
+ */
+@Repository
+public class WalletPostingRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO wallet_postings (entry_id, wallet_id, currency, amount, type, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Wallets sans aucune écriture (soldes antérieurs au journal) : une écriture d'ouverture et sa contrepartie
+    private static final String OPENING_SQL = "WITH opened AS ("
+            + "SELECT w.id, w.currency, w.balance + COALESCE((SELECT SUM(s.balance) FROM wallet_sub_balances s "
+            + "WHERE s.wallet_id = w.id), 0) AS balance FROM wallets w "
+            + "WHERE NOT EXISTS (SELECT 1 FROM wallet_postings p WHERE p.wallet_id = w.id)) "
+            + "INSERT INTO wallet_postings (entry_id, wallet_id, currency, amount, type, created_at) "
+            + "SELECT 'opening-' || id, id, currency, balance, 'OPENING', ? FROM opened WHERE balance <> 0 "
+            + "UNION ALL SELECT 'opening-' || id, NULL, currency, -balance, 'OPENING', ? FROM opened WHERE balance <> 0";
+
+    // Solde courant = checkpoint + écritures au-delà de son horizon ; solde après chaque écriture
+    // récente = solde courant - écritures plus récentes (seules les "limit" dernières sont lues)
+    private static final String HISTORY_SQL = "WITH c AS (SELECT balance, txid FROM wallet_checkpoints WHERE wallet_id = ?), "
+            + "total AS (SELECT COALESCE((SELECT balance FROM c), 0) + COALESCE((SELECT SUM(amount) FROM wallet_postings "
+            + "WHERE wallet_id = ? AND txid >= COALESCE((SELECT txid FROM c), 0)), 0) AS balance), "
+            + "recent AS (SELECT id, entry_id, type, amount, created_at FROM wallet_postings WHERE wallet_id = ? "
+            + "ORDER BY id DESC LIMIT ?) "
+            + "SELECT r.id, r.entry_id, r.type, r.amount, (SELECT balance FROM total) - COALESCE(SUM(r.amount) OVER "
+            + "(ORDER BY r.id DESC ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) AS balance_after, r.created_at "
+            + "FROM recent r ORDER BY r.id DESC";
+
+    private static final String HORIZON = "CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)";
+
+    // Écritures de txid entre l'horizon précédent et le xmin courant : leurs transactions sont toutes terminées
+    private static final String CHECKPOINT_SQL = "WITH horizon AS (SELECT " + HORIZON + " AS txid), "
+            + "delta AS (SELECT p.wallet_id, MAX(p.id) AS posting_id, SUM(p.amount) AS amount FROM wallet_postings p "
+            + "LEFT JOIN wallet_checkpoints c ON c.wallet_id = p.wallet_id "
+            + "WHERE p.wallet_id IS NOT NULL AND p.txid >= COALESCE(c.txid, 0) AND p.txid < (SELECT txid FROM horizon) "
+            + "GROUP BY p.wallet_id) "
+            + "INSERT INTO wallet_checkpoints (wallet_id, posting_id, balance, txid, checked_at) "
+            + "SELECT wallet_id, posting_id, amount, (SELECT txid FROM horizon), ? FROM delta "
+            + "ON CONFLICT (wallet_id) DO UPDATE SET posting_id = GREATEST(wallet_checkpoints.posting_id, EXCLUDED.posting_id), "
+            + "balance = wallet_checkpoints.balance + EXCLUDED.balance, txid = EXCLUDED.txid, checked_at = EXCLUDED.checked_at";
+
+    // Checkpoints d'avant l'horizon par txid (bornés par id) : recalculés depuis zéro au checkpoint suivant
+    private static final String RESET_LEGACY_SQL = "DELETE FROM wallet_checkpoints WHERE txid IS NULL";
+
+    private static final String DRIFT_SQL = "SELECT w.id, w.user_id, w.currency, "
+            + "w.balance + COALESCE(s.balance, 0) AS materialized, COALESCE(c.balance, 0) + COALESCE(p.amount, 0) AS journal "
+            + "FROM wallets w "
+            + "LEFT JOIN (SELECT wallet_id, SUM(balance) AS balance FROM wallet_sub_balances GROUP BY wallet_id) s ON s.wallet_id = w.id "
+            + "LEFT JOIN wallet_checkpoints c ON c.wallet_id = w.id "
+            + "LEFT JOIN LATERAL (SELECT SUM(amount) AS amount FROM wallet_postings "
+            + "WHERE wallet_id = w.id AND txid >= COALESCE(c.txid, 0)) p ON true "
+            + "WHERE w.balance + COALESCE(s.balance, 0) <> COALESCE(c.balance, 0) + COALESCE(p.amount, 0)";
+
+    /**
+     * Écriture à insérer ; walletId null = contrepartie externe
+     */
+    public record Posting(String entryId, Long walletId, String currency, BigDecimal amount, String type, Instant createdAt) {
+    }
+
+    /**
+     * Ligne d'historique d'un wallet, avec le solde obtenu après l'écriture
+     */
+    public record HistoryLine(long id, String entryId, String type, BigDecimal amount, BigDecimal balanceAfter, long createdAt) {
+    }
+
+    /**
+     * Wallet dont le solde tenu dans wallets ne correspond pas au journal
+     */
+    public record Drift(Long walletId, Long userId, String currency, BigDecimal materialized, BigDecimal journal) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletPostingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Une seule requête batch pour toutes les écritures
+     */
+    public void insert(List<Posting> postings) {
+        List<Object[]> rows = new ArrayList<>(postings.size());
+        for (Posting p : postings) {
+            rows.add(new Object[]{p.entryId(), p.walletId(), p.currency(), p.amount(), p.type(), Timestamp.from(p.createdAt())});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows,
+                new int[]{Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.TIMESTAMP});
+    }
+
+    /**
+     * @return nombre d'écritures d'ouverture créées (contreparties comprises)
+     */
+    public int open(Instant now) {
+        return jdbcTemplate.update(OPENING_SQL, Timestamp.from(now), Timestamp.from(now));
+    }
+
+    /**
+     * @return les dernières écritures du wallet, de la plus récente à la plus ancienne
+     */
+    public List<HistoryLine> history(Long walletId, int limit) {
+        return jdbcTemplate.query(HISTORY_SQL, (rs, rowNum) -> new HistoryLine(rs.getLong("id"), rs.getString("entry_id"),
+                rs.getString("type"), rs.getBigDecimal("amount"), rs.getBigDecimal("balance_after"),
+                rs.getTimestamp("created_at").getTime()), walletId, walletId, walletId, limit);
+    }
+
+    /**
+     * @return nombre de wallets dont le checkpoint a avancé
+     */
+    public int checkpoint(Instant now) {
+        return jdbcTemplate.update(CHECKPOINT_SQL, Timestamp.from(now));
+    }
+
+    /**
+     * @return nombre de checkpoints sans horizon supprimés
+     */
+    public int resetLegacyCheckpoints() {
+        return jdbcTemplate.update(RESET_LEGACY_SQL);
+    }
+
+    public List<Drift> drifts() {
+        return jdbcTemplate.query(DRIFT_SQL, (rs, rowNum) -> new Drift(rs.getLong("id"), rs.getLong("user_id"),
+                rs.getString("currency"), rs.getBigDecimal("materialized"), rs.getBigDecimal("journal")));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.wallet.repository;
+
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Parcours de toute la table wallets en JDBC, trié par utilisateur (valorisations en lot)
+ *
+ * Une seule requête lue avec un curseur serveur (fetch size) : mémoire constante.
+ * Les sous-soldes des wallets chauds sont additionnés au solde.
+ */
+@Repository
+public class WalletScanRepository {
+
+    /**
+     * Reçoit les soldes un à un, wallets d'un même utilisateur consécutifs
+     */
+    public interface BalanceWriter {
+        void write(long userId, String currency, BigDecimal balance) throws IOException;
+    }
+
+    private static final String SCAN_SQL = "SELECT w.user_id, w.currency, w.balance + COALESCE(s.balance, 0) AS balance "
+            + "FROM wallets w LEFT JOIN (SELECT wallet_id, SUM(balance) AS balance FROM wallet_sub_balances "
+            + "GROUP BY wallet_id) s ON s.wallet_id = w.id WHERE w.user_id > ? ORDER BY w.user_id, w.currency";
+
+    private final DataSource dataSource;
+
+    public WalletScanRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Parcourt les wallets des utilisateurs d'id > afterUserId
+     * (PostgreSQL n'applique le fetch size qu'hors autocommit)
+     *
+     * @return nombre de wallets lus
+     */
+    public long stream(long afterUserId, int fetchSize, BalanceWriter writer) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(SCAN_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, afterUserId);
+                long count = 0;
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        writer.write(rs.getLong(1), rs.getString(2), rs.getBigDecimal(3));
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Lecture en flux des wallets impossible", e);
+        }
+    }
+}
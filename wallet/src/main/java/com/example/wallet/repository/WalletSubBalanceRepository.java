@@ -0,0 +1,109 @@
+package com.example.wallet.repository;
+
+import com.cypay.framework.money.Money;
+import com.cypay.framework.money.MoneyJdbc;
+import com.example.wallet.entity.Wallet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Table wallet_sub_balances (voir WalletSubBalance)
+ *
+ * Un crédit ou un débit ne verrouille qu'une ligne de shard, jamais la ligne
+ * wallets : les mouvements sur un wallet chaud avancent en parallèle. Un
+ * sous-solde ne descend jamais sous zéro ; la consolidation le reverse dans
+ * wallets.balance en une instruction.
+ */
+@Repository
+public class WalletSubBalanceRepository {
+
+    private static final String CREATE_SQL = "INSERT INTO wallet_sub_balances (wallet_id, shard, balance, version) "
+            + "SELECT ?, s, 0, 0 FROM generate_series(0, ? - 1) s ON CONFLICT (wallet_id, shard) DO NOTHING";
+
+    private static final String CREDIT_SQL = "UPDATE wallet_sub_balances SET balance = balance + ?, version = version + 1 "
+            + "WHERE wallet_id = ? AND shard = ?";
+
+    private static final String DEBIT_SQL = "UPDATE wallet_sub_balances SET balance = balance - ?, version = version + 1 "
+            + "WHERE wallet_id = ? AND shard = ? AND balance >= ?";
+
+    // Wallet vu par les lectures : solde et version additionnés, held inchangé
+    private static final String TOTAL_SQL = "SELECT w.id, w.user_id, w.currency, "
+            + "w.balance + COALESCE(s.balance, 0) AS balance, w.held, w.version + COALESCE(s.version, 0) AS version "
+            + "FROM wallets w LEFT JOIN (SELECT wallet_id, SUM(balance) AS balance, SUM(version) AS version "
+            + "FROM wallet_sub_balances WHERE wallet_id = ? GROUP BY wallet_id) s ON s.wallet_id = w.id WHERE w.id = ?";
+
+    // Sous-solde non nul remis à zéro et reversé dans wallets ; un wallet sans sous-solde n'est pas touché
+    private static final String CONSOLIDATE_SQL = "WITH moved AS ("
+            + "UPDATE wallet_sub_balances SET balance = 0, version = version + 1 "
+            + "WHERE balance <> 0 %s RETURNING wallet_id, balance), "
+            + "totals AS (SELECT wallet_id, SUM(balance) AS amount FROM moved GROUP BY wallet_id) "
+            + "UPDATE wallets SET balance = wallets.balance + totals.amount, version = wallets.version + 1 "
+            + "FROM totals WHERE wallets.id = totals.wallet_id"
+            + " RETURNING wallets.id, wallets.user_id, wallets.currency, wallets.balance, wallets.held, wallets.version";
+
+    private static final String CONSOLIDATE_ONE_SQL = CONSOLIDATE_SQL.formatted("AND wallet_id = ?");
+
+    private static final String CONSOLIDATE_ALL_SQL = CONSOLIDATE_SQL.formatted("");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletSubBalanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Crée les lignes de shard manquantes (0 à shards - 1) à zéro
+     */
+    public void create(Long walletId, int shards) {
+        jdbcTemplate.update(CREATE_SQL, walletId, shards);
+    }
+
+    /**
+     * @return false si la ligne de shard n'existe pas encore
+     */
+    public boolean credit(Long walletId, int shard, Money amount) {
+        return jdbcTemplate.update(CREDIT_SQL, ps -> {
+            MoneyJdbc.set(ps, 1, amount);
+            ps.setLong(2, walletId);
+            ps.setInt(3, shard);
+        }) > 0;
+    }
+
+    /**
+     * @return false si le sous-solde est insuffisant (ou absent)
+     */
+    public boolean debit(Long walletId, int shard, Money amount) {
+        return jdbcTemplate.update(DEBIT_SQL, ps -> {
+            MoneyJdbc.set(ps, 1, amount);
+            ps.setLong(2, walletId);
+            ps.setInt(3, shard);
+            MoneyJdbc.set(ps, 4, amount);
+        }) > 0;
+    }
+
+    /**
+     * @return le wallet avec ses sous-soldes additionnés, vide s'il n'existe pas
+     */
+    public Optional<Wallet> total(Long walletId) {
+        return jdbcTemplate.query(TOTAL_SQL, WalletBalanceRepository.WALLET_MAPPER, walletId, walletId).stream().findFirst();
+    }
+
+    /**
+     * @return le wallet après consolidation, vide s'il n'y avait rien à reverser
+     */
+    public Optional<Wallet> consolidate(Long walletId) {
+        return jdbcTemplate.query(CONSOLIDATE_ONE_SQL, WalletBalanceRepository.WALLET_MAPPER, walletId).stream().findFirst();
+    }
+
+    /**
+     * Consolide tous les wallets, chauds ou non (sous-soldes laissés par une configuration précédente)
+     *
+     * @return les wallets dont des sous-soldes ont été reversés
+     */
+    public List<Wallet> consolidateAll() {
+        return jdbcTemplate.query(CONSOLIDATE_ALL_SQL, WalletBalanceRepository.WALLET_MAPPER);
+    }
+}
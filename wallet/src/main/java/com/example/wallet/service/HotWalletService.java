@@ -0,0 +1,174 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.repository.WalletSubBalanceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wallets chauds (trésorerie, destinataires populaires) : solde réparti en sous-soldes
+ *
+ * Chaque crédit tombe sur un shard tiré au hasard, un débit prend un shard au
+ * hasard puis essaie les suivants : les mouvements concurrents ne se bloquent
+ * plus sur la ligne wallets. Les sous-soldes sont reversés dans wallets.balance
+ * périodiquement ou à la demande ; les lectures renvoient la somme. Mode base
+ * de données uniquement (le moteur en mémoire n'a pas de verrou de ligne).
+ */
+@Service
+public class HotWalletService {
+
+    private final WalletSubBalanceRepository subBalanceRepository;
+    private final Set<String> hotWallets = new HashSet<>();
+    private final int shards;
+    private final long consolidateIntervalMs;
+    private final Map<String, Long> walletIds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService consolidator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wallet-consolidator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param wallets Wallets chauds, "userId:devise" séparés par des virgules (ex: 1:EUR,1:USDT)
+     * @param shards Nombre de sous-soldes par wallet chaud
+     */
+    public HotWalletService(WalletSubBalanceRepository subBalanceRepository,
+                            @Value("${wallet.hot-accounts.wallets:}") String wallets,
+                            @Value("${wallet.hot-accounts.shards:8}") int shards,
+                            @Value("${wallet.hot-accounts.consolidate-interval-ms:1000}") long consolidateIntervalMs) {
+        this.subBalanceRepository = subBalanceRepository;
+        for (String wallet : wallets.split(",")) {
+            if (!wallet.isBlank()) {
+                String[] parts = wallet.trim().split(":");
+                hotWallets.add(key(Long.parseLong(parts[0]), parts[1]));
+            }
+        }
+        this.shards = Math.max(1, shards);
+        this.consolidateIntervalMs = consolidateIntervalMs;
+    }
+
+    /**
+     * Sous-soldes restés d'une exécution précédente reversés au démarrage, même si le wallet
+     * n'est plus chaud (WalletService et WalletEngine dépendent de ce bean : rien n'est lu avant)
+     */
+    @PostConstruct
+    public void start() {
+        consolidateAll();
+        if (!hotWallets.isEmpty() && consolidateIntervalMs > 0) {
+            consolidator.scheduleWithFixedDelay(this::consolidateAll, consolidateIntervalMs, consolidateIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (!hotWallets.isEmpty()) {
+            System.out.println("[HotWalletService] " + hotWallets.size() + " wallets chauds sur " + shards + " sous-soldes");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        consolidator.shutdownNow();
+    }
+
+    public boolean isHot(Long userId, String currency) {
+        return !hotWallets.isEmpty() && hotWallets.contains(key(userId, currency));
+    }
+
+    /**
+     * Id du wallet chaud, chargé une fois par loader (l'id ne change qu'à la suppression du wallet)
+     */
+    public Long walletId(Long userId, String currency, Supplier<Long> loader) {
+        Long id = walletIds.get(key(userId, currency));
+        if (id == null) {
+            id = loader.get();
+            walletIds.put(key(userId, currency), id);
+        }
+        return id;
+    }
+
+    public void forget(Long userId, String currency) {
+        walletIds.remove(key(userId, currency));
+    }
+
+    /**
+     * Crédit sur un shard au hasard (lignes de shard créées au premier crédit) ; le total
+     * n'est pas relu : voir total() quand la réponse en a besoin
+     */
+    public void credit(Long walletId, Money amount) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        if (!subBalanceRepository.credit(walletId, shard, amount)) {
+            subBalanceRepository.create(walletId, shards);
+            subBalanceRepository.credit(walletId, shard, amount);
+        }
+        ActeurMetrics.increment("wallet.hot.credits");
+    }
+
+    /**
+     * Débit sur le premier shard assez approvisionné, en partant d'un shard au hasard
+     *
+     * @return false si aucun sous-solde ne couvre le montant seul
+     */
+    public boolean debit(Long walletId, Money amount) {
+        int start = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            if (subBalanceRepository.debit(walletId, (start + i) % shards, amount)) {
+                ActeurMetrics.increment("wallet.hot.debits");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wallet tel que vu par les lectures : wallets.balance + sous-soldes, versions additionnées
+     */
+    public Wallet total(Long walletId) {
+        return subBalanceRepository.total(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with ID: " + walletId));
+    }
+
+    /**
+     * Reverse les sous-soldes du wallet dans wallets.balance
+     *
+     * @return true si un montant a été reversé
+     */
+    public boolean consolidate(Long walletId) {
+        boolean moved = subBalanceRepository.consolidate(walletId).isPresent();
+        if (moved) {
+            ActeurMetrics.increment("wallet.hot.consolidations");
+        }
+        return moved;
+    }
+
+    /**
+     * Reverse tous les sous-soldes en une instruction SQL
+     */
+    public void consolidateAll() {
+        try {
+            List<Wallet> wallets = subBalanceRepository.consolidateAll();
+            if (!wallets.isEmpty()) {
+                ActeurMetrics.add("wallet.hot.consolidations", wallets.size());
+            }
+        } catch (DataAccessException e) {
+            System.err.println("[HotWalletService] Consolidation des sous-soldes impossible : " + e.getMessage());
+        }
+    }
+
+    private static String key(Long userId, String currency) {
+        return userId + ":" + currency;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.cache.TtlCache;
+import com.cypay.framework.json.JsonCodec;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.wallet.exception.IdempotencyKeyException;
+import com.example.wallet.repository.IdempotencyRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Déduplication des requêtes portant un header Idempotency-Key
+ *
+ * La première requête réserve la clé en base, s'exécute, puis sa réponse est
+ * mémorisée (table + cache borné en mémoire) jusqu'à expiration. Une requête
+ * rejouée avec la même clé reçoit la réponse d'origine sans être réexécutée.
+ * Les réponses 5xx ne sont pas mémorisées : la clé est libérée pour un nouvel essai,
+ * sauf OUTCOME_UNKNOWN (opération peut-être appliquée) où elle reste réservée.
+ * Une clé en cours n'est tenue que le temps d'un bail (lease-seconds) : après un
+ * arrêt entre réservation et réponse, elle redevient utilisable sans attendre le TTL.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int CLAIM_ATTEMPTS = 3;
+
+    /**
+     * Statut d'une opération dont on ne sait pas si elle a été appliquée (délai dépassé)
+     */
+    public static final int OUTCOME_UNKNOWN = 504;
+
+    /**
+     * Réponse d'une opération : statut HTTP et objet envoyé au client
+     */
+    public record Reply(int status, Object body) {
+    }
+
+    private record Stored(String requestHash, Reply reply) {
+    }
+
+    private final IdempotencyRepository repository;
+    private final TtlCache<String, Stored> cache;
+    private final long ttlMs;
+    private final long leaseMs;
+    private final long purgeIntervalMs;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wallet-idempotency-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRepository repository,
+                            @Value("${wallet.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${wallet.idempotency.lease-seconds:300}") long leaseSeconds,
+                            @Value("${wallet.idempotency.cache-size:100000}") int cacheSize,
+                            @Value("${wallet.idempotency.purge-interval-seconds:600}") long purgeIntervalSeconds) {
+        this(repository, ttlSeconds, leaseSeconds, cacheSize, purgeIntervalSeconds, System::currentTimeMillis);
+    }
+
+    /**
+     * @param leaseSeconds Durée pendant laquelle une clé en cours ne peut pas être reprise
+     * @param clock Horloge en millisecondes (injectable pour les tests)
+     */
+    public IdempotencyStore(IdempotencyRepository repository, long ttlSeconds, long leaseSeconds, int cacheSize,
+                            long purgeIntervalSeconds, LongSupplier clock) {
+        this.repository = repository;
+        this.ttlMs = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.leaseMs = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        this.purgeIntervalMs = TimeUnit.SECONDS.toMillis(purgeIntervalSeconds);
+        this.cache = new TtlCache<>(cacheSize, clock);
+        this.clock = clock;
+        ActeurMetrics.gauge("wallet.idempotency.cached", cache::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (purgeIntervalMs > 0) {
+            purger.scheduleWithFixedDelay(this::purge, purgeIntervalMs, purgeIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        purger.shutdownNow();
+    }
+
+    /**
+     * Exécute l'opération une seule fois par clé
+     *
+     * @param fingerprint Description de la requête (route + contenu), comparée à chaque rejeu
+     * @throws IdempotencyKeyException clé invalide (400), en cours (409) ou réutilisée pour une autre requête (422)
+     */
+    public Reply execute(String key, String fingerprint, Supplier<Reply> operation) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException(400, "Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = sha256(fingerprint);
+
+        Stored cached = cache.get(key);
+        if (cached != null) {
+            return replay(key, requestHash, cached);
+        }
+
+        for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+            long now = clock.getAsLong();
+            long expiresAt = now + ttlMs;
+            Instant claimedAt = Instant.ofEpochMilli(now);
+            if (repository.claim(key, requestHash, Instant.ofEpochMilli(expiresAt), claimedAt,
+                    Instant.ofEpochMilli(now - leaseMs))) {
+                return run(key, claimedAt, requestHash, expiresAt, operation);
+            }
+            Optional<IdempotencyRepository.Row> row = repository.find(key, Instant.ofEpochMilli(now));
+            if (row.isEmpty()) {
+                continue; // libérée ou expirée entre les deux requêtes : nouvelle réservation
+            }
+            if (!row.get().requestHash().equals(requestHash)) {
+                throw reused(key);
+            }
+            if (row.get().statusCode() == null) {
+                ActeurMetrics.increment("wallet.idempotency.in_progress");
+                throw new IdempotencyKeyException(409, "A request with this Idempotency-Key is still in progress");
+            }
+            Stored stored = new Stored(requestHash, decode(row.get()));
+            cache.put(key, stored, row.get().expiresAt().toEpochMilli());
+            return replay(key, requestHash, stored);
+        }
+        throw new IdempotencyKeyException(409, "A request with this Idempotency-Key is still in progress");
+    }
+
+    private Reply run(String key, Instant claimedAt, String requestHash, long expiresAt, Supplier<Reply> operation) {
+        Reply reply;
+        try {
+            reply = operation.get();
+        } catch (RuntimeException e) {
+            repository.release(key, claimedAt);
+            throw e;
+        }
+        if (reply.status() == OUTCOME_UNKNOWN) {
+            // ni libérée ni mémorisée : un rejeu reçoit 409 jusqu'à la fin du bail plutôt que de risquer un second débit
+            ActeurMetrics.increment("wallet.idempotency.outcome_unknown");
+            return reply;
+        }
+        if (reply.status() >= 500) {
+            repository.release(key, claimedAt);
+            return reply;
+        }
+        Object body = reply.body();
+        try {
+            repository.complete(key, claimedAt, reply.status(), body != null ? body.getClass().getName() : null,
+                    body != null ? JsonCodec.toJson(body) : null);
+        } catch (DataAccessException e) {
+            // opération déjà appliquée : la clé reste réservée, un rejeu reçoit 409 et n'est pas réexécuté
+            System.err.println("[IdempotencyStore] Réponse non enregistrée pour la clé " + key + " : " + e.getMessage());
+        }
+        cache.put(key, new Stored(requestHash, reply), expiresAt);
+        return reply;
+    }
+
+    private Reply replay(String key, String requestHash, Stored stored) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw reused(key);
+        }
+        ActeurMetrics.increment("wallet.idempotency.replayed");
+        System.out.println("[IdempotencyStore] Requête rejouée, réponse d'origine renvoyée (clé " + key + ")");
+        return stored.reply();
+    }
+
+    private static IdempotencyKeyException reused(String key) {
+        ActeurMetrics.increment("wallet.idempotency.key_reused");
+        return new IdempotencyKeyException(422, "Idempotency-Key " + key + " was already used for a different request");
+    }
+
+    private static Reply decode(IdempotencyRepository.Row row) {
+        if (row.responseType() == null) {
+            return new Reply(row.statusCode(), null);
+        }
+        try {
+            return new Reply(row.statusCode(), JsonCodec.fromJson(row.responseBody(), Class.forName(row.responseType())));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Type de réponse inconnu : " + row.responseType(), e);
+        }
+    }
+
+    private void purge() {
+        try {
+            int deleted = repository.deleteExpired(Instant.ofEpochMilli(clock.getAsLong()));
+            if (deleted > 0) {
+                System.out.println("[IdempotencyStore] " + deleted + " clés expirées supprimées");
+            }
+        } catch (DataAccessException e) {
+            System.err.println("[IdempotencyStore] Purge des clés expirées impossible : " + e.getMessage());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
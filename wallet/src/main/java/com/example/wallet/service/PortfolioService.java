@@ -0,0 +1,211 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.wallet.client.PriceServiceClient;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.repository.WalletScanRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Valorisation des portefeuilles dans une devise cible, côté serveur
+ *
+ * Un seul instantané de prix (PriceServiceClient) par requête ; en lot, chaque
+ * devise n'est convertie qu'une fois et la table wallets n'est lue qu'une fois,
+ * triée par utilisateur. Une devise sans cotation directe passe par un taux
+ * croisé (1 USD = BTC_EUR / BTC_USD EUR), une cotation inverse par 1 / prix
+ * (1 EUR = 1 / BTC_EUR BTC) ; les stablecoins valent leur devise.
+ */
+@Service
+public class PortfolioService {
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+    private static final MathContext RATE = MathContext.DECIMAL64;
+    private static final Map<String, String> PEGGED = Map.of("USDT", "USD", "USDC", "USD");
+
+    /**
+     * Wallet valorisé (price et value null si la devise n'a pas de prix)
+     */
+    public record Holding(String currency, BigDecimal balance, BigDecimal price, BigDecimal value) {
+    }
+
+    /**
+     * @param unpriced Devises détenues sans prix : exclues du total
+     * @param pricedAt Date de l'instantané de prix (epoch ms)
+     */
+    public record Valuation(Long userId, String currency, BigDecimal total, List<Holding> holdings,
+                            List<String> unpriced, long pricedAt) {
+    }
+
+    /**
+     * Reçoit les valorisations une à une pendant le parcours en lot
+     */
+    public interface ValuationWriter {
+        void write(Valuation valuation) throws IOException;
+    }
+
+    private final PriceServiceClient priceClient;
+    private final WalletScanRepository scanRepository;
+
+    public PortfolioService(PriceServiceClient priceClient, WalletScanRepository scanRepository) {
+        this.priceClient = priceClient;
+        this.scanRepository = scanRepository;
+    }
+
+    /**
+     * @param wallets Wallets de l'utilisateur (base ou moteur en mémoire)
+     */
+    public Valuation value(Long userId, List<Wallet> wallets, String target) {
+        Rates rates = new Rates(priceClient.snapshot(), target);
+        Map<String, BigDecimal> balances = new LinkedHashMap<>();
+        wallets.forEach(wallet -> balances.merge(wallet.getCurrency(), wallet.getBalance(), BigDecimal::add));
+        return rates.value(userId, balances);
+    }
+
+    /**
+     * Instantané à passer à valueAll, lu avant d'engager la réponse
+     *
+     * @throws IllegalStateException aucun prix disponible
+     */
+    public PriceServiceClient.Snapshot prices() {
+        return priceClient.snapshot();
+    }
+
+    /**
+     * Valorise tous les utilisateurs d'id > afterUserId, dans l'ordre des id, sur un même instantané
+     *
+     * @return nombre d'utilisateurs valorisés
+     */
+    public long valueAll(PriceServiceClient.Snapshot snapshot, String target, long afterUserId,
+                         ValuationWriter writer) throws IOException {
+        Rates rates = new Rates(snapshot, target);
+        Map<String, BigDecimal> balances = new LinkedHashMap<>();
+        long[] current = {Long.MIN_VALUE};
+        long[] users = {0};
+        scanRepository.stream(afterUserId, SCAN_FETCH_SIZE, (userId, currency, balance) -> {
+            if (userId != current[0] && current[0] != Long.MIN_VALUE) {
+                writer.write(rates.value(current[0], balances));
+                balances.clear();
+                users[0]++;
+            }
+            current[0] = userId;
+            balances.put(currency, balance);
+        });
+        if (current[0] != Long.MIN_VALUE) {
+            writer.write(rates.value(current[0], balances));
+            users[0]++;
+        }
+        ActeurMetrics.add("wallet.valuations.batch_users", users[0]);
+        return users[0];
+    }
+
+    /**
+     * Prix d'une unité de currency dans target, ou null si aucune cotation ne permet de le calculer
+     */
+    static BigDecimal price(Map<String, BigDecimal> prices, String currency, String target) {
+        String from = PEGGED.getOrDefault(currency, currency);
+        String to = PEGGED.getOrDefault(target, target);
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+        BigDecimal direct = direct(prices, from, to);
+        if (direct != null) {
+            return direct;
+        }
+        BigDecimal cross = cross(prices, from, to);
+        if (cross != null) {
+            return cross;
+        }
+        // coté dans une autre devise seulement (ex: BTC_USD pour une cible EUR, ETH_USD pour une cible BTC)
+        for (Map.Entry<String, BigDecimal> quote : prices.entrySet()) {
+            if (quote.getKey().startsWith(from + "_")) {
+                String via = quote.getKey().substring(from.length() + 1);
+                BigDecimal rate = direct(prices, via, to);
+                if (rate == null) {
+                    rate = cross(prices, via, to);
+                }
+                if (rate != null) {
+                    return quote.getValue().multiply(rate, RATE);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Cotation from_to, ou 1 / to_from si seule la cotation inverse existe
+     */
+    private static BigDecimal direct(Map<String, BigDecimal> prices, String from, String to) {
+        BigDecimal direct = prices.get(from + "_" + to);
+        if (direct != null) {
+            return direct;
+        }
+        BigDecimal inverse = prices.get(to + "_" + from);
+        return inverse != null && inverse.signum() > 0 ? BigDecimal.ONE.divide(inverse, RATE) : null;
+    }
+
+    /**
+     * Taux de from vers to via un actif coté dans les deux (premier dans l'ordre des clés)
+     */
+    private static BigDecimal cross(Map<String, BigDecimal> prices, String from, String to) {
+        for (Map.Entry<String, BigDecimal> quote : prices.entrySet()) {
+            String key = quote.getKey();
+            if (key.endsWith("_" + from) && quote.getValue().signum() > 0) {
+                BigDecimal other = prices.get(key.substring(0, key.length() - from.length() - 1) + "_" + to);
+                if (other != null) {
+                    return other.divide(quote.getValue(), RATE);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Conversions vers une devise cible sur un instantané, calculées une fois par devise
+     */
+    private static final class Rates {
+        final PriceServiceClient.Snapshot snapshot;
+        final String target;
+        final Map<String, Optional<BigDecimal>> byCurrency = new HashMap<>();
+
+        Rates(PriceServiceClient.Snapshot snapshot, String target) {
+            this.snapshot = snapshot;
+            this.target = target;
+        }
+
+        Valuation value(Long userId, Map<String, BigDecimal> balances) {
+            Money total = Money.zero(target);
+            List<Holding> holdings = new ArrayList<>(balances.size());
+            List<String> unpriced = new ArrayList<>();
+            for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+                String currency = entry.getKey();
+                BigDecimal balance = entry.getValue();
+                if (balance.signum() == 0) {
+                    continue;
+                }
+                BigDecimal price = byCurrency.computeIfAbsent(currency,
+                        c -> Optional.ofNullable(price(snapshot.prices(), c, target))).orElse(null);
+                if (price == null) {
+                    holdings.add(new Holding(currency, balance, null, null));
+                    unpriced.add(currency);
+                    continue;
+                }
+                Money value = Money.of(target, balance.multiply(price), RoundingMode.HALF_UP);
+                holdings.add(new Holding(currency, balance, price, value.toBigDecimal()));
+                total = total.plus(value);
+            }
+            return new Valuation(userId, target, total.toBigDecimal(), holdings, unpriced, snapshot.fetchedAt());
+        }
+    }
+}
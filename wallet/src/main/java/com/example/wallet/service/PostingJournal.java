@@ -0,0 +1,210 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.wallet.repository.WalletPostingRepository;
+import com.example.wallet.repository.WalletPostingRepository.Drift;
+import com.example.wallet.repository.WalletPostingRepository.HistoryLine;
+import com.example.wallet.repository.WalletPostingRepository.Posting;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal en partie double des mouvements de solde (table wallet_postings)
+ *
+ * Les écritures d'une transaction forment une seule opération (entry_id) et sont
+ * insérées en un batch juste avant le commit, avec les mises à jour de solde :
+ * pas de mouvement sans écriture ni l'inverse. Par devise, la somme d'une
+ * opération est nulle : ce qui n'est pas compensé entre wallets (virement)
+ * l'est par une contrepartie externe. wallets.balance reste la somme tenue à
+ * jour à chaque mouvement ; un checkpoint périodique avance la somme des
+ * écritures par wallet et signale tout écart. Mode base de données uniquement.
+ */
+@Service
+public class PostingJournal {
+
+    /**
+     * Opération en cours dans la transaction
+     */
+    private static final class Entry {
+        final String id = UUID.randomUUID().toString();
+        String type;
+        final Map<Long, Map<String, BigDecimal>> amounts = new LinkedHashMap<>(); // walletId -> devise -> montant
+    }
+
+    private final WalletPostingRepository postingRepository;
+    private final boolean enabled;
+    private final long checkpointIntervalMs;
+    private volatile int drifts; // wallets en écart au dernier checkpoint
+    private final ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wallet-checkpointer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param engineEnabled Moteur en mémoire actif : aucune écriture (ses mouvements ne passent pas par la base)
+     */
+    public PostingJournal(WalletPostingRepository postingRepository,
+                          @Value("${wallet.engine.enabled:false}") boolean engineEnabled,
+                          @Value("${wallet.journal.checkpoint-interval-ms:60000}") long checkpointIntervalMs) {
+        this.postingRepository = postingRepository;
+        this.enabled = !engineEnabled;
+        this.checkpointIntervalMs = checkpointIntervalMs;
+        ActeurMetrics.gauge("wallet.journal.drifts", () -> drifts);
+    }
+
+    /**
+     * Soldes antérieurs au journal repris en écritures d'ouverture, puis checkpoints périodiques
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int reset = postingRepository.resetLegacyCheckpoints();
+            if (reset > 0) {
+                System.out.println("[PostingJournal] " + reset + " checkpoints antérieurs à l'horizon par txid recalculés");
+            }
+            int opened = postingRepository.open(Instant.now());
+            if (opened > 0) {
+                System.out.println("[PostingJournal] " + opened / 2 + " soldes existants repris en écritures d'ouverture");
+            }
+        } catch (DataAccessException e) {
+            System.err.println("[PostingJournal] Écritures d'ouverture impossibles : " + e.getMessage());
+        }
+        if (checkpointIntervalMs > 0) {
+            checkpointer.scheduleWithFixedDelay(this::checkpoint, checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        checkpointer.shutdownNow();
+    }
+
+    /**
+     * Nomme l'opération en cours (virement, lot...) avant ses mouvements ; sans effet si elle a déjà un type
+     */
+    public void entry(String type) {
+        if (enabled && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Entry entry = current();
+            if (entry.type == null) {
+                entry.type = type;
+            }
+        }
+    }
+
+    /**
+     * Mouvement d'un wallet (montant signé : négatif = débit), écrit au commit de la transaction
+     * ou immédiatement hors transaction
+     *
+     * @param type Type de l'opération si entry() ne l'a pas déjà nommée
+     */
+    public void post(String type, Long walletId, Money amount) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = TransactionSynchronizationManager.isSynchronizationActive() ? current() : new Entry();
+        if (entry.type == null) {
+            entry.type = type;
+        }
+        entry.amounts.computeIfAbsent(walletId, id -> new LinkedHashMap<>())
+                .merge(amount.currency(), amount.toBigDecimal(), BigDecimal::add);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(entry);
+        }
+    }
+
+    /**
+     * @return les dernières écritures du wallet avec le solde après chacune
+     */
+    public List<HistoryLine> history(Long walletId, int limit) {
+        return postingRepository.history(walletId, limit);
+    }
+
+    /**
+     * Avance les checkpoints puis compare les soldes tenus dans wallets au journal
+     *
+     * @return les wallets en écart
+     */
+    public List<Drift> checkpoint() {
+        try {
+            int advanced = postingRepository.checkpoint(Instant.now());
+            ActeurMetrics.add("wallet.journal.checkpoints", advanced);
+            List<Drift> found = postingRepository.drifts();
+            drifts = found.size();
+            for (Drift drift : found) {
+                System.err.println("[PostingJournal] ⚠️ Écart wallet " + drift.walletId() + " (user " + drift.userId() + ", "
+                        + drift.currency() + ") : solde " + drift.materialized().toPlainString()
+                        + ", journal " + drift.journal().toPlainString());
+            }
+            return found;
+        } catch (DataAccessException e) {
+            System.err.println("[PostingJournal] Checkpoint impossible : " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private Entry current() {
+        Entry entry = (Entry) TransactionSynchronizationManager.getResource(this);
+        if (entry == null) {
+            Entry created = new Entry();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PostingJournal.this);
+                }
+            });
+            entry = created;
+        }
+        return entry;
+    }
+
+    /**
+     * Écritures de l'opération plus une contrepartie externe par devise non équilibrée, en un batch
+     */
+    private void write(Entry entry) {
+        Instant now = Instant.now();
+        List<Posting> postings = new ArrayList<>();
+        Map<String, BigDecimal> net = new LinkedHashMap<>();
+        entry.amounts.forEach((walletId, byCurrency) -> byCurrency.forEach((currency, amount) -> {
+            if (amount.signum() != 0) {
+                postings.add(new Posting(entry.id, walletId, currency, amount, entry.type, now));
+                net.merge(currency, amount, BigDecimal::add);
+            }
+        }));
+        net.forEach((currency, amount) -> {
+            if (amount.signum() != 0) {
+                postings.add(new Posting(entry.id, null, currency, amount.negate(), entry.type, now));
+            }
+        });
+        if (!postings.isEmpty()) {
+            postingRepository.insert(postings);
+            ActeurMetrics.add("wallet.journal.postings", postings.size());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.cache.TtlCache;
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.wallet.entity.Wallet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+
+/**
+ * Cache de lecture des wallets (userId, currency), tenu à jour par WalletService
+ *
+ * Chaque mouvement de solde y écrit le wallet renvoyé par la base ; une entrée
+ * n'est jamais remplacée par une version plus ancienne (lecture concurrente).
+ * Dans une transaction, l'écriture attend le commit : un rollback ne laisse
+ * rien en cache. Le TTL borne l'écart si une autre instance modifie la table.
+ */
+@Component
+public class WalletBalanceCache {
+
+    // Un wallet recréé a un id plus grand : il remplace l'ancien quelle que soit sa version
+    private static final Comparator<Wallet> NEWEST = Comparator.comparing(Wallet::getId)
+            .thenComparingLong(Wallet::getVersion);
+
+    private final TtlCache<String, Wallet> cache;
+    private final long ttlMs;
+
+    public WalletBalanceCache(@Value("${wallet.cache.size:100000}") int size,
+                              @Value("${wallet.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = new TtlCache<>(size);
+        this.ttlMs = ttlSeconds * 1000;
+        ActeurMetrics.gauge("wallet.cache.size", cache::size);
+    }
+
+    /**
+     * @return une copie du wallet en cache, ou null
+     */
+    public Wallet get(Long userId, String currency) {
+        Wallet wallet = cache.get(key(userId, currency));
+        ActeurMetrics.increment(wallet != null ? "wallet.cache.hits" : "wallet.cache.misses");
+        return wallet != null ? copy(wallet) : null;
+    }
+
+    /**
+     * Version lue ou écrite en base ; appliquée au commit si une transaction est en cours
+     */
+    public void update(Wallet wallet) {
+        Wallet snapshot = copy(wallet);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(snapshot);
+                }
+            });
+        } else {
+            put(snapshot);
+        }
+    }
+
+    public void invalidate(Long userId, String currency) {
+        cache.invalidate(key(userId, currency));
+    }
+
+    private void put(Wallet wallet) {
+        cache.putIfNewer(key(wallet.getUserId(), wallet.getCurrency()), wallet,
+                System.currentTimeMillis() + ttlMs, NEWEST);
+    }
+
+    private static String key(Long userId, String currency) {
+        return userId + ":" + currency;
+    }
+
+    private static Wallet copy(Wallet wallet) {
+        Wallet copy = new Wallet(wallet.getUserId(), wallet.getCurrency());
+        copy.setId(wallet.getId());
+        copy.setBalance(wallet.getBalance());
+        copy.setHeld(wallet.getHeld());
+        copy.setVersion(wallet.getVersion());
+        return copy;
+    }
+}
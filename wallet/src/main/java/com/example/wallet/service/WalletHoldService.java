@@ -0,0 +1,177 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.cypay.framework.money.Money;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.exception.HoldExpiredException;
+import com.example.wallet.repository.WalletBalanceRepository;
+import com.example.wallet.repository.WalletHoldRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réservations (holds) : un montant est mis de côté à l'admission d'un achat ou
+ * d'une vente, puis capturé par l'agent ou libéré
+ *
+ * Le montant réservé reste dans balance mais sort du disponible (balance - held) :
+ * aucun débit ni autre hold ne peut le consommer. Les holds non capturés expirent
+ * et sont libérés par lots. Mode base de données uniquement (pas de holds dans le
+ * moteur en mémoire).
+ */
+@Service
+public class WalletHoldService {
+
+    /**
+     * Hold créé et wallet après réservation
+     */
+    public record Hold(String holdId, Instant expiresAt, Wallet wallet) {
+    }
+
+    private final WalletBalanceRepository balanceRepository;
+    private final WalletHoldRepository holdRepository;
+    private final WalletService walletService;
+    private final WalletBalanceCache balanceCache;
+    private final PostingJournal journal;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final long sweepIntervalMs;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "wallet-hold-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WalletHoldService(WalletBalanceRepository balanceRepository, WalletHoldRepository holdRepository,
+                             WalletService walletService, WalletBalanceCache balanceCache, PostingJournal journal,
+                             @Value("${wallet.holds.default-ttl-seconds:60}") long defaultTtlSeconds,
+                             @Value("${wallet.holds.max-ttl-seconds:3600}") long maxTtlSeconds,
+                             @Value("${wallet.holds.sweep-interval-ms:5000}") long sweepIntervalMs) {
+        this.balanceRepository = balanceRepository;
+        this.holdRepository = holdRepository;
+        this.walletService = walletService;
+        this.balanceCache = balanceCache;
+        this.journal = journal;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.sweepIntervalMs = sweepIntervalMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (sweepIntervalMs > 0) {
+            sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * @param ttlSeconds Durée de vie du hold (0 = valeur par défaut, bornée par wallet.holds.max-ttl-seconds)
+     * @throws IllegalStateException disponible insuffisant
+     */
+    @Transactional
+    public Hold reserve(Long userId, Money amount, long ttlSeconds) {
+        // wallet chaud : les sous-soldes ne sont réservables qu'une fois reversés dans le solde principal
+        Wallet wallet = balanceRepository.hold(userId, amount)
+                .or(() -> walletService.consolidateHot(userId, amount.currency())
+                        ? balanceRepository.hold(userId, amount)
+                        : Optional.empty())
+                .orElseThrow(() -> {
+                    walletService.getWallet(userId, amount.currency()); // wallet absent -> EntityNotFoundException
+                    return new IllegalStateException("Solde disponible insuffisant");
+                });
+        long ttl = Math.min(ttlSeconds > 0 ? ttlSeconds : defaultTtlSeconds, maxTtlSeconds);
+        String holdId = UUID.randomUUID().toString();
+        Instant expiresAt = Instant.now().plusSeconds(ttl);
+        holdRepository.insert(holdId, wallet.getId(), amount.toBigDecimal(), expiresAt);
+        balanceCache.update(wallet);
+        ActeurMetrics.increment("wallet.holds.reserved");
+        return new Hold(holdId, expiresAt, wallet);
+    }
+
+    /**
+     * Débite le montant réservé et applique les crédits dans la même transaction
+     * (achat : paiement capturé + crypto créditée)
+     *
+     * @return le wallet débité, puis les wallets crédités dans l'ordre des jambes
+     * @throws HoldExpiredException hold inconnu, déjà pris ou expiré (réservation d'un hold expiré rendue)
+     * @throws EntityNotFoundException wallet débité ou crédité absent
+     */
+    @Transactional(noRollbackFor = HoldExpiredException.class)
+    public List<Wallet> capture(String holdId, List<WalletLeg> credits) {
+        WalletHoldRepository.Taken hold = take(holdId);
+        if (hold.expired()) {
+            // pas encore balayé : rendu ici, sinon le débit direct qui suit ce refus buterait sur la réservation
+            balanceRepository.release(hold.walletId(), hold.amount()).ifPresent(balanceCache::update);
+            ActeurMetrics.increment("wallet.holds.expired");
+            throw new HoldExpiredException(holdId);
+        }
+        Wallet debited = balanceRepository.capture(hold.walletId(), hold.amount())
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with ID: " + hold.walletId()));
+        journal.entry("CAPTURE"); // crédits de la capture dans la même opération
+        journal.post("CAPTURE", debited.getId(), Money.of(debited.getCurrency(), hold.amount()).negate());
+        balanceCache.update(debited);
+
+        List<Wallet> wallets = new ArrayList<>(credits.size() + 1);
+        wallets.add(debited);
+        for (WalletLeg leg : credits) {
+            wallets.add(walletService.credit(leg.userId(), leg.amount()));
+        }
+        ActeurMetrics.increment("wallet.holds.captured");
+        return wallets;
+    }
+
+    /**
+     * Rend le montant réservé, que le hold soit expiré ou non
+     *
+     * @return le wallet dont le disponible a été rendu
+     * @throws HoldExpiredException hold inconnu ou déjà pris
+     */
+    @Transactional
+    public Wallet release(String holdId) {
+        WalletHoldRepository.Taken hold = take(holdId);
+        Wallet wallet = balanceRepository.release(hold.walletId(), hold.amount())
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with ID: " + hold.walletId()));
+        balanceCache.update(wallet);
+        ActeurMetrics.increment("wallet.holds.released");
+        return wallet;
+    }
+
+    /**
+     * Libère tous les holds expirés en une instruction SQL
+     */
+    public void sweep() {
+        try {
+            List<Wallet> wallets = holdRepository.sweepExpired(Instant.now());
+            if (!wallets.isEmpty()) {
+                wallets.forEach(balanceCache::update);
+                ActeurMetrics.add("wallet.holds.expired_wallets", wallets.size());
+                System.out.println("[WalletHoldService] Holds expirés libérés sur " + wallets.size() + " wallets");
+            }
+        } catch (DataAccessException e) {
+            System.err.println("[WalletHoldService] Libération des holds expirés impossible : " + e.getMessage());
+        }
+    }
+
+    private WalletHoldRepository.Taken take(String holdId) {
+        return holdRepository.take(holdId, Instant.now())
+                .orElseThrow(() -> new HoldExpiredException(holdId));
+    }
+}
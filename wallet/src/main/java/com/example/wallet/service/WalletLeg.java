@@ -0,0 +1,25 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.money.Money;
+
+/**
+ * Une jambe d'une opération multi-wallets : débit ou crédit d'un wallet (userId, devise du montant)
+ */
+public record WalletLeg(Long userId, Type type, Money amount) {
+
+    public enum Type {
+        DEBIT, CREDIT
+    }
+
+    public static WalletLeg debit(Long userId, Money amount) {
+        return new WalletLeg(userId, Type.DEBIT, amount);
+    }
+
+    public static WalletLeg credit(Long userId, Money amount) {
+        return new WalletLeg(userId, Type.CREDIT, amount);
+    }
+
+    public String currency() {
+        return amount.currency();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.wallet.service;
+
+import com.cypay.framework.money.Money;
+import com.example.wallet.entity.Wallet;
+
+import java.util.List;
+
+/**
+ * Opérations exposées par WalletHttpActeur
+ *
+ * Deux implémentations : WalletService (chaque opération en base) et
+ * WalletEngine (soldes en mémoire, activé par wallet.engine.enabled).
+ * Les montants sont des Money : la devise du wallet est celle du montant.
+ */
+public interface WalletOperations {
+
+    Wallet createWallet(Long userId, String currency);
+
+    Wallet getWallet(Long userId, String currency);
+
+    List<Wallet> getWalletsByUser(Long userId);
+
+    Wallet credit(Long userId, Money amount);
+
+    Wallet debit(Long userId, Money amount);
+
+    void transfer(Long fromUserId, Long toUserId, Money amount);
+
+    /**
+     * Applique toutes les jambes ou aucune (solde insuffisant = lot entier rejeté)
+     *
+     * @return les wallets après opération, dans l'ordre des jambes
+     */
+    List<Wallet> applyLegs(List<WalletLeg> legs);
+
+    /**
+     * Reverse les sous-soldes d'un wallet chaud dans son solde principal
+     *
+     * @return le wallet après consolidation (inchangé s'il n'est pas chaud)
+     */
+    Wallet consolidate(Long userId, String currency);
+
+    void deleteWallet(Long walletId);
+}
@@ -1,27 +1,44 @@
 package com.example.wallet.service;
 
+import com.cypay.framework.money.Money;
 import com.example.wallet.client.UserServiceClient;
 import com.example.wallet.entity.Wallet;
 import com.example.wallet.exception.UserNotFoundException;
+import com.example.wallet.repository.WalletBalanceRepository;
 import com.example.wallet.repository.WalletRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Service
-public class WalletService {
+public class WalletService implements WalletOperations {
 
     private final WalletRepository walletRepository;
+    private final WalletBalanceRepository balanceRepository;
     private final UserServiceClient userServiceClient;
+    private final WalletBalanceCache balanceCache;
+    private final HotWalletService hotWallets;
+    private final PostingJournal journal;
 
-    public WalletService(WalletRepository walletRepository, UserServiceClient userServiceClient) {
+    public WalletService(WalletRepository walletRepository, WalletBalanceRepository balanceRepository,
+                         UserServiceClient userServiceClient, WalletBalanceCache balanceCache,
+                         HotWalletService hotWallets, PostingJournal journal) {
         this.walletRepository = walletRepository;
+        this.balanceRepository = balanceRepository;
         this.userServiceClient = userServiceClient;
+        this.balanceCache = balanceCache;
+        this.hotWallets = hotWallets;
+        this.journal = journal;
     }
 
+    @Transactional
     public Wallet createWallet(Long userId, String currency) {
         // ✅ VALIDATION : Vérifier que l'utilisateur existe
         if (!userServiceClient.userExists(userId)) {
@@ -34,55 +51,187 @@ public class WalletService {
                     
                     // 🎁 BONUS : 10 000 €/$ offerts UNIQUEMENT à la création du PREMIER wallet !
                     List<Wallet> userWallets = walletRepository.findByUserId(userId);
-                    if (userWallets.isEmpty() && ("EUR".equalsIgnoreCase(currency) || "USD".equalsIgnoreCase(currency))) {
+                    boolean bonus = userWallets.isEmpty() && ("EUR".equalsIgnoreCase(currency) || "USD".equalsIgnoreCase(currency));
+                    if (bonus) {
                         newWallet.setBalance(new BigDecimal("10000.00"));
                     }
                     
-                    return walletRepository.save(newWallet);
+                    Wallet saved = walletRepository.save(newWallet);
+                    if (bonus) {
+                        journal.post("BONUS", saved.getId(), Money.of(currency, saved.getBalance()));
+                    }
+                    return saved;
                 });
     }
 
+    /**
+     * Lecture via le cache (tenu à jour par chaque mouvement de solde), sinon en base.
+     * Wallet chaud : toujours lu en base, sous-soldes additionnés.
+     */
     public Wallet getWallet(Long userId, String currency) {
-        return walletRepository.findByUserIdAndCurrency(userId, currency)
+        if (hotWallets.isHot(userId, currency)) {
+            return hotWallets.total(hotWalletId(userId, currency, false));
+        }
+        Wallet cached = balanceCache.get(userId, currency);
+        if (cached != null) {
+            return cached;
+        }
+        Wallet wallet = walletRepository.findByUserIdAndCurrency(userId, currency)
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Wallet not found for user " + userId + " and currency " + currency));
+        balanceCache.update(wallet);
+        return wallet;
     }
 
     public List<Wallet> getWalletsByUser(Long userId) {
-        return walletRepository.findByUserId(userId);
+        return walletRepository.findByUserId(userId).stream()
+                .map(wallet -> hotWallets.isHot(userId, wallet.getCurrency()) ? hotWallets.total(wallet.getId()) : wallet)
+                .toList();
     }
 
+    /**
+     * Crédit atomique (UPDATE ... RETURNING) ; le wallet est créé s'il n'existe pas (ex: réception de crypto)
+     */
     @Transactional
-    public Wallet credit(Long userId, String currency, BigDecimal amount) {
-        // Récupère le wallet existant ou le crée s'il n'existe pas (ex: réception de crypto)
-        Wallet wallet = createWallet(userId, currency);
+    public Wallet credit(Long userId, Money amount) {
+        return applyCredit(userId, amount).get();
+    }
 
-        wallet.setBalance(wallet.getBalance().add(amount));
-        return walletRepository.save(wallet);
+    /**
+     * @return le wallet après crédit ; wallet chaud : total des sous-soldes lu seulement à l'appel
+     */
+    private Supplier<Wallet> applyCredit(Long userId, Money amount) {
+        if (hotWallets.isHot(userId, amount.currency())) {
+            Long walletId = hotWalletId(userId, amount.currency(), true);
+            hotWallets.credit(walletId, amount);
+            journal.post("CREDIT", walletId, amount);
+            return () -> hotWallets.total(walletId);
+        }
+        Wallet wallet = balanceRepository.credit(userId, amount).orElseGet(() -> {
+            createWallet(userId, amount.currency());
+            return balanceRepository.credit(userId, amount)
+                    .orElseThrow(() -> new EntityNotFoundException(
+                            "Wallet not found for user " + userId + " and currency " + amount.currency()));
+        });
+        journal.post("CREDIT", wallet.getId(), amount);
+        balanceCache.update(wallet);
+        return () -> wallet;
     }
 
+    /**
+     * Débit atomique : le solde n'est décrémenté que s'il reste suffisant
+     */
     @Transactional
-    public Wallet debit(Long userId, String currency, BigDecimal amount) {
-        Wallet wallet = getWallet(userId, currency);
+    public Wallet debit(Long userId, Money amount) {
+        return applyDebit(userId, amount).get();
+    }
+
+    /**
+     * @return le wallet après débit ; wallet chaud : total des sous-soldes lu seulement à l'appel
+     */
+    private Supplier<Wallet> applyDebit(Long userId, Money amount) {
+        if (hotWallets.isHot(userId, amount.currency())) {
+            Long walletId = debitHot(userId, amount);
+            journal.post("DEBIT", walletId, amount.negate());
+            return () -> hotWallets.total(walletId);
+        }
+        Wallet wallet = balanceRepository.debit(userId, amount).orElseThrow(() -> {
+            getWallet(userId, amount.currency()); // wallet absent -> EntityNotFoundException
+            return new IllegalStateException("Solde insuffisant");
+        });
+        journal.post("DEBIT", wallet.getId(), amount.negate());
+        balanceCache.update(wallet);
+        return () -> wallet;
+    }
 
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new IllegalStateException("Solde insuffisant");
+    /**
+     * Les deux lignes sont verrouillées dans l'ordre des userId : deux virements
+     * croisés ne peuvent pas s'interbloquer. Un échec annule toute la transaction.
+     */
+    @Transactional
+    public void transfer(Long fromUserId, Long toUserId, Money amount) {
+        journal.entry("TRANSFER");
+        // wallets renvoyés non lus : pas de total de sous-soldes pour un wallet chaud
+        if (fromUserId <= toUserId) {
+            applyDebit(fromUserId, amount);
+            applyCredit(toUserId, amount);
+        } else {
+            applyCredit(toUserId, amount);
+            applyDebit(fromUserId, amount);
         }
+    }
 
-        wallet.setBalance(wallet.getBalance().subtract(amount));
-        return walletRepository.save(wallet);
+    /**
+     * Une transaction pour tout le lot ; les lignes sont verrouillées dans l'ordre
+     * (userId, currency) pour qu'aucun lot concurrent ne puisse s'interbloquer
+     */
+    @Transactional
+    public List<Wallet> applyLegs(List<WalletLeg> legs) {
+        journal.entry("LEGS");
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < legs.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> legs.get(i).userId()).thenComparing(i -> legs.get(i).currency()));
+
+        Wallet[] results = new Wallet[legs.size()];
+        for (int i : order) {
+            WalletLeg leg = legs.get(i);
+            results[i] = leg.type() == WalletLeg.Type.DEBIT
+                    ? debit(leg.userId(), leg.amount())
+                    : credit(leg.userId(), leg.amount());
+        }
+        return Arrays.asList(results);
     }
 
+    /**
+     * Reverse les sous-soldes d'un wallet chaud dans son solde principal (sans effet sur un wallet normal)
+     */
     @Transactional
-    public void transfer(Long fromUserId, Long toUserId, String currency, BigDecimal amount) {
-        debit(fromUserId, currency, amount);
-        credit(toUserId, currency, amount);
+    public Wallet consolidate(Long userId, String currency) {
+        consolidateHot(userId, currency);
+        return getWallet(userId, currency);
+    }
+
+    /**
+     * @return true si le wallet est chaud et qu'un montant a été reversé (une réservation peut alors être retentée)
+     */
+    public boolean consolidateHot(Long userId, String currency) {
+        return hotWallets.isHot(userId, currency) && hotWallets.consolidate(hotWalletId(userId, currency, false));
     }
 
     public void deleteWallet(Long walletId) {
-        if (!walletRepository.existsById(walletId)) {
-            throw new EntityNotFoundException("Wallet not found with ID: " + walletId);
-        }
+        Wallet wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with ID: " + walletId));
         walletRepository.deleteById(walletId);
+        balanceCache.invalidate(wallet.getUserId(), wallet.getCurrency());
+        hotWallets.forget(wallet.getUserId(), wallet.getCurrency());
+    }
+
+    /**
+     * Wallet chaud : un sous-solde, sinon le solde principal, sinon tout consolidé puis le solde principal
+     *
+     * @return l'id du wallet débité
+     */
+    private Long debitHot(Long userId, Money amount) {
+        Long walletId = hotWalletId(userId, amount.currency(), false);
+        if (hotWallets.debit(walletId, amount)
+                || balanceRepository.debit(userId, amount).isPresent()
+                || (hotWallets.consolidate(walletId) && balanceRepository.debit(userId, amount).isPresent())) {
+            return walletId;
+        }
+        throw new IllegalStateException("Solde insuffisant");
+    }
+
+    /**
+     * @param create true pour un crédit : wallet créé s'il n'existe pas, comme pour un wallet normal
+     */
+    private Long hotWalletId(Long userId, String currency, boolean create) {
+        return hotWallets.walletId(userId, currency, () -> create
+                ? createWallet(userId, currency).getId()
+                : walletRepository.findByUserIdAndCurrency(userId, currency)
+                        .orElseThrow(() -> new EntityNotFoundException(
+                                "Wallet not found for user " + userId + " and currency " + currency))
+                        .getId());
     }
 }
@@ -0,0 +1,28 @@
+package com.example.wallet.web.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Réservation d'un montant sur un wallet (ttlSeconds absent ou 0 : durée par défaut)
+ */
+public class HoldRequest {
+
+    private Long userId;
+    private String currency;
+    private BigDecimal amount;
+    private long ttlSeconds;
+
+    public HoldRequest() {}
+
+    public HoldRequest(Long userId, String currency, BigDecimal amount, long ttlSeconds) {
+        this.userId = userId;
+        this.currency = currency;
+        this.amount = amount;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getCurrency() { return currency; }
+    public BigDecimal getAmount() { return amount; }
+    public long getTtlSeconds() { return ttlSeconds; }
+}
@@ -0,0 +1,25 @@
+package com.example.wallet.web.dto;
+
+import com.example.wallet.entity.Wallet;
+
+/**
+ * Hold créé : identifiant à capturer ou libérer avant expiresAt (epoch ms)
+ */
+public class HoldResponse {
+
+    private String holdId;
+    private long expiresAt;
+    private Wallet wallet;
+
+    public HoldResponse() {}
+
+    public HoldResponse(String holdId, long expiresAt, Wallet wallet) {
+        this.holdId = holdId;
+        this.expiresAt = expiresAt;
+        this.wallet = wallet;
+    }
+
+    public String getHoldId() { return holdId; }
+    public long getExpiresAt() { return expiresAt; }
+    public Wallet getWallet() { return wallet; }
+}
@@ -0,0 +1,42 @@
+package com.example.wallet.web.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * POST /api/wallets/legs : {"legs": [{"userId": 1, "currency": "EUR", "type": "DEBIT", "amount": 100}, ...]}
+ */
+public class LegsRequest {
+
+    private List<Leg> legs;
+
+    public LegsRequest() {}
+
+    public LegsRequest(List<Leg> legs) {
+        this.legs = legs;
+    }
+
+    public List<Leg> getLegs() { return legs; }
+
+    public static class Leg {
+
+        private Long userId;
+        private String currency;
+        private String type; // "DEBIT" ou "CREDIT"
+        private BigDecimal amount;
+
+        public Leg() {}
+
+        public Leg(Long userId, String currency, String type, BigDecimal amount) {
+            this.userId = userId;
+            this.currency = currency;
+            this.type = type;
+            this.amount = amount;
+        }
+
+        public Long getUserId() { return userId; }
+        public String getCurrency() { return currency; }
+        public String getType() { return type; }
+        public BigDecimal getAmount() { return amount; }
+    }
+}
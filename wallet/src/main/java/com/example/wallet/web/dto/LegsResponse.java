@@ -0,0 +1,21 @@
+package com.example.wallet.web.dto;
+
+import com.example.wallet.entity.Wallet;
+
+import java.util.List;
+
+/**
+ * Wallets après application du lot, dans l'ordre des jambes
+ */
+public class LegsResponse {
+
+    private List<Wallet> wallets;
+
+    public LegsResponse() {}
+
+    public LegsResponse(List<Wallet> wallets) {
+        this.wallets = wallets;
+    }
+
+    public List<Wallet> getWallets() { return wallets; }
+}
@@ -0,0 +1,25 @@
+package com.example.wallet.web.dto;
+
+import java.math.BigDecimal;
+
+public class TransferRequest {
+
+    private Long fromUserId;
+    private Long toUserId;
+    private String currency;
+    private BigDecimal amount;
+
+    public TransferRequest() {}
+
+    public TransferRequest(Long fromUserId, Long toUserId, String currency, BigDecimal amount) {
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
+        this.currency = currency;
+        this.amount = amount;
+    }
+
+    public Long getFromUserId() { return fromUserId; }
+    public Long getToUserId() { return toUserId; }
+    public String getCurrency() { return currency; }
+    public BigDecimal getAmount() { return amount; }
+}
@@ -0,0 +1,162 @@
+package com.example.wallet.web.dto;
+
+import com.cypay.framework.wire.BinaryCodec;
+import com.cypay.framework.wire.BinaryReader;
+import com.cypay.framework.wire.BinaryWriter;
+import com.cypay.framework.wire.WireFormat;
+import com.example.wallet.entity.Wallet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codecs binaires des échanges internes avec le microservice Transactions
+ *
+ * Ordre des champs (contrat partagé avec transactions/client/WalletWire) :
+ * OperationRequest : currency, amount
+ * TransferRequest  : fromUserId, toUserId, currency, amount
+ * Wallet           : id, userId, balance, currency, version, held
+ * LegsRequest      : nombre, puis par jambe userId, currency, type, amount
+ * LegsResponse     : nombre, puis un Wallet par jambe
+ * HoldRequest      : userId, currency, amount, ttlSeconds
+ * HoldResponse     : holdId, expiresAt, Wallet
+ */
+public final class WalletWireCodecs {
+
+    private WalletWireCodecs() {
+    }
+
+    public static void register() {
+        WireFormat.register(OperationRequest.class, new BinaryCodec<>() {
+            @Override
+            public void write(OperationRequest value, BinaryWriter out) {
+                out.writeString(value.getCurrency()).writeDecimal(value.getAmount());
+            }
+
+            @Override
+            public OperationRequest read(BinaryReader in) {
+                OperationRequest request = new OperationRequest();
+                request.setCurrency(in.readString());
+                request.setAmount(in.readDecimal());
+                return request;
+            }
+        });
+
+        WireFormat.register(TransferRequest.class, new BinaryCodec<>() {
+            @Override
+            public void write(TransferRequest value, BinaryWriter out) {
+                out.writeNullableLong(value.getFromUserId())
+                        .writeNullableLong(value.getToUserId())
+                        .writeString(value.getCurrency())
+                        .writeDecimal(value.getAmount());
+            }
+
+            @Override
+            public TransferRequest read(BinaryReader in) {
+                return new TransferRequest(in.readNullableLong(), in.readNullableLong(),
+                        in.readString(), in.readDecimal());
+            }
+        });
+
+        WireFormat.register(Wallet.class, new BinaryCodec<>() {
+            @Override
+            public void write(Wallet value, BinaryWriter out) {
+                writeWallet(value, out);
+            }
+
+            @Override
+            public Wallet read(BinaryReader in) {
+                return readWallet(in);
+            }
+        });
+
+        WireFormat.register(LegsRequest.class, new BinaryCodec<>() {
+            @Override
+            public void write(LegsRequest value, BinaryWriter out) {
+                out.writeInt(value.getLegs().size());
+                for (LegsRequest.Leg leg : value.getLegs()) {
+                    out.writeNullableLong(leg.getUserId())
+                            .writeString(leg.getCurrency())
+                            .writeString(leg.getType())
+                            .writeDecimal(leg.getAmount());
+                }
+            }
+
+            @Override
+            public LegsRequest read(BinaryReader in) {
+                int count = in.readInt();
+                List<LegsRequest.Leg> legs = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    legs.add(new LegsRequest.Leg(in.readNullableLong(), in.readString(), in.readString(), in.readDecimal()));
+                }
+                return new LegsRequest(legs);
+            }
+        });
+
+        WireFormat.register(LegsResponse.class, new BinaryCodec<>() {
+            @Override
+            public void write(LegsResponse value, BinaryWriter out) {
+                out.writeInt(value.getWallets().size());
+                value.getWallets().forEach(wallet -> writeWallet(wallet, out));
+            }
+
+            @Override
+            public LegsResponse read(BinaryReader in) {
+                int count = in.readInt();
+                List<Wallet> wallets = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    wallets.add(readWallet(in));
+                }
+                return new LegsResponse(wallets);
+            }
+        });
+
+        WireFormat.register(HoldRequest.class, new BinaryCodec<>() {
+            @Override
+            public void write(HoldRequest value, BinaryWriter out) {
+                out.writeNullableLong(value.getUserId())
+                        .writeString(value.getCurrency())
+                        .writeDecimal(value.getAmount())
+                        .writeVarLong(value.getTtlSeconds());
+            }
+
+            @Override
+            public HoldRequest read(BinaryReader in) {
+                return new HoldRequest(in.readNullableLong(), in.readString(), in.readDecimal(), in.readVarLong());
+            }
+        });
+
+        WireFormat.register(HoldResponse.class, new BinaryCodec<>() {
+            @Override
+            public void write(HoldResponse value, BinaryWriter out) {
+                out.writeString(value.getHoldId()).writeVarLong(value.getExpiresAt());
+                writeWallet(value.getWallet(), out);
+            }
+
+            @Override
+            public HoldResponse read(BinaryReader in) {
+                return new HoldResponse(in.readString(), in.readVarLong(), readWallet(in));
+            }
+        });
+    }
+
+    private static void writeWallet(Wallet value, BinaryWriter out) {
+        out.writeNullableLong(value.getId())
+                .writeNullableLong(value.getUserId())
+                .writeDecimal(value.getBalance())
+                .writeString(value.getCurrency())
+                .writeVarLong(value.getVersion())
+                .writeDecimal(value.getHeld());
+    }
+
+    private static Wallet readWallet(BinaryReader in) {
+        Wallet wallet = new Wallet();
+        wallet.setId(in.readNullableLong());
+        wallet.setUserId(in.readNullableLong());
+        wallet.setBalance(in.readDecimal());
+        wallet.setCurrency(in.readString());
+        wallet.setVersion(in.readVarLong());
+        wallet.setHeld(in.readDecimal());
+        return wallet;
+    }
+}
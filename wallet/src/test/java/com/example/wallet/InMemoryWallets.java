@@ -0,0 +1,320 @@
+package com.example.wallet;
+
+import com.cypay.framework.money.Money;
+import com.example.wallet.client.UserServiceClient;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.repository.WalletBalanceRepository;
+import com.example.wallet.repository.WalletPostingRepository;
+import com.example.wallet.repository.WalletPostingRepository.Posting;
+import com.example.wallet.repository.WalletRepository;
+import com.example.wallet.repository.WalletScanRepository;
+import com.example.wallet.repository.WalletSubBalanceRepository;
+import com.example.wallet.service.HotWalletService;
+import com.example.wallet.service.PostingJournal;
+import com.example.wallet.service.WalletBalanceCache;
+import com.example.wallet.service.WalletService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tables wallets, wallet_sub_balances et wallet_postings en mémoire, sans base :
+ * les dépôts JDBC et JPA sont des stubs sur ces tables. Seul endroit des tests à
+ * suivre les constructeurs de WalletService, PostingJournal et des dépôts.
+ */
+public final class InMemoryWallets {
+
+    /** Table wallets (id -> ligne) */
+    private final Map<Long, Wallet> table = new ConcurrentHashMap<>();
+    /** Table wallet_sub_balances (walletId -> shard -> sous-solde) */
+    private final Map<Long, Map<Integer, BigDecimal>> subBalances = new ConcurrentHashMap<>();
+    /** Batches reçus par wallet_postings, dans l'ordre d'écriture */
+    private final List<List<Posting>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public static Money money(String currency, String amount) {
+        return Money.parse(currency, amount);
+    }
+
+    public static Wallet wallet(Long id, Long userId, String currency, String balance) {
+        Wallet wallet = new Wallet(userId, currency);
+        wallet.setId(id);
+        wallet.setBalance(new BigDecimal(balance));
+        return wallet;
+    }
+
+    /**
+     * Journal inactif, comme quand le moteur en mémoire tient les soldes
+     */
+    public static PostingJournal engineJournal() {
+        return new PostingJournal(null, true, 0);
+    }
+
+    /**
+     * Ajoute une ligne (id attribué si absent)
+     *
+     * @return la ligne stockée, modifiable par le test
+     */
+    public Wallet add(Wallet wallet) {
+        Wallet row = copy(wallet);
+        if (row.getId() == null) {
+            row.setId(sequence.incrementAndGet());
+        } else {
+            sequence.accumulateAndGet(row.getId(), Math::max);
+        }
+        table.put(row.getId(), row);
+        return row;
+    }
+
+    /**
+     * @return la ligne stockée, ou null
+     */
+    public Wallet row(Long walletId) {
+        return table.get(walletId);
+    }
+
+    /**
+     * @return la ligne stockée, ou null
+     */
+    public Wallet row(Long userId, String currency) {
+        return table.values().stream()
+                .filter(w -> w.getUserId().equals(userId) && w.getCurrency().equals(currency))
+                .findFirst().orElse(null);
+    }
+
+    /**
+     * @return les sous-soldes du wallet (shard -> solde), modifiables par le test
+     */
+    public Map<Integer, BigDecimal> subBalances(Long walletId) {
+        return subBalances.computeIfAbsent(walletId, id -> new ConcurrentHashMap<>());
+    }
+
+    public List<List<Posting>> batches() {
+        return batches;
+    }
+
+    /**
+     * @return toutes les écritures, dans l'ordre d'écriture
+     */
+    public List<Posting> postings() {
+        return batches.stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * Journal actif (soldes en base) écrivant dans wallet_postings
+     */
+    public PostingJournal journal() {
+        return new PostingJournal(postingRepository(), false, 0);
+    }
+
+    /**
+     * Soldes en base, aucun wallet chaud, tout utilisateur existe
+     */
+    public WalletService walletService(WalletBalanceCache cache, PostingJournal journal) {
+        return new WalletService(repository(), balanceRepository(), users(), cache,
+                new HotWalletService(null, "", 1, 0), journal);
+    }
+
+    public WalletRepository repository() {
+        return (WalletRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WalletRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> table.values().stream().map(InMemoryWallets::copy).toList();
+                    case "findById" -> Optional.ofNullable(table.get((Long) args[0])).map(InMemoryWallets::copy);
+                    case "findByUserId" -> table.values().stream()
+                            .filter(w -> w.getUserId().equals(args[0])).map(InMemoryWallets::copy).toList();
+                    case "findByUserIdAndCurrency" -> Optional.ofNullable(row((Long) args[0], (String) args[1]))
+                            .map(InMemoryWallets::copy);
+                    case "existsById" -> table.containsKey((Long) args[0]);
+                    case "deleteById" -> table.remove((Long) args[0]);
+                    case "save" -> copy(add((Wallet) args[0]));
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Écritures différées du moteur : UPDATE wallets SET balance = ?, version = ? WHERE id = ?
+     */
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate() {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                for (Object[] args : batchArgs) {
+                    Wallet row = table.get((Long) args[2]);
+                    if (row != null) {
+                        row.setBalance((BigDecimal) args[0]);
+                        row.setVersion((Long) args[1]);
+                    }
+                }
+                return new int[batchArgs.size()];
+            }
+        };
+    }
+
+    /**
+     * Mouvements conditionnés au disponible (solde - réservé), comme les UPDATE ... RETURNING
+     */
+    public WalletBalanceRepository balanceRepository() {
+        return new WalletBalanceRepository(null) {
+            @Override
+            public Optional<Wallet> credit(Long userId, Money amount) {
+                return move(row(userId, amount.currency()), amount.toBigDecimal(), BigDecimal.ZERO, false);
+            }
+
+            @Override
+            public Optional<Wallet> debit(Long userId, Money amount) {
+                return move(row(userId, amount.currency()), amount.toBigDecimal().negate(), BigDecimal.ZERO, true);
+            }
+
+            @Override
+            public Optional<Wallet> hold(Long userId, Money amount) {
+                return move(row(userId, amount.currency()), BigDecimal.ZERO, amount.toBigDecimal(), true);
+            }
+
+            @Override
+            public Optional<Wallet> capture(Long walletId, BigDecimal amount) {
+                return move(table.get(walletId), amount.negate(), amount.negate(), false);
+            }
+
+            @Override
+            public Optional<Wallet> release(Long walletId, BigDecimal amount) {
+                return move(table.get(walletId), BigDecimal.ZERO, amount.negate(), false);
+            }
+        };
+    }
+
+    public WalletSubBalanceRepository subBalanceRepository() {
+        return new WalletSubBalanceRepository(null) {
+            @Override
+            public void create(Long walletId, int shards) {
+                for (int i = 0; i < shards; i++) {
+                    subBalances(walletId).putIfAbsent(i, BigDecimal.ZERO);
+                }
+            }
+
+            @Override
+            public boolean credit(Long walletId, int shard, Money amount) {
+                return subBalances(walletId).computeIfPresent(shard,
+                        (s, balance) -> balance.add(amount.toBigDecimal())) != null;
+            }
+
+            @Override
+            public boolean debit(Long walletId, int shard, Money amount) {
+                synchronized (InMemoryWallets.this) {
+                    BigDecimal balance = subBalances(walletId).get(shard);
+                    if (balance == null || balance.compareTo(amount.toBigDecimal()) < 0) {
+                        return false;
+                    }
+                    subBalances(walletId).put(shard, balance.subtract(amount.toBigDecimal()));
+                    return true;
+                }
+            }
+
+            @Override
+            public Optional<Wallet> total(Long walletId) {
+                return Optional.ofNullable(table.get(walletId)).map(row -> {
+                    Wallet total = copy(row);
+                    total.setBalance(subBalances(walletId).values().stream().reduce(row.getBalance(), BigDecimal::add));
+                    return total;
+                });
+            }
+
+            @Override
+            public Optional<Wallet> consolidate(Long walletId) {
+                synchronized (InMemoryWallets.this) {
+                    Map<Integer, BigDecimal> shards = subBalances(walletId);
+                    BigDecimal moved = shards.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+                    if (moved.signum() == 0) {
+                        return Optional.empty();
+                    }
+                    shards.replaceAll((shard, balance) -> BigDecimal.ZERO);
+                    return move(table.get(walletId), moved, BigDecimal.ZERO, false);
+                }
+            }
+
+            @Override
+            public List<Wallet> consolidateAll() {
+                List<Wallet> wallets = new ArrayList<>();
+                for (Long walletId : subBalances.keySet()) {
+                    consolidate(walletId).ifPresent(wallets::add);
+                }
+                return wallets;
+            }
+        };
+    }
+
+    /**
+     * Parcours de la table wallets trié par utilisateur
+     */
+    public WalletScanRepository scanRepository() {
+        return new WalletScanRepository(null) {
+            @Override
+            public long stream(long afterUserId, int fetchSize, BalanceWriter writer) throws IOException {
+                List<Wallet> rows = table.values().stream().filter(w -> w.getUserId() > afterUserId)
+                        .sorted(Comparator.comparing(Wallet::getUserId).thenComparing(Wallet::getId)).toList();
+                for (Wallet row : rows) {
+                    writer.write(row.getUserId(), row.getCurrency(), row.getBalance());
+                }
+                return rows.size();
+            }
+        };
+    }
+
+    private WalletPostingRepository postingRepository() {
+        return new WalletPostingRepository(null) {
+            @Override
+            public void insert(List<Posting> postings) {
+                batches.add(List.copyOf(postings));
+            }
+        };
+    }
+
+    private static UserServiceClient users() {
+        return new UserServiceClient("http://localhost:1", 10, 60, "cle-de-test-cypay-suffisamment-longue-pour-hs256", 60_000) {
+            @Override
+            public boolean userExists(Long userId) {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Applique balance += balanceDelta, held += heldDelta et incrémente la version
+     *
+     * @param checkAvailable refusé si le disponible deviendrait négatif
+     * @return copie de la ligne après mouvement, vide si absente ou refusée
+     */
+    private synchronized Optional<Wallet> move(Wallet row, BigDecimal balanceDelta, BigDecimal heldDelta,
+                                               boolean checkAvailable) {
+        if (row == null) {
+            return Optional.empty();
+        }
+        BigDecimal balance = row.getBalance().add(balanceDelta);
+        BigDecimal held = row.getHeld().add(heldDelta);
+        if (checkAvailable && balance.subtract(held).signum() < 0) {
+            return Optional.empty();
+        }
+        row.setBalance(balance);
+        row.setHeld(held);
+        row.setVersion(row.getVersion() + 1);
+        return Optional.of(copy(row));
+    }
+
+    private static Wallet copy(Wallet wallet) {
+        Wallet copy = new Wallet(wallet.getUserId(), wallet.getCurrency());
+        copy.setId(wallet.getId());
+        copy.setBalance(wallet.getBalance());
+        copy.setHeld(wallet.getHeld());
+        copy.setVersion(wallet.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.wallet.client;
+
+import com.cypay.framework.security.JwtValidator;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceClientTest {
+
+    private static final String SECRET = "cle-de-test-cypay-suffisamment-longue-pour-hs256";
+
+    private HttpServer userService;
+    private final AtomicInteger appels = new AtomicInteger();
+    private UserServiceClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Faux service User : les ids pairs existent, réponse lente pour laisser les appels s'accumuler
+        userService = HttpServer.create(new InetSocketAddress(0), 0);
+        JwtValidator jwt = new JwtValidator(SECRET, 60_000);
+        userService.createContext("/users/exists", exchange -> {
+            appels.incrementAndGet();
+            String auth = exchange.getRequestHeaders().getFirst("Authorization");
+            if (auth == null || !jwt.validateTokenForUser(jwt.extractTokenFromHeader(auth), UserServiceClient.SERVICE_SUBJECT)) {
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+                return;
+            }
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            List<String> pairs = new ArrayList<>();
+            for (String id : body.replaceAll("[^0-9,]", "").split(",")) {
+                if (!id.isEmpty() && Long.parseLong(id) % 2 == 0) pairs.add(id);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = ("{\"existing\":[" + String.join(",", pairs) + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        userService.start();
+        client = new UserServiceClient("http://localhost:" + userService.getAddress().getPort(), 1000, 600, SECRET, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.stop(0);
+    }
+
+    @Test
+    void verificationsConcurrentesRegroupees() {
+        List<CompletableFuture<Boolean>> resultats = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            long userId = id;
+            resultats.add(CompletableFuture.supplyAsync(() -> client.userExists(userId)));
+        }
+        for (int i = 0; i < resultats.size(); i++) {
+            assertEquals((i + 1) % 2 == 0, resultats.get(i).join(), "id " + (i + 1));
+        }
+        assertTrue(appels.get() < 10, "40 vérifications en " + appels.get() + " appel(s)");
+    }
+
+    @Test
+    void utilisateurConnuSansAppelReseau() {
+        assertTrue(client.userExists(2L));
+        int apresPremier = appels.get();
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(client.userExists(2L));
+        }
+        assertEquals(apresPremier, appels.get());
+
+        // Les absences ne sont pas mises en cache
+        assertFalse(client.userExists(3L));
+        assertFalse(client.userExists(3L));
+        assertEquals(apresPremier + 2, appels.get());
+    }
+}
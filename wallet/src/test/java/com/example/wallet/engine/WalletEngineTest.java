@@ -0,0 +1,234 @@
+package com.example.wallet.engine;
+
+import com.cypay.framework.metrics.ActeurMetrics;
+import com.example.wallet.InMemoryWallets;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.service.WalletBalanceCache;
+import com.example.wallet.service.WalletLeg;
+import com.example.wallet.service.WalletService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.wallet.InMemoryWallets.money;
+import static com.example.wallet.InMemoryWallets.wallet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletEngineTest {
+
+    @TempDir
+    Path journalDir;
+
+    /** Table wallets simulée */
+    private final InMemoryWallets wallets = new InMemoryWallets();
+    private final List<WalletEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        engines.forEach(WalletEngine::stop);
+    }
+
+    @Test
+    void debitsConcurrentsSansDecouvertNiPerte() throws Exception {
+        WalletEngine engine = engine(3_600_000);
+        engine.credit(1L, money("USDT", "500"));
+        AtomicInteger acceptes = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        engine.debit(1L, money("USDT", "1"));
+                        acceptes.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        assertEquals("Solde insuffisant", e.getMessage());
+                    }
+                    engine.credit(2L, money("USDT", "1"));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(500, acceptes.get());
+        assertEquals(0, engine.getWallet(1L, "USDT").getBalance().signum());
+        assertEquals(0, engine.getWallet(2L, "USDT").getBalance().compareTo(new BigDecimal("800")));
+    }
+
+    @Test
+    void soldesAcquittesReconstruitsDepuisLeJournal() throws Exception {
+        WalletEngine avant = engine(3_600_000); // aucune écriture en base pendant le test
+        Long walletId = avant.credit(1L, money("USDT", "42")).getId();
+        avant.debit(1L, money("USDT", "2"));
+        assertEquals(0, wallets.row(walletId).getBalance().signum(), "Écriture en base différée");
+
+        // Redémarrage sans flush : table + journal
+        WalletEngine apres = engine(3_600_000);
+
+        assertEquals(0, apres.getWallet(1L, "USDT").getBalance().compareTo(new BigDecimal("40")));
+        assertEquals(0, wallets.row(walletId).getBalance().compareTo(new BigDecimal("40")), "Soldes rejoués écrits en base");
+    }
+
+    @Test
+    void versionIncrementeeParMouvementEtConserveeAuRedemarrage() throws Exception {
+        WalletEngine avant = engine(3_600_000);
+        long creation = avant.createWallet(1L, "USDT").getVersion();
+        avant.credit(1L, money("USDT", "10"));
+        Wallet apresDebit = avant.debit(1L, money("USDT", "3"));
+        assertEquals(creation + 2, apresDebit.getVersion());
+
+        // versions acquittées relues depuis le journal, jamais réutilisées
+        WalletEngine apres = engine(3_600_000);
+        assertEquals(creation + 2, apres.getWallet(1L, "USDT").getVersion());
+        assertEquals(creation + 3, apres.credit(1L, money("USDT", "1")).getVersion());
+    }
+
+    @Test
+    void soldeTropPreciseMigreExplicitementAuDemarrage() throws Exception {
+        Wallet ancien = wallets.add(wallet(null, 1L, "EUR", "10.005")); // écrit avant Money
+        long version = ancien.getVersion();
+
+        WalletEngine engine = engine(3_600_000);
+
+        assertEquals(new BigDecimal("10.00"), wallets.row(ancien.getId()).getBalance(), "Arrondi HALF_EVEN écrit en base");
+        assertEquals(version + 1, wallets.row(ancien.getId()).getVersion());
+        assertEquals(0, engine.getWallet(1L, "EUR").getBalance().compareTo(new BigDecimal("10.00")));
+    }
+
+    @Test
+    void flusherEcritEnBaseEtVideLeJournal() throws Exception {
+        WalletEngine engine = engine(10);
+        Long walletId = engine.credit(1L, money("USDT", "7")).getId();
+        Path journal = journalDir.resolve("shard-1.journal");
+
+        long limite = System.currentTimeMillis() + 5_000;
+        while ((wallets.row(walletId).getBalance().signum() == 0 || Files.size(journal) > 0)
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, wallets.row(walletId).getBalance().compareTo(new BigDecimal("7")));
+        assertEquals(0, Files.size(journal), "Journal vidé une fois les soldes en base");
+    }
+
+    @Test
+    void virementEntreShards() throws Exception {
+        WalletEngine engine = engine(3_600_000);
+        engine.credit(1L, money("USDT", "100"));
+
+        engine.transfer(1L, 2L, money("USDT", "30"));
+
+        assertEquals(0, engine.getWallet(1L, "USDT").getBalance().compareTo(new BigDecimal("70")));
+        assertEquals(0, engine.getWallet(2L, "USDT").getBalance().compareTo(new BigDecimal("30")));
+        assertThrows(IllegalStateException.class, () -> engine.transfer(2L, 1L, money("USDT", "31")));
+        assertEquals(0, engine.getWallet(1L, "USDT").getBalance().compareTo(new BigDecimal("70")));
+    }
+
+    @Test
+    void lotMultiJambesRejeteEnEntier() throws Exception {
+        WalletEngine engine = engine(3_600_000);
+        engine.credit(2L, money("USDT", "100"));
+        engine.credit(2L, money("BTC", "1"));
+
+        // achat : débit USDT + crédit BTC sur le même shard
+        List<Wallet> wallets = engine.applyLegs(List.of(
+                WalletLeg.debit(2L, money("USDT", "60")),
+                WalletLeg.credit(2L, money("BTC", "0.5"))));
+        assertEquals(0, wallets.get(0).getBalance().compareTo(new BigDecimal("40")));
+        assertEquals(0, wallets.get(1).getBalance().compareTo(new BigDecimal("1.5")));
+
+        assertThrows(IllegalStateException.class, () -> engine.applyLegs(List.of(
+                WalletLeg.credit(2L, money("BTC", "0.5")),
+                WalletLeg.debit(2L, money("USDT", "41")))));
+        assertEquals(0, engine.getWallet(2L, "USDT").getBalance().compareTo(new BigDecimal("40")));
+        assertEquals(0, engine.getWallet(2L, "BTC").getBalance().compareTo(new BigDecimal("1.5")));
+    }
+
+    @Test
+    void lotEntreShardsCompenseSiUneJambeEchoue() throws Exception {
+        WalletEngine engine = engine(3_600_000);
+        engine.credit(1L, money("USDT", "100"));
+        engine.credit(2L, money("USDT", "10"));
+
+        // le débit du shard 1 passe, celui du shard 0 échoue : le premier est compensé
+        assertThrows(IllegalStateException.class, () -> engine.applyLegs(List.of(
+                WalletLeg.debit(1L, money("USDT", "50")),
+                WalletLeg.debit(2L, money("USDT", "11")),
+                WalletLeg.credit(3L, money("USDT", "61")))));
+
+        assertEquals(0, engine.getWallet(1L, "USDT").getBalance().compareTo(new BigDecimal("100")));
+        assertEquals(0, engine.getWallet(2L, "USDT").getBalance().compareTo(new BigDecimal("10")));
+        assertThrows(EntityNotFoundException.class, () -> engine.getWallet(3L, "USDT"),
+                "Wallet crédité créé seulement une fois les débits acquittés");
+    }
+
+    @Test
+    void achatRefuseNeCreePasLeWalletCredite() throws Exception {
+        WalletEngine engine = engine(3_600_000);
+        engine.credit(2L, money("USDT", "10"));
+
+        assertThrows(IllegalStateException.class, () -> engine.applyLegs(List.of(
+                WalletLeg.debit(2L, money("USDT", "11")),
+                WalletLeg.credit(2L, money("BTC", "0.1")))));
+        assertThrows(EntityNotFoundException.class, () -> engine.getWallet(2L, "BTC"));
+
+        List<Wallet> wallets = engine.applyLegs(List.of(
+                WalletLeg.debit(2L, money("USDT", "10")),
+                WalletLeg.credit(2L, money("BTC", "0.1"))));
+        assertEquals(0, wallets.get(0).getBalance().signum());
+        assertEquals(0, wallets.get(1).getBalance().compareTo(new BigDecimal("0.1")));
+    }
+
+    @Test
+    void groupeBorneQuandLaMailboxNeSeVidePas() throws Exception {
+        Wallet wallet = new Wallet(1L, "USDT");
+        wallet.setId(1L);
+        wallet.setBalance(BigDecimal.ZERO);
+        WalletShard shard = new WalletShard("shard-test", new WalletJournal(journalDir.resolve("shard-test.journal")));
+        shard.preload(wallet);
+
+        // mailbox pleine avant le démarrage : elle ne se vide qu'au dernier message
+        List<CompletableFuture<Wallet>> replies = new ArrayList<>();
+        for (int i = 0; i < 4 * WalletShard.MAX_GROUP; i++) {
+            CompletableFuture<Wallet> reply = new CompletableFuture<>();
+            shard.envoyerObjet(new WalletShard.Credit(1L, money("USDT", "1"), reply));
+            replies.add(reply);
+        }
+        long syncsAvant = ActeurMetrics.count("wallet.engine.journal_syncs");
+        shard.demarrer();
+        try {
+            for (CompletableFuture<Wallet> reply : replies) {
+                reply.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            shard.arreter();
+        }
+        assertTrue(ActeurMetrics.count("wallet.engine.journal_syncs") - syncsAvant >= 4,
+                "Un sync au moins tous les " + WalletShard.MAX_GROUP + " messages");
+    }
+
+    private WalletEngine engine(long flushIntervalMs) throws Exception {
+        WalletService service = wallets.walletService(new WalletBalanceCache(100, 60), InMemoryWallets.engineJournal());
+        WalletEngine engine = new WalletEngine(service, wallets.repository(), wallets.jdbcTemplate(), 2,
+                journalDir.toString(), flushIntervalMs);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.wallet.repository;
+
+import com.cypay.framework.money.Money;
+import com.example.wallet.service.HotWalletService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress des mouvements de solde concurrents sur un même wallet, contre une vraie base PostgreSQL
+ *
+ * mvn test -Dtest=WalletBalanceStressTest -Dwallet.stress.jdbc-url=jdbc:postgresql://localhost:5432/postgres
+ *          -Dwallet.stress.user=postgres -Dwallet.stress.password=...
+ */
+@EnabledIfSystemProperty(named = "wallet.stress.jdbc-url", matches = ".+")
+class WalletBalanceStressTest {
+
+    private static final long USER_ID = -4_242L;
+    private static final String CURRENCY = "STRESS";
+    private static final Money ONE = Money.parse(CURRENCY, "1");
+    private static final int THREADS = 8;
+    private static final int OPS_PER_THREAD = 250;
+    private static final int TOTAL_OPS = THREADS * OPS_PER_THREAD;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static WalletBalanceRepository repository;
+    private static HotWalletService hotWallets;
+
+    @BeforeAll
+    static void connect() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("wallet.stress.jdbc-url"));
+        config.setUsername(System.getProperty("wallet.stress.user", "postgres"));
+        config.setPassword(System.getProperty("wallet.stress.password", ""));
+        config.setMaximumPoolSize(THREADS);
+        dataSource = new HikariDataSource(config);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new WalletBalanceRepository(jdbcTemplate);
+        hotWallets = new HotWalletService(new WalletSubBalanceRepository(jdbcTemplate), USER_ID + ":" + CURRENCY, THREADS, 0);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        deleteWallet();
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void resetWallet() {
+        deleteWallet();
+        jdbcTemplate.update("INSERT INTO wallets (user_id, currency, balance) VALUES (?, ?, 0)", USER_ID, CURRENCY);
+    }
+
+    @Test
+    void debitsConcurrentsSansDecouvert() throws Exception {
+        setBalance(TOTAL_OPS / 2);
+        AtomicInteger acceptes = new AtomicInteger();
+
+        run(() -> {
+            if (repository.debit(USER_ID, ONE).isPresent()) {
+                acceptes.incrementAndGet();
+            }
+        });
+
+        assertEquals(TOTAL_OPS / 2, acceptes.get(), "Exactement le solde initial doit être débité");
+        assertEquals(0, balance().compareTo(BigDecimal.ZERO), "Jamais de solde négatif");
+    }
+
+    @Test
+    void creditsConcurrentsSansPerteEtPlusRapides() throws Exception {
+        double avant = run(this::readModifyWrite);
+        BigDecimal perdus = BigDecimal.valueOf(TOTAL_OPS).subtract(balance());
+
+        setBalance(0);
+        double apres = run(() -> repository.credit(USER_ID, ONE).orElseThrow());
+
+        System.out.printf("[BENCH] lecture puis écriture : %.0f ops/s, %s crédits perdus%n", avant, perdus);
+        System.out.printf("[BENCH] UPDATE conditionnel   : %.0f ops/s%n", apres);
+        assertEquals(0, balance().compareTo(BigDecimal.valueOf(TOTAL_OPS)), "Aucun crédit perdu");
+        assertTrue(apres > avant, "Une instruction par opération doit battre SELECT + UPDATE");
+    }
+
+    @Test
+    void creditsConcurrentsSurWalletChaud() throws Exception {
+        Long walletId = jdbcTemplate.queryForObject("SELECT id FROM wallets WHERE user_id = ? AND currency = ?",
+                Long.class, USER_ID, CURRENCY);
+        double ligneUnique = run(() -> repository.credit(USER_ID, ONE).orElseThrow());
+
+        setBalance(0);
+        double sousSoldes = run(() -> hotWallets.credit(walletId, ONE));
+        BigDecimal total = hotWallets.total(walletId).getBalance();
+        hotWallets.consolidate(walletId);
+
+        assertEquals(0, total.compareTo(BigDecimal.valueOf(TOTAL_OPS)), "Lecture = somme des sous-soldes");
+        assertEquals(0, balance().compareTo(BigDecimal.valueOf(TOTAL_OPS)), "Aucun crédit perdu à la consolidation");
+        assertTrue(sousSoldes > ligneUnique, String.format("%d sous-soldes (%.0f ops/s) doivent battre la ligne unique (%.0f ops/s)",
+                THREADS, sousSoldes, ligneUnique));
+    }
+
+    /**
+     * L'ancien débit / crédit : lecture du solde, calcul en Java, réécriture, dans une transaction
+     */
+    private void readModifyWrite() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            BigDecimal current;
+            long id;
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id, balance FROM wallets WHERE user_id = ? AND currency = ?")) {
+                select.setLong(1, USER_ID);
+                select.setString(2, CURRENCY);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    id = rs.getLong(1);
+                    current = rs.getBigDecimal(2);
+                }
+            }
+            try (PreparedStatement update = connection.prepareStatement("UPDATE wallets SET balance = ? WHERE id = ?")) {
+                update.setBigDecimal(1, current.add(BigDecimal.ONE));
+                update.setLong(2, id);
+                update.executeUpdate();
+            }
+            connection.commit();
+        }
+    }
+
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * @return opérations par seconde
+     */
+    private static double run(Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(() -> {
+                    for (int i = 0; i < OPS_PER_THREAD; i++) {
+                        operation.run();
+                    }
+                    return null;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+            return TOTAL_OPS / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void deleteWallet() {
+        jdbcTemplate.update("DELETE FROM wallet_sub_balances WHERE wallet_id IN "
+                + "(SELECT id FROM wallets WHERE user_id = ?)", USER_ID);
+        jdbcTemplate.update("DELETE FROM wallets WHERE user_id = ?", USER_ID);
+    }
+
+    private static void setBalance(int balance) {
+        jdbcTemplate.update("UPDATE wallets SET balance = ? WHERE user_id = ? AND currency = ?", balance, USER_ID, CURRENCY);
+    }
+
+    private static BigDecimal balance() {
+        return jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE user_id = ? AND currency = ?",
+                BigDecimal.class, USER_ID, CURRENCY);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.wallet.service;
+
+import com.example.wallet.InMemoryWallets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static com.example.wallet.InMemoryWallets.money;
+import static com.example.wallet.InMemoryWallets.wallet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotWalletServiceTest {
+
+    private static final long WALLET_ID = 7L;
+
+    /** Ligne wallets (solde principal) et table wallet_sub_balances simulées */
+    private final InMemoryWallets wallets = new InMemoryWallets();
+    private final Map<Integer, BigDecimal> subBalances = wallets.subBalances(WALLET_ID);
+    private final HotWalletService service = new HotWalletService(wallets.subBalanceRepository(), "1:EUR, 2:USDT", 4, 0);
+
+    @BeforeEach
+    void setUp() {
+        wallets.add(wallet(WALLET_ID, 1L, "EUR", "5"));
+    }
+
+    @Test
+    void seulsLesWalletsConfiguresSontChauds() {
+        assertTrue(service.isHot(1L, "EUR"));
+        assertTrue(service.isHot(2L, "USDT"));
+        assertFalse(service.isHot(1L, "USDT"));
+        assertFalse(new HotWalletService(null, "", 4, 0).isHot(1L, "EUR"));
+    }
+
+    @Test
+    void creditsRepartisEtLectureAdditionnee() {
+        for (int i = 0; i < 200; i++) {
+            service.credit(WALLET_ID, money("EUR", "1"));
+        }
+
+        assertEquals(4, subBalances.size(), "Lignes de shard créées au premier crédit");
+        assertTrue(subBalances.values().stream().filter(b -> b.signum() > 0).count() > 1, "Crédits répartis");
+        assertEquals(0, service.total(WALLET_ID).getBalance().compareTo(new BigDecimal("205")));
+    }
+
+    @Test
+    void debitSurUnAutreShardPuisConsolidation() {
+        service.credit(WALLET_ID, money("EUR", "1"));
+        subBalances.replaceAll((shard, balance) -> BigDecimal.ZERO);
+        subBalances.put(3, new BigDecimal("10"));
+
+        // un seul shard approvisionné : trouvé quel que soit le shard de départ
+        assertTrue(service.debit(WALLET_ID, money("EUR", "4")));
+        assertEquals(0, subBalances.get(3).compareTo(new BigDecimal("6")));
+        // aucun sous-solde ne couvre 7 seul : au solde principal ou à la consolidation de prendre le relais
+        assertFalse(service.debit(WALLET_ID, money("EUR", "7")));
+
+        assertTrue(service.consolidate(WALLET_ID));
+        assertEquals(0, wallets.row(WALLET_ID).getBalance().compareTo(new BigDecimal("11")));
+        assertTrue(subBalances.values().stream().allMatch(b -> b.signum() == 0));
+        assertFalse(service.consolidate(WALLET_ID), "Rien à reverser");
+    }
+}
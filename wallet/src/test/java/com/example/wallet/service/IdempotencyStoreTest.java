@@ -0,0 +1,159 @@
+package com.example.wallet.service;
+
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.exception.IdempotencyKeyException;
+import com.example.wallet.repository.IdempotencyRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    /** Table wallet_idempotency_keys simulée */
+    private final Map<String, IdempotencyRepository.Row> table = new ConcurrentHashMap<>();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void requeteRejoueeRecoitLaReponseDOrigine() {
+        IdempotencyStore store = store();
+
+        IdempotencyStore.Reply premiere = store.execute("cle-1", "POST /api/wallets/1/debit 10", this::debit);
+        IdempotencyStore.Reply rejeu = store.execute("cle-1", "POST /api/wallets/1/debit 10", this::debit);
+
+        assertEquals(1, executions.get());
+        assertEquals(200, rejeu.status());
+        assertSame(premiere.body(), rejeu.body());
+    }
+
+    @Test
+    void reponseRelueDepuisLaTableApresRedemarrage() {
+        store().execute("cle-1", "debit 10", this::debit);
+
+        // nouvelle instance : cache vide, la table fait foi
+        IdempotencyStore.Reply rejeu = store().execute("cle-1", "debit 10", this::debit);
+
+        assertEquals(1, executions.get());
+        Wallet wallet = (Wallet) rejeu.body();
+        assertEquals(0, wallet.getBalance().compareTo(new BigDecimal("90")));
+    }
+
+    @Test
+    void cleReutiliseePourUneAutreRequeteRefusee() {
+        IdempotencyStore store = store();
+        store.execute("cle-1", "debit 10", this::debit);
+
+        IdempotencyKeyException e = assertThrows(IdempotencyKeyException.class,
+                () -> store.execute("cle-1", "debit 20", this::debit));
+        assertEquals(422, e.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void erreurServeurNonMemoriseeEtCleExpireeReutilisable() {
+        IdempotencyStore store = store();
+        assertEquals(503, store.execute("cle-1", "debit 10", () -> new IdempotencyStore.Reply(503, null)).status());
+        assertTrue(table.isEmpty(), "Clé libérée après un 5xx");
+
+        store.execute("cle-1", "debit 10", this::debit);
+        now.addAndGet(61_000);
+        store().execute("cle-1", "debit 10", this::debit);
+        assertEquals(2, executions.get(), "Clé expirée : requête exécutée à nouveau");
+    }
+
+    @Test
+    void issueInconnueGardeLaCleReservee() {
+        IdempotencyStore store = store();
+        IdempotencyStore.Reply delai = store.execute("cle-1", "debit 10",
+                () -> new IdempotencyStore.Reply(IdempotencyStore.OUTCOME_UNKNOWN, null));
+        assertEquals(504, delai.status());
+
+        // le débit a pu être appliqué : le rejeu ne doit pas l'exécuter une seconde fois
+        IdempotencyKeyException e = assertThrows(IdempotencyKeyException.class,
+                () -> store().execute("cle-1", "debit 10", this::debit));
+        assertEquals(409, e.getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void cleEnCoursRepriseApresLeBail() {
+        // réservée puis instance arrêtée avant la réponse
+        store().execute("cle-1", "debit 10", () -> new IdempotencyStore.Reply(IdempotencyStore.OUTCOME_UNKNOWN, null));
+
+        now.addAndGet(4_000);
+        assertEquals(409, assertThrows(IdempotencyKeyException.class,
+                () -> store().execute("cle-1", "debit 10", this::debit)).getStatus(), "Bail de 5 s en cours");
+
+        now.addAndGet(2_000);
+        assertEquals(200, store().execute("cle-1", "debit 10", this::debit).status(), "Bail expiré, bien avant le TTL");
+        assertEquals(1, executions.get());
+        assertEquals(200, store().execute("cle-1", "debit 10", this::debit).status());
+        assertEquals(1, executions.get(), "Réponse de la reprise mémorisée");
+    }
+
+    @Test
+    void requeteEnCoursRefusee() {
+        IdempotencyStore store = store();
+        IdempotencyKeyException e = assertThrows(IdempotencyKeyException.class,
+                () -> store.execute("cle-1", "debit 10", () -> store.execute("cle-1", "debit 10", this::debit)));
+        assertEquals(409, e.getStatus());
+        assertTrue(table.isEmpty(), "Clé libérée après l'échec de la première requête");
+    }
+
+    private IdempotencyStore.Reply debit() {
+        executions.incrementAndGet();
+        Wallet wallet = new Wallet(1L, "USDT");
+        wallet.setId(7L);
+        wallet.setBalance(new BigDecimal("90"));
+        return new IdempotencyStore.Reply(200, wallet);
+    }
+
+    private IdempotencyStore store() {
+        return new IdempotencyStore(repository(), 60, 5, 100, 0, now::get);
+    }
+
+    private IdempotencyRepository repository() {
+        return new IdempotencyRepository(null) {
+            @Override
+            public boolean claim(String key, String requestHash, Instant expiresAt, Instant at, Instant leaseCutoff) {
+                IdempotencyRepository.Row row = new IdempotencyRepository.Row(requestHash, null, null, null, expiresAt, at);
+                if (table.putIfAbsent(key, row) == null) {
+                    return true;
+                }
+                IdempotencyRepository.Row existing = table.get(key);
+                boolean reclaimable = !existing.expiresAt().isAfter(at)
+                        || (existing.statusCode() == null && !existing.claimedAt().isAfter(leaseCutoff));
+                return reclaimable && table.replace(key, existing, row);
+            }
+
+            @Override
+            public Optional<IdempotencyRepository.Row> find(String key, Instant at) {
+                return Optional.ofNullable(table.get(key)).filter(row -> row.expiresAt().isAfter(at));
+            }
+
+            @Override
+            public void complete(String key, Instant claimedAt, int statusCode, String responseType, String responseBody) {
+                table.computeIfPresent(key, (k, row) -> row.claimedAt().equals(claimedAt) ? new IdempotencyRepository.Row(
+                        row.requestHash(), statusCode, responseType, responseBody, row.expiresAt(), claimedAt) : row);
+            }
+
+            @Override
+            public void release(String key, Instant claimedAt) {
+                table.computeIfPresent(key, (k, row) -> row.statusCode() == null && row.claimedAt().equals(claimedAt) ? null : row);
+            }
+
+            @Override
+            public int deleteExpired(Instant at) {
+                return 0;
+            }
+        };
+    }
+}
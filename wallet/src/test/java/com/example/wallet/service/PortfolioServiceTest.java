@@ -0,0 +1,87 @@
+package com.example.wallet.service;
+
+import com.example.wallet.InMemoryWallets;
+import com.example.wallet.client.PriceServiceClient;
+import com.example.wallet.service.PortfolioService.Valuation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.example.wallet.InMemoryWallets.wallet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioServiceTest {
+
+    private static final Map<String, BigDecimal> PRICES = new TreeMap<>(Map.of(
+            "BTC_EUR", new BigDecimal("40000"),
+            "BTC_USD", new BigDecimal("50000"),
+            "ETH_USD", new BigDecimal("2000")));
+
+    /** Table wallets simulée, parcourue par utilisateur */
+    private final InMemoryWallets wallets = new InMemoryWallets();
+    private final PortfolioService service = new PortfolioService(priceClient(), wallets.scanRepository());
+
+    @Test
+    void prixDirectCroiseEtStablecoin() {
+        assertEquals(0, new BigDecimal("40000").compareTo(PortfolioService.price(PRICES, "BTC", "EUR")));
+        assertEquals(0, new BigDecimal("0.8").compareTo(PortfolioService.price(PRICES, "USD", "EUR")), "BTC_EUR / BTC_USD");
+        assertEquals(0, new BigDecimal("0.8").compareTo(PortfolioService.price(PRICES, "USDT", "EUR")));
+        assertEquals(0, new BigDecimal("1600").compareTo(PortfolioService.price(PRICES, "ETH", "EUR")), "ETH_USD * USD->EUR");
+        assertEquals(0, BigDecimal.ONE.compareTo(PortfolioService.price(PRICES, "USDT", "USD")));
+        assertNull(PortfolioService.price(PRICES, "DOGE", "EUR"));
+    }
+
+    @Test
+    void cibleCryptoParCotationInverse() {
+        assertEquals(0, new BigDecimal("0.000025").compareTo(PortfolioService.price(PRICES, "EUR", "BTC")), "1 / BTC_EUR");
+        assertEquals(0, new BigDecimal("0.04").compareTo(PortfolioService.price(PRICES, "ETH", "BTC")), "ETH_USD / BTC_USD");
+
+        Valuation valuation = service.value(1L, List.of(wallet(1L, 1L, "EUR", "2000"), wallet(2L, 1L, "BTC", "0.1")), "BTC");
+        assertTrue(valuation.unpriced().isEmpty());
+        assertEquals(0, new BigDecimal("0.15").compareTo(valuation.total()), "0.05 + 0.1");
+    }
+
+    @Test
+    void valorisationUnUtilisateurAvecDeviseSansPrix() {
+        Valuation valuation = service.value(1L, List.of(
+                wallet(1L, 1L, "BTC", "0.5"), wallet(2L, 1L, "USDT", "100.004"),
+                wallet(3L, 1L, "DOGE", "10"), wallet(4L, 1L, "ETH", "0")), "EUR");
+
+        assertEquals(0, new BigDecimal("20080.00").compareTo(valuation.total()), "20000 + 80.00");
+        assertEquals(List.of("DOGE"), valuation.unpriced());
+        assertEquals(3, valuation.holdings().size(), "Soldes nuls ignorés");
+        assertNull(valuation.holdings().get(2).value());
+        assertEquals(42L, valuation.pricedAt());
+    }
+
+    @Test
+    void lotRegroupeLesLignesConsecutivesParUtilisateur() throws IOException {
+        wallets.add(wallet(1L, 1L, "BTC", "1"));
+        wallets.add(wallet(2L, 1L, "EUR", "10"));
+        wallets.add(wallet(3L, 2L, "USD", "100"));
+        wallets.add(wallet(4L, 3L, "EUR", "5"));
+
+        List<Valuation> valuations = new ArrayList<>();
+        long users = service.valueAll(service.prices(), "EUR", 0, valuations::add);
+
+        assertEquals(3, users);
+        assertEquals(List.of(1L, 2L, 3L), valuations.stream().map(Valuation::userId).toList());
+        assertEquals(0, new BigDecimal("40010").compareTo(valuations.get(0).total()));
+        assertEquals(0, new BigDecimal("80").compareTo(valuations.get(1).total()));
+        assertEquals(0, new BigDecimal("5").compareTo(valuations.get(2).total()));
+    }
+
+    private static PriceServiceClient priceClient() {
+        return new PriceServiceClient("http://localhost:0", 30) {
+            @Override
+            public Snapshot snapshot() {
+                return new Snapshot(PRICES, 42L);
+            }
+        };
+    }
+}
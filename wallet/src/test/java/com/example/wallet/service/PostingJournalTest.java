@@ -0,0 +1,98 @@
+package com.example.wallet.service;
+
+import com.example.wallet.InMemoryWallets;
+import com.example.wallet.repository.WalletPostingRepository.Posting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.example.wallet.InMemoryWallets.money;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingJournalTest {
+
+    /** Table wallet_postings simulée */
+    private final InMemoryWallets wallets = new InMemoryWallets();
+    private final List<List<Posting>> batches = wallets.batches();
+    private final PostingJournal journal = wallets.journal();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void creditHorsTransactionEquilibreParUneContrepartie() {
+        journal.post("CREDIT", 1L, money("EUR", "25.50"));
+
+        assertEquals(1, batches.size());
+        List<Posting> postings = batches.get(0);
+        assertEquals(2, postings.size());
+        assertEquals(1L, postings.get(0).walletId());
+        assertNull(postings.get(1).walletId(), "Contrepartie externe");
+        assertEquals(0, postings.get(1).amount().compareTo(new BigDecimal("-25.50")));
+        assertBalanced(postings);
+    }
+
+    @Test
+    void virementUneOperationSansContrepartieEnUnBatchAuCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        journal.entry("TRANSFER");
+        journal.post("DEBIT", 1L, money("USDT", "30").negate());
+        journal.post("CREDIT", 2L, money("USDT", "30"));
+        assertTrue(batches.isEmpty(), "Rien d'écrit avant le commit");
+
+        commit();
+
+        assertEquals(1, batches.size());
+        List<Posting> postings = batches.get(0);
+        assertEquals(2, postings.size());
+        assertTrue(postings.stream().allMatch(p -> p.walletId() != null && "TRANSFER".equals(p.type())));
+        assertEquals(1, postings.stream().map(Posting::entryId).distinct().count());
+        assertBalanced(postings);
+    }
+
+    @Test
+    void lotMultiDevisesEquilibreParDeviseEtRollbackSansEcriture() {
+        TransactionSynchronizationManager.initSynchronization();
+        journal.entry("LEGS");
+        journal.post("DEBIT", 2L, money("USDT", "60").negate());
+        journal.post("CREDIT", 2L, money("BTC", "0.5"));
+        commit();
+
+        List<Posting> postings = batches.get(0);
+        assertEquals(4, postings.size(), "Une contrepartie par devise");
+        assertBalanced(postings);
+
+        TransactionSynchronizationManager.initSynchronization();
+        journal.post("CREDIT", 3L, money("EUR", "10"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals(1, batches.size(), "Transaction annulée : aucune écriture");
+    }
+
+    /**
+     * Ce que fait le gestionnaire de transactions au commit
+     */
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void assertBalanced(List<Posting> postings) {
+        Map<String, BigDecimal> sums = postings.stream().collect(Collectors.groupingBy(Posting::currency,
+                Collectors.reducing(BigDecimal.ZERO, Posting::amount, BigDecimal::add)));
+        sums.forEach((currency, sum) -> assertEquals(0, sum.signum(), "Somme nulle en " + currency));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.wallet.service;
+
+import com.example.wallet.entity.Wallet;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletBalanceCacheTest {
+
+    @Test
+    void versionPlusAncienneNeRemplacePasLaPlusRecente() {
+        WalletBalanceCache cache = new WalletBalanceCache(100, 60);
+
+        cache.update(wallet(1L, 5, "50"));
+        cache.update(wallet(1L, 4, "40")); // lecture en base concurrente, arrivée après le débit
+
+        Wallet cached = cache.get(7L, "USDT");
+        assertEquals(5, cached.getVersion());
+        assertEquals(0, cached.getBalance().compareTo(new BigDecimal("50")));
+    }
+
+    @Test
+    void walletRecreeRemplaceLAncien() {
+        WalletBalanceCache cache = new WalletBalanceCache(100, 60);
+
+        cache.update(wallet(1L, 9, "90"));
+        cache.update(wallet(2L, 0, "0"));
+
+        assertEquals(2L, cache.get(7L, "USDT").getId());
+    }
+
+    @Test
+    void copieRenvoyeeEtInvalidation() {
+        WalletBalanceCache cache = new WalletBalanceCache(100, 60);
+        cache.update(wallet(1L, 1, "10"));
+
+        cache.get(7L, "USDT").setBalance(BigDecimal.ZERO);
+        assertEquals(0, cache.get(7L, "USDT").getBalance().compareTo(BigDecimal.TEN));
+
+        cache.invalidate(7L, "USDT");
+        assertNull(cache.get(7L, "USDT"));
+    }
+
+    private static Wallet wallet(Long id, long version, String balance) {
+        Wallet wallet = new Wallet(7L, "USDT");
+        wallet.setId(id);
+        wallet.setVersion(version);
+        wallet.setBalance(new BigDecimal(balance));
+        return wallet;
+    }
+}
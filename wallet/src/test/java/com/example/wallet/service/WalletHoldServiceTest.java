@@ -0,0 +1,96 @@
+package com.example.wallet.service;
+
+import com.example.wallet.InMemoryWallets;
+import com.example.wallet.entity.Wallet;
+import com.example.wallet.exception.HoldExpiredException;
+import com.example.wallet.repository.WalletHoldRepository;
+import com.example.wallet.repository.WalletPostingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.wallet.InMemoryWallets.money;
+import static com.example.wallet.InMemoryWallets.wallet;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletHoldServiceTest {
+
+    /** Wallet unique (user 1, USDT) et table wallet_holds simulés */
+    private final InMemoryWallets wallets = new InMemoryWallets();
+    private final Map<String, WalletHoldRepository.Taken> holds = new HashMap<>();
+    private final Map<String, Instant> expirations = new HashMap<>();
+    private final WalletBalanceCache cache = new WalletBalanceCache(100, 60);
+    private final PostingJournal journal = wallets.journal();
+    private final WalletService walletService = wallets.walletService(cache, journal);
+    private final WalletHoldService service = new WalletHoldService(wallets.balanceRepository(), holdRepository(),
+            walletService, cache, journal, 60, 3600, 0);
+
+    @BeforeEach
+    void setUp() {
+        wallets.add(wallet(1L, 1L, "USDT", "100"));
+    }
+
+    @Test
+    void holdReduitLeDisponibleSansToucherAuSolde() {
+        WalletHoldService.Hold hold = service.reserve(1L, money("USDT", "70"), 0);
+
+        assertEquals(0, hold.wallet().getBalance().compareTo(new BigDecimal("100")));
+        assertEquals(0, hold.wallet().getHeld().compareTo(new BigDecimal("70")));
+        assertThrows(IllegalStateException.class, () -> service.reserve(1L, money("USDT", "31"), 0));
+        assertEquals(0, cache.get(1L, "USDT").getHeld().compareTo(new BigDecimal("70")));
+    }
+
+    @Test
+    void captureUneSeuleFois() {
+        String holdId = service.reserve(1L, money("USDT", "60"), 0).holdId();
+
+        List<Wallet> captured = service.capture(holdId, List.of(WalletLeg.credit(1L, money("BTC", "0.5"))));
+
+        assertEquals(0, captured.get(0).getBalance().compareTo(new BigDecimal("40")));
+        assertEquals(0, captured.get(0).getHeld().signum());
+        assertEquals(0, captured.get(1).getBalance().compareTo(new BigDecimal("0.5")));
+        // capture hors transaction : débit puis crédit, chacun avec sa contrepartie ; rien pour le hold lui-même
+        List<WalletPostingRepository.Posting> postings = wallets.postings();
+        assertEquals(4, postings.size());
+        assertEquals("CAPTURE", postings.get(0).type());
+        assertEquals(0, postings.get(0).amount().compareTo(new BigDecimal("-60")));
+        assertThrows(HoldExpiredException.class, () -> service.capture(holdId, List.of()));
+        assertThrows(HoldExpiredException.class, () -> service.release(holdId));
+    }
+
+    @Test
+    void ttlBorneEtHoldExpireNonCapturable() {
+        WalletHoldService.Hold hold = service.reserve(1L, money("USDT", "10"), 1_000_000);
+        assertFalse(hold.expiresAt().isAfter(Instant.now().plusSeconds(3600)));
+
+        expirations.put(hold.holdId(), Instant.now().minusSeconds(1));
+        assertThrows(HoldExpiredException.class, () -> service.capture(hold.holdId(), List.of()));
+        // réservation rendue par le refus même, sans attendre le balayage : le débit direct passe
+        assertEquals(0, wallets.row(1L).getHeld().signum());
+        assertEquals(0, cache.get(1L, "USDT").getHeld().signum());
+        assertEquals(0, walletService.debit(1L, money("USDT", "100")).getBalance().signum());
+    }
+
+    private WalletHoldRepository holdRepository() {
+        return new WalletHoldRepository(null) {
+            @Override
+            public void insert(String holdId, Long walletId, BigDecimal amount, Instant expiresAt) {
+                holds.put(holdId, new Taken(walletId, amount, false));
+                expirations.put(holdId, expiresAt);
+            }
+
+            @Override
+            public Optional<Taken> take(String holdId, Instant now) {
+                Instant expiresAt = expirations.remove(holdId);
+                return Optional.ofNullable(holds.remove(holdId))
+                        .map(hold -> new Taken(hold.walletId(), hold.amount(), !expiresAt.isAfter(now)));
+            }
+        };
+    }
+}